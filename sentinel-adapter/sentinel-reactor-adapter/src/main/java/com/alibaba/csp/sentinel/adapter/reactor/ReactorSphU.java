@@ -18,16 +18,19 @@ package com.alibaba.csp.sentinel.adapter.reactor;
 import java.util.concurrent.atomic.AtomicReference;
 
 import com.alibaba.csp.sentinel.AsyncEntry;
+import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 
 import reactor.core.publisher.Mono;
 
 /**
- * A {@link SphU} adapter with Project Reactor.
+ * A {@link SphU} adapter with Project Reactor. The Sentinel context is taken from (and propagated through)
+ * the Reactor subscriber context. The context of the subscribing thread is only used if absent.
  *
  * @author Eric Zhao
  * @since 1.5.0
@@ -40,9 +43,15 @@ public final class ReactorSphU {
 
     public static <R> Mono<R> entryWith(String resourceName, EntryType entryType, Mono<R> actual) {
         final AtomicReference<AsyncEntry> entryWrapper = new AtomicReference<>(null);
-        return Mono.defer(() -> {
+        return Mono.subscriberContext().flatMap(subscriberContext -> {
+            Context parentContext = subscriberContext.<Context>getOrEmpty(SentinelReactorConstants.SENTINEL_CONTEXT_KEY)
+                .orElseGet(() -> {
+                    Context threadContext = ContextUtil.getContext();
+                    return threadContext != null ? threadContext
+                        : ContextUtil.newDetachedContext(Constants.CONTEXT_DEFAULT_NAME, "");
+                });
             try {
-                AsyncEntry entry = SphU.asyncEntry(resourceName, entryType);
+                AsyncEntry entry = SphU.asyncEntryWithContext(parentContext, resourceName, entryType);
                 entryWrapper.set(entry);
                 return actual.subscriberContext(context -> {
                     if (entry == null) {
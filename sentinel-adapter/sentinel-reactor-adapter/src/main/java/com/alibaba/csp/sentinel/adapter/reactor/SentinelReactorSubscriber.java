@@ -19,18 +19,27 @@ import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.alibaba.csp.sentinel.AsyncEntry;
+import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.Tracer;
 import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.util.AssertUtil;
-import com.alibaba.csp.sentinel.util.function.Supplier;
 
 import org.reactivestreams.Subscription;
 import reactor.core.CoreSubscriber;
 import reactor.util.context.Context;
 
 /**
+ * <p>
+ * The Sentinel context is passed explicitly: entries are created via
+ * {@link SphU#asyncEntryWithContext(com.alibaba.csp.sentinel.context.Context, String, int,
+ * com.alibaba.csp.sentinel.EntryType, int, Object[])} with the parent context taken from the Reactor
+ * subscriber context (or created from the {@link ContextConfig}, or the context of the subscribing
+ * thread), and the async context of the entry is propagated to upstream operators through the Reactor
+ * subscriber context. So no thread-local context will be swapped when signals hop between threads.
+ * </p>
+ *
  * @author Eric Zhao
  * @since 1.5.0
  */
@@ -70,27 +79,36 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
             .put(SentinelReactorConstants.SENTINEL_CONTEXT_KEY, currentEntry.getAsyncContext());
     }
 
-    private void doWithContextOrCurrent(Supplier<Optional<com.alibaba.csp.sentinel.context.Context>> contextSupplier,
-                                        Runnable f) {
-        Optional<com.alibaba.csp.sentinel.context.Context> contextOpt = contextSupplier.get();
-        if (!contextOpt.isPresent()) {
-            // Provided context is absent, use current context.
-            f.run();
-        } else {
-            // Run on provided context.
-            ContextUtil.runOnContext(contextOpt.get(), f);
+    /**
+     * Resolve the parent context of the entry. The Sentinel context provided by downstream operators
+     * takes precedence, then the context config of the entry, then the context entered on the
+     * subscribing thread (via {@link ContextUtil#enter(String, String)}), and the default context otherwise.
+     *
+     * @return the parent context
+     */
+    private com.alibaba.csp.sentinel.context.Context resolveParentContext() {
+        Optional<com.alibaba.csp.sentinel.context.Context> provided = currentContext()
+            .getOrEmpty(SentinelReactorConstants.SENTINEL_CONTEXT_KEY);
+        if (provided.isPresent()) {
+            return provided.get();
         }
-    }
-
-    private void entryWhenSubscribed() {
         ContextConfig sentinelContextConfig = entryConfig.getContextConfig();
         if (sentinelContextConfig != null) {
-            // If current we're already in a context, the context config won't work.
-            ContextUtil.enter(sentinelContextConfig.getContextName(), sentinelContextConfig.getOrigin());
+            return ContextUtil.newDetachedContext(sentinelContextConfig.getContextName(),
+                sentinelContextConfig.getOrigin());
         }
+        com.alibaba.csp.sentinel.context.Context threadContext = ContextUtil.getContext();
+        if (threadContext != null) {
+            return threadContext;
+        }
+        return ContextUtil.newDetachedContext(Constants.CONTEXT_DEFAULT_NAME, "");
+    }
+
+    private void entryWhenSubscribed() {
         try {
-            AsyncEntry entry = SphU.asyncEntry(entryConfig.getResourceName(), entryConfig.getResourceType(),
-                entryConfig.getEntryType(), entryConfig.getAcquireCount(), entryConfig.getArgs());
+            AsyncEntry entry = SphU.asyncEntryWithContext(resolveParentContext(), entryConfig.getResourceName(),
+                entryConfig.getResourceType(), entryConfig.getEntryType(), entryConfig.getAcquireCount(),
+                entryConfig.getArgs());
             this.currentEntry = entry;
             actual.onSubscribe(this);
         } catch (BlockException ex) {
@@ -100,17 +118,12 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
             cancel();
             actual.onSubscribe(this);
             actual.onError(ex);
-        } finally {
-            if (sentinelContextConfig != null) {
-                ContextUtil.exit();
-            }
         }
     }
 
     @Override
     protected void hookOnSubscribe(Subscription subscription) {
-        doWithContextOrCurrent(() -> currentContext().getOrEmpty(SentinelReactorConstants.SENTINEL_CONTEXT_KEY),
-            this::entryWhenSubscribed);
+        entryWhenSubscribed();
     }
 
     @Override
@@ -119,8 +132,7 @@ public class SentinelReactorSubscriber<T> extends InheritableBaseSubscriber<T> {
             tryCompleteEntry();
             return;
         }
-        doWithContextOrCurrent(() -> Optional.ofNullable(currentEntry).map(AsyncEntry::getAsyncContext),
-            () -> actual.onNext(value));
+        actual.onNext(value);
 
         if (unary) {
             // For some cases of unary operator (Mono), we have to do this during onNext hook.
@@ -6,8 +6,11 @@ import java.util.Collections;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.node.ClusterNode;
+import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.node.EntranceNode;
+import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
@@ -16,6 +19,7 @@ import com.alibaba.csp.sentinel.slots.clusterbuilder.ClusterBuilderSlot;
 import org.junit.Test;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import reactor.test.StepVerifier;
 
 import static org.junit.Assert.*;
@@ -184,6 +188,70 @@ public class MonoSentinelOperatorIntegrationTest {
         FlowRuleManager.loadRules(new ArrayList<>());
     }
 
+    @Test
+    public void testNestedEntryWithExplicitContext() {
+        String outerResource = createResourceName("testNestedEntryWithExplicitContextOuter");
+        String innerResource = createResourceName("testNestedEntryWithExplicitContextInner");
+        String contextName = "test_reactive_explicit_context";
+        StepVerifier.create(Mono.just(1)
+            .flatMap(v -> ReactorSphU.entryWith(innerResource, Mono.fromCallable(() -> {
+                // The Sentinel context is passed via the subscriber context rather than the thread-local context.
+                assertNull(ContextUtil.getContext());
+                return v;
+            }).subscribeOn(Schedulers.parallel())))
+            .transform(new SentinelReactorTransformer<>(
+                new EntryConfig(outerResource, EntryType.IN, new ContextConfig(contextName, "originB")))))
+            .expectNext(1)
+            .verifyComplete();
+
+        EntranceNode entranceNode = Constants.ROOT.getChildList()
+            .stream()
+            .filter(node -> node instanceof EntranceNode)
+            .map(e -> (EntranceNode)e)
+            .filter(e -> e.getId().getName().equals(contextName))
+            .findFirst()
+            .orElse(null);
+        assertNotNull(entranceNode);
+        assertTrue(hasDescendant(entranceNode, outerResource));
+        assertTrue(hasDescendant(entranceNode, innerResource));
+        assertNull(ContextUtil.getContext());
+    }
+
+    @Test
+    public void testEntryWithThreadContext() {
+        String resourceName = createResourceName("testEntryWithThreadContext");
+        String contextName = "test_reactive_thread_context";
+        ContextUtil.enter(contextName, "originC");
+        try {
+            StepVerifier.create(Mono.just(1)
+                .transform(new SentinelReactorTransformer<>(resourceName)))
+                .expectNext(1)
+                .verifyComplete();
+        } finally {
+            ContextUtil.exit();
+        }
+
+        EntranceNode entranceNode = Constants.ROOT.getChildList()
+            .stream()
+            .filter(node -> node instanceof EntranceNode)
+            .map(e -> (EntranceNode)e)
+            .filter(e -> e.getId().getName().equals(contextName))
+            .findFirst()
+            .orElse(null);
+        assertNotNull(entranceNode);
+        assertTrue(hasDescendant(entranceNode, resourceName));
+    }
+
+    private boolean hasDescendant(DefaultNode node, String resourceName) {
+        for (Node child : node.getChildList()) {
+            DefaultNode childNode = (DefaultNode)child;
+            if (childNode.getId().getName().equals(resourceName) || hasDescendant(childNode, resourceName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String createResourceName(String resourceName) {
         return "reactor_test_mono_" + resourceName;
     }
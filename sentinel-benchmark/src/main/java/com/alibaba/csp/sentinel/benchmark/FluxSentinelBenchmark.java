@@ -0,0 +1,92 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.adapter.reactor.ContextConfig;
+import com.alibaba.csp.sentinel.adapter.reactor.EntryConfig;
+import com.alibaba.csp.sentinel.adapter.reactor.SentinelReactorTransformer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Throughput of a {@link Flux} with and without the Sentinel reactor operator. The {@code hop} variants
+ * publish every element on another scheduler, so signals keep hopping between threads.
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class FluxSentinelBenchmark {
+
+    private static final String RESOURCE_NAME = "flux-benchmark";
+
+    @Param({"1", "100"})
+    private int elements;
+
+    private final SentinelReactorTransformer<Integer> transformer = new SentinelReactorTransformer<>(
+        new EntryConfig(RESOURCE_NAME, EntryType.IN, new ContextConfig("flux-benchmark-context")));
+
+    private Flux<Integer> source() {
+        return Flux.range(0, elements).map(i -> i + 1);
+    }
+
+    private Flux<Integer> hoppingSource() {
+        return source().publishOn(Schedulers.parallel());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer testFluxWithoutSentinel() {
+        return source().blockLast();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer testFluxWithSentinel() {
+        return source().transform(transformer).blockLast();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer testHoppingFluxWithoutSentinel() {
+        return hoppingSource().blockLast();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer testHoppingFluxWithSentinel() {
+        return hoppingSource().transform(transformer).blockLast();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.Entry;
+import com.alibaba.csp.sentinel.SphU;
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.slots.block.BlockException;
+
+/**
+ * <p>Runs {@link SphU#entry(String)} on a large number of virtual threads (100k by default).</p>
+ * <p>
+ * Every task enters one of {@code contexts} contexts and one of {@code resources} resources, so the
+ * context / slot chain / node creation paths are hit concurrently on first use, then blocks for
+ * {@code blockMs} milliseconds inside the entry. A virtual thread blocking while holding a monitor would
+ * pin its carrier thread, so with {@code -Djdk.tracePinnedThreads=full} no stack trace of Sentinel frames
+ * should be printed, and the elapsed time should stay close to {@code blockMs}, not
+ * {@code tasks * blockMs / carriers}.
+ * </p>
+ * <p>
+ * Virtual threads are created reflectively (JDK 21+), so the test still compiles on Java 8. On older
+ * runtimes it falls back to a pool of {@code platformThreads} platform threads for comparison.
+ * </p>
+ * <pre>
+ * java -Djdk.tracePinnedThreads=full -cp benchmarks.jar \
+ *     com.alibaba.csp.sentinel.benchmark.VirtualThreadEntryTest tasks=100000 resources=1000 blockMs=10
+ * </pre>
+ *
+ * @author Eric Zhao
+ */
+public class VirtualThreadEntryTest {
+
+    private final int taskCount;
+    private final int resourceCount;
+    private final int contextCount;
+    private final int blockMs;
+    private final int platformThreads;
+
+    private final AtomicLong passed = new AtomicLong();
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    public VirtualThreadEntryTest(Map<String, String> options) {
+        this.taskCount = intOption(options, "tasks", 100_000);
+        this.resourceCount = intOption(options, "resources", 1000);
+        this.contextCount = intOption(options, "contexts", 100);
+        this.blockMs = intOption(options, "blockMs", 10);
+        this.platformThreads = intOption(options, "platformThreads", 200);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int idx = arg.indexOf('=');
+            if (idx > 0) {
+                options.put(arg.substring(0, idx), arg.substring(idx + 1));
+            }
+        }
+        new VirtualThreadEntryTest(options).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        ExecutorService executor = newVirtualThreadExecutor();
+        boolean virtual = executor != null;
+        if (!virtual) {
+            System.out.printf("Virtual threads are not available on Java %s, falling back to %d platform threads%n",
+                System.getProperty("java.version"), platformThreads);
+            executor = Executors.newFixedThreadPool(platformThreads);
+        }
+        System.out.printf("Running %d tasks (resources=%d, contexts=%d, blockMs=%d, virtual=%s)%n",
+            taskCount, resourceCount, contextCount, blockMs, virtual);
+
+        final CountDownLatch latch = new CountDownLatch(taskCount);
+        long start = System.nanoTime();
+        for (int i = 0; i < taskCount; i++) {
+            final int id = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        doEntry(id);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        latch.await();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        executor.shutdown();
+
+        System.out.printf("Elapsed: %d ms, passed: %d, blocked: %d, errors: %d%n",
+            elapsedMs, passed.get(), blocked.get(), errors.get());
+        System.out.printf("Context names: %d%n", ContextUtil.contextSize());
+    }
+
+    private void doEntry(int id) {
+        ContextUtil.enter("vt-context-" + (id % contextCount));
+        Entry entry = null;
+        try {
+            entry = SphU.entry("vt-resource-" + (id % resourceCount));
+            passed.incrementAndGet();
+            if (blockMs > 0) {
+                Thread.sleep(blockMs);
+            }
+        } catch (BlockException ex) {
+            blocked.incrementAndGet();
+        } catch (Throwable ex) {
+            errors.incrementAndGet();
+        } finally {
+            if (entry != null) {
+                entry.exit();
+            }
+            ContextUtil.exit();
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Throwable ex) {
+            return null;
+        }
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+}
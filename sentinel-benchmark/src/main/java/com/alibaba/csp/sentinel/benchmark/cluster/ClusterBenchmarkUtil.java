@@ -0,0 +1,106 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+import com.alibaba.csp.sentinel.cluster.client.NettyTransportClient;
+import com.alibaba.csp.sentinel.cluster.server.NettyTransportServer;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+
+/**
+ * Helpers shared by the cluster token server benchmarks.
+ *
+ * @author Eric Zhao
+ */
+public final class ClusterBenchmarkUtil {
+
+    private static final long READY_TIMEOUT_MS = 10_000;
+
+    public static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Wait until the given port accepts connections.
+     *
+     * @param host server host
+     * @param port server port
+     * @throws Exception if the port is not reachable in time
+     */
+    public static void awaitPort(String host, int port) throws Exception {
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MS;
+        while (true) {
+            try (Socket socket = new Socket()) {
+                socket.connect(new InetSocketAddress(host, port), 100);
+                return;
+            } catch (IOException ex) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("Port not reachable: " + host + ":" + port, ex);
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Start a token server and wait until it's bound to its port.
+     *
+     * @param server the token server to start
+     * @throws Exception if the server could not start in time
+     */
+    public static void startServer(NettyTransportServer server) throws Exception {
+        server.start();
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MS;
+        while (server.getCurrentState() != ServerConstants.SERVER_STATUS_STARTED) {
+            if (System.currentTimeMillis() > deadline) {
+                server.stop();
+                throw new IllegalStateException("Token server not started");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Start a transport client and wait until it's connected to the token server.
+     *
+     * @param host server host
+     * @param port server port
+     * @return a connected transport client
+     * @throws Exception if the client could not get ready in time
+     */
+    public static NettyTransportClient startClient(String host, int port) throws Exception {
+        NettyTransportClient client = new NettyTransportClient(host, port);
+        client.start();
+        long deadline = System.currentTimeMillis() + READY_TIMEOUT_MS;
+        while (!client.isReady()) {
+            if (System.currentTimeMillis() > deadline) {
+                client.stop();
+                throw new IllegalStateException("Transport client not ready: " + host + ":" + port);
+            }
+            Thread.sleep(10);
+        }
+        return client;
+    }
+
+    private ClusterBenchmarkUtil() {}
+}
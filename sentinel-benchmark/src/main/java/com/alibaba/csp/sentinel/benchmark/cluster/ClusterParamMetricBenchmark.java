@@ -0,0 +1,100 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamMetric;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of the cluster parameter metric used by the token server, with 1k to 1M distinct
+ * parameter values (the LRU capacity is the same as the distinct value count).
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ClusterParamMetricBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int distinctValues;
+
+    private ClusterParamMetric metric;
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        metric = new ClusterParamMetric(10, 1000, distinctValues);
+        values = new String[distinctValues];
+        for (int i = 0; i < distinctValues; i++) {
+            values[i] = "value-" + i;
+            metric.addValue(values[i], 1);
+        }
+    }
+
+    private String nextValue() {
+        return values[ThreadLocalRandom.current().nextInt(values.length)];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public double testTryAddValue1Thread() {
+        return metric.tryAddValue(nextValue(), 1, Double.MAX_VALUE);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public double testTryAddValue8Threads() {
+        return metric.tryAddValue(nextValue(), 1, Double.MAX_VALUE);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public double testGetAvg8Threads() {
+        return metric.getAvg(nextValue());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Map<Object, Double> testGetTopValues() {
+        return metric.getTopValues(5);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Map<Object, Double> testGetHotValues() {
+        return metric.getHotValues(5);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.flow.ConcurrentClusterFlowChecker;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNodeManager;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark of acquiring and releasing concurrent (thread-grade) cluster tokens on the token server
+ * while a large amount of tokens (100k by default) are outstanding, so the cost of tracking and
+ * expiring tokens is included.</p>
+ * <p>
+ * {@code testAcquireAndBatchRelease} acquires {@code batchSize} tokens and releases them with one batch
+ * release, so its score should be multiplied by {@code batchSize} to compare with {@code testAcquireAndRelease}.
+ * </p>
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class ConcurrentTokenBenchmark {
+
+    private static final String NAMESPACE = "concurrent-token-benchmark";
+    private static final String CLIENT_ADDRESS = "127.0.0.1:12345";
+    private static final long FLOW_ID = 300000L;
+
+    @Param({"100000"})
+    private int outstandingTokens;
+
+    private FlowRule rule;
+    private List<Long> outstandingTokenIds;
+
+    @Setup
+    public void setUp() {
+        ClusterFlowConfig config = new ClusterFlowConfig()
+            .setFlowId(FLOW_ID)
+            .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL);
+        // Keep the outstanding tokens alive during the whole benchmark.
+        config.setResourceTimeout(TimeUnit.HOURS.toMillis(1));
+        config.setClientOfflineTime(TimeUnit.HOURS.toMillis(1));
+        FlowRule flowRule = new FlowRule("concurrentTokenBenchmark")
+            .setGrade(RuleConstant.FLOW_GRADE_THREAD)
+            .setCount(Integer.MAX_VALUE)
+            .setClusterMode(true)
+            .setClusterConfig(config);
+        ClusterFlowRuleManager.registerPropertyIfAbsent(NAMESPACE);
+        ClusterFlowRuleManager.loadRules(NAMESPACE, Collections.singletonList(flowRule));
+        ConnectionManager.addConnection(NAMESPACE, CLIENT_ADDRESS);
+        this.rule = ClusterFlowRuleManager.getFlowRuleById(FLOW_ID);
+
+        outstandingTokenIds = new ArrayList<>(outstandingTokens);
+        for (int i = 0; i < outstandingTokens; i++) {
+            outstandingTokenIds.add(acquire());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ConcurrentClusterFlowChecker.releaseConcurrentTokens(outstandingTokenIds);
+        ClusterFlowRuleManager.removeProperty(NAMESPACE);
+        System.out.println("Tokens left in cache: " + TokenCacheNodeManager.getSize());
+    }
+
+    private long acquire() {
+        TokenResult result = ConcurrentClusterFlowChecker.acquireConcurrentToken(CLIENT_ADDRESS, rule, 1);
+        if (result.getStatus() != TokenResultStatus.OK) {
+            throw new IllegalStateException("Unexpected token status: " + result.getStatus());
+        }
+        return result.getTokenId();
+    }
+
+    @State(Scope.Thread)
+    public static class BatchState {
+        @Param({"16", "128"})
+        private int batchSize;
+
+        private List<Long> batch;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object testAcquireAndRelease() {
+        return ConcurrentClusterFlowChecker.releaseConcurrentToken(acquire());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int testAcquireAndBatchRelease(BatchState state) {
+        List<Long> batch = state.batch;
+        batch.clear();
+        for (int i = 0; i < state.batchSize; i++) {
+            batch.add(acquire());
+        }
+        return ConcurrentClusterFlowChecker.releaseConcurrentTokens(batch);
+    }
+}
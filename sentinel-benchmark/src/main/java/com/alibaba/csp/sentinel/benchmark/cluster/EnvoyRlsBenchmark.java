@@ -0,0 +1,208 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.SentinelRlsGrpcServer;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsRule;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsRule.KeyValueResource;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsRule.ResourceDescriptor;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsRuleManager;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoySentinelRuleConverter;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.service.v3.SentinelEnvoyRlsServiceImpl;
+import com.alibaba.csp.sentinel.init.InitExecutor;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import io.envoyproxy.envoy.extensions.common.ratelimit.v3.RateLimitDescriptor;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitRequest;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitResponse;
+import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Benchmark of the Envoy RLS token server.</p>
+ * <p>
+ * The {@code testEvaluate*} benchmarks call the v3 service directly, so the single-thread throughput is
+ * the QPS per core of descriptor evaluation. The {@code testGrpc*} benchmarks run a local gRPC load
+ * against the server with given executor (see {@link SentinelRlsGrpcServer}). The in-process transport
+ * is used as this module pins an older Netty for the token server benchmarks than grpc-netty requires.
+ * {@code testStringKeyLookup} resolves the rules in the former way (by building the resource key)
+ * for comparison with {@code testTrieLookup}.
+ * </p>
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class EnvoyRlsBenchmark {
+
+    private static final String SERVER_NAME = "sentinel-rls-benchmark";
+    private static final String DOMAIN = "benchmark";
+
+    @Param({"-1", "0"})
+    private int executorThreads;
+
+    @Param({"1000"})
+    private int ruleCount;
+
+    private SentinelRlsGrpcServer server;
+    private ManagedChannel channel;
+    private RateLimitServiceGrpc.RateLimitServiceBlockingStub stub;
+
+    private final SentinelEnvoyRlsServiceImpl service = new SentinelEnvoyRlsServiceImpl();
+    private RateLimitRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        InitExecutor.doInit();
+        List<ResourceDescriptor> descriptors = new ArrayList<>(ruleCount * 2);
+        for (int i = 0; i < ruleCount; i++) {
+            descriptors.add(new ResourceDescriptor(
+                Collections.singleton(new KeyValueResource("remote_address", "10.0.0." + i)), 1e9));
+            descriptors.add(new ResourceDescriptor(new LinkedHashSet<>(Arrays.asList(
+                new KeyValueResource("path", "/api/" + i), new KeyValueResource("method", "GET"))), 1e9));
+        }
+        EnvoyRlsRule rule = new EnvoyRlsRule();
+        rule.setDomain(DOMAIN);
+        rule.setDescriptors(descriptors);
+        EnvoyRlsRuleManager.loadRules(Collections.singletonList(rule));
+
+        int target = ruleCount / 2;
+        request = RateLimitRequest.newBuilder()
+            .setDomain(DOMAIN)
+            .addDescriptors(RateLimitDescriptor.newBuilder()
+                .addEntries(entry("remote_address", "10.0.0." + target)))
+            .addDescriptors(RateLimitDescriptor.newBuilder()
+                .addEntries(entry("path", "/api/" + target))
+                .addEntries(entry("method", "GET")))
+            // Descriptor without rules.
+            .addDescriptors(RateLimitDescriptor.newBuilder()
+                .addEntries(entry("path", "/absent")))
+            .build();
+
+        server = new SentinelRlsGrpcServer(InProcessServerBuilder.forName(SERVER_NAME), executorThreads);
+        server.start();
+        channel = InProcessChannelBuilder.forName(SERVER_NAME).build();
+        stub = RateLimitServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdown();
+        EnvoyRlsRuleManager.loadRules(new ArrayList<EnvoyRlsRule>());
+    }
+
+    private static RateLimitDescriptor.Entry entry(String key, String value) {
+        return RateLimitDescriptor.Entry.newBuilder().setKey(key).setValue(value).build();
+    }
+
+    private RateLimitResponse evaluate() {
+        ResponseHolder holder = new ResponseHolder();
+        service.shouldRateLimit(request, holder);
+        return holder.response;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object testEvaluate1Thread() {
+        return evaluate();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object testEvaluate8Threads() {
+        return evaluate();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object testTrieLookup() {
+        RateLimitDescriptor descriptor = request.getDescriptors(1);
+        return EnvoyRlsRuleManager.getDescriptorTrie().getDomainRoot(DOMAIN)
+            .next(descriptor.getEntries(0).getKey(), descriptor.getEntries(0).getValue())
+            .next(descriptor.getEntries(1).getKey(), descriptor.getEntries(1).getValue())
+            .getRule();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object testStringKeyLookup() {
+        RateLimitDescriptor descriptor = request.getDescriptors(1);
+        StringBuilder sb = new StringBuilder(DOMAIN);
+        for (RateLimitDescriptor.Entry entry : descriptor.getEntriesList()) {
+            sb.append(EnvoySentinelRuleConverter.SEPARATOR).append(entry.getKey())
+                .append(EnvoySentinelRuleConverter.SEPARATOR).append(entry.getValue());
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(EnvoySentinelRuleConverter.generateFlowId(sb.toString()));
+        return rule;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object testGrpc1Thread() {
+        return stub.shouldRateLimit(request);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Object testGrpc16Threads() {
+        return stub.shouldRateLimit(request);
+    }
+
+    private static class ResponseHolder implements StreamObserver<RateLimitResponse> {
+
+        private RateLimitResponse response;
+
+        @Override
+        public void onNext(RateLimitResponse value) {
+            this.response = value;
+        }
+
+        @Override
+        public void onError(Throwable t) {}
+
+        @Override
+        public void onCompleted() {}
+    }
+}
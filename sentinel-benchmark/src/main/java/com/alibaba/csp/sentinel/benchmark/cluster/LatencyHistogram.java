@@ -0,0 +1,106 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+/**
+ * <p>A log-linear latency histogram (in microseconds) with ~6% relative precision.</p>
+ * <p>
+ * The histogram is not thread-safe: each load generator thread records into its own
+ * instance and the instances are merged when the run ends, so recording never contends.
+ * </p>
+ *
+ * @author Eric Zhao
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDE_COUNT = 64 - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[(MAGNITUDE_COUNT + 1) * SUB_BUCKET_COUNT];
+    private long totalCount;
+    private long maxValue;
+    private long sum;
+
+    public void record(long valueMicros) {
+        long value = Math.max(0, valueMicros);
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        if (value > maxValue) {
+            maxValue = value;
+        }
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * @param percentile percentile in range (0, 100]
+     * @return the upper bound (in microseconds) of the bucket holding the given percentile
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long)Math.ceil(totalCount * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(upperBoundOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double)sum / totalCount;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int magnitude = highestBit - SUB_BUCKET_BITS + 1;
+        int subBucket = (int)(value >>> (magnitude - 1)) - SUB_BUCKET_COUNT;
+        return magnitude * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        int magnitude = index / SUB_BUCKET_COUNT;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        if (magnitude == 0) {
+            return subBucket;
+        }
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << (magnitude - 1)) - 1;
+    }
+}
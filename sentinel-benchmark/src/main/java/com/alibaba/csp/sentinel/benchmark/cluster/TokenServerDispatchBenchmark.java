@@ -0,0 +1,161 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.NettyTransportClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.server.NettyTransportServer;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.init.InitExecutor;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowClusterConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * <p>Compares processing token requests inline in the event loop with dispatching them to a worker pool.</p>
+ * <p>
+ * The token server runs with a single I/O event loop. In the {@code mixed} group, light FLOW requests
+ * are sent along with heavy PARAM_FLOW requests (each carries {@code paramCount} values), so the heavy
+ * requests block the light ones in the inline mode ({@code dispatchThreads=0}). All threads share one
+ * transport client, as the promises of the clients are held globally by xid.
+ * </p>
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TokenServerDispatchBenchmark {
+
+    private static final String HOST = "127.0.0.1";
+    private static final long FLOW_ID = 3701L;
+    private static final long PARAM_FLOW_ID = 3702L;
+
+    @Param({"0", "4"})
+    private int dispatchThreads;
+
+    @Param({"100"})
+    private int paramCount;
+
+    private NettyTransportServer server;
+    private NettyTransportClient client;
+    private List<Object> params;
+
+    @Setup
+    public void setUp() throws Exception {
+        InitExecutor.doInit();
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(1000));
+        loadRules();
+        params = new ArrayList<>(paramCount);
+        for (int i = 0; i < paramCount; i++) {
+            params.add(i);
+        }
+
+        int port = ClusterBenchmarkUtil.findFreePort();
+        server = new NettyTransportServer(port, new ServerTransportConfig().setPort(port)
+            .setWorkerThreads(1)
+            .setDispatchThreads(dispatchThreads));
+        ClusterBenchmarkUtil.startServer(server);
+        client = ClusterBenchmarkUtil.startClient(HOST, port);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.stop();
+        server.stop();
+    }
+
+    private void loadRules() {
+        FlowRule flowRule = new FlowRule("dispatch-benchmark-flow")
+            .setCount(1e9)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(FLOW_ID)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ParamFlowRule paramRule = new ParamFlowRule("dispatch-benchmark-param")
+            .setParamIdx(0)
+            .setCount(1e9)
+            .setClusterMode(true);
+        paramRule.setClusterConfig(new ParamFlowClusterConfig()
+            .setFlowId(PARAM_FLOW_ID)
+            .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, Collections.singletonList(flowRule));
+        ClusterParamFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE,
+            Collections.singletonList(paramRule));
+    }
+
+    @Benchmark
+    @Group("flowOnly")
+    @GroupThreads(8)
+    public Object testFlowOnly() throws Exception {
+        return sendFlowRequest();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public Object testMixedFlow() throws Exception {
+        return sendFlowRequest();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Object testMixedParamFlow() throws Exception {
+        ParamFlowRequestData data = new ParamFlowRequestData().setFlowId(PARAM_FLOW_ID)
+            .setCount(1)
+            .setParams(params);
+        return client.sendRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_PARAM_FLOW, data));
+    }
+
+    private Object sendFlowRequest() throws Exception {
+        FlowRequestData data = new FlowRequestData().setFlowId(FLOW_ID).setCount(1);
+        return client.sendRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data));
+    }
+}
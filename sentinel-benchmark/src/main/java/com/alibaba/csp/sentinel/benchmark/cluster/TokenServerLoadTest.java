@@ -0,0 +1,301 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.NettyTransportClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.request.data.ParamFlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.server.SentinelDefaultTokenServer;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerFlowConfig;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowClusterConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
+
+/**
+ * <p>Self-contained load test for the default token server, useful for capacity planning.</p>
+ * <p>
+ * It starts an embedded {@link SentinelDefaultTokenServer} on loopback, loads {@code flowIds} cluster
+ * flow rules and the same count of cluster param flow rules, then spawns {@code clients} transport clients
+ * with {@code threads} load generator threads each. Every request picks a random flow ID, and is sent as a
+ * PARAM_FLOW request with the probability of {@code paramRatio} (with one of {@code paramValues} values),
+ * or as a FLOW request otherwise. Throughput, latency percentiles and the distribution of result status
+ * are printed when the run ends.
+ * </p>
+ * <p>Options are passed as {@code key=value} arguments, e.g.:</p>
+ * <pre>
+ * java -cp benchmarks.jar com.alibaba.csp.sentinel.benchmark.cluster.TokenServerLoadTest \
+ *     clients=8 threads=16 flowIds=100 paramRatio=0.3 duration=60
+ * </pre>
+ *
+ * @author Eric Zhao
+ */
+public class TokenServerLoadTest {
+
+    private static final String HOST = "127.0.0.1";
+    private static final int STATUS_ERROR = Integer.MIN_VALUE;
+
+    private final int clientCount;
+    private final int threadsPerClient;
+    private final int flowIdCount;
+    private final double paramRatio;
+    private final int paramValueCount;
+    private final int durationSec;
+    private final int warmUpSec;
+    private final double threshold;
+    private final double maxAllowedQps;
+    private final boolean nativeTransport;
+    private final int workerThreads;
+    private final int dispatchThreads;
+    private final int requestTimeout;
+
+    public TokenServerLoadTest(Map<String, String> options) {
+        this.clientCount = intOption(options, "clients", 4);
+        this.threadsPerClient = intOption(options, "threads", 8);
+        this.flowIdCount = intOption(options, "flowIds", 10);
+        this.paramRatio = doubleOption(options, "paramRatio", 0.0d);
+        this.paramValueCount = intOption(options, "paramValues", 1000);
+        this.durationSec = intOption(options, "duration", 30);
+        this.warmUpSec = intOption(options, "warmUp", 5);
+        this.threshold = doubleOption(options, "threshold", 1_000_000d);
+        this.maxAllowedQps = doubleOption(options, "maxAllowedQps", 10_000_000d);
+        this.nativeTransport = Boolean.parseBoolean(stringOption(options, "nativeTransport", "true"));
+        this.workerThreads = intOption(options, "workerThreads", 0);
+        this.dispatchThreads = intOption(options, "dispatchThreads", 0);
+        this.requestTimeout = intOption(options, "requestTimeout", 1000);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int idx = arg.indexOf('=');
+            if (idx > 0) {
+                options.put(arg.substring(0, idx), arg.substring(idx + 1));
+            }
+        }
+        new TokenServerLoadTest(options).run();
+        System.exit(0);
+    }
+
+    public void run() throws Exception {
+        int port = ClusterBenchmarkUtil.findFreePort();
+        SentinelDefaultTokenServer server = startServer(port);
+        List<NettyTransportClient> clients = startClients(port);
+
+        try {
+            System.out.printf("Warming up for %d s (clients=%d, threads=%d, flowIds=%d, paramRatio=%.2f)%n",
+                warmUpSec, clientCount, threadsPerClient, flowIdCount, paramRatio);
+            drive(clients, warmUpSec);
+            System.out.printf("Running for %d s%n", durationSec);
+            List<LoadGenerator> generators = drive(clients, durationSec);
+            report(generators);
+        } finally {
+            for (NettyTransportClient client : clients) {
+                client.stop();
+            }
+            server.stop();
+        }
+    }
+
+    private SentinelDefaultTokenServer startServer(int port) throws Exception {
+        SentinelConfig.setConfig("csp.sentinel.cluster.client.native.transport.enabled",
+            String.valueOf(nativeTransport));
+        ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig().setPort(port)
+            .setNativeTransportEnabled(nativeTransport)
+            .setWorkerThreads(workerThreads)
+            .setDispatchThreads(dispatchThreads));
+        ClusterServerConfigManager.loadGlobalFlowConfig(new ServerFlowConfig().setMaxAllowedQps(maxAllowedQps));
+        ClusterServerConfigManager.loadServerNamespaceSet(Collections.singleton(ServerConstants.DEFAULT_NAMESPACE));
+        loadRules();
+
+        SentinelDefaultTokenServer server = new SentinelDefaultTokenServer();
+        server.start();
+        ClusterBenchmarkUtil.awaitPort(HOST, port);
+        return server;
+    }
+
+    private void loadRules() {
+        List<FlowRule> flowRules = new ArrayList<>(flowIdCount);
+        List<ParamFlowRule> paramRules = new ArrayList<>(flowIdCount);
+        for (int i = 0; i < flowIdCount; i++) {
+            flowRules.add(new FlowRule("load-test-flow-" + i)
+                .setCount(threshold)
+                .setClusterMode(true)
+                .setClusterConfig(new ClusterFlowConfig()
+                    .setFlowId(flowId(i))
+                    .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL)));
+            ParamFlowRule paramRule = new ParamFlowRule("load-test-param-" + i)
+                .setParamIdx(0)
+                .setCount(threshold)
+                .setClusterMode(true);
+            paramRule.setClusterConfig(new ParamFlowClusterConfig()
+                .setFlowId(paramFlowId(i))
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+            paramRules.add(paramRule);
+        }
+        ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, flowRules);
+        ClusterParamFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, paramRules);
+    }
+
+    private List<NettyTransportClient> startClients(int port) throws Exception {
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(requestTimeout));
+        List<NettyTransportClient> clients = new ArrayList<>(clientCount);
+        for (int i = 0; i < clientCount; i++) {
+            clients.add(ClusterBenchmarkUtil.startClient(HOST, port));
+        }
+        return clients;
+    }
+
+    private List<LoadGenerator> drive(List<NettyTransportClient> clients, int seconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        CountDownLatch latch = new CountDownLatch(clients.size() * threadsPerClient);
+        List<LoadGenerator> generators = new ArrayList<>();
+        for (int c = 0; c < clients.size(); c++) {
+            for (int t = 0; t < threadsPerClient; t++) {
+                LoadGenerator generator = new LoadGenerator(clients.get(c), deadline, latch);
+                generators.add(generator);
+                Thread thread = new Thread(generator, "sentinel-load-generator-" + c + "-" + t);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        latch.await();
+        return generators;
+    }
+
+    private void report(List<LoadGenerator> generators) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Map<Integer, Long> statusCount = new TreeMap<>();
+        long flowRequests = 0;
+        long paramRequests = 0;
+        for (LoadGenerator generator : generators) {
+            histogram.merge(generator.histogram);
+            flowRequests += generator.flowRequests;
+            paramRequests += generator.paramRequests;
+            for (Map.Entry<Integer, Long> e : generator.statusCount.entrySet()) {
+                Long c = statusCount.get(e.getKey());
+                statusCount.put(e.getKey(), c == null ? e.getValue() : c + e.getValue());
+            }
+        }
+        long total = histogram.getTotalCount();
+        System.out.println("========== Token server load test result ==========");
+        System.out.printf("Requests: %d (FLOW: %d, PARAM_FLOW: %d)%n", total, flowRequests, paramRequests);
+        System.out.printf("Throughput: %.1f requests/s%n", total / (double)durationSec);
+        System.out.printf("Latency (us): mean=%.1f, p50=%d, p90=%d, p99=%d, p99.9=%d, max=%d%n",
+            histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+            histogram.getValueAtPercentile(99), histogram.getValueAtPercentile(99.9), histogram.getMaxValue());
+        for (Map.Entry<Integer, Long> e : statusCount.entrySet()) {
+            String status = e.getKey() == STATUS_ERROR ? "ERROR" : String.valueOf(e.getKey());
+            System.out.printf("Status %s: %d%n", status, e.getValue());
+        }
+    }
+
+    private static long flowId(int i) {
+        return 100_000L + i;
+    }
+
+    private static long paramFlowId(int i) {
+        return 200_000L + i;
+    }
+
+    private final class LoadGenerator implements Runnable {
+
+        private final NettyTransportClient client;
+        private final long deadline;
+        private final CountDownLatch latch;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final Map<Integer, Long> statusCount = new HashMap<>();
+        private long flowRequests;
+        private long paramRequests;
+
+        LoadGenerator(NettyTransportClient client, long deadline, CountDownLatch latch) {
+            this.client = client;
+            this.deadline = deadline;
+            this.latch = latch;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int idx = random.nextInt(flowIdCount);
+                    ClusterRequest<?> request;
+                    if (paramRatio > 0 && random.nextDouble() < paramRatio) {
+                        ParamFlowRequestData data = new ParamFlowRequestData().setFlowId(paramFlowId(idx))
+                            .setCount(1)
+                            .setParams(Collections.<Object>singletonList(random.nextInt(paramValueCount)));
+                        request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_PARAM_FLOW, data);
+                        paramRequests++;
+                    } else {
+                        FlowRequestData data = new FlowRequestData().setFlowId(flowId(idx)).setCount(1);
+                        request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data);
+                        flowRequests++;
+                    }
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        ClusterResponse<?> response = client.sendRequest(request);
+                        status = response.getStatus();
+                    } catch (Exception ex) {
+                        status = STATUS_ERROR;
+                    }
+                    histogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    Long c = statusCount.get(status);
+                    statusCount.put(status, c == null ? 1 : c + 1);
+                }
+            } finally {
+                latch.countDown();
+            }
+        }
+    }
+
+    private static String stringOption(Map<String, String> options, String key, String defaultValue) {
+        String value = options.get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    private static int intOption(Map<String, String> options, String key, int defaultValue) {
+        return Integer.parseInt(stringOption(options, key, String.valueOf(defaultValue)));
+    }
+
+    private static double doubleOption(Map<String, String> options, String key, double defaultValue) {
+        return Double.parseDouble(stringOption(options, key, String.valueOf(defaultValue)));
+    }
+}
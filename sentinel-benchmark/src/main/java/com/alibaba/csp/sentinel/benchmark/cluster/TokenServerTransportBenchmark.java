@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.cluster;
+
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.NettyTransportClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.server.NettyTransportServer;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.init.InitExecutor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round-trip benchmark of the cluster token transport on loopback, comparing the NIO
+ * transport with the native transport (epoll on Linux).
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class TokenServerTransportBenchmark {
+
+    private static final String HOST = "127.0.0.1";
+
+    @Param({"false", "true"})
+    private boolean nativeTransport;
+
+    @Param({"1", "4"})
+    private int workerThreads;
+
+    @Param({"false", "true"})
+    private boolean reusePort;
+
+    private int port;
+    private NettyTransportServer server;
+    private NettyTransportClient client;
+
+    @Setup
+    public void setUp() throws Exception {
+        InitExecutor.doInit();
+        SentinelConfig.setConfig("csp.sentinel.cluster.client.native.transport.enabled",
+            String.valueOf(nativeTransport));
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(1000));
+
+        port = ClusterBenchmarkUtil.findFreePort();
+        ServerTransportConfig config = new ServerTransportConfig().setPort(port)
+            .setNativeTransportEnabled(nativeTransport)
+            .setBossThreads(reusePort ? 2 : 1)
+            .setReusePort(reusePort)
+            .setWorkerThreads(workerThreads);
+        server = new NettyTransportServer(port, config);
+        ClusterBenchmarkUtil.startServer(server);
+
+        client = ClusterBenchmarkUtil.startClient(HOST, port);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        client.stop();
+        server.stop();
+    }
+
+    private ClusterResponse<?> sendFlowRequest() throws Exception {
+        FlowRequestData data = new FlowRequestData().setCount(1).setFlowId(Long.MAX_VALUE);
+        return client.sendRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object testFlowRequest1Thread() throws Exception {
+        return sendFlowRequest();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object testFlowRequest8Threads() throws Exception {
+        return sendFlowRequest();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Object testFlowRequest32Threads() throws Exception {
+        return sendFlowRequest();
+    }
+}
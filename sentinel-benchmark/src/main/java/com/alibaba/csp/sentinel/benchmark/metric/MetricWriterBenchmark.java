@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.metric;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.LogBase;
+import com.alibaba.csp.sentinel.node.metric.AsyncMetricWriter;
+import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * I/O benchmark of metric writing. Every operation writes one second of metrics of {@code resources}
+ * resources, so the average time per operation should stay far below one second.
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class MetricWriterBenchmark {
+
+    @Param({"10000"})
+    private int resources;
+
+    @Param({SentinelConfig.METRIC_FILE_FORMAT_TEXT, SentinelConfig.METRIC_FILE_FORMAT_BINARY})
+    private String format;
+
+    @Param({SentinelConfig.METRIC_FILE_FSYNC_NONE, SentinelConfig.METRIC_FILE_FSYNC_BATCH})
+    private String fsync;
+
+    private File logDir;
+    private MetricWriter writer;
+    private AsyncMetricWriter asyncWriter;
+    private List<MetricNode> nodes;
+    private long time;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Must be set before LogBase gets initialized.
+        logDir = Files.createTempDirectory("sentinel-metric-benchmark").toFile();
+        System.setProperty(LogBase.LOG_DIR, logDir.getAbsolutePath());
+
+        writer = new MetricWriter(SentinelConfig.DEFAULT_SINGLE_METRIC_FILE_SIZE,
+            SentinelConfig.DEFAULT_TOTAL_METRIC_FILE_COUNT, format, fsync);
+        asyncWriter = new AsyncMetricWriter(new MetricWriter(SentinelConfig.DEFAULT_SINGLE_METRIC_FILE_SIZE,
+            SentinelConfig.DEFAULT_TOTAL_METRIC_FILE_COUNT, format, fsync));
+        nodes = new ArrayList<>(resources);
+        for (int i = 0; i < resources; i++) {
+            MetricNode node = new MetricNode();
+            node.setResource("com.alibaba.csp.sentinel.benchmark.SomeService:method" + i + "(java.lang.String)");
+            node.setPassQps(i % 1000);
+            node.setSuccessQps(i % 1000);
+            node.setBlockQps(i % 7);
+            node.setRt(i % 50);
+            node.setConcurrency(i % 10);
+            nodes.add(node);
+        }
+        time = (System.currentTimeMillis() / 1000 + 1) * 1000;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        writer.close();
+        asyncWriter.close();
+        System.out.println("Dropped seconds by async writer: " + asyncWriter.getDroppedCount());
+        File[] files = logDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        logDir.delete();
+    }
+
+    @Benchmark
+    public void writeOneSecond() throws Exception {
+        time += 1000;
+        writer.write(time, nodes);
+    }
+
+    @Benchmark
+    public boolean submitOneSecond() {
+        time += 1000;
+        return asyncWriter.submit(time, new ArrayList<>(nodes));
+    }
+}
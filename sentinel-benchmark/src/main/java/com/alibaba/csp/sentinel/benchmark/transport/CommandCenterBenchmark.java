@@ -0,0 +1,328 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.benchmark.transport;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.log.LogBase;
+import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
+import com.alibaba.csp.sentinel.transport.command.http.HttpEventTask;
+import com.alibaba.csp.sentinel.transport.command.http.NioHttpServer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load benchmark of the simple HTTP command center. {@code blocking} is the former server which reads every
+ * connection with a thread of the business executor, {@code nio} is {@link NioHttpServer} with a connection
+ * per request like the blocking one, and {@code nioKeepAlive} reuses a connection per client thread.
+ * {@code slowClients} connections send a partial request and then nothing, like slow scrapers. Requests failed
+ * by the server (e.g. rejected) are counted and printed after each trial.
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(8)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CommandCenterBenchmark {
+
+    private static final String COMMAND = "benchmarkCommand";
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+
+        @Param({"blocking", "nio", "nioKeepAlive"})
+        private String mode;
+
+        @Param({"0", "16"})
+        private int slowClients;
+
+        private File logDir;
+        private ThreadPoolExecutor bizExecutor;
+        private ServerSocket blockingServer;
+        private NioHttpServer nioServer;
+        private int port;
+        private volatile boolean stopped;
+        private final List<Thread> threads = new ArrayList<>();
+        private final AtomicLong failures = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            // Must be set before LogBase gets initialized.
+            logDir = Files.createTempDirectory("sentinel-command-center-benchmark").toFile();
+            System.setProperty(LogBase.LOG_DIR, logDir.getAbsolutePath());
+            if (SimpleHttpCommandCenter.getHandler(COMMAND) == null) {
+                SimpleHttpCommandCenter.registerCommand(COMMAND, new CommandHandler<String>() {
+                    @Override
+                    public CommandResponse<String> handle(CommandRequest request) {
+                        return CommandResponse.ofSuccess("{\"resource\":\"com.alibaba.csp.sentinel.benchmark."
+                            + "SomeService:method(java.lang.String)\",\"passQps\":100,\"blockQps\":0}");
+                    }
+                });
+            }
+
+            int nThreads = Runtime.getRuntime().availableProcessors();
+            stopped = false;
+            if ("blocking".equals(mode)) {
+                // The same as the former SimpleHttpCommandCenter.
+                bizExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(10), new ThreadPoolExecutor.AbortPolicy());
+                blockingServer = new ServerSocket(0, 100);
+                port = blockingServer.getLocalPort();
+                startThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        acceptBlocking();
+                    }
+                });
+            } else {
+                int maxConcurrency = nThreads + 10;
+                bizExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(maxConcurrency), new ThreadPoolExecutor.AbortPolicy());
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                channel.socket().bind(new InetSocketAddress(0), 100);
+                nioServer = new NioHttpServer(channel, bizExecutor, maxConcurrency);
+                port = nioServer.getLocalPort();
+                startThread(nioServer);
+            }
+            for (int i = 0; i < slowClients; i++) {
+                startThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        runSlowClient();
+                    }
+                });
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws Exception {
+            stopped = true;
+            if (blockingServer != null) {
+                blockingServer.close();
+            }
+            if (nioServer != null) {
+                nioServer.close();
+            }
+            for (Thread thread : threads) {
+                thread.join(5000);
+            }
+            bizExecutor.shutdownNow();
+            System.out.println("Failed requests: " + failures.get());
+            File[] files = logDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            logDir.delete();
+        }
+
+        private void startThread(Runnable task) {
+            Thread thread = new Thread(task);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        private void acceptBlocking() {
+            while (!stopped) {
+                Socket socket = null;
+                try {
+                    socket = blockingServer.accept();
+                    socket.setSoTimeout(3000);
+                    bizExecutor.submit(new HttpEventTask(socket));
+                } catch (Exception e) {
+                    if (socket != null) {
+                        closeQuietly(socket);
+                    }
+                }
+            }
+        }
+
+        private void runSlowClient() {
+            while (!stopped) {
+                try (Socket socket = new Socket("127.0.0.1", port)) {
+                    socket.getOutputStream().write("GET /".getBytes(StandardCharsets.UTF_8));
+                    socket.setSoTimeout(1000);
+                    while (!stopped && read(socket)) {
+                        // Wait until the server closes the connection.
+                    }
+                } catch (IOException ignore) {
+                }
+            }
+        }
+
+        private boolean read(Socket socket) throws IOException {
+            try {
+                return socket.getInputStream().read() >= 0;
+            } catch (java.net.SocketTimeoutException e) {
+                return true;
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ClientState {
+
+        private Socket socket;
+        private InputStream in;
+        private final byte[] buffer = new byte[4096];
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    @Benchmark
+    public int request(ServerState server, ClientState client) {
+        try {
+            if ("nioKeepAlive".equals(server.mode)) {
+                return requestKeepAlive(server, client);
+            }
+            return requestOnce(server, client);
+        } catch (IOException e) {
+            // e.g. reset by the blocking server when the executor is exhausted.
+            server.failures.incrementAndGet();
+            if (client.socket != null) {
+                closeQuietly(client.socket);
+                client.socket = null;
+            }
+            return 0;
+        }
+    }
+
+    private int requestOnce(ServerState server, ClientState client) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", server.port)) {
+            socket.setSoTimeout(10000);
+            socket.getOutputStream().write(("GET /" + COMMAND + " HTTP/1.0\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+            InputStream in = socket.getInputStream();
+            int total = 0;
+            boolean ok = false;
+            int n;
+            while ((n = in.read(client.buffer)) > 0) {
+                if (total == 0) {
+                    ok = isOk(new String(client.buffer, 0, n, StandardCharsets.UTF_8));
+                }
+                total += n;
+            }
+            if (!ok) {
+                server.failures.incrementAndGet();
+            }
+            return total;
+        }
+    }
+
+    private int requestKeepAlive(ServerState server, ClientState client) throws IOException {
+        if (client.socket == null) {
+            client.socket = new Socket("127.0.0.1", server.port);
+            client.socket.setSoTimeout(10000);
+            client.socket.setTcpNoDelay(true);
+            client.in = new BufferedInputStream(client.socket.getInputStream());
+        }
+        OutputStream out = client.socket.getOutputStream();
+        out.write(("GET /" + COMMAND + " HTTP/1.1\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        InputStream in = client.in;
+        // Read the header, and then the body by Content-Length.
+        int length = 0;
+        int contentLength = -1;
+        boolean ok = false;
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0) {
+            length++;
+            if (b == '\n') {
+                if (line.length() == 0) {
+                    break;
+                }
+                String header = line.toString();
+                if (length == header.length() + 2) {
+                    ok = isOk(header);
+                }
+                if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    contentLength = Integer.parseInt(header.substring(15).trim());
+                }
+                line.setLength(0);
+            } else if (b != '\r') {
+                line.append((char)b);
+            }
+        }
+        int read = 0;
+        while (read < contentLength) {
+            int n = in.read(client.buffer, 0, Math.min(client.buffer.length, contentLength - read));
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        if (contentLength < 0 || read < contentLength) {
+            server.failures.incrementAndGet();
+            closeQuietly(client.socket);
+            client.socket = null;
+        } else if (!ok) {
+            server.failures.incrementAndGet();
+        }
+        return length + read;
+    }
+
+    private static boolean isOk(String response) {
+        return response.startsWith("HTTP/1.0 200") || response.startsWith("HTTP/1.1 200");
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.log.jul;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogRecord;
+
+import com.alibaba.csp.sentinel.log.LogBase;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the default RecordLog on the logging threads, e.g. the warnings of a cluster flow check during a
+ * token server outage. {@code debugDisabled} should cost almost nothing, {@code formatMessage} and
+ * {@code formatRecord} are the formatting steps of an enabled record, and {@code warn} is the whole path
+ * with a file handler. Run with {@code -prof gc} to see allocations per operation.
+ * <p>
+ * It's in the JUL package as the formatters are package-private.
+ * </p>
+ *
+ * @author Eric Zhao
+ */
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@Threads(4)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RecordLogBenchmark {
+
+    private static final String FORMAT = "[ClusterFlowChecker] Request cluster token unexpected failed, "
+        + "rule: {}, count: {}";
+    private static final String RULE = "FlowRule{resource=com.alibaba.csp.sentinel.benchmark.SomeService:"
+        + "method(java.lang.String), limitApp=default, grade=1, count=100.0, clusterMode=true}";
+
+    private File logDir;
+    private JavaLoggingAdapter logger;
+    private CspFormatter formatter;
+    private LogRecord record;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        // Must be set before LogBase gets initialized.
+        logDir = Files.createTempDirectory("sentinel-record-log-benchmark").toFile();
+        System.setProperty(LogBase.LOG_DIR, logDir.getAbsolutePath());
+
+        logger = new JavaLoggingAdapter("sentinelBenchmarkLogger", "sentinel-benchmark-record.log");
+        formatter = new CspFormatter();
+        record = new LogRecord(java.util.logging.Level.WARNING, FORMAT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        File[] files = logDir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        logDir.delete();
+    }
+
+    @Benchmark
+    public void debugDisabled() {
+        logger.debug(FORMAT, RULE, 1);
+    }
+
+    @Benchmark
+    public String formatMessage() {
+        return BaseJulLogger.formatMessage(FORMAT, RULE, 1);
+    }
+
+    @Benchmark
+    public String formatRecord() {
+        record.setMillis(System.currentTimeMillis());
+        return formatter.format(record);
+    }
+
+    @Benchmark
+    public void warn() {
+        logger.warn(FORMAT, RULE, 1);
+    }
+}
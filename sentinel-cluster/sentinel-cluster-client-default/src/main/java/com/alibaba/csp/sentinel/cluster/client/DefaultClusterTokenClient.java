@@ -35,6 +35,7 @@ import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
 import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * Default implementation of {@link ClusterTokenClient}.
@@ -44,11 +45,34 @@ import com.alibaba.csp.sentinel.util.StringUtil;
  */
 public class DefaultClusterTokenClient implements ClusterTokenClient {
 
+    /**
+     * Minimum time (in ms) to stay on the standby before failing back, so that a flapping token server
+     * does not bounce clients back and forth. It also leaves time for the standby to send a full snapshot
+     * to the restarted token server, which requires replication to be configured in both directions
+     * (otherwise the token server starts over with empty statistics after failing back).
+     */
+    static final long FAILBACK_DELAY_MS = 3000;
+
     private ClusterTransportClient transportClient;
     private TokenServerDescriptor serverDescriptor;
 
+    /**
+     * Warm connection to the hot-standby token server (if assigned). The client fails over to it
+     * when the connection to the token server is lost or a request to it fails, and fails back once
+     * the token server is ready again.
+     */
+    private ClusterTransportClient standbyTransportClient;
+    private TokenServerDescriptor standbyDescriptor;
+    private volatile boolean usingStandby = false;
+    private volatile long failoverTime = 0;
+
     private final AtomicBoolean shouldStart = new AtomicBoolean(false);
 
+    /**
+     * Until when (in ms) the token server asked this client to back off after shedding load.
+     */
+    private volatile long backoffUntil = 0;
+
     public DefaultClusterTokenClient() {
         ClusterClientConfigManager.addServerChangeObserver(new ServerChangeObserver() {
             @Override
@@ -63,7 +87,14 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         if (descriptor == null || config == null) {
             return false;
         }
-        return descriptor.getHost().equals(config.getServerHost()) && descriptor.getPort() == config.getServerPort();
+        if (!descriptor.getHost().equals(config.getServerHost()) || descriptor.getPort() != config.getServerPort()) {
+            return false;
+        }
+        if (!ClusterClientConfigManager.hasStandbyServer(config)) {
+            return standbyDescriptor == null;
+        }
+        return standbyDescriptor != null && standbyDescriptor.getHost().equals(config.getStandbyServerHost())
+            && standbyDescriptor.getPort() == config.getStandbyServerPort();
     }
 
     private void initNewConnection() {
@@ -80,11 +111,21 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             this.transportClient = new NettyTransportClient(host, port);
             this.serverDescriptor = new TokenServerDescriptor(host, port);
             RecordLog.info("[DefaultClusterTokenClient] New client created: {}", serverDescriptor);
+            String standbyHost = ClusterClientConfigManager.getStandbyServerHost();
+            if (StringUtil.isNotBlank(standbyHost)) {
+                initStandbyConnection(standbyHost, ClusterClientConfigManager.getStandbyServerPort());
+            }
         } catch (Exception ex) {
             RecordLog.warn("[DefaultClusterTokenClient] Failed to initialize new token client", ex);
         }
     }
 
+    private void initStandbyConnection(String host, int port) {
+        this.standbyTransportClient = new NettyTransportClient(host, port);
+        this.standbyDescriptor = new TokenServerDescriptor(host, port);
+        RecordLog.info("[DefaultClusterTokenClient] New standby client created: {}", standbyDescriptor);
+    }
+
     private void changeServer(/*@Valid*/ ClusterClientAssignConfig config) {
         if (serverEqual(serverDescriptor, config)) {
             return;
@@ -93,9 +134,19 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             if (transportClient != null) {
                 transportClient.stop();
             }
+            if (standbyTransportClient != null) {
+                standbyTransportClient.stop();
+            }
             // Replace with new, even if the new client is not ready.
             this.transportClient = new NettyTransportClient(config.getServerHost(), config.getServerPort());
             this.serverDescriptor = new TokenServerDescriptor(config.getServerHost(), config.getServerPort());
+            this.standbyTransportClient = null;
+            this.standbyDescriptor = null;
+            if (ClusterClientConfigManager.hasStandbyServer(config)) {
+                initStandbyConnection(config.getStandbyServerHost(), config.getStandbyServerPort());
+            }
+            this.usingStandby = false;
+            this.backoffUntil = 0;
             startClientIfScheduled();
             RecordLog.info("[DefaultClusterTokenClient] New client created: {}", serverDescriptor);
         } catch (Exception ex) {
@@ -110,6 +161,9 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             } else {
                 RecordLog.warn("[DefaultClusterTokenClient] Cannot start transport client: client not created");
             }
+            if (standbyTransportClient != null) {
+                standbyTransportClient.start();
+            }
         }
     }
 
@@ -118,6 +172,9 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
             if (transportClient != null) {
                 transportClient.stop();
             }
+            if (standbyTransportClient != null) {
+                standbyTransportClient.stop();
+            }
         }
     }
 
@@ -138,12 +195,14 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         if (transportClient == null) {
             return ClientConstants.CLIENT_STATUS_OFF;
         }
-        return transportClient.isReady() ? ClientConstants.CLIENT_STATUS_STARTED : ClientConstants.CLIENT_STATUS_OFF;
+        boolean ready = transportClient.isReady()
+            || (standbyTransportClient != null && standbyTransportClient.isReady());
+        return ready ? ClientConstants.CLIENT_STATUS_STARTED : ClientConstants.CLIENT_STATUS_OFF;
     }
 
     @Override
     public TokenServerDescriptor currentServer() {
-        return serverDescriptor;
+        return usingStandby ? standbyDescriptor : serverDescriptor;
     }
 
     @Override
@@ -151,6 +210,10 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         if (notValidRequest(flowId, acquireCount)) {
             return badRequest();
         }
+        TokenResult backoffResult = checkBackoff();
+        if (backoffResult != null) {
+            return backoffResult;
+        }
         FlowRequestData data = new FlowRequestData().setCount(acquireCount)
             .setFlowId(flowId).setPriority(prioritized);
         ClusterRequest<FlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data);
@@ -169,6 +232,10 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         if (notValidRequest(flowId, acquireCount) || params == null || params.isEmpty()) {
             return badRequest();
         }
+        TokenResult backoffResult = checkBackoff();
+        if (backoffResult != null) {
+            return backoffResult;
+        }
         ParamFlowRequestData data = new ParamFlowRequestData().setCount(acquireCount)
             .setFlowId(flowId).setParams(params);
         ClusterRequest<ParamFlowRequestData> request = new ClusterRequest<>(ClusterConstants.MSG_TYPE_PARAM_FLOW, data);
@@ -198,6 +265,9 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
                 break;
             case TokenResultStatus.TOO_MANY_REQUEST:
                 ClusterClientStatLogUtil.log(ClusterErrorMessages.TOO_MANY_REQUESTS);
+                if (result.getWaitInMs() > 0) {
+                    this.backoffUntil = TimeUtil.currentTimeMillis() + result.getWaitInMs();
+                }
                 break;
             default:
         }
@@ -209,7 +279,7 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
                 "[DefaultClusterTokenClient] Client not created, please check your config for cluster client");
             return clientFail();
         }
-        ClusterResponse response = transportClient.sendRequest(request);
+        ClusterResponse response = sendWithFailover(request);
         TokenResult result = new TokenResult(response.getStatus());
         if (response.getData() != null) {
             FlowTokenResponseData responseData = (FlowTokenResponseData)response.getData();
@@ -219,6 +289,73 @@ public class DefaultClusterTokenClient implements ClusterTokenClient {
         return result;
     }
 
+    /**
+     * Send the request to the current server. The client switches to the standby when the token server
+     * is not connected or a request to it fails, and switches back once the token server is ready again.
+     */
+    private ClusterResponse sendWithFailover(ClusterRequest request) throws Exception {
+        ClusterTransportClient standbyClient = standbyTransportClient;
+        if (standbyClient == null) {
+            return transportClient.sendRequest(request);
+        }
+        if (usingStandby) {
+            if (transportClient.isReady() && (!standbyClient.isReady()
+                || TimeUtil.currentTimeMillis() - failoverTime >= FAILBACK_DELAY_MS)) {
+                failBack();
+            } else {
+                return standbyClient.sendRequest(request);
+            }
+        }
+        if (!transportClient.isReady() && standbyClient.isReady()) {
+            failOver("not connected");
+            return standbyClient.sendRequest(request);
+        }
+        try {
+            return transportClient.sendRequest(request);
+        } catch (Exception ex) {
+            // The failed request is not retried on the standby, as that would count it on both servers.
+            // The following requests go to the standby.
+            if (standbyClient.isReady()) {
+                failOver(ex.getMessage());
+            }
+            throw ex;
+        }
+    }
+
+    private synchronized void failOver(String reason) {
+        if (usingStandby) {
+            return;
+        }
+        this.failoverTime = TimeUtil.currentTimeMillis();
+        this.usingStandby = true;
+        RecordLog.warn("[DefaultClusterTokenClient] Token server unavailable ({}), failed over to: {}",
+            reason, standbyDescriptor);
+    }
+
+    private synchronized void failBack() {
+        if (!usingStandby) {
+            return;
+        }
+        this.usingStandby = false;
+        RecordLog.info("[DefaultClusterTokenClient] Token server ready again, failed back to: {}", serverDescriptor);
+    }
+
+    /**
+     * While the token server is shedding load, reject requests locally (so that callers fall back)
+     * instead of sending them to the overloaded server.
+     */
+    private TokenResult checkBackoff() {
+        long until = backoffUntil;
+        if (until <= 0) {
+            return null;
+        }
+        long waitInMs = until - TimeUtil.currentTimeMillis();
+        if (waitInMs <= 0) {
+            return null;
+        }
+        return new TokenResult(TokenResultStatus.TOO_MANY_REQUEST).setWaitInMs((int)waitInMs);
+    }
+
     private boolean notValidRequest(Long id, int count) {
         return id == null || id <= 0 || count <= 0;
     }
@@ -24,6 +24,14 @@ public class ClusterClientAssignConfig {
     private String serverHost;
     private Integer serverPort;
 
+    /**
+     * Optional hot-standby token server that the client fails over to when the server is unavailable.
+     *
+     * @since 1.8.8
+     */
+    private String standbyServerHost;
+    private Integer standbyServerPort;
+
     public ClusterClientAssignConfig() {}
 
     public ClusterClientAssignConfig(String serverHost, Integer serverPort) {
@@ -49,11 +57,31 @@ public class ClusterClientAssignConfig {
         return this;
     }
 
+    public String getStandbyServerHost() {
+        return standbyServerHost;
+    }
+
+    public ClusterClientAssignConfig setStandbyServerHost(String standbyServerHost) {
+        this.standbyServerHost = standbyServerHost;
+        return this;
+    }
+
+    public Integer getStandbyServerPort() {
+        return standbyServerPort;
+    }
+
+    public ClusterClientAssignConfig setStandbyServerPort(Integer standbyServerPort) {
+        this.standbyServerPort = standbyServerPort;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ClusterClientAssignConfig{" +
             "serverHost='" + serverHost + '\'' +
             ", serverPort=" + serverPort +
+            ", standbyServerHost='" + standbyServerHost + '\'' +
+            ", standbyServerPort=" + standbyServerPort +
             '}';
     }
 }
@@ -37,6 +37,8 @@ public final class ClusterClientConfigManager {
      */
     private static volatile String serverHost = null;
     private static volatile int serverPort = ClusterConstants.DEFAULT_CLUSTER_SERVER_PORT;
+    private static volatile String standbyServerHost = null;
+    private static volatile int standbyServerPort = 0;
 
     private static volatile int requestTimeout = ClusterConstants.DEFAULT_REQUEST_TIMEOUT;
     private static volatile int connectTimeout = ClusterConstants.DEFAULT_CONNECT_TIMEOUT_MILLIS;
@@ -127,7 +129,8 @@ public final class ClusterClientConfigManager {
                     "[ClusterClientConfigManager] Invalid cluster client assign config, ignoring: " + config);
                 return;
             }
-            if (serverPort == config.getServerPort() && config.getServerHost().equals(serverHost)) {
+            if (serverPort == config.getServerPort() && config.getServerHost().equals(serverHost)
+                && standbyEqual(config)) {
                 return;
             }
 
@@ -182,12 +185,38 @@ public final class ClusterClientConfigManager {
 
         serverHost = host;
         serverPort = port;
+        if (hasStandbyServer(config)) {
+            standbyServerHost = config.getStandbyServerHost();
+            standbyServerPort = config.getStandbyServerPort();
+        } else {
+            standbyServerHost = null;
+            standbyServerPort = 0;
+        }
+    }
+
+    private static boolean standbyEqual(ClusterClientAssignConfig config) {
+        if (!hasStandbyServer(config)) {
+            return standbyServerHost == null;
+        }
+        return config.getStandbyServerHost().equals(standbyServerHost)
+            && config.getStandbyServerPort() == standbyServerPort;
+    }
+
+    /**
+     * @param config valid assign config
+     * @return whether the assign config carries a hot-standby token server
+     * @since 1.8.8
+     */
+    public static boolean hasStandbyServer(ClusterClientAssignConfig config) {
+        return StringUtil.isNotBlank(config.getStandbyServerHost()) && config.getStandbyServerPort() != null;
     }
 
     public static boolean isValidAssignConfig(ClusterClientAssignConfig config) {
         return config != null && StringUtil.isNotBlank(config.getServerHost())
             && config.getServerPort() > 0
-            && config.getServerPort() <= 65535;
+            && config.getServerPort() <= 65535
+            && (!hasStandbyServer(config)
+            || (config.getStandbyServerPort() > 0 && config.getStandbyServerPort() <= 65535));
     }
 
     public static boolean isValidClientConfig(ClusterClientConfig config) {
@@ -202,6 +231,18 @@ public final class ClusterClientConfigManager {
         return serverPort;
     }
 
+    /**
+     * @return host of the hot-standby token server, or null if absent
+     * @since 1.8.8
+     */
+    public static String getStandbyServerHost() {
+        return standbyServerHost;
+    }
+
+    public static int getStandbyServerPort() {
+        return standbyServerPort;
+    }
+
     public static int getRequestTimeout() {
         return requestTimeout;
     }
@@ -29,6 +29,9 @@ import com.alibaba.csp.sentinel.log.RecordLog;
 public class ClusterClientStartUpConfig {
 
     private static final String MAX_PARAM_BYTE_SIZE = "csp.sentinel.cluster.max.param.byte.size";
+    private static final String NATIVE_TRANSPORT_ENABLED = "csp.sentinel.cluster.client.native.transport.enabled";
+    private static final String IO_URING_ENABLED = "csp.sentinel.cluster.client.io.uring.enabled";
+    private static final String IO_THREADS = "csp.sentinel.cluster.client.io.threads";
 
     /**
      * Get the max bytes params can be serialized
@@ -45,5 +48,40 @@ public class ClusterClientStartUpConfig {
         }
     }
 
+    /**
+     * Whether native transport (epoll/io_uring) should be used when available. Enabled by default.
+     *
+     * @return whether native transport is enabled
+     * @since 1.8.8
+     */
+    public static boolean isNativeTransportEnabled() {
+        String enabled = SentinelConfig.getConfig(NATIVE_TRANSPORT_ENABLED);
+        return enabled == null || Boolean.parseBoolean(enabled);
+    }
+
+    /**
+     * Whether io_uring transport should be preferred over epoll. Disabled by default.
+     *
+     * @return whether io_uring transport is enabled
+     * @since 1.8.8
+     */
+    public static boolean isIoUringEnabled() {
+        return Boolean.parseBoolean(SentinelConfig.getConfig(IO_URING_ENABLED));
+    }
 
+    /**
+     * Get the thread count of the client I/O event loop.
+     *
+     * @return the thread count, 0 indicates the Netty default value
+     * @since 1.8.8
+     */
+    public static int getIoThreads() {
+        String ioThreads = SentinelConfig.getConfig(IO_THREADS);
+        try {
+            return ioThreads == null ? 0 : Math.max(0, Integer.parseInt(ioThreads));
+        } catch (Exception ex) {
+            RecordLog.warn("[ClusterClientStartUpConfig] Failed to parse ioThreads: " + ioThreads);
+            return 0;
+        }
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.client;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.handler.TokenClientHandler;
+import com.alibaba.csp.sentinel.cluster.client.handler.TokenClientPromiseHolder;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Eric Zhao
+ */
+public class NettyTransportClientTest {
+
+    @Test
+    public void testResponseArrivingDuringWriteIsNotLost() throws Exception {
+        // The embedded channel writes in the caller thread, and the "server" responds before the write returns.
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ClusterRequest<?> request = (ClusterRequest<?>)msg;
+                TokenClientPromiseHolder.completePromise(request.getId(),
+                    new ClusterResponse<>(request.getId(), request.getType(), ClusterConstants.RESPONSE_STATUS_OK,
+                        null));
+                promise.setSuccess();
+            }
+        });
+        NettyTransportClient client = new NettyTransportClient("127.0.0.1", 1);
+        AtomicInteger state = new AtomicInteger(ClientConstants.CLIENT_STATUS_STARTED);
+        setField(client, "channel", channel);
+        setField(client, "clientHandler", new TokenClientHandler(state, null));
+
+        ClusterResponse<?> response = client.sendRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW,
+            new FlowRequestData().setFlowId(1L).setCount(1)));
+        assertEquals(ClusterConstants.RESPONSE_STATUS_OK, response.getStatus());
+        channel.finishAndReleaseAll();
+    }
+
+    private static void setField(Object target, String name, Object value) throws Exception {
+        Field field = NettyTransportClient.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
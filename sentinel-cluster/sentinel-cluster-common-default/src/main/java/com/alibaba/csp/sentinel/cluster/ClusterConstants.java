@@ -26,6 +26,12 @@ public final class ClusterConstants {
     public static final int MSG_TYPE_PARAM_FLOW = 2;
     public static final int MSG_TYPE_CONCURRENT_FLOW_ACQUIRE = 3;
     public static final int MSG_TYPE_CONCURRENT_FLOW_RELEASE = 4;
+    /**
+     * Window snapshot streamed from the active token server to the standby.
+     *
+     * @since 1.8.8
+     */
+    public static final int MSG_TYPE_SNAPSHOT = 5;
 
 
     public static final int RESPONSE_STATUS_BAD = -1;
@@ -0,0 +1,193 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.netty;
+
+import java.util.concurrent.ThreadFactory;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+/**
+ * <p>Netty transport implementations that can be used by the cluster token server and client.</p>
+ * <p>
+ * Native transports are only chosen when they are present in the classpath and loadable on
+ * current platform, otherwise the portable NIO transport will be used. The io_uring transport
+ * lives in the Netty incubator, so it's resolved reflectively and never required at compile time.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public enum NettyTransportType {
+
+    NIO {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+            return new NioEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return NioServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannelClass() {
+            return NioSocketChannel.class;
+        }
+
+        @Override
+        public ChannelOption<Boolean> reusePortOption() {
+            return null;
+        }
+    },
+
+    EPOLL {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+            return new EpollEventLoopGroup(threads, threadFactory);
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return EpollServerSocketChannel.class;
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannelClass() {
+            return EpollSocketChannel.class;
+        }
+
+        @Override
+        public ChannelOption<Boolean> reusePortOption() {
+            return EpollChannelOption.SO_REUSEPORT;
+        }
+    },
+
+    IO_URING {
+        @Override
+        public EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory) {
+            try {
+                return (EventLoopGroup)Class.forName(IO_URING_PACKAGE + ".IOUringEventLoopGroup")
+                    .getConstructor(int.class, ThreadFactory.class)
+                    .newInstance(threads, threadFactory);
+            } catch (Exception ex) {
+                throw new IllegalStateException("Failed to create io_uring event loop group", ex);
+            }
+        }
+
+        @Override
+        public Class<? extends ServerChannel> serverChannelClass() {
+            return loadChannelClass(IO_URING_PACKAGE + ".IOUringServerSocketChannel", ServerChannel.class);
+        }
+
+        @Override
+        public Class<? extends SocketChannel> socketChannelClass() {
+            return loadChannelClass(IO_URING_PACKAGE + ".IOUringSocketChannel", SocketChannel.class);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public ChannelOption<Boolean> reusePortOption() {
+            try {
+                return (ChannelOption<Boolean>)Class.forName(IO_URING_PACKAGE + ".IOUringChannelOption")
+                    .getField("SO_REUSEPORT").get(null);
+            } catch (Exception ex) {
+                return null;
+            }
+        }
+    };
+
+    private static final String EPOLL_CLASS = "io.netty.channel.epoll.Epoll";
+    private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring";
+
+    /**
+     * Create a new event loop group of current transport.
+     *
+     * @param threads       thread count of the event loop group, 0 indicates the Netty default value
+     * @param threadFactory thread factory of the event loop threads
+     * @return new event loop group
+     */
+    public abstract EventLoopGroup newEventLoopGroup(int threads, ThreadFactory threadFactory);
+
+    public abstract Class<? extends ServerChannel> serverChannelClass();
+
+    public abstract Class<? extends SocketChannel> socketChannelClass();
+
+    /**
+     * @return the {@code SO_REUSEPORT} option of current transport, or null if the transport does not support it
+     */
+    public abstract ChannelOption<Boolean> reusePortOption();
+
+    /**
+     * Select the best available transport.
+     *
+     * @param nativeEnabled  whether native transports are allowed
+     * @param ioUringEnabled whether the io_uring transport is preferred over epoll
+     * @return the selected transport, never null
+     */
+    public static NettyTransportType select(boolean nativeEnabled, boolean ioUringEnabled) {
+        if (!nativeEnabled) {
+            return NIO;
+        }
+        if (ioUringEnabled && isIoUringAvailable()) {
+            return IO_URING;
+        }
+        if (isEpollAvailable()) {
+            return EPOLL;
+        }
+        return NIO;
+    }
+
+    public static boolean isEpollAvailable() {
+        try {
+            Class.forName(EPOLL_CLASS);
+            return Epoll.isAvailable();
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    public static boolean isIoUringAvailable() {
+        try {
+            Object available = Class.forName(IO_URING_PACKAGE + ".IOUring").getMethod("isAvailable").invoke(null);
+            return Boolean.TRUE.equals(available);
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+
+    private static <T> Class<? extends T> loadChannelClass(String className, Class<T> type) {
+        try {
+            return Class.forName(className).asSubclass(type);
+        } catch (ClassNotFoundException ex) {
+            RecordLog.warn("[NettyTransportType] Channel class not found: " + className, ex);
+            throw new IllegalStateException("Channel class not found: " + className, ex);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.request.data;
+
+import java.util.Collection;
+
+/**
+ * Request data of releasing a batch of concurrent tokens in one message.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class ConcurrentFlowReleaseRequestData {
+
+    private Collection<Long> tokenIds;
+
+    public Collection<Long> getTokenIds() {
+        return tokenIds;
+    }
+
+    public ConcurrentFlowReleaseRequestData setTokenIds(Collection<Long> tokenIds) {
+        this.tokenIds = tokenIds;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentFlowReleaseRequestData{" +
+            "tokenIds=" + tokenIds +
+            '}';
+    }
+}
@@ -24,7 +24,7 @@ import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
 import com.alibaba.csp.sentinel.cluster.server.log.ClusterServerStatLogUtil;
-import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.eagleeye.IdStatKeys;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 
 /**
@@ -35,28 +35,26 @@ import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
  */
 final class ClusterFlowChecker {
 
-    private static double calcGlobalThreshold(FlowRule rule) {
-        double count = rule.getCount();
-        switch (rule.getClusterConfig().getThresholdType()) {
-            case ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL:
-                return count;
-            case ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL:
-            default:
-                int connectedCount = ClusterFlowRuleManager.getConnectedCount(rule.getClusterConfig().getFlowId());
-                return count * connectedCount;
-        }
-    }
+    private static final IdStatKeys WAITING_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|waiting|");
+    private static final IdStatKeys BLOCK_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|block|");
+    private static final IdStatKeys BLOCK_REQUEST_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|block_request|");
+    private static final IdStatKeys OCCUPIED_BLOCK_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|occupied_block|");
 
-    static boolean allowProceed(long flowId) {
+    /**
+     * @return 0 if the request may proceed, otherwise the back-off time (in ms) suggested to the client
+     */
+    static long allowProceed(long flowId) {
         String namespace = ClusterFlowRuleManager.getNamespace(flowId);
-        return GlobalRequestLimiter.tryPass(namespace);
+        return GlobalRequestLimiter.tryAcquire(namespace);
     }
 
     static TokenResult acquireClusterToken(/*@Valid*/ FlowRule rule, int acquireCount, boolean prioritized) {
         Long id = rule.getClusterConfig().getFlowId();
 
-        if (!allowProceed(id)) {
-            return new TokenResult(TokenResultStatus.TOO_MANY_REQUEST);
+        long backoffMs = allowProceed(id);
+        if (backoffMs > 0) {
+            return new TokenResult(TokenResultStatus.TOO_MANY_REQUEST)
+                .setWaitInMs((int)backoffMs);
         }
 
         ClusterMetric metric = ClusterMetricStatistics.getMetric(id);
@@ -64,13 +62,11 @@ final class ClusterFlowChecker {
             return new TokenResult(TokenResultStatus.FAIL);
         }
 
-        double latestQps = metric.getAvg(ClusterFlowEvent.PASS);
-        double globalThreshold = calcGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
-        double nextRemaining = globalThreshold - latestQps - acquireCount;
+        double globalThreshold = ClusterFlowRuleManager.getGlobalThreshold(rule) * ClusterServerConfigManager.getExceedCount();
+        // Check the remaining quota and acquire the pass tokens atomically.
+        double nextRemaining = metric.tryAcquirePass(acquireCount, globalThreshold);
 
         if (nextRemaining >= 0) {
-            // TODO: checking logic and metric operation should be separated.
-            metric.add(ClusterFlowEvent.PASS, acquireCount);
             metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
             if (prioritized) {
                 // Add prioritized pass.
@@ -88,7 +84,7 @@ final class ClusterFlowChecker {
                     int waitInMs = metric.tryOccupyNext(ClusterFlowEvent.PASS, acquireCount, globalThreshold);
                     // waitInMs > 0 indicates pre-occupy incoming buckets successfully.
                     if (waitInMs > 0) {
-                        ClusterServerStatLogUtil.log("flow|waiting|" + id);
+                        WAITING_LOG_KEYS.get(id).count();
                         return new TokenResult(TokenResultStatus.SHOULD_WAIT)
                             .setRemaining(0)
                             .setWaitInMs(waitInMs);
@@ -99,12 +95,12 @@ final class ClusterFlowChecker {
             // Blocked.
             metric.add(ClusterFlowEvent.BLOCK, acquireCount);
             metric.add(ClusterFlowEvent.BLOCK_REQUEST, 1);
-            ClusterServerStatLogUtil.log("flow|block|" + id, acquireCount);
-            ClusterServerStatLogUtil.log("flow|block_request|" + id, 1);
+            BLOCK_LOG_KEYS.get(id).count(acquireCount);
+            BLOCK_REQUEST_LOG_KEYS.get(id).count();
             if (prioritized) {
                 // Add prioritized block.
                 metric.add(ClusterFlowEvent.OCCUPIED_BLOCK, acquireCount);
-                ClusterServerStatLogUtil.log("flow|occupied_block|" + id, 1);
+                OCCUPIED_BLOCK_LOG_KEYS.get(id).count();
             }
 
             return blockedResult();
@@ -24,7 +24,7 @@ import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatist
 import com.alibaba.csp.sentinel.cluster.flow.statistic.limit.GlobalRequestLimiter;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamMetric;
 import com.alibaba.csp.sentinel.cluster.server.log.ClusterServerStatLogUtil;
-import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.eagleeye.IdStatKeys;
 import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
 
 /**
@@ -34,16 +34,26 @@ import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
  */
 public final class ClusterParamFlowChecker {
 
-    static boolean allowProceed(long flowId) {
+    /**
+     * Registered stat log keys of passed requests, to avoid building the key on every request.
+     */
+    private static final IdStatKeys PASS_LOG_KEYS = ClusterServerStatLogUtil.idKeys("param|pass|");
+
+    /**
+     * @return 0 if the request may proceed, otherwise the back-off time (in ms) suggested to the client
+     */
+    static long allowProceed(long flowId) {
         String namespace = ClusterParamFlowRuleManager.getNamespace(flowId);
-        return GlobalRequestLimiter.tryPass(namespace);
+        return GlobalRequestLimiter.tryAcquire(namespace);
     }
 
     static TokenResult acquireClusterToken(ParamFlowRule rule, int count, Collection<Object> values) {
         Long id = rule.getClusterConfig().getFlowId();
 
-        if (!allowProceed(id)) {
-            return new TokenResult(TokenResultStatus.TOO_MANY_REQUEST);
+        long backoffMs = allowProceed(id);
+        if (backoffMs > 0) {
+            return new TokenResult(TokenResultStatus.TOO_MANY_REQUEST)
+                .setWaitInMs((int)backoffMs);
         }
 
         ClusterParamMetric metric = ClusterParamMetricStatistics.getMetric(id);
@@ -58,25 +68,33 @@ public final class ClusterParamFlowChecker {
         double remaining = -1;
         boolean hasPassed = true;
         Object blockObject = null;
+        int checked = 0;
+        int thresholdFactor = ClusterParamFlowRuleManager.getThresholdFactor(rule);
         for (Object value : values) {
-            double latestQps = metric.getAvg(value);
-            double threshold = calcGlobalThreshold(rule, value);
-            double nextRemaining = threshold - latestQps - count;
-            remaining = nextRemaining;
-            if (nextRemaining < 0) {
+            double threshold = getRawThreshold(rule, value) * thresholdFactor;
+            // Check and add in one step for each value.
+            double nextRemaining = metric.tryAddValue(value, count, threshold);
+            if (nextRemaining == ClusterParamMetric.BLOCKED) {
                 hasPassed = false;
                 blockObject = value;
                 break;
             }
+            remaining = nextRemaining;
+            checked++;
         }
 
         if (hasPassed) {
+            PASS_LOG_KEYS.get(id).count();
+        } else {
+            // Revert the values that have been added before the blocked one.
+            int reverted = 0;
             for (Object value : values) {
-                metric.addValue(value, count);
+                if (reverted++ >= checked) {
+                    break;
+                }
+                metric.revertValue(value, count);
             }
-            ClusterServerStatLogUtil.log(String.format("param|pass|%d", id));
-        } else {
-            ClusterServerStatLogUtil.log(String.format("param|block|%d|%s", id, blockObject));
+            ClusterServerStatLogUtil.log("param|block|" + id + '|' + blockObject);
         }
         if (values.size() > 1) {
             // Remaining field is unsupported for multi-values.
@@ -98,18 +116,6 @@ public final class ClusterParamFlowChecker {
             .setWaitInMs(0);
     }
 
-    private static double calcGlobalThreshold(ParamFlowRule rule, Object value) {
-        double count = getRawThreshold(rule, value);
-        switch (rule.getClusterConfig().getThresholdType()) {
-            case ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL:
-                return count;
-            case ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL:
-            default:
-                int connectedCount = ClusterParamFlowRuleManager.getConnectedCount(rule.getClusterConfig().getFlowId());
-                return count * connectedCount;
-        }
-    }
-
     private static double getRawThreshold(ParamFlowRule rule, Object value) {
         Integer itemCount = rule.retrieveExclusiveItemCount(value);
         if (itemCount == null) {
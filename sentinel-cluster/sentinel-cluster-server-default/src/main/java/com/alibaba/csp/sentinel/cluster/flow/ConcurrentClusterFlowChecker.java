@@ -22,10 +22,13 @@ import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurr
 import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNodeManager;
 import com.alibaba.csp.sentinel.cluster.server.log.ClusterServerStatLogUtil;
+import com.alibaba.csp.sentinel.eagleeye.IdStatKeys;
 import com.alibaba.csp.sentinel.log.RecordLog;
-import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -33,16 +36,12 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 final public class ConcurrentClusterFlowChecker {
 
+    private static final IdStatKeys BLOCK_LOG_KEYS = ClusterServerStatLogUtil.idKeys("concurrent|block|");
+    private static final IdStatKeys PASS_LOG_KEYS = ClusterServerStatLogUtil.idKeys("concurrent|pass|");
+    private static final IdStatKeys RELEASE_LOG_KEYS = ClusterServerStatLogUtil.idKeys("concurrent|release|");
+
     public static double calcGlobalThreshold(FlowRule rule) {
-        double count = rule.getCount();
-        switch (rule.getClusterConfig().getThresholdType()) {
-            case ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL:
-                return count;
-            case ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL:
-            default:
-                int connectedCount = ClusterFlowRuleManager.getConnectedCount(rule.getClusterConfig().getFlowId());
-                return count * connectedCount;
-        }
+        return ClusterFlowRuleManager.getGlobalThreshold(rule);
     }
 
     public static TokenResult acquireConcurrentToken(/*@Valid*/ String clientAddress, FlowRule rule, int acquireCount) {
@@ -55,7 +54,7 @@ final public class ConcurrentClusterFlowChecker {
 
         // check before enter the lock to improve the efficiency
         if (nowCalls.get() + acquireCount > calcGlobalThreshold(rule)) {
-            ClusterServerStatLogUtil.log("concurrent|block|" + flowId, acquireCount);
+            BLOCK_LOG_KEYS.get(flowId).count(acquireCount);
             return new TokenResult(TokenResultStatus.BLOCKED);
         }
 
@@ -64,13 +63,13 @@ final public class ConcurrentClusterFlowChecker {
         synchronized (nowCalls) {
             // check again whether the request can pass.
             if (nowCalls.get() + acquireCount > calcGlobalThreshold(rule)) {
-                ClusterServerStatLogUtil.log("concurrent|block|" + flowId, acquireCount);
+                BLOCK_LOG_KEYS.get(flowId).count(acquireCount);
                 return new TokenResult(TokenResultStatus.BLOCKED);
             } else {
                 nowCalls.getAndAdd(acquireCount);
             }
         }
-        ClusterServerStatLogUtil.log("concurrent|pass|" + flowId, acquireCount);
+        PASS_LOG_KEYS.get(flowId).count(acquireCount);
         TokenCacheNode node = TokenCacheNode.generateTokenCacheNode(rule, acquireCount, clientAddress);
         TokenCacheNodeManager.putTokenCacheNode(node.getTokenId(), node);
         TokenResult tokenResult = new TokenResult(TokenResultStatus.OK);
@@ -96,7 +95,42 @@ final public class ConcurrentClusterFlowChecker {
         int acquireCount = node.getAcquireCount();
         AtomicInteger nowCalls = CurrentConcurrencyManager.get(node.getFlowId());
         nowCalls.getAndAdd(-1 * acquireCount);
-        ClusterServerStatLogUtil.log("concurrent|release|" + rule.getClusterConfig().getFlowId(), acquireCount);
+        RELEASE_LOG_KEYS.get(rule.getClusterConfig().getFlowId()).count(acquireCount);
         return new TokenResult(TokenResultStatus.RELEASE_OK);
     }
+
+    /**
+     * Release a batch of tokens. The concurrency of each flow is decreased only once for the whole batch.
+     *
+     * @param tokenIds ids of the tokens to release
+     * @return count of the tokens that are actually released
+     * @since 1.8.8
+     */
+    public static int releaseConcurrentTokens(/*@Valid*/ Collection<Long> tokenIds) {
+        Map<Long, Integer> releasedCountMap = new HashMap<>();
+        int released = 0;
+        for (Long tokenId : tokenIds) {
+            if (tokenId == null) {
+                continue;
+            }
+            TokenCacheNode node = TokenCacheNodeManager.getTokenCacheNode(tokenId);
+            if (node == null || ClusterFlowRuleManager.getFlowRuleById(node.getFlowId()) == null) {
+                continue;
+            }
+            if (TokenCacheNodeManager.removeTokenCacheNode(tokenId) == null) {
+                continue;
+            }
+            Integer count = releasedCountMap.get(node.getFlowId());
+            releasedCountMap.put(node.getFlowId(), count == null ? node.getAcquireCount() : count + node.getAcquireCount());
+            released++;
+        }
+        for (Map.Entry<Long, Integer> entry : releasedCountMap.entrySet()) {
+            AtomicInteger nowCalls = CurrentConcurrencyManager.get(entry.getKey());
+            if (nowCalls != null) {
+                nowCalls.getAndAdd(-1 * entry.getValue());
+            }
+            RELEASE_LOG_KEYS.get(entry.getKey()).count(entry.getValue());
+        }
+        return released;
+    }
 }
@@ -84,6 +84,20 @@ public class DefaultTokenService implements TokenService {
         ConcurrentClusterFlowChecker.releaseConcurrentToken(tokenId);
     }
 
+    /**
+     * Release a batch of concurrent tokens.
+     *
+     * @param tokenIds ids of the tokens to release
+     * @return count of the tokens that are actually released
+     * @since 1.8.8
+     */
+    public int releaseConcurrentTokens(Collection<Long> tokenIds) {
+        if (tokenIds == null || tokenIds.isEmpty()) {
+            return 0;
+        }
+        return ConcurrentClusterFlowChecker.releaseConcurrentTokens(tokenIds);
+    }
+
     private boolean notValidRequest(Long id, int count) {
         return id == null || id <= 0 || count <= 0;
     }
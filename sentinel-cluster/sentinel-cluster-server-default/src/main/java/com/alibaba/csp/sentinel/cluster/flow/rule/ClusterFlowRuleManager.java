@@ -19,12 +19,15 @@ import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
 import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectedCountObserver;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionGroup;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.cluster.server.util.ClusterRuleUtil;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
@@ -74,6 +77,14 @@ public final class ClusterFlowRuleManager {
      * </pre>
      */
     private static final Map<Long, String> FLOW_NAMESPACE_MAP = new ConcurrentHashMap<>();
+    /**
+     * <p>(flowId, global threshold)</p>
+     * <p>
+     * The global thresholds are precomputed when rules are loaded and when the connected count
+     * of the namespace changes, so checking a rule never resolves the connection group.
+     * </p>
+     */
+    private static final Map<Long, Double> GLOBAL_THRESHOLD_MAP = new ConcurrentHashMap<>();
 
     /**
      * (namespace, property-listener wrapper)
@@ -86,9 +97,16 @@ public final class ClusterFlowRuleManager {
             = DEFAULT_PROPERTY_SUPPLIER;
 
     private static final Object UPDATE_LOCK = new Object();
+    private static final Object THRESHOLD_LOCK = new Object();
 
     static {
         initDefaultProperty();
+        ConnectionManager.addConnectedCountObserver(new ConnectedCountObserver() {
+            @Override
+            public void onConnectedCountChange(ConnectionGroup group) {
+                refreshGlobalThresholds(group.getNamespace());
+            }
+        });
     }
 
     private static void initDefaultProperty() {
@@ -274,6 +292,7 @@ public final class ClusterFlowRuleManager {
             for (Long flowId : flowIdSet) {
                 FLOW_RULES.remove(flowId);
                 FLOW_NAMESPACE_MAP.remove(flowId);
+                GLOBAL_THRESHOLD_MAP.remove(flowId);
                 if (CurrentConcurrencyManager.containsFlowId(flowId)) {
                     CurrentConcurrencyManager.remove(flowId);
                 }
@@ -291,6 +310,7 @@ public final class ClusterFlowRuleManager {
                 if (predicate.test(flowId)) {
                     FLOW_RULES.remove(flowId);
                     FLOW_NAMESPACE_MAP.remove(flowId);
+                    GLOBAL_THRESHOLD_MAP.remove(flowId);
                     ClusterMetricStatistics.removeMetric(flowId);
                     if (CurrentConcurrencyManager.containsFlowId(flowId)) {
                         CurrentConcurrencyManager.remove(flowId);
@@ -372,6 +392,51 @@ public final class ClusterFlowRuleManager {
 
         FLOW_RULES.putAll(ruleMap);
         NAMESPACE_FLOW_ID_MAP.put(namespace, flowIdSet);
+        refreshGlobalThresholds(namespace);
+    }
+
+    /**
+     * Get the precomputed global threshold of given rule.
+     *
+     * @param rule valid cluster flow rule
+     * @return global threshold of the rule
+     * @since 1.8.8
+     */
+    public static double getGlobalThreshold(/*@Valid*/ FlowRule rule) {
+        Double threshold = GLOBAL_THRESHOLD_MAP.get(rule.getClusterConfig().getFlowId());
+        if (threshold != null) {
+            return threshold;
+        }
+        // The rule is not loaded (or is being loaded), so calculate it directly.
+        return calcGlobalThreshold(rule, getConnectedCount(rule.getClusterConfig().getFlowId()));
+    }
+
+    private static double calcGlobalThreshold(FlowRule rule, int connectedCount) {
+        double count = rule.getCount();
+        switch (rule.getClusterConfig().getThresholdType()) {
+            case ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL:
+                return count;
+            case ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL:
+            default:
+                return count * connectedCount;
+        }
+    }
+
+    private static void refreshGlobalThresholds(String namespace) {
+        Set<Long> flowIdSet = NAMESPACE_FLOW_ID_MAP.get(namespace);
+        if (flowIdSet == null) {
+            return;
+        }
+        // Read the connected count under the lock, so a stale count never overrides a newer one.
+        synchronized (THRESHOLD_LOCK) {
+            int connectedCount = ConnectionManager.getConnectedCount(namespace);
+            for (Long flowId : new ArrayList<>(flowIdSet)) {
+                FlowRule rule = FLOW_RULES.get(flowId);
+                if (rule != null) {
+                    GLOBAL_THRESHOLD_MAP.put(flowId, calcGlobalThreshold(rule, connectedCount));
+                }
+            }
+        }
     }
 
     private static final class FlowRulePropertyListener implements PropertyListener<List<FlowRule>> {
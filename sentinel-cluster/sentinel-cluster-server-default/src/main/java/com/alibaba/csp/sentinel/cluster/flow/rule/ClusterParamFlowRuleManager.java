@@ -25,12 +25,15 @@ import java.util.concurrent.ConcurrentHashMap;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatistics;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamMetric;
 import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectedCountObserver;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionGroup;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.cluster.server.util.ClusterRuleUtil;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.property.DynamicSentinelProperty;
 import com.alibaba.csp.sentinel.property.PropertyListener;
 import com.alibaba.csp.sentinel.property.SentinelProperty;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowClusterConfig;
 import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
@@ -72,6 +75,15 @@ public final class ClusterParamFlowRuleManager {
      * (flowId, namespace)
      */
     private static final Map<Long, String> FLOW_NAMESPACE_MAP = new ConcurrentHashMap<>();
+    /**
+     * <p>(flowId, global threshold factor)</p>
+     * <p>
+     * The global threshold of a parameter value is its raw threshold multiplied by the factor of the rule.
+     * The factors are precomputed when rules are loaded and when the connected count of the namespace
+     * changes, so checking a rule never resolves the connection group.
+     * </p>
+     */
+    private static final Map<Long, Integer> THRESHOLD_FACTOR_MAP = new ConcurrentHashMap<>();
 
     /**
      * (namespace, property-listener wrapper)
@@ -84,9 +96,16 @@ public final class ClusterParamFlowRuleManager {
         = DEFAULT_PROPERTY_SUPPLIER;
 
     private static final Object UPDATE_LOCK = new Object();
+    private static final Object THRESHOLD_LOCK = new Object();
 
     static {
         initDefaultProperty();
+        ConnectionManager.addConnectedCountObserver(new ConnectedCountObserver() {
+            @Override
+            public void onConnectedCountChange(ConnectionGroup group) {
+                refreshThresholdFactors(group.getNamespace());
+            }
+        });
     }
 
     private static void initDefaultProperty() {
@@ -194,6 +213,7 @@ public final class ClusterParamFlowRuleManager {
             for (Long flowId : flowIdSet) {
                 PARAM_RULES.remove(flowId);
                 FLOW_NAMESPACE_MAP.remove(flowId);
+                THRESHOLD_FACTOR_MAP.remove(flowId);
             }
             flowIdSet.clear();
         } else {
@@ -208,6 +228,7 @@ public final class ClusterParamFlowRuleManager {
                 if (predicate.test(flowId)) {
                     PARAM_RULES.remove(flowId);
                     FLOW_NAMESPACE_MAP.remove(flowId);
+                    THRESHOLD_FACTOR_MAP.remove(flowId);
                     ClusterParamMetricStatistics.removeMetric(flowId);
                 }
             }
@@ -365,6 +386,50 @@ public final class ClusterParamFlowRuleManager {
 
         PARAM_RULES.putAll(ruleMap);
         NAMESPACE_FLOW_ID_MAP.put(namespace, flowIdSet);
+        refreshThresholdFactors(namespace);
+    }
+
+    /**
+     * Get the precomputed global threshold factor of given rule.
+     *
+     * @param rule valid cluster parameter flow rule
+     * @return 1 for global threshold, or the connected count of the namespace for average local threshold
+     * @since 1.8.8
+     */
+    public static int getThresholdFactor(/*@Valid*/ ParamFlowRule rule) {
+        Integer factor = THRESHOLD_FACTOR_MAP.get(rule.getClusterConfig().getFlowId());
+        if (factor != null) {
+            return factor;
+        }
+        // The rule is not loaded (or is being loaded), so calculate it directly.
+        return calcThresholdFactor(rule, getConnectedCount(rule.getClusterConfig().getFlowId()));
+    }
+
+    private static int calcThresholdFactor(ParamFlowRule rule, int connectedCount) {
+        switch (rule.getClusterConfig().getThresholdType()) {
+            case ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL:
+                return 1;
+            case ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL:
+            default:
+                return connectedCount;
+        }
+    }
+
+    private static void refreshThresholdFactors(String namespace) {
+        Set<Long> flowIdSet = NAMESPACE_FLOW_ID_MAP.get(namespace);
+        if (flowIdSet == null) {
+            return;
+        }
+        // Read the connected count under the lock, so a stale count never overrides a newer one.
+        synchronized (THRESHOLD_LOCK) {
+            int connectedCount = ConnectionManager.getConnectedCount(namespace);
+            for (Long flowId : new ArrayList<>(flowIdSet)) {
+                ParamFlowRule rule = PARAM_RULES.get(flowId);
+                if (rule != null) {
+                    THRESHOLD_FACTOR_MAP.put(flowId, calcThresholdFactor(rule, connectedCount));
+                }
+            }
+        }
     }
 
     private ClusterParamFlowRuleManager() {}
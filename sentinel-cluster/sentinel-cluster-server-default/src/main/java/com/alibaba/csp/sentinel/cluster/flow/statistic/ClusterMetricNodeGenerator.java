@@ -101,6 +101,38 @@ public class ClusterMetricNodeGenerator {
             .setFlowId(flowId)
             .setResourceName(rule.getResource())
             .setTimestamp(TimeUtil.currentTimeMillis())
-            .setTopParams(metric.getTopValues(5));
+            .setTopParams(metric.getHotValues(5));
+    }
+
+    /**
+     * Generate metric nodes carrying the hottest parameter values of the cluster parameter flow rules.
+     *
+     * @param namespace namespace of the rules
+     * @param flowId    flow ID of the rule, or null for all rules of the namespace
+     * @param number    max amount of hot values of each rule
+     * @return metric nodes of the matched rules, each with a value-QPS map in descending order of QPS
+     * @since 1.8.8
+     */
+    public static List<ClusterMetricNode> generateHotParamNodes(String namespace, Long flowId, int number) {
+        Set<Long> paramFlowIds = ClusterParamFlowRuleManager.getFlowIdSet(namespace);
+        List<ClusterMetricNode> list = new ArrayList<>();
+        for (Long id : paramFlowIds) {
+            if (flowId != null && !flowId.equals(id)) {
+                continue;
+            }
+            ParamFlowRule rule = ClusterParamFlowRuleManager.getParamRuleById(id);
+            if (rule == null) {
+                continue;
+            }
+            ClusterParamMetric metric = ClusterParamMetricStatistics.getMetric(id);
+            Map<Object, Double> hotValues = metric == null ? new HashMap<Object, Double>(0)
+                : metric.getHotValues(Math.min(number, metric.getHotValueCapacity()));
+            list.add(new ClusterMetricNode()
+                .setFlowId(id)
+                .setResourceName(rule.getResource())
+                .setTimestamp(TimeUtil.currentTimeMillis())
+                .setTopParams(hotValues));
+        }
+        return list;
     }
 }
@@ -15,7 +15,7 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent;
 
-import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire.RegularExpireStrategy;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire.TimingWheelExpireStrategy;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
 import com.googlecode.concurrentlinkedhashmap.Weighers;
@@ -27,6 +27,7 @@ import java.util.Set;
  */
 public class TokenCacheNodeManager {
     private static ConcurrentLinkedHashMap<Long, TokenCacheNode> TOKEN_CACHE_NODE_MAP;
+    private static TimingWheelExpireStrategy EXPIRE_STRATEGY;
 
 
     private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
@@ -45,9 +46,12 @@ public class TokenCacheNodeManager {
                 .maximumWeightedCapacity(maximumWeightedCapacity)
                 .weigher(Weighers.singleton())
                 .build();
-        // Start the task of regularly clearing expired keys
-        RegularExpireStrategy strategy = new RegularExpireStrategy(TOKEN_CACHE_NODE_MAP);
-        strategy.startClearTaskRegularly();
+        if (EXPIRE_STRATEGY != null) {
+            EXPIRE_STRATEGY.stop();
+        }
+        // Start the timing wheel that expires the tokens.
+        EXPIRE_STRATEGY = new TimingWheelExpireStrategy(TOKEN_CACHE_NODE_MAP);
+        EXPIRE_STRATEGY.startClearTaskRegularly();
     }
 
 
@@ -58,6 +62,7 @@ public class TokenCacheNodeManager {
 
     public static void putTokenCacheNode(long tokenId, TokenCacheNode cacheNode) {
         TOKEN_CACHE_NODE_MAP.put(tokenId, cacheNode);
+        EXPIRE_STRATEGY.scheduleExpiration(cacheNode);
     }
 
     public static boolean isContainsTokenId(long tokenId) {
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire;
 
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+
 /**
  * @author yunfeiyagnggzq
  */
@@ -23,4 +25,12 @@ public interface ExpireStrategy {
      * clean expired token regularly.
      */
     void startClearTaskRegularly();
+
+    /**
+     * Called when a new token is put into the token cache, so that the strategy can track its expiration.
+     *
+     * @param node the newly created token
+     * @since 1.8.8
+     */
+    void scheduleExpiration(TokenCacheNode node);
 }
@@ -79,6 +79,11 @@ public class RegularExpireStrategy implements ExpireStrategy {
         executor.scheduleAtFixedRate(new ClearExpiredTokenTask(), 0, executeRate, TimeUnit.MILLISECONDS);
     }
 
+    @Override
+    public void scheduleExpiration(TokenCacheNode node) {
+        // Expired tokens are found by scanning the whole cache regularly, nothing to track here.
+    }
+
     private class ClearExpiredTokenTask implements Runnable {
         @Override
         public void run() {
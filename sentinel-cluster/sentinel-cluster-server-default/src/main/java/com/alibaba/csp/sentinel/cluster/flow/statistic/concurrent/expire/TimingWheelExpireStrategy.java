@@ -0,0 +1,264 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+
+/**
+ * <p>Expire strategy based on a hashed timing wheel.</p>
+ * <p>
+ * Unlike {@link RegularExpireStrategy} which scans (part of) the whole token cache every second,
+ * every token is put into the wheel slot of its expiration time when it's created, and the wheel only
+ * visits the slot of current tick. So both tracking and expiring a token costs O(1), no matter how many
+ * tokens are outstanding. Released tokens are not removed from the wheel eagerly: they are simply
+ * dropped when their slot is visited and the token is no longer in the cache.
+ * </p>
+ * <p>
+ * The expiration rules are the same as {@link RegularExpireStrategy}: a token expires when it has been
+ * held for more than 2 times of the resource timeout, or when its client is offline and the client
+ * offline time has elapsed. A token whose client is still online is re-checked every client offline time
+ * until its resource timeout expires.
+ * </p>
+ * <p>
+ * New tokens are offered to a lock-free queue and moved into the wheel by the single wheel thread,
+ * so the wheel itself is confined to that thread.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class TimingWheelExpireStrategy implements ExpireStrategy {
+
+    public static final long DEFAULT_TICK_MS = 100;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    private static final ScheduledExecutorService EXECUTOR = Executors.newScheduledThreadPool(1,
+        new NamedThreadFactory("sentinel-cluster-token-expire-wheel", true));
+
+    private final ConcurrentLinkedHashMap<Long, TokenCacheNode> localCache;
+
+    private final long tickMs;
+    private final int mask;
+    private final Slot[] wheel;
+    private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The next tick to visit. Only accessed by the wheel thread.
+     */
+    private long currentTick = -1;
+
+    private volatile ScheduledFuture<?> tickFuture;
+
+    public TimingWheelExpireStrategy(ConcurrentLinkedHashMap<Long, TokenCacheNode> localCache) {
+        this(localCache, DEFAULT_TICK_MS, DEFAULT_WHEEL_SIZE);
+    }
+
+    public TimingWheelExpireStrategy(ConcurrentLinkedHashMap<Long, TokenCacheNode> localCache, long tickMs,
+                                     int wheelSize) {
+        AssertUtil.isTrue(localCache != null, "local cache can't be null");
+        AssertUtil.isTrue(tickMs > 0, "tickMs should be positive");
+        AssertUtil.isTrue(wheelSize > 0 && (wheelSize & (wheelSize - 1)) == 0,
+            "wheelSize should be a positive power of 2");
+        this.localCache = localCache;
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.wheel = new Slot[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            wheel[i] = new Slot();
+        }
+    }
+
+    @Override
+    public void startClearTaskRegularly() {
+        if (tickFuture == null) {
+            tickFuture = EXECUTOR.scheduleAtFixedRate(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        advance(TimeUtil.currentTimeMillis());
+                    } catch (Throwable e) {
+                        RecordLog.warn("[TimingWheelExpireStrategy] Unexpected error when expiring tokens", e);
+                    }
+                }
+            }, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop the wheel. Tokens that are still in the cache won't be expired any more.
+     */
+    public void stop() {
+        ScheduledFuture<?> future = this.tickFuture;
+        if (future != null) {
+            future.cancel(false);
+            this.tickFuture = null;
+        }
+    }
+
+    @Override
+    public void scheduleExpiration(TokenCacheNode node) {
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(node.getFlowId());
+        long deadline = node.getClientTimeout();
+        if (rule != null) {
+            deadline = Math.min(deadline, resourceDeadline(node, rule.getClusterConfig()));
+        }
+        pendingTimeouts.offer(new Timeout(node, deadline));
+    }
+
+    /**
+     * Visit all the slots from last visited tick to the tick of given time. Only called by the wheel thread.
+     *
+     * @param now current time in milliseconds
+     */
+    void advance(long now) {
+        long nowTick = now / tickMs;
+        if (currentTick < 0) {
+            currentTick = nowTick;
+        }
+        transferPendingTimeouts();
+        while (currentTick <= nowTick) {
+            expireSlot(wheel[(int)(currentTick & mask)], now);
+            currentTick++;
+        }
+    }
+
+    private void transferPendingTimeouts() {
+        Timeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            place(timeout, currentTick);
+        }
+    }
+
+    /**
+     * @param minTick the next tick that will be visited, timeouts that have passed go to its slot
+     */
+    private void place(Timeout timeout, long minTick) {
+        long deadlineTick = (timeout.deadline + tickMs - 1) / tickMs;
+        long tick = Math.max(deadlineTick, minTick);
+        timeout.remainingRounds = (tick - minTick) / wheel.length;
+        wheel[(int)(tick & mask)].add(timeout);
+    }
+
+    private void expireSlot(Slot slot, long now) {
+        Timeout timeout = slot.head;
+        slot.head = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                slot.add(timeout);
+            } else {
+                expire(timeout, now);
+            }
+            timeout = next;
+        }
+    }
+
+    private void expire(Timeout timeout, long now) {
+        TokenCacheNode node = timeout.node;
+        Long tokenId = node.getTokenId();
+        if (localCache.getQuietly(tokenId) != node) {
+            // Already released.
+            return;
+        }
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(node.getFlowId());
+        if (rule == null) {
+            removeToken(node);
+            RecordLog.info("[TimingWheelExpireStrategy] Delete the token<{}> because rule<{}> no longer exists",
+                tokenId, node.getFlowId());
+            return;
+        }
+        ClusterFlowConfig config = rule.getClusterConfig();
+        long resourceDeadline = resourceDeadline(node, config);
+        if (now > resourceDeadline) {
+            removeToken(node);
+            RecordLog.info("[TimingWheelExpireStrategy] Delete the expired token<{}> because of resource timeout"
+                + " for ruleId<{}>", tokenId, node.getFlowId());
+            return;
+        }
+        if (now > node.getClientTimeout() && !ConnectionManager.isClientOnline(node.getClientAddress())) {
+            removeToken(node);
+            RecordLog.info("[TimingWheelExpireStrategy] Delete the expired token<{}> because of client offline"
+                + " for ruleId<{}>", tokenId, node.getFlowId());
+            return;
+        }
+        // Not expired yet, check it again later.
+        long nextCheck = now < node.getClientTimeout() ? node.getClientTimeout()
+            : now + Math.max(config.getClientOfflineTime(), tickMs);
+        timeout.deadline = Math.min(nextCheck, resourceDeadline + 1);
+        place(timeout, currentTick + 1);
+    }
+
+    private static long resourceDeadline(TokenCacheNode node, ClusterFlowConfig config) {
+        // The token is regarded as timeout when it's held for more than 2 times of the resource timeout.
+        return node.getResourceTimeout() + config.getResourceTimeout();
+    }
+
+    private void removeToken(TokenCacheNode node) {
+        if (!localCache.remove(node.getTokenId(), node)) {
+            return;
+        }
+        AtomicInteger nowCalls = CurrentConcurrencyManager.get(node.getFlowId());
+        if (nowCalls != null) {
+            nowCalls.getAndAdd(-node.getAcquireCount());
+        }
+    }
+
+    public int getPendingCount() {
+        return pendingTimeouts.size();
+    }
+
+    private static final class Timeout {
+        private final TokenCacheNode node;
+        private long deadline;
+        private long remainingRounds;
+        private Timeout next;
+
+        Timeout(TokenCacheNode node, long deadline) {
+            this.node = node;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class Slot {
+        private Timeout head;
+
+        void add(Timeout timeout) {
+            timeout.next = head;
+            head = timeout;
+        }
+    }
+}
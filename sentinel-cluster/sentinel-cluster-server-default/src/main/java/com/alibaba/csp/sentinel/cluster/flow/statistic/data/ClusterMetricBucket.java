@@ -15,15 +15,24 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.data;
 
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * <p>Counters of a cluster metric window bucket.</p>
+ * <p>
+ * The {@link ClusterFlowEvent#PASS} counter is kept in an {@link AtomicLong} rather than a {@link LongAdder},
+ * so that the token server could check the remaining budget and acquire from it in one CAS
+ * (see {@link #tryAddPass(long, double)}).
+ * </p>
+ *
  * @author Eric Zhao
  * @since 1.4.0
  */
 public class ClusterMetricBucket {
 
     private final LongAdder[] counters;
+    private final AtomicLong passCounter = new AtomicLong();
 
     public ClusterMetricBucket() {
         ClusterFlowEvent[] events = ClusterFlowEvent.values();
@@ -37,14 +46,44 @@ public class ClusterMetricBucket {
         for (ClusterFlowEvent event : ClusterFlowEvent.values()) {
             counters[event.ordinal()].reset();
         }
+        passCounter.set(0);
     }
 
     public long get(ClusterFlowEvent event) {
+        if (event == ClusterFlowEvent.PASS) {
+            return passCounter.get();
+        }
         return counters[event.ordinal()].sum();
     }
 
     public ClusterMetricBucket add(ClusterFlowEvent event, long count) {
-        counters[event.ordinal()].add(count);
+        if (event == ClusterFlowEvent.PASS) {
+            passCounter.addAndGet(count);
+        } else {
+            counters[event.ordinal()].add(count);
+        }
         return this;
     }
+
+    /**
+     * Atomically add {@code count} to the pass counter of the bucket only if the result
+     * does not exceed {@code limit}.
+     *
+     * @param count count to add
+     * @param limit max pass count allowed in this bucket
+     * @return the updated pass count of the bucket, or -1 if the limit would be exceeded
+     * @since 1.8.8
+     */
+    public long tryAddPass(long count, double limit) {
+        while (true) {
+            long current = passCounter.get();
+            long next = current + count;
+            if (next > limit) {
+                return -1;
+            }
+            if (passCounter.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
 }
@@ -19,6 +19,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerFlowConfig;
 import com.alibaba.csp.sentinel.util.AssertUtil;
 
 /**
@@ -27,16 +28,22 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
  */
 public final class GlobalRequestLimiter {
 
-    private static final Map<String, RequestLimiter> GLOBAL_QPS_LIMITER_MAP = new ConcurrentHashMap<>();
+    /**
+     * Back-off hint for requests whose namespace could not be resolved.
+     */
+    private static final long UNKNOWN_NAMESPACE_BACKOFF_MS = 1000;
+
+    private static final Map<String, NamespaceRequestLimiter> GLOBAL_QPS_LIMITER_MAP = new ConcurrentHashMap<>();
 
     public static void initIfAbsent(String namespace) {
         AssertUtil.notEmpty(namespace, "namespace cannot be empty");
         if (!GLOBAL_QPS_LIMITER_MAP.containsKey(namespace)) {
-            GLOBAL_QPS_LIMITER_MAP.put(namespace, new RequestLimiter(ClusterServerConfigManager.getMaxAllowedQps(namespace)));
+            GLOBAL_QPS_LIMITER_MAP.put(namespace, newLimiter(ClusterServerConfigManager.getRequestLimiterType(),
+                ClusterServerConfigManager.getMaxAllowedQps(namespace)));
         }
     }
 
-    public static RequestLimiter getRequestLimiter(String namespace) {
+    public static NamespaceRequestLimiter getRequestLimiter(String namespace) {
         if (namespace == null) {
             return null;
         }
@@ -44,18 +51,29 @@ public final class GlobalRequestLimiter {
     }
 
     public static boolean tryPass(String namespace) {
+        return tryAcquire(namespace) == 0;
+    }
+
+    /**
+     * Try to accept one request of the given namespace.
+     *
+     * @param namespace namespace of the request
+     * @return 0 if the request is accepted, otherwise the suggested back-off time (in ms) for the client
+     * @since 1.8.8
+     */
+    public static long tryAcquire(String namespace) {
         if (namespace == null) {
-            return false;
+            return UNKNOWN_NAMESPACE_BACKOFF_MS;
         }
-        RequestLimiter limiter = GLOBAL_QPS_LIMITER_MAP.get(namespace);
+        NamespaceRequestLimiter limiter = GLOBAL_QPS_LIMITER_MAP.get(namespace);
         if (limiter == null) {
-            return true;
+            return 0;
         }
-        return limiter.tryPass();
+        return limiter.tryAcquire();
     }
 
     public static double getCurrentQps(String namespace) {
-        RequestLimiter limiter = getRequestLimiter(namespace);
+        NamespaceRequestLimiter limiter = getRequestLimiter(namespace);
         if (limiter == null) {
             return 0;
         }
@@ -63,7 +81,7 @@ public final class GlobalRequestLimiter {
     }
 
     public static double getMaxAllowedQps(String namespace) {
-        RequestLimiter limiter = getRequestLimiter(namespace);
+        NamespaceRequestLimiter limiter = getRequestLimiter(namespace);
         if (limiter == null) {
             return 0;
         }
@@ -72,12 +90,32 @@ public final class GlobalRequestLimiter {
 
     public static void applyMaxQpsChange(double maxAllowedQps) {
         AssertUtil.isTrue(maxAllowedQps >= 0, "max allowed QPS should > 0");
-        for (RequestLimiter limiter : GLOBAL_QPS_LIMITER_MAP.values()) {
+        for (NamespaceRequestLimiter limiter : GLOBAL_QPS_LIMITER_MAP.values()) {
             if (limiter != null) {
                 limiter.setQpsAllowed(maxAllowedQps);
             }
         }
     }
 
+    /**
+     * Replace the limiters of all namespaces with the given type of limiter. The max allowed QPS
+     * of each namespace is kept.
+     *
+     * @param limiterType type of the request limiter
+     * @since 1.8.8
+     */
+    public static void applyLimiterTypeChange(int limiterType) {
+        for (Map.Entry<String, NamespaceRequestLimiter> entry : GLOBAL_QPS_LIMITER_MAP.entrySet()) {
+            entry.setValue(newLimiter(limiterType, entry.getValue().getQpsAllowed()));
+        }
+    }
+
+    private static NamespaceRequestLimiter newLimiter(int limiterType, double maxAllowedQps) {
+        if (limiterType == ServerFlowConfig.REQUEST_LIMITER_SLIDING_WINDOW) {
+            return new RequestLimiter(maxAllowedQps);
+        }
+        return new TokenBucketRequestLimiter(maxAllowedQps);
+    }
+
     private GlobalRequestLimiter() {}
 }
@@ -0,0 +1,46 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.limit;
+
+/**
+ * <p>Limiter of the total requests that a token server accepts for a namespace.</p>
+ * <p>
+ * Each namespace owns its own limiter, so a namespace that floods the token server can only exhaust
+ * its own quota and won't starve the other namespaces sharing the same server.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public interface NamespaceRequestLimiter {
+
+    /**
+     * Try to accept one request.
+     *
+     * @return 0 if the request is accepted, otherwise the suggested time (in ms, always positive)
+     * that the client should back off before requesting again
+     */
+    long tryAcquire();
+
+    /**
+     * @return current accepted QPS of the namespace
+     */
+    double getQps();
+
+    double getQpsAllowed();
+
+    NamespaceRequestLimiter setQpsAllowed(double qpsAllowed);
+}
@@ -26,7 +26,7 @@ import com.alibaba.csp.sentinel.util.AssertUtil;
  * @author Eric Zhao
  * @since 1.4.1
  */
-public class RequestLimiter {
+public class RequestLimiter implements NamespaceRequestLimiter {
 
     private double qpsAllowed;
 
@@ -61,10 +61,12 @@ public class RequestLimiter {
         return success;
     }
 
+    @Override
     public double getQps() {
         return getSum() / data.getIntervalInSecond();
     }
 
+    @Override
     public double getQpsAllowed() {
         return qpsAllowed;
     }
@@ -73,6 +75,7 @@ public class RequestLimiter {
         return getQps() + 1 <= qpsAllowed;
     }
 
+    @Override
     public RequestLimiter setQpsAllowed(double qpsAllowed) {
         this.qpsAllowed = qpsAllowed;
         return this;
@@ -85,4 +88,13 @@ public class RequestLimiter {
         }
         return false;
     }
+
+    @Override
+    public long tryAcquire() {
+        if (tryPass()) {
+            return 0;
+        }
+        // The earliest time that some quota may be released is when the oldest window bucket expires.
+        return data.getIntervalInMs() / data.getSampleCount();
+    }
 }
@@ -0,0 +1,134 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>A lock-free token bucket limiter, implemented as the generic cell rate algorithm (GCRA).</p>
+ * <p>
+ * The whole bucket state is a single "theoretical arrival time" so acquiring a token costs one CAS
+ * and no window bucket needs to be located or reset. The bucket refills at {@code qpsAllowed} tokens
+ * per second and holds at most one second of tokens, which matches the burst allowed by the sliding
+ * window {@link RequestLimiter}. When the bucket is empty, the time until the next token is available
+ * is returned as the back-off hint.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class TokenBucketRequestLimiter implements NamespaceRequestLimiter {
+
+    private static final long ONE_SECOND_IN_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_BACKOFF_MS = 1000;
+    private static final int PASS_SAMPLE_COUNT = 10;
+    private static final int PASS_SAMPLE_LENGTH_MS = 1000 / PASS_SAMPLE_COUNT;
+
+    private volatile double qpsAllowed;
+    /**
+     * Interval between two tokens (in ns).
+     */
+    private volatile long emissionInterval;
+    /**
+     * How far the theoretical arrival time may run ahead of current time (in ns), i.e. the burst size.
+     */
+    private volatile long burstTolerance;
+
+    private final AtomicLong theoreticalArrivalTime = new AtomicLong(0);
+
+    /**
+     * Accepted requests of the last second in {@code PASS_SAMPLE_COUNT} ring buckets, only used for statistics.
+     */
+    private final AtomicLongArray passSampleStart = new AtomicLongArray(PASS_SAMPLE_COUNT);
+    private final AtomicLongArray passSampleCount = new AtomicLongArray(PASS_SAMPLE_COUNT);
+
+    public TokenBucketRequestLimiter(double qpsAllowed) {
+        setQpsAllowed(qpsAllowed);
+    }
+
+    @Override
+    public long tryAcquire() {
+        long currentTimeMillis = TimeUtil.currentTimeMillis();
+        long interval = emissionInterval;
+        if (interval <= 0) {
+            return MAX_BACKOFF_MS;
+        }
+        long now = TimeUnit.MILLISECONDS.toNanos(currentTimeMillis);
+        long tolerance = burstTolerance;
+        while (true) {
+            long tat = theoreticalArrivalTime.get();
+            long start = Math.max(tat, now);
+            long ahead = start - now;
+            if (ahead > tolerance) {
+                long waitNanos = ahead - tolerance;
+                return Math.min(MAX_BACKOFF_MS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos + 999_999)));
+            }
+            if (theoreticalArrivalTime.compareAndSet(tat, start + interval)) {
+                recordPass(currentTimeMillis);
+                return 0;
+            }
+        }
+    }
+
+    private void recordPass(long currentTimeMillis) {
+        long sampleStart = currentTimeMillis - currentTimeMillis % PASS_SAMPLE_LENGTH_MS;
+        int idx = (int)((currentTimeMillis / PASS_SAMPLE_LENGTH_MS) % PASS_SAMPLE_COUNT);
+        long lastStart = passSampleStart.get(idx);
+        if (lastStart != sampleStart && passSampleStart.compareAndSet(idx, lastStart, sampleStart)) {
+            // Only the winner of the CAS resets the stale bucket.
+            passSampleCount.set(idx, 0);
+        }
+        passSampleCount.incrementAndGet(idx);
+    }
+
+    /**
+     * @return accepted requests in the last second (sliding)
+     */
+    @Override
+    public double getQps() {
+        long currentTimeMillis = TimeUtil.currentTimeMillis();
+        long qps = 0;
+        for (int i = 0; i < PASS_SAMPLE_COUNT; i++) {
+            if (currentTimeMillis - passSampleStart.get(i) < 1000) {
+                qps += passSampleCount.get(i);
+            }
+        }
+        return qps;
+    }
+
+    @Override
+    public double getQpsAllowed() {
+        return qpsAllowed;
+    }
+
+    @Override
+    public TokenBucketRequestLimiter setQpsAllowed(double qpsAllowed) {
+        AssertUtil.isTrue(qpsAllowed >= 0, "max allowed QPS should > 0");
+        long interval = qpsAllowed > 0 ? (long)(ONE_SECOND_IN_NANOS / qpsAllowed) : 0;
+        if (qpsAllowed > 0 && interval <= 0) {
+            interval = 1;
+        }
+        this.burstTolerance = Math.max(0, ONE_SECOND_IN_NANOS - interval);
+        this.emissionInterval = interval;
+        this.qpsAllowed = qpsAllowed;
+        return this;
+    }
+}
@@ -19,7 +19,9 @@ import java.util.List;
 
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterMetricBucket;
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
 import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * @author Eric Zhao
@@ -71,6 +73,63 @@ public class ClusterMetric {
         return getSum(event) / metric.getIntervalInSecond();
     }
 
+    /**
+     * <p>Check the remaining quota and acquire {@code acquireCount} pass tokens in one atomic step.</p>
+     * <p>
+     * Buckets other than the current one no longer receive passes, so the budget of the current bucket is
+     * the max count allowed in the whole interval minus the passes of the other valid buckets. The pass counter
+     * of the current bucket is then increased via CAS only if it stays within the budget, so concurrent
+     * requests never overshoot the threshold.
+     * </p>
+     *
+     * @param acquireCount count to acquire
+     * @param threshold    QPS threshold
+     * @return remaining QPS after acquiring (>= 0) if acquired successfully; -1 if the threshold would be exceeded
+     * @since 1.8.8
+     */
+    public double tryAcquirePass(int acquireCount, double threshold) {
+        long now = TimeUtil.currentTimeMillis();
+        WindowWrap<ClusterMetricBucket> current = metric.currentWindow(now);
+        double intervalInSec = metric.getIntervalInSecond();
+        double budget = threshold * intervalInSec - metric.getSumExcept(now, current, ClusterFlowEvent.PASS);
+        long currentPass = current.value().tryAddPass(acquireCount, budget);
+        if (currentPass < 0) {
+            return -1;
+        }
+        return (budget - currentPass) / intervalInSec;
+    }
+
+    /**
+     * Get the valid windows at present, e.g. to take a snapshot.
+     *
+     * @return valid windows
+     * @since 1.8.8
+     */
+    public List<WindowWrap<ClusterMetricBucket>> listWindows() {
+        return metric.list(TimeUtil.currentTimeMillis());
+    }
+
+    /**
+     * Replace the counts of the window starting at given time (e.g. restored from a snapshot).
+     * The window is ignored if it has already slid out.
+     *
+     * @param windowStart start time of the window
+     * @param counts      counts indexed by the ordinal of {@link ClusterFlowEvent}
+     * @since 1.8.8
+     */
+    public void restoreWindow(long windowStart, long[] counts) {
+        long now = TimeUtil.currentTimeMillis();
+        if (windowStart > now || now - windowStart >= metric.getIntervalInMs()) {
+            return;
+        }
+        ClusterMetricBucket bucket = metric.currentWindow(windowStart).value();
+        bucket.reset();
+        ClusterFlowEvent[] events = ClusterFlowEvent.values();
+        for (int i = 0; i < events.length && i < counts.length; i++) {
+            bucket.add(events[i], counts[i]);
+        }
+    }
+
     /**
      * Try to pre-occupy upcoming buckets.
      *
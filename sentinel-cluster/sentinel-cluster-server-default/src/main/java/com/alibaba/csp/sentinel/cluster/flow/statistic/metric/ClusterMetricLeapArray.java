@@ -80,6 +80,29 @@ public class ClusterMetricLeapArray extends LeapArray<ClusterMetricBucket> {
         return occupyCounter[event.ordinal()].sum();
     }
 
+    /**
+     * Get the sum of given event in all valid buckets except the provided one (usually the current bucket).
+     * No intermediate list is created, as this is on the request path of the token server.
+     *
+     * @param timeMillis valid time in ms
+     * @param excluded   the bucket to exclude
+     * @param event      event to sum
+     * @return sum of the event in other valid buckets
+     * @since 1.8.8
+     */
+    public long getSumExcept(long timeMillis, WindowWrap<ClusterMetricBucket> excluded, ClusterFlowEvent event) {
+        long sum = 0;
+        int size = array.length();
+        for (int i = 0; i < size; i++) {
+            WindowWrap<ClusterMetricBucket> windowWrap = array.get(i);
+            if (windowWrap == null || windowWrap == excluded || isWindowDeprecated(timeMillis, windowWrap)) {
+                continue;
+            }
+            sum += windowWrap.value().get(event);
+        }
+        return sum;
+    }
+
     public long getFirstCountOfWindow(ClusterFlowEvent event) {
         if (event == null) {
             return 0;
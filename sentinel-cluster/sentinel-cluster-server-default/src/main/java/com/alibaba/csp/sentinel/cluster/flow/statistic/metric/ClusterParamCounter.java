@@ -0,0 +1,166 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Sliding window counter of a single parameter value.</p>
+ * <p>
+ * The counter is a small ring of primitive slots, one per sample window. Each slot packs the (low 32 bits
+ * of) window id and the count of that window into one {@code long}, so a slot is reset and updated with
+ * a single CAS, and slots of deprecated windows are simply ignored when summing.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+class ClusterParamCounter {
+
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLongArray slots;
+
+    /**
+     * Whether the value is tracked by {@link ClusterParamHotValues}.
+     */
+    private volatile boolean hot;
+
+    ClusterParamCounter(int sampleCount) {
+        this.slots = new AtomicLongArray(sampleCount);
+    }
+
+    boolean isHot() {
+        return hot;
+    }
+
+    void setHot(boolean hot) {
+        this.hot = hot;
+    }
+
+    private static long pack(long windowId, long count) {
+        return (windowId << 32) | (count & COUNT_MASK);
+    }
+
+    private static int windowIdOf(long slot) {
+        return (int)(slot >>> 32);
+    }
+
+    private static int countOf(long slot) {
+        return (int)slot;
+    }
+
+    private int indexOf(long windowId) {
+        return (int)(windowId % slots.length());
+    }
+
+    private boolean isValid(long slot, long windowId) {
+        // Compare with the low 32 bits of window id, in the range of (windowId - sampleCount, windowId].
+        int diff = (int)windowId - windowIdOf(slot);
+        return diff >= 0 && diff < slots.length();
+    }
+
+    /**
+     * @param windowId id of current window
+     * @return sum of the valid windows
+     */
+    long sum(long windowId) {
+        long sum = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            long slot = slots.get(i);
+            if (slot != 0 && isValid(slot, windowId)) {
+                sum += countOf(slot);
+            }
+        }
+        return sum;
+    }
+
+    private long sumExcept(long windowId, int excludedIndex) {
+        long sum = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (i == excludedIndex) {
+                continue;
+            }
+            long slot = slots.get(i);
+            if (slot != 0 && isValid(slot, windowId)) {
+                sum += countOf(slot);
+            }
+        }
+        return sum;
+    }
+
+    void add(long windowId, int count) {
+        int idx = indexOf(windowId);
+        while (true) {
+            long slot = slots.get(idx);
+            long current = (slot != 0 && windowIdOf(slot) == (int)windowId) ? countOf(slot) : 0;
+            if (slots.compareAndSet(idx, slot, pack(windowId, current + count))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Add the count only when the sum of valid windows after adding does not exceed given max sum.
+     *
+     * @param windowId id of current window
+     * @param count    count to add
+     * @param maxSum   max allowed sum of the valid windows
+     * @return sum after adding, or {@code Long.MIN_VALUE} if the count is not added
+     */
+    long tryAdd(long windowId, int count, double maxSum) {
+        int idx = indexOf(windowId);
+        // Other windows won't be updated any more, they only expire.
+        long others = sumExcept(windowId, idx);
+        while (true) {
+            long slot = slots.get(idx);
+            long current = (slot != 0 && windowIdOf(slot) == (int)windowId) ? countOf(slot) : 0;
+            long newSum = others + current + count;
+            if (newSum > maxSum) {
+                return Long.MIN_VALUE;
+            }
+            if (slots.compareAndSet(idx, slot, pack(windowId, current + count))) {
+                return newSum;
+            }
+        }
+    }
+
+    /**
+     * Revert a count added by {@link #tryAdd(long, int, double)} if its window has not passed.
+     */
+    void revert(long windowId, int count) {
+        int idx = indexOf(windowId);
+        while (true) {
+            long slot = slots.get(idx);
+            if (slot == 0 || windowIdOf(slot) != (int)windowId) {
+                return;
+            }
+            if (slots.compareAndSet(idx, slot, pack(windowId, countOf(slot) - count))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replace all the counts with a single count in given window (e.g. restored from a snapshot).
+     */
+    void reset(long windowId, long count) {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, 0);
+        }
+        slots.set(indexOf(windowId), pack(windowId, count));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Streaming tracker of the hottest parameter values (heavy hitters) of a parameter metric.</p>
+ * <p>
+ * At most {@code capacity} values are tracked. A value is admitted when its count in the sliding window
+ * exceeds the smallest tracked count, which replaces the coldest tracked value. The smallest tracked
+ * count is published as a volatile admission threshold, so requests of cold values and of values that
+ * are already tracked return without locking, and only values that are becoming hot take the lock.
+ * Tracked counts are refreshed from the live counters once per window, so values that cool down
+ * are evicted over time. Querying the hot values only sorts the tracked values instead of scanning
+ * all the values.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+class ClusterParamHotValues {
+
+    private final int capacity;
+
+    private final Object[] values;
+    private final ClusterParamCounter[] counters;
+    private final long[] sums;
+    private int size = 0;
+
+    private volatile long minSum = Long.MIN_VALUE;
+    private volatile long minSumWindowId = -1;
+
+    ClusterParamHotValues(int capacity) {
+        this.capacity = capacity;
+        this.values = new Object[capacity];
+        this.counters = new ClusterParamCounter[capacity];
+        this.sums = new long[capacity];
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Offer the latest count of a value.
+     *
+     * @param value    parameter value
+     * @param counter  counter of the value
+     * @param sum      latest count of the value in the sliding window
+     * @param windowId id of current window
+     */
+    void offer(Object value, ClusterParamCounter counter, long sum, long windowId) {
+        if (windowId == minSumWindowId && (counter.isHot() || sum <= minSum)) {
+            return;
+        }
+        synchronized (this) {
+            if (windowId != minSumWindowId) {
+                refresh(windowId);
+            }
+            if (!counter.isHot()) {
+                admit(value, counter, sum);
+            }
+            updateMinSum(windowId);
+        }
+    }
+
+    private void refresh(long windowId) {
+        for (int i = 0; i < size; i++) {
+            sums[i] = counters[i].sum(windowId);
+        }
+    }
+
+    private void admit(Object value, ClusterParamCounter counter, long sum) {
+        // The value is already tracked with a stale counter (e.g. the counter was evicted and recreated).
+        for (int i = 0; i < size; i++) {
+            if (values[i].equals(value)) {
+                counters[i].setHot(false);
+                put(i, value, counter, sum);
+                return;
+            }
+        }
+        if (size < capacity) {
+            put(size++, value, counter, sum);
+            return;
+        }
+        int minIndex = 0;
+        for (int i = 1; i < size; i++) {
+            if (sums[i] < sums[minIndex]) {
+                minIndex = i;
+            }
+        }
+        if (sum > sums[minIndex]) {
+            counters[minIndex].setHot(false);
+            put(minIndex, value, counter, sum);
+        }
+    }
+
+    private void put(int index, Object value, ClusterParamCounter counter, long sum) {
+        values[index] = value;
+        counters[index] = counter;
+        sums[index] = sum;
+        counter.setHot(true);
+    }
+
+    private void updateMinSum(long windowId) {
+        long min = Long.MIN_VALUE;
+        if (size == capacity) {
+            min = Long.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, sums[i]);
+            }
+        }
+        this.minSum = min;
+        this.minSumWindowId = windowId;
+    }
+
+    /**
+     * @param number   max amount of values to return
+     * @param windowId id of current window
+     * @return value-count map of the hottest values with positive count, in descending order of count
+     */
+    Map<Object, Long> getHotValues(int number, long windowId) {
+        List<Map.Entry<Object, Long>> list = new ArrayList<>(capacity);
+        synchronized (this) {
+            for (int i = 0; i < size; i++) {
+                long sum = counters[i].sum(windowId);
+                if (sum > 0) {
+                    list.add(new AbstractMap.SimpleEntry<>(values[i], sum));
+                }
+            }
+        }
+        Collections.sort(list, new Comparator<Map.Entry<Object, Long>>() {
+            @Override
+            public int compare(Map.Entry<Object, Long> a, Map.Entry<Object, Long> b) {
+                return Long.compare(b.getValue(), a.getValue());
+            }
+        });
+        Map<Object, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < list.size() && i < number; i++) {
+            result.put(list.get(i).getKey(), list.get(i).getValue());
+        }
+        return result;
+    }
+}
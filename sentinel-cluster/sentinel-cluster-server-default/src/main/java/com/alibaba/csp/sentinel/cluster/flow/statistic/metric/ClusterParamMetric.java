@@ -19,16 +19,24 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
-import java.util.concurrent.atomic.LongAdder;
 
 import com.alibaba.csp.sentinel.slots.statistic.cache.CacheMap;
+import com.alibaba.csp.sentinel.slots.statistic.cache.ConcurrentLinkedHashMapWrapper;
 import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
+ * <p>Sliding window metric of parameter values.</p>
+ * <p>
+ * Each parameter value holds its own {@link ClusterParamCounter} (a small ring of window counts),
+ * so a request looks up the value only once and checks and adds its count atomically, rather than
+ * looking up the value in the map of every window bucket.
+ * </p>
+ *
  * @author Eric Zhao
  * @since 1.4.0
  */
@@ -36,85 +44,212 @@ public class ClusterParamMetric {
 
     public static final int DEFAULT_CLUSTER_MAX_CAPACITY = 4000;
 
-    private final ClusterParameterLeapArray<LongAdder> metric;
+    /**
+     * Default amount of the hot values tracked by {@link #getHotValues(int)}.
+     *
+     * @since 1.8.8
+     */
+    public static final int DEFAULT_HOT_VALUE_CAPACITY = 32;
+
+    /**
+     * Result of {@link #tryAddValue(Object, int, double)} when the value is blocked.
+     *
+     * @since 1.8.8
+     */
+    public static final double BLOCKED = -1;
+
+    private final int sampleCount;
+    private final int windowLengthInMs;
+    private final double intervalInSecond;
+
+    private final CacheMap<Object, ClusterParamCounter> counterMap;
+    private final ClusterParamHotValues hotValues;
 
     public ClusterParamMetric(int sampleCount, int intervalInMs) {
         this(sampleCount, intervalInMs, DEFAULT_CLUSTER_MAX_CAPACITY);
     }
 
     public ClusterParamMetric(int sampleCount, int intervalInMs, int maxCapacity) {
+        this(sampleCount, intervalInMs, maxCapacity, DEFAULT_HOT_VALUE_CAPACITY);
+    }
+
+    public ClusterParamMetric(int sampleCount, int intervalInMs, int maxCapacity, int hotValueCapacity) {
         AssertUtil.isTrue(sampleCount > 0, "sampleCount should be positive");
         AssertUtil.isTrue(intervalInMs > 0, "interval should be positive");
         AssertUtil.isTrue(intervalInMs % sampleCount == 0, "time span needs to be evenly divided");
-        this.metric = new ClusterParameterLeapArray<>(sampleCount, intervalInMs, maxCapacity);
+        AssertUtil.isTrue(maxCapacity > 0, "maxCapacity of LRU map should be positive");
+        AssertUtil.isTrue(hotValueCapacity > 0, "hotValueCapacity should be positive");
+        this.sampleCount = sampleCount;
+        this.windowLengthInMs = intervalInMs / sampleCount;
+        this.intervalInSecond = intervalInMs / 1000.0;
+        this.counterMap = new ConcurrentLinkedHashMapWrapper<>(maxCapacity);
+        this.hotValues = new ClusterParamHotValues(hotValueCapacity);
+    }
+
+    private long currentWindowId() {
+        return TimeUtil.currentTimeMillis() / windowLengthInMs;
+    }
+
+    private ClusterParamCounter getOrCreateCounter(Object value) {
+        ClusterParamCounter counter = counterMap.get(value);
+        if (counter == null) {
+            ClusterParamCounter newCounter = new ClusterParamCounter(sampleCount);
+            counter = counterMap.putIfAbsent(value, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
     }
 
     public long getSum(Object value) {
         if (value == null) {
             return 0;
         }
+        ClusterParamCounter counter = counterMap.get(value);
+        return counter == null ? 0 : counter.sum(currentWindowId());
+    }
 
-        metric.currentWindow();
-        long sum = 0;
-
-        List<CacheMap<Object, LongAdder>> buckets = metric.values();
-        for (CacheMap<Object, LongAdder> bucket : buckets) {
-            long count = getCount(bucket.get(value));
-            sum += count;
+    public void addValue(Object value, int count) {
+        if (value == null) {
+            return;
         }
-        return sum;
+        long windowId = currentWindowId();
+        ClusterParamCounter counter = getOrCreateCounter(value);
+        counter.add(windowId, count);
+        hotValues.offer(value, counter, counter.sum(windowId), windowId);
     }
 
-    private long getCount(/*@Nullable*/ LongAdder adder) {
-        return adder == null ? 0 : adder.sum();
+    public double getAvg(Object value) {
+        return getSum(value) / intervalInSecond;
     }
 
-    public void addValue(Object value, int count) {
+    /**
+     * <p>Check and add the count of given value atomically.</p>
+     * <p>
+     * The count is added only when {@code avg(value) + count <= threshold} holds, which is the same
+     * condition as checking with {@link #getAvg(Object)} and then adding with {@link #addValue(Object, int)}.
+     * </p>
+     *
+     * @param value     parameter value
+     * @param count     count to add
+     * @param threshold QPS threshold of the value
+     * @return remaining QPS after adding ({@code threshold - avg - count}), or {@link #BLOCKED} if blocked
+     * @since 1.8.8
+     */
+    public double tryAddValue(Object value, int count, double threshold) {
+        if (value == null) {
+            return threshold - count;
+        }
+        long windowId = currentWindowId();
+        // avg + count <= threshold  <=>  sum + count <= (threshold - count) * interval + count
+        double maxSum = (threshold - count) * intervalInSecond + count;
+        ClusterParamCounter counter = getOrCreateCounter(value);
+        long newSum = counter.tryAdd(windowId, count, maxSum);
+        if (newSum == Long.MIN_VALUE) {
+            return BLOCKED;
+        }
+        hotValues.offer(value, counter, newSum, windowId);
+        return threshold - (newSum - count) / intervalInSecond - count;
+    }
+
+    /**
+     * Revert a count added by {@link #tryAddValue(Object, int, double)} in the same window.
+     *
+     * @param value parameter value
+     * @param count count to revert
+     * @since 1.8.8
+     */
+    public void revertValue(Object value, int count) {
         if (value == null) {
             return;
         }
-        CacheMap<Object, LongAdder> data = metric.currentWindow().value();
-        LongAdder newCounter = new LongAdder();
-        LongAdder currentCounter = data.putIfAbsent(value, newCounter);
-        if (currentCounter != null) {
-            currentCounter.add(count);
-        } else {
-            newCounter.add(count);
+        ClusterParamCounter counter = counterMap.get(value);
+        if (counter != null) {
+            counter.revert(currentWindowId(), count);
         }
     }
 
-    public double getAvg(Object value) {
-        return getSum(value) / metric.getIntervalInSecond();
+    /**
+     * <p>Get the hottest values tracked by the streaming heavy-hitters tracker.</p>
+     * <p>
+     * Unlike {@link #getTopValues(int)}, this does not scan all the values, so it's cheap even with a large
+     * amount of values. The result is accurate for values that are hotter than the coldest tracked value,
+     * so {@code number} should not exceed the tracker capacity ({@link #DEFAULT_HOT_VALUE_CAPACITY} by default).
+     * </p>
+     *
+     * @param number max amount of values to return
+     * @return value-QPS map of the hottest values, in descending order of QPS
+     * @since 1.8.8
+     */
+    public Map<Object, Double> getHotValues(int number) {
+        AssertUtil.isTrue(number > 0, "number must be positive");
+        Map<Object, Double> result = new LinkedHashMap<>();
+        for (Entry<Object, Long> e : hotValues.getHotValues(number, currentWindowId()).entrySet()) {
+            result.put(e.getKey(), e.getValue() / intervalInSecond);
+        }
+        return result;
+    }
+
+    public int getHotValueCapacity() {
+        return hotValues.getCapacity();
+    }
+
+    /**
+     * Get the counts of all values with a positive count in the sliding window, e.g. to take a snapshot.
+     * This scans all the values, so it should not be called on the request path.
+     *
+     * @return value-count map of all the values with a positive count
+     * @since 1.8.8
+     */
+    public Map<Object, Long> getValueSums() {
+        long windowId = currentWindowId();
+        Map<Object, Long> result = new HashMap<>();
+        for (Object value : counterMap.keySet(true)) {
+            ClusterParamCounter counter = counterMap.get(value);
+            if (counter == null) {
+                continue;
+            }
+            long sum = counter.sum(windowId);
+            if (sum > 0) {
+                result.put(value, sum);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replace the count of given value in the sliding window (e.g. restored from a snapshot).
+     *
+     * @param value parameter value
+     * @param sum   count of the value in the sliding window
+     * @since 1.8.8
+     */
+    public void restoreValue(Object value, long sum) {
+        if (value == null) {
+            return;
+        }
+        long windowId = currentWindowId();
+        ClusterParamCounter counter = getOrCreateCounter(value);
+        counter.reset(windowId, sum);
+        hotValues.offer(value, counter, sum, windowId);
     }
 
     public Map<Object, Double> getTopValues(int number) {
         AssertUtil.isTrue(number > 0, "number must be positive");
-        metric.currentWindow();
-        List<CacheMap<Object, LongAdder>> buckets = metric.values();
-
-        Map<Object, Long> result = new HashMap<>(buckets.size());
-
-        for (CacheMap<Object, LongAdder> b : buckets) {
-            Set<Object> subSet = b.keySet(true);
-            for (Object o : subSet) {
-                Long count = result.get(o);
-                if (count == null) {
-                    count = getCount(b.get(o));
-                } else {
-                    count += getCount(b.get(o));
-                }
-                result.put(o, count);
+        long windowId = currentWindowId();
+
+        List<Entry<Object, Long>> list = new ArrayList<>();
+        for (Object value : counterMap.keySet(true)) {
+            ClusterParamCounter counter = counterMap.get(value);
+            if (counter != null) {
+                list.add(new HashMap.SimpleEntry<>(value, counter.sum(windowId)));
             }
         }
-
-        // After merge, get the top set one.
-        Set<Entry<Object, Long>> set = result.entrySet();
-        List<Entry<Object, Long>> list = new ArrayList<>(set);
         Collections.sort(list, new Comparator<Entry<Object, Long>>() {
             @Override
-            public int compare(Entry<Object, Long> a,
-                               Entry<Object, Long> b) {
-                return (int) (b.getValue() == null ? 0 : b.getValue()) - (int) (a.getValue() == null ? 0 : a.getValue());
+            public int compare(Entry<Object, Long> a, Entry<Object, Long> b) {
+                return Long.compare(b.getValue(), a.getValue());
             }
         });
 
@@ -126,7 +261,7 @@ public class ClusterParamMetric {
             if (x.getValue() == 0) {
                 break;
             }
-            doubleResult.put(x.getKey(), ((double) x.getValue()) / metric.getIntervalInSecond());
+            doubleResult.put(x.getKey(), ((double) x.getValue()) / intervalInSecond);
         }
 
         return doubleResult;
@@ -19,11 +19,18 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.alibaba.csp.sentinel.cluster.netty.NettyTransportType;
 import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyRequestDecoder;
 import com.alibaba.csp.sentinel.cluster.server.codec.netty.NettyResponseEncoder;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
 import com.alibaba.csp.sentinel.cluster.server.connection.Connection;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
+import com.alibaba.csp.sentinel.cluster.server.handler.ReadTimeHandler;
+import com.alibaba.csp.sentinel.cluster.server.handler.RequestDispatcher;
 import com.alibaba.csp.sentinel.cluster.server.handler.TokenServerHandler;
+import com.alibaba.csp.sentinel.cluster.server.replication.ReplicationGuard;
+import com.alibaba.csp.sentinel.cluster.server.statistic.TokenServerLatencyStat;
 import com.alibaba.csp.sentinel.log.RecordLog;
 
 import io.netty.bootstrap.ServerBootstrap;
@@ -32,13 +39,13 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
 import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.internal.SystemPropertyUtil;
 
@@ -56,17 +63,25 @@ public class NettyTransportServer implements ClusterTokenServer {
     private static final int RETRY_SLEEP_MS = 2000;
 
     private final int port;
+    private final ServerTransportConfig transportConfig;
 
-    private NioEventLoopGroup bossGroup;
-    private NioEventLoopGroup workerGroup;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private volatile RequestDispatcher dispatcher;
 
     private final ConnectionPool connectionPool = new ConnectionPool();
+    private final ReplicationGuard replicationGuard = ReplicationGuard.fromConfig();
 
     private final AtomicInteger currentState = new AtomicInteger(SERVER_STATUS_OFF);
     private final AtomicInteger failedTimes = new AtomicInteger(0);
 
     public NettyTransportServer(int port) {
+        this(port, ClusterServerConfigManager.getTransportConfig());
+    }
+
+    public NettyTransportServer(int port, ServerTransportConfig transportConfig) {
         this.port = port;
+        this.transportConfig = transportConfig == null ? new ServerTransportConfig() : transportConfig;
     }
 
     @Override
@@ -75,30 +90,61 @@ public class NettyTransportServer implements ClusterTokenServer {
             return;
         }
 
+        final NettyTransportType transportType = NettyTransportType.select(
+            transportConfig.isNativeTransportEnabled(), transportConfig.isIoUringEnabled());
+        ChannelOption<Boolean> reusePortOption = null;
+        if (transportConfig.isReusePort()) {
+            reusePortOption = transportType.reusePortOption();
+            if (reusePortOption == null) {
+                RecordLog.warn("[NettyTransportServer] SO_REUSEPORT is not supported by {} transport, ignoring",
+                    transportType);
+            }
+        }
+        int bossThreads = transportConfig.getBossThreads();
+        int workerThreads = transportConfig.getWorkerThreads() > 0 ? transportConfig.getWorkerThreads()
+            : DEFAULT_EVENT_LOOP_THREADS;
+        // With SO_REUSEPORT, each acceptor thread owns a server channel bound to the same port.
+        final int acceptorCount = reusePortOption != null ? bossThreads : 1;
+
+        if (transportConfig.getDispatchThreads() > 0) {
+            this.dispatcher = new RequestDispatcher(transportConfig.getDispatchThreads(),
+                transportConfig.getDispatchQueueSize());
+        }
+        final RequestDispatcher requestDispatcher = dispatcher;
+
         ServerBootstrap b = new ServerBootstrap();
-        this.bossGroup = new NioEventLoopGroup(1);
-        this.workerGroup = new NioEventLoopGroup(DEFAULT_EVENT_LOOP_THREADS);
+        this.bossGroup = transportType.newEventLoopGroup(bossThreads,
+            new DefaultThreadFactory("sentinel-cluster-server-boss"));
+        this.workerGroup = transportType.newEventLoopGroup(workerThreads,
+            new DefaultThreadFactory("sentinel-cluster-server-worker"));
         b.group(bossGroup, workerGroup)
-            .channel(NioServerSocketChannel.class)
-            .option(ChannelOption.SO_BACKLOG, 128)
+            .channel(transportType.serverChannelClass())
+            .option(ChannelOption.SO_BACKLOG, transportConfig.getSoBacklog())
             .handler(new LoggingHandler(LogLevel.INFO))
             .childHandler(new ChannelInitializer<SocketChannel>() {
                 @Override
                 public void initChannel(SocketChannel ch) throws Exception {
                     ChannelPipeline p = ch.pipeline();
+                    p.addLast(ConnectionPool.IDLE_STATE_HANDLER_NAME, ConnectionPool.newIdleStateHandler());
+                    if (TokenServerLatencyStat.isEnabled()) {
+                        p.addLast(new ReadTimeHandler());
+                    }
                     p.addLast(new LengthFieldBasedFrameDecoder(1024, 0, 2, 0, 2));
                     p.addLast(new NettyRequestDecoder());
                     p.addLast(new LengthFieldPrepender(2));
                     p.addLast(new NettyResponseEncoder());
-                    p.addLast(new TokenServerHandler(connectionPool));
+                    p.addLast(new TokenServerHandler(connectionPool, replicationGuard, requestDispatcher));
                 }
             })
             .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
-            .childOption(ChannelOption.SO_SNDBUF, 32 * 1024)
+            .childOption(ChannelOption.SO_SNDBUF, transportConfig.getSendBufferSize())
             .childOption(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10000)
-            .childOption(ChannelOption.SO_TIMEOUT, 10)
-            .childOption(ChannelOption.TCP_NODELAY, true)
-            .childOption(ChannelOption.SO_RCVBUF, 32 * 1024);
+            .childOption(ChannelOption.TCP_NODELAY, transportConfig.isTcpNoDelay())
+            .childOption(ChannelOption.SO_RCVBUF, transportConfig.getReceiveBufferSize());
+        if (reusePortOption != null) {
+            b.option(reusePortOption, true);
+        }
+        final ServerBootstrap bootstrap = b;
         b.bind(port).addListener(new GenericFutureListener<ChannelFuture>() {
             @Override
             public void operationComplete(ChannelFuture future) {
@@ -106,6 +152,7 @@ public class NettyTransportServer implements ClusterTokenServer {
                     RecordLog.info("[NettyTransportServer] Token server start failed (port=" + port + "), failedTimes: " + failedTimes.get(),
                         future.cause());
                     currentState.compareAndSet(SERVER_STATUS_STARTING, SERVER_STATUS_OFF);
+                    shutdownDispatcher();
                     int failCount = failedTimes.incrementAndGet();
                     if (failCount > MAX_RETRY_TIMES) {
                         return;
@@ -118,7 +165,20 @@ public class NettyTransportServer implements ClusterTokenServer {
                         RecordLog.info("[NettyTransportServer] Failed to start token server when retrying", e);
                     }
                 } else {
-                    RecordLog.info("[NettyTransportServer] Token server started success at port {}", port);
+                    for (int i = 1; i < acceptorCount; i++) {
+                        bootstrap.bind(port).addListener(new GenericFutureListener<ChannelFuture>() {
+                            @Override
+                            public void operationComplete(ChannelFuture f) {
+                                if (f.cause() != null) {
+                                    RecordLog.warn("[NettyTransportServer] Failed to bind extra acceptor at port "
+                                        + port, f.cause());
+                                }
+                            }
+                        });
+                    }
+                    RecordLog.info("[NettyTransportServer] Token server started success at port {} "
+                        + "(transport={}, acceptors={}, dispatchThreads={})", port, transportType, acceptorCount,
+                        transportConfig.getDispatchThreads());
                     currentState.compareAndSet(SERVER_STATUS_STARTING, SERVER_STATUS_STARTED);
                 }
             }
@@ -140,6 +200,7 @@ public class NettyTransportServer implements ClusterTokenServer {
             try {
                 bossGroup.shutdownGracefully();
                 workerGroup.shutdownGracefully();
+                shutdownDispatcher();
                 connectionPool.shutdownAll();
 
                 failedTimes.set(0);
@@ -151,6 +212,14 @@ public class NettyTransportServer implements ClusterTokenServer {
         }
     }
 
+    private void shutdownDispatcher() {
+        RequestDispatcher requestDispatcher = dispatcher;
+        if (requestDispatcher != null) {
+            requestDispatcher.shutdown();
+            dispatcher = null;
+        }
+    }
+
     public void refreshRunningServer() {
         connectionPool.refreshIdleTask();
     }
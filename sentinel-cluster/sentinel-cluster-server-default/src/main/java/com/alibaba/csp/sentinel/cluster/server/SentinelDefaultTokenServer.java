@@ -25,6 +25,7 @@ import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager
 import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
 import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfigObserver;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
+import com.alibaba.csp.sentinel.cluster.server.replication.TokenServerReplicator;
 import com.alibaba.csp.sentinel.init.InitExecutor;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.HostNameUtil;
@@ -40,6 +41,8 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
 
     private ClusterTokenServer server;
     private int port;
+    private ServerTransportConfig transportConfig;
+    private TokenServerReplicator replicator;
     private final AtomicBoolean shouldStart = new AtomicBoolean(false);
 
     static {
@@ -67,7 +70,8 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
         }
         int port = ClusterServerConfigManager.getPort();
         if (port > 0) {
-            this.server = new NettyTransportServer(port);
+            this.transportConfig = ClusterServerConfigManager.getTransportConfig();
+            this.server = new NettyTransportServer(port, transportConfig);
             this.port = port;
         }
     }
@@ -77,14 +81,19 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
             return;
         }
         int newPort = config.getPort();
-        if (newPort == port) {
+        if (newPort == port && !config.ioSettingsDiffer(transportConfig)) {
+            // Idle seconds can be applied to the running server directly.
+            if (server instanceof NettyTransportServer) {
+                ((NettyTransportServer)server).refreshRunningServer();
+            }
             return;
         }
         try {
             if (server != null) {
                 stopServer();
             }
-            this.server = new NettyTransportServer(newPort);
+            this.transportConfig = new ServerTransportConfig(config);
+            this.server = new NettyTransportServer(newPort, transportConfig);
             this.port = newPort;
             startServerIfScheduled();
         } catch (Exception ex) {
@@ -97,6 +106,7 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
             if (server != null) {
                 server.start();
                 ClusterStateManager.markToServer();
+                startReplicator();
                 if (embedded) {
                     RecordLog.info("[SentinelDefaultTokenServer] Running in embedded mode");
                     handleEmbeddedStart();
@@ -108,12 +118,30 @@ public class SentinelDefaultTokenServer implements ClusterTokenServer {
     private void stopServer() throws Exception {
         if (server != null) {
             server.stop();
+            stopReplicator();
             if (embedded) {
                 handleEmbeddedStop();
             }
         }
     }
 
+    private void startReplicator() {
+        // Stream the state to the hot-standby token server if configured.
+        if (replicator == null) {
+            replicator = TokenServerReplicator.fromConfig();
+        }
+        if (replicator != null) {
+            replicator.start();
+        }
+    }
+
+    private void stopReplicator() {
+        if (replicator != null) {
+            replicator.stop();
+            replicator = null;
+        }
+    }
+
     private void handleEmbeddedStop() {
         String namespace = ConfigSupplierRegistry.getNamespaceSupplier().get();
         if (StringUtil.isNotEmpty(namespace)) {
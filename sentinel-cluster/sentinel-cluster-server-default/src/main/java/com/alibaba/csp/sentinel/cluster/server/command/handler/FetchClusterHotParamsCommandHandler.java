@@ -0,0 +1,65 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.command.handler;
+
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricNodeGenerator;
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.fastjson.JSON;
+
+/**
+ * Fetch the hottest parameter values of cluster parameter flow rules (with optional {@code flowId}
+ * and {@code top} parameters), which are tracked in a streaming way so fetching does not scan all the values.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+@CommandMapping(name = "cluster/server/hotParams", desc = "get hot parameter values of cluster param flow rules")
+public class FetchClusterHotParamsCommandHandler implements CommandHandler<String> {
+
+    private static final int DEFAULT_TOP = 10;
+
+    @Override
+    public CommandResponse<String> handle(CommandRequest request) {
+        String namespace = request.getParam("namespace");
+        if (StringUtil.isEmpty(namespace)) {
+            return CommandResponse.ofFailure(new IllegalArgumentException("failed: namespace cannot be empty"));
+        }
+        Long flowId = null;
+        int top = DEFAULT_TOP;
+        try {
+            String flowIdStr = request.getParam("flowId");
+            if (StringUtil.isNotBlank(flowIdStr)) {
+                flowId = Long.parseLong(flowIdStr);
+            }
+            String topStr = request.getParam("top");
+            if (StringUtil.isNotBlank(topStr)) {
+                top = Integer.parseInt(topStr);
+            }
+        } catch (NumberFormatException ex) {
+            return CommandResponse.ofFailure(new IllegalArgumentException("failed: invalid flowId or top"));
+        }
+        if (top <= 0) {
+            return CommandResponse.ofFailure(new IllegalArgumentException("failed: top should be positive"));
+        }
+        return CommandResponse.ofSuccess(
+            JSON.toJSONString(ClusterMetricNodeGenerator.generateHotParamNodes(namespace, flowId, top))
+        );
+    }
+}
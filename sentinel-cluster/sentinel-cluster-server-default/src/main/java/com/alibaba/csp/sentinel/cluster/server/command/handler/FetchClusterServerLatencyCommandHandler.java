@@ -0,0 +1,69 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.command.handler;
+
+import com.alibaba.csp.sentinel.cluster.server.statistic.LatencyHistogram;
+import com.alibaba.csp.sentinel.cluster.server.statistic.RequestLatency;
+import com.alibaba.csp.sentinel.cluster.server.statistic.TokenServerLatencyStat;
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * Fetch the latency (in microseconds) of the token server, grouped by namespace and request type.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+@CommandMapping(name = "cluster/server/latency", desc = "get cluster server latency histograms")
+public class FetchClusterServerLatencyCommandHandler implements CommandHandler<String> {
+
+    @Override
+    public CommandResponse<String> handle(CommandRequest request) {
+        String namespace = request.getParam("namespace");
+        JSONArray array = new JSONArray();
+        for (RequestLatency latency : TokenServerLatencyStat.listLatencies(
+            StringUtil.isEmpty(namespace) ? null : namespace)) {
+            array.add(new JSONObject()
+                .fluentPut("namespace", latency.getNamespace())
+                .fluentPut("type", TokenServerLatencyStat.getRequestTypeName(latency.getRequestType()))
+                .fluentPut("queue", toJson(latency.getQueueTime()))
+                .fluentPut("process", toJson(latency.getProcessTime()))
+                .fluentPut("write", toJson(latency.getWriteTime()))
+            );
+        }
+        return CommandResponse.ofSuccess(new JSONObject()
+            .fluentPut("enabled", TokenServerLatencyStat.isEnabled())
+            .fluentPut("latency", array)
+            .toJSONString());
+    }
+
+    private JSONObject toJson(LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        return new JSONObject()
+            .fluentPut("count", snapshot.getTotalCount())
+            .fluentPut("mean", snapshot.getMean())
+            .fluentPut("p50", snapshot.getValueAtPercentile(50))
+            .fluentPut("p90", snapshot.getValueAtPercentile(90))
+            .fluentPut("p99", snapshot.getValueAtPercentile(99))
+            .fluentPut("p999", snapshot.getValueAtPercentile(99.9))
+            .fluentPut("max", snapshot.getMaxValue());
+    }
+}
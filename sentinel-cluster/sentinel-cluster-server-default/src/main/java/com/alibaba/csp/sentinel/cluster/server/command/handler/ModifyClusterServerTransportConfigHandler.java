@@ -44,8 +44,10 @@ public class ModifyClusterServerTransportConfigHandler implements CommandHandler
             int port = Integer.valueOf(portValue);
             int idleSeconds = Integer.valueOf(idleSecondsValue);
 
-            ClusterServerConfigManager.loadGlobalTransportConfig(new ServerTransportConfig()
-                .setPort(port).setIdleSeconds(idleSeconds));
+            // Keep the current I/O settings, only port and idle seconds can be modified here.
+            ClusterServerConfigManager.loadGlobalTransportConfig(
+                new ServerTransportConfig(ClusterServerConfigManager.getTransportConfig())
+                    .setPort(port).setIdleSeconds(idleSeconds));
             return CommandResponse.ofSuccess("success");
         } catch (NumberFormatException e) {
             return CommandResponse.ofFailure(new IllegalArgumentException("invalid parameter"));
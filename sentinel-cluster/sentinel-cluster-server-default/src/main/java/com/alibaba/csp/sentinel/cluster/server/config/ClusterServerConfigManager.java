@@ -69,6 +69,10 @@ public final class ClusterServerConfigManager {
      * 连接空闲超时时间（秒）
      */
     private static volatile int idleSeconds = ServerTransportConfig.DEFAULT_IDLE_SECONDS;
+    /**
+     * 当前生效的传输配置（包含事件循环线程数、原生传输、Socket参数等I/O配置）
+     */
+    private static volatile ServerTransportConfig transportConfig = new ServerTransportConfig();
     /**
      * 服务器管理的命名空间集合，默认包含一个默认命名空间
      */
@@ -97,6 +101,10 @@ public final class ClusterServerConfigManager {
      * 服务器允许的最大QPS
      */
     private static volatile double maxAllowedQps = ServerFlowConfig.DEFAULT_MAX_ALLOWED_QPS;
+    /**
+     * 命名空间级别最大QPS所使用的限流器类型（令牌桶或滑动窗口）
+     */
+    private static volatile int requestLimiterType = ServerFlowConfig.REQUEST_LIMITER_TOKEN_BUCKET;
 
     /**
      * 命名空间特定的流控配置，用于Token Server
@@ -361,20 +369,23 @@ public final class ClusterServerConfigManager {
             if (config.getIdleSeconds() != idleSeconds) {
                 idleSeconds = config.getIdleSeconds();
             }
-            updateTokenServer(config);
+            ServerTransportConfig oldConfig = transportConfig;
+            transportConfig = new ServerTransportConfig(config);
+            updateTokenServer(config, oldConfig);
         }
     }
 
     /**
      * 更新Token服务器配置
-     * 主要处理端口变更，并通知所有观察者
+     * 处理端口变更及需要重启服务器的I/O配置变更，并通知所有观察者
      * 
-     * @param config 新的传输配置
+     * @param config    新的传输配置
+     * @param oldConfig 变更前的传输配置
      */
-    private static void updateTokenServer(ServerTransportConfig config) {
+    private static void updateTokenServer(ServerTransportConfig config, ServerTransportConfig oldConfig) {
         int newPort = config.getPort();
         AssertUtil.isTrue(newPort > 0, "token server port should be valid (positive)");
-        if (newPort == port) {
+        if (newPort == port && !config.ioSettingsDiffer(oldConfig)) {
             return;
         }
         ClusterServerConfigManager.port = newPort;
@@ -417,6 +428,10 @@ public final class ClusterServerConfigManager {
                 maxAllowedQps = config.getMaxAllowedQps();
                 GlobalRequestLimiter.applyMaxQpsChange(maxAllowedQps);
             }
+            if (config.getRequestLimiterType() != requestLimiterType) {
+                requestLimiterType = config.getRequestLimiterType();
+                GlobalRequestLimiter.applyLimiterTypeChange(requestLimiterType);
+            }
             int newIntervalMs = config.getIntervalMs();
             int newSampleCount = config.getSampleCount();
             if (newIntervalMs != intervalMs || newSampleCount != sampleCount) {
@@ -435,13 +450,16 @@ public final class ClusterServerConfigManager {
 
     /**
      * 验证传输配置是否有效
-     * 有效的传输配置必须包含有效的端口号（1-65535）
+     * 有效的传输配置必须包含有效的端口号（1-65535），以及合法的线程数和Socket参数
      * 
      * @param config 要验证的传输配置
      * @return 配置是否有效
      */
     public static boolean isValidTransportConfig(ServerTransportConfig config) {
-        return config != null && config.getPort() > 0 && config.getPort() <= 65535;
+        return config != null && config.getPort() > 0 && config.getPort() <= 65535
+            && config.getBossThreads() > 0 && config.getWorkerThreads() >= 0 && config.getSoBacklog() > 0
+            && config.getSendBufferSize() > 0 && config.getReceiveBufferSize() > 0
+            && config.getDispatchThreads() >= 0 && config.getDispatchQueueSize() > 0;
     }
 
     /**
@@ -449,6 +467,7 @@ public final class ClusterServerConfigManager {
      * 有效的流控配置必须满足：
      * 1. 最大占用比率、超额数量和最大QPS均不为负数
      * 2. 窗口配置（采样数量和时间间隔）有效
+     * 3. 限流器类型为已知类型
      * 
      * @param config 要验证的流控配置
      * @return 配置是否有效
@@ -456,9 +475,15 @@ public final class ClusterServerConfigManager {
     public static boolean isValidFlowConfig(ServerFlowConfig config) {
         return config != null && config.getMaxOccupyRatio() >= 0 && config.getExceedCount() >= 0
             && config.getMaxAllowedQps() >= 0
+            && isValidRequestLimiterType(config.getRequestLimiterType())
             && FlowRuleUtil.isWindowConfigValid(config.getSampleCount(), config.getIntervalMs());
     }
 
+    private static boolean isValidRequestLimiterType(int type) {
+        return type == ServerFlowConfig.REQUEST_LIMITER_TOKEN_BUCKET
+            || type == ServerFlowConfig.REQUEST_LIMITER_SLIDING_WINDOW;
+    }
+
     /**
      * 获取指定命名空间的超额数量配置
      * 如果命名空间有特定配置则返回特定值，否则返回全局配置值
@@ -522,6 +547,16 @@ public final class ClusterServerConfigManager {
         return maxAllowedQps;
     }
 
+    /**
+     * 获取命名空间级别最大QPS所使用的限流器类型
+     *
+     * @return 限流器类型
+     * @since 1.8.8
+     */
+    public static int getRequestLimiterType() {
+        return requestLimiterType;
+    }
+
     public static double getExceedCount() {
         return exceedCount;
     }
@@ -542,6 +577,16 @@ public final class ClusterServerConfigManager {
         return idleSeconds;
     }
 
+    /**
+     * 获取当前生效的传输配置
+     *
+     * @return 当前传输配置
+     * @since 1.8.8
+     */
+    public static ServerTransportConfig getTransportConfig() {
+        return transportConfig;
+    }
+
     public static int getIntervalMs() {
         return intervalMs;
     }
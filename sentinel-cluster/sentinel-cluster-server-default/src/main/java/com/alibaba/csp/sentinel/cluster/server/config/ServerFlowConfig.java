@@ -30,6 +30,19 @@ public class ServerFlowConfig {
     public static final int DEFAULT_SAMPLE_COUNT= 10;
     public static final double DEFAULT_MAX_ALLOWED_QPS= 30000;
 
+    /**
+     * Lock-free token bucket limiter for the namespace-level max allowed QPS.
+     *
+     * @since 1.8.8
+     */
+    public static final int REQUEST_LIMITER_TOKEN_BUCKET = 0;
+    /**
+     * Sliding window limiter for the namespace-level max allowed QPS (the limiter before 1.8.8).
+     *
+     * @since 1.8.8
+     */
+    public static final int REQUEST_LIMITER_SLIDING_WINDOW = 1;
+
     private final String namespace;
 
     private double exceedCount = DEFAULT_EXCEED_COUNT;
@@ -38,6 +51,7 @@ public class ServerFlowConfig {
     private int sampleCount = DEFAULT_SAMPLE_COUNT;
 
     private double maxAllowedQps = DEFAULT_MAX_ALLOWED_QPS;
+    private int requestLimiterType = REQUEST_LIMITER_TOKEN_BUCKET;
 
     public ServerFlowConfig() {
         this(ServerConstants.DEFAULT_NAMESPACE);
@@ -96,6 +110,15 @@ public class ServerFlowConfig {
         return this;
     }
 
+    public int getRequestLimiterType() {
+        return requestLimiterType;
+    }
+
+    public ServerFlowConfig setRequestLimiterType(int requestLimiterType) {
+        this.requestLimiterType = requestLimiterType;
+        return this;
+    }
+
     @Override
     public String toString() {
         return "ServerFlowConfig{" +
@@ -105,6 +128,7 @@ public class ServerFlowConfig {
             ", intervalMs=" + intervalMs +
             ", sampleCount=" + sampleCount +
             ", maxAllowedQps=" + maxAllowedQps +
+            ", requestLimiterType=" + requestLimiterType +
             '}';
     }
 }
@@ -24,10 +24,52 @@ import com.alibaba.csp.sentinel.cluster.ClusterConstants;
 public class ServerTransportConfig {
 
     public static final int DEFAULT_IDLE_SECONDS = 600;
+    public static final int DEFAULT_BOSS_THREADS = 1;
+    public static final int DEFAULT_SO_BACKLOG = 128;
+    public static final int DEFAULT_BUFFER_SIZE = 32 * 1024;
+    public static final int DEFAULT_DISPATCH_QUEUE_SIZE = 4096;
 
     private int port;
     private int idleSeconds;
 
+    /**
+     * Whether to use native transport (epoll or io_uring) when it's available on current platform.
+     */
+    private boolean nativeTransportEnabled = true;
+    /**
+     * Whether to prefer io_uring over epoll. The io_uring transport requires the Netty incubator artifact.
+     */
+    private boolean ioUringEnabled = false;
+    /**
+     * Thread count of the acceptor event loop. When {@code SO_REUSEPORT} is enabled,
+     * the server port will be bound by the same count of acceptor channels.
+     */
+    private int bossThreads = DEFAULT_BOSS_THREADS;
+    /**
+     * Thread count of the I/O event loop, 0 indicates the default value (2 * available processors).
+     */
+    private int workerThreads = 0;
+    /**
+     * Whether to enable {@code SO_REUSEPORT} (only works with native transports).
+     */
+    private boolean reusePort = false;
+    private boolean tcpNoDelay = true;
+    private int soBacklog = DEFAULT_SO_BACKLOG;
+    private int sendBufferSize = DEFAULT_BUFFER_SIZE;
+    private int receiveBufferSize = DEFAULT_BUFFER_SIZE;
+
+    /**
+     * Thread count of the worker pool processing token requests. 0 indicates that requests are
+     * processed inline in the I/O event loop. Requests of the same namespace are processed by one
+     * worker at a time, so more threads only help with several busy namespaces.
+     */
+    private int dispatchThreads = 0;
+    /**
+     * Capacity of the pending request queue of each namespace when requests are dispatched to the
+     * worker pool. Requests exceeding the capacity are rejected with {@code TOO_MANY_REQUEST}.
+     */
+    private int dispatchQueueSize = DEFAULT_DISPATCH_QUEUE_SIZE;
+
     public ServerTransportConfig() {
         this(ClusterConstants.DEFAULT_CLUSTER_SERVER_PORT, DEFAULT_IDLE_SECONDS);
     }
@@ -37,6 +79,27 @@ public class ServerTransportConfig {
         this.idleSeconds = idleSeconds;
     }
 
+    /**
+     * Create a copy of given transport config.
+     *
+     * @param config the transport config to copy from
+     * @since 1.8.8
+     */
+    public ServerTransportConfig(ServerTransportConfig config) {
+        this(config.port, config.idleSeconds);
+        this.nativeTransportEnabled = config.nativeTransportEnabled;
+        this.ioUringEnabled = config.ioUringEnabled;
+        this.bossThreads = config.bossThreads;
+        this.workerThreads = config.workerThreads;
+        this.reusePort = config.reusePort;
+        this.tcpNoDelay = config.tcpNoDelay;
+        this.soBacklog = config.soBacklog;
+        this.sendBufferSize = config.sendBufferSize;
+        this.receiveBufferSize = config.receiveBufferSize;
+        this.dispatchThreads = config.dispatchThreads;
+        this.dispatchQueueSize = config.dispatchQueueSize;
+    }
+
     public int getPort() {
         return port;
     }
@@ -55,11 +118,137 @@ public class ServerTransportConfig {
         return this;
     }
 
+    public boolean isNativeTransportEnabled() {
+        return nativeTransportEnabled;
+    }
+
+    public ServerTransportConfig setNativeTransportEnabled(boolean nativeTransportEnabled) {
+        this.nativeTransportEnabled = nativeTransportEnabled;
+        return this;
+    }
+
+    public boolean isIoUringEnabled() {
+        return ioUringEnabled;
+    }
+
+    public ServerTransportConfig setIoUringEnabled(boolean ioUringEnabled) {
+        this.ioUringEnabled = ioUringEnabled;
+        return this;
+    }
+
+    public int getBossThreads() {
+        return bossThreads;
+    }
+
+    public ServerTransportConfig setBossThreads(int bossThreads) {
+        this.bossThreads = bossThreads;
+        return this;
+    }
+
+    public int getWorkerThreads() {
+        return workerThreads;
+    }
+
+    public ServerTransportConfig setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+        return this;
+    }
+
+    public boolean isReusePort() {
+        return reusePort;
+    }
+
+    public ServerTransportConfig setReusePort(boolean reusePort) {
+        this.reusePort = reusePort;
+        return this;
+    }
+
+    public boolean isTcpNoDelay() {
+        return tcpNoDelay;
+    }
+
+    public ServerTransportConfig setTcpNoDelay(boolean tcpNoDelay) {
+        this.tcpNoDelay = tcpNoDelay;
+        return this;
+    }
+
+    public int getSoBacklog() {
+        return soBacklog;
+    }
+
+    public ServerTransportConfig setSoBacklog(int soBacklog) {
+        this.soBacklog = soBacklog;
+        return this;
+    }
+
+    public int getSendBufferSize() {
+        return sendBufferSize;
+    }
+
+    public ServerTransportConfig setSendBufferSize(int sendBufferSize) {
+        this.sendBufferSize = sendBufferSize;
+        return this;
+    }
+
+    public int getReceiveBufferSize() {
+        return receiveBufferSize;
+    }
+
+    public ServerTransportConfig setReceiveBufferSize(int receiveBufferSize) {
+        this.receiveBufferSize = receiveBufferSize;
+        return this;
+    }
+
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public ServerTransportConfig setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+        return this;
+    }
+
+    public int getDispatchQueueSize() {
+        return dispatchQueueSize;
+    }
+
+    public ServerTransportConfig setDispatchQueueSize(int dispatchQueueSize) {
+        this.dispatchQueueSize = dispatchQueueSize;
+        return this;
+    }
+
+    /**
+     * Check whether the I/O settings (which require a restart of the token server) differ from given config.
+     *
+     * @param other another transport config
+     * @return true if the I/O settings are different
+     * @since 1.8.8
+     */
+    public boolean ioSettingsDiffer(ServerTransportConfig other) {
+        return other == null || nativeTransportEnabled != other.nativeTransportEnabled
+            || ioUringEnabled != other.ioUringEnabled || bossThreads != other.bossThreads
+            || workerThreads != other.workerThreads || reusePort != other.reusePort
+            || tcpNoDelay != other.tcpNoDelay || soBacklog != other.soBacklog
+            || sendBufferSize != other.sendBufferSize || receiveBufferSize != other.receiveBufferSize
+            || dispatchThreads != other.dispatchThreads || dispatchQueueSize != other.dispatchQueueSize;
+    }
+
     @Override
     public String toString() {
         return "ServerTransportConfig{" +
             "port=" + port +
             ", idleSeconds=" + idleSeconds +
+            ", nativeTransportEnabled=" + nativeTransportEnabled +
+            ", ioUringEnabled=" + ioUringEnabled +
+            ", bossThreads=" + bossThreads +
+            ", workerThreads=" + workerThreads +
+            ", reusePort=" + reusePort +
+            ", tcpNoDelay=" + tcpNoDelay +
+            ", soBacklog=" + soBacklog +
+            ", sendBufferSize=" + sendBufferSize +
+            ", receiveBufferSize=" + receiveBufferSize +
+            ", dispatchThreads=" + dispatchThreads +
+            ", dispatchQueueSize=" + dispatchQueueSize +
             '}';
     }
 }
@@ -0,0 +1,36 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.connection;
+
+/**
+ * Observer of the connected count of {@link ConnectionGroup}.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public interface ConnectedCountObserver {
+
+    /**
+     * <p>Callback after a connection is added to or removed from the connection group.</p>
+     * <p>
+     * Observers may be notified concurrently and out of order, so they should read the latest count
+     * via {@link ConnectionGroup#getConnectedCount()} while holding their own lock.
+     * </p>
+     *
+     * @param group the connection group whose connected count has changed
+     */
+    void onConnectedCountChange(ConnectionGroup group);
+}
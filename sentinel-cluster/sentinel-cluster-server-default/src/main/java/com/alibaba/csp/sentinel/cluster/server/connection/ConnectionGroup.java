@@ -60,6 +60,7 @@ public class ConnectionGroup {
         boolean newAdded = connectionSet.add(new ConnectionDescriptor().setAddress(address).setHost(host));
         if (newAdded) {
             connectedCount.incrementAndGet();
+            ConnectionManager.notifyConnectedCountChange(this);
         }
 
         return this;
@@ -70,6 +71,7 @@ public class ConnectionGroup {
 
         if (connectionSet.remove(new ConnectionDescriptor().setAddress(address))) {
             connectedCount.decrementAndGet();
+            ConnectionManager.notifyConnectedCountChange(this);
         }
 
         return this;
@@ -15,8 +15,10 @@
  */
 package com.alibaba.csp.sentinel.cluster.server.connection;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.AssertUtil;
@@ -38,6 +40,30 @@ public final class ConnectionManager {
      */
     private static final Map<String, String> NAMESPACE_MAP = new ConcurrentHashMap<>();
 
+    private static final List<ConnectedCountObserver> CONNECTED_COUNT_OBSERVERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Add an observer of the connected count of connection groups.
+     *
+     * @param observer a valid observer
+     * @since 1.8.8
+     */
+    public static void addConnectedCountObserver(ConnectedCountObserver observer) {
+        AssertUtil.notNull(observer, "observer cannot be null");
+        CONNECTED_COUNT_OBSERVERS.add(observer);
+    }
+
+    static void notifyConnectedCountChange(ConnectionGroup group) {
+        for (ConnectedCountObserver observer : CONNECTED_COUNT_OBSERVERS) {
+            try {
+                observer.onConnectedCountChange(group);
+            } catch (Throwable ex) {
+                RecordLog.warn("[ConnectionManager] Failed to notify connected count change of namespace <"
+                    + group.getNamespace() + ">", ex);
+            }
+        }
+    }
+
     /**
      * Get connected count for specific namespace.
      *
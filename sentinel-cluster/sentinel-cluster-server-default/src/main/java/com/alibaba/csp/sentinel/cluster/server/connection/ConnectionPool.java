@@ -20,14 +20,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
 import com.alibaba.csp.sentinel.log.RecordLog;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.timeout.IdleStateHandler;
 
 /**
  * Universal connection pool for connection management.
@@ -38,18 +39,15 @@ import io.netty.channel.Channel;
  */
 public class ConnectionPool {
 
-    @SuppressWarnings("PMD.ThreadPoolCreationRule")
-    private static final ScheduledExecutorService TIMER = Executors.newScheduledThreadPool(2);
-
     /**
-     * Format: ("ip:port", connection)
+     * Name of the idle state handler in the channel pipeline.
      */
-    private final Map<String, Connection> CONNECTION_MAP = new ConcurrentHashMap<String, Connection>();
+    public static final String IDLE_STATE_HANDLER_NAME = "idleStateHandler";
 
     /**
-     * Periodic scan task.
+     * Format: ("ip:port", connection)
      */
-    private ScheduledFuture scanTaskFuture = null;
+    private final Map<String, Connection> CONNECTION_MAP = new ConcurrentHashMap<String, Connection>();
 
     public void createConnection(Channel channel) {
         if (channel != null) {
@@ -61,15 +59,18 @@ public class ConnectionPool {
     }
 
     /**
-     * Start the scan task for long-idle connections.
+     * Create a new idle state handler with current idle seconds. A channel that reads nothing
+     * for the idle seconds will be notified and then closed by the token server handler.
+     *
+     * @return new idle state handler
+     * @since 1.8.8
      */
-    private synchronized void startScan() {
-        if (scanTaskFuture == null
-            || scanTaskFuture.isCancelled()
-            || scanTaskFuture.isDone()) {
-            scanTaskFuture = TIMER.scheduleAtFixedRate(
-                new ScanIdleConnectionTask(this), 10, 30, TimeUnit.SECONDS);
+    public static IdleStateHandler newIdleStateHandler() {
+        int idleSeconds = ClusterServerConfigManager.getIdleSeconds();
+        if (idleSeconds <= 0) {
+            idleSeconds = ServerTransportConfig.DEFAULT_IDLE_SECONDS;
         }
+        return new IdleStateHandler(idleSeconds, 0, 0, TimeUnit.SECONDS);
     }
 
     /**
@@ -128,11 +129,25 @@ public class ConnectionPool {
         }
     }
 
+    /**
+     * Apply current idle seconds to the idle state handlers of existing connections.
+     * New connections always use current idle seconds.
+     */
     public void refreshIdleTask() {
-        if (scanTaskFuture == null || scanTaskFuture.cancel(false)) {
-            startScan();
-        } else {
-            RecordLog.info("The result of canceling scanTask is error.");
+        for (Connection c : CONNECTION_MAP.values()) {
+            if (!(c instanceof NettyConnection)) {
+                continue;
+            }
+            ChannelPipeline pipeline = ((NettyConnection)c).getChannel().pipeline();
+            try {
+                if (pipeline.get(IDLE_STATE_HANDLER_NAME) != null) {
+                    pipeline.replace(IDLE_STATE_HANDLER_NAME, IDLE_STATE_HANDLER_NAME, newIdleStateHandler());
+                }
+            } catch (Exception ex) {
+                // The channel may be closed concurrently.
+                RecordLog.info("[ConnectionPool] Failed to refresh idle state handler of connection <{}>",
+                    c.getConnectionKey());
+            }
         }
     }
 }
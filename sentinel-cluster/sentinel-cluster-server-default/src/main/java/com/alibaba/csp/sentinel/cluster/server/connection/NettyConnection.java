@@ -69,6 +69,10 @@ public class NettyConnection implements Connection {
         return lastReadTime;
     }
 
+    public Channel getChannel() {
+        return channel;
+    }
+
     @Override
     public String getConnectionKey() {
         return remoteIp + ":" + remotePort;
@@ -0,0 +1,53 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.handler;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * Records the time when bytes are read from the socket, for the queueing latency of token requests.
+ * It should be placed before the frame decoder, so that the time is taken once per socket read,
+ * and the requests decoded from the same read share it (the time waiting for the former requests
+ * of the read is counted as queueing time).
+ *
+ * @since 1.8.8
+ */
+public class ReadTimeHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * Indicates that nothing has been read yet.
+     */
+    public static final long NONE = Long.MIN_VALUE;
+
+    /**
+     * Only accessed in the event loop of the channel.
+     */
+    private long lastReadNanos = NONE;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        lastReadNanos = System.nanoTime();
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * @return the time (in nanoseconds) of the last socket read, or {@link #NONE} if nothing has been read
+     */
+    public long getLastReadNanos() {
+        return lastReadNanos;
+    }
+}
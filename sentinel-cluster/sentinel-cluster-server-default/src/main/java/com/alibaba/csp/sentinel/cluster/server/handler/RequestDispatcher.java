@@ -0,0 +1,160 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.handler;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>Dispatches token requests from the I/O event loops to a worker pool.</p>
+ * <p>
+ * Each namespace served by current token server (see {@link ClusterServerConfigManager#getNamespaceSet()})
+ * owns a bounded queue, and requests of other namespaces share the queue of the default namespace, so
+ * clients cannot create queues with arbitrary namespaces. When the queue of a namespace is full, the
+ * request is rejected and the caller should respond {@code TOO_MANY_REQUEST} directly.
+ * </p>
+ * <p>
+ * A queue is drained by at most one worker at a time, in batches, so that a busy namespace cannot
+ * monopolize the workers nor delay requests of other namespaces with a long backlog. Note that the
+ * requests of a single namespace are therefore processed by one worker at a time: more worker threads
+ * only help when several namespaces are busy.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class RequestDispatcher {
+
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private final int queueCapacity;
+    private final ExecutorService workerPool;
+    private final Map<String, NamespaceQueue> queueMap = new ConcurrentHashMap<>();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    public RequestDispatcher(int workerThreads, int queueCapacity) {
+        AssertUtil.isTrue(workerThreads > 0, "workerThreads should be positive");
+        AssertUtil.isTrue(queueCapacity > 0, "queueCapacity should be positive");
+        this.queueCapacity = queueCapacity;
+        // Each namespace has at most one pending drain task, so the task queue is bounded by the namespace count.
+        this.workerPool = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(), new NamedThreadFactory("sentinel-cluster-server-dispatcher", true));
+    }
+
+    /**
+     * Dispatch the task to the queue of given namespace.
+     *
+     * @param namespace namespace of the client, the default namespace will be used if absent or not served
+     * @param task      task to process the request
+     * @return true if the task has been queued, false if the queue of the namespace is full
+     */
+    public boolean dispatch(String namespace, Runnable task) {
+        if (StringUtil.isEmpty(namespace) || !ClusterServerConfigManager.getNamespaceSet().contains(namespace)) {
+            namespace = ServerConstants.DEFAULT_NAMESPACE;
+        }
+        NamespaceQueue queue = getOrCreateQueue(namespace);
+        if (!queue.tasks.offer(task)) {
+            rejectedCount.increment();
+            return false;
+        }
+        queue.schedule();
+        return true;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    public int getQueueSize(String namespace) {
+        NamespaceQueue queue = queueMap.get(namespace);
+        return queue == null ? 0 : queue.tasks.size();
+    }
+
+    public void shutdown() {
+        workerPool.shutdownNow();
+    }
+
+    private NamespaceQueue getOrCreateQueue(String namespace) {
+        NamespaceQueue queue = queueMap.get(namespace);
+        if (queue == null) {
+            NamespaceQueue newQueue = new NamespaceQueue(queueCapacity);
+            queue = queueMap.putIfAbsent(namespace, newQueue);
+            if (queue == null) {
+                queue = newQueue;
+            }
+        }
+        return queue;
+    }
+
+    private class NamespaceQueue implements Runnable {
+
+        private final Queue<Runnable> tasks;
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        NamespaceQueue(int capacity) {
+            this.tasks = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    workerPool.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    // The dispatcher has been shut down.
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+                Runnable task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+                try {
+                    task.run();
+                } catch (Throwable ex) {
+                    RecordLog.warn("[RequestDispatcher] Unexpected error when processing request", ex);
+                }
+            }
+            scheduled.set(false);
+            // Yield to other namespaces if there are still pending requests.
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -18,17 +18,31 @@ package com.alibaba.csp.sentinel.cluster.server.handler;
 import java.net.InetSocketAddress;
 
 import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
 import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
 import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.response.data.FlowTokenResponseData;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionPool;
 import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessor;
 import com.alibaba.csp.sentinel.cluster.server.processor.RequestProcessorProvider;
+import com.alibaba.csp.sentinel.cluster.server.replication.ReplicationGuard;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotApplier;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk;
+import com.alibaba.csp.sentinel.cluster.server.statistic.LatencyHistogram;
+import com.alibaba.csp.sentinel.cluster.server.statistic.RequestLatency;
+import com.alibaba.csp.sentinel.cluster.server.statistic.TokenServerLatencyStat;
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleState;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.util.AttributeKey;
 
 /**
  * Netty server handler for Sentinel token server.
@@ -38,10 +52,43 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
  */
 public class TokenServerHandler extends ChannelInboundHandlerAdapter {
 
+    private static final AttributeKey<String> NAMESPACE_KEY = AttributeKey.valueOf("sentinelNamespace");
+
     private final ConnectionPool globalConnectionPool;
+    private final ReplicationGuard replicationGuard;
+    /**
+     * Dispatcher of the token requests, null indicates that requests are processed in the event loop.
+     */
+    private final RequestDispatcher dispatcher;
+    /**
+     * Recorder of the socket read time in the pipeline, null if the latency statistics are disabled.
+     */
+    private ReadTimeHandler readTimeHandler;
 
     public TokenServerHandler(ConnectionPool globalConnectionPool) {
+        this(globalConnectionPool, ReplicationGuard.fromConfig());
+    }
+
+    public TokenServerHandler(ConnectionPool globalConnectionPool, ReplicationGuard replicationGuard) {
+        this(globalConnectionPool, replicationGuard, null);
+    }
+
+    /**
+     * @param globalConnectionPool connection pool of the token server
+     * @param replicationGuard     guard of the snapshots from peer token server
+     * @param dispatcher           dispatcher of token requests, or null to process requests in the event loop
+     * @since 1.8.8
+     */
+    public TokenServerHandler(ConnectionPool globalConnectionPool, ReplicationGuard replicationGuard,
+                              RequestDispatcher dispatcher) {
         this.globalConnectionPool = globalConnectionPool;
+        this.replicationGuard = replicationGuard;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.readTimeHandler = ctx.pipeline().get(ReadTimeHandler.class);
     }
 
     @Override
@@ -56,6 +103,17 @@ public class TokenServerHandler extends ChannelInboundHandlerAdapter {
         ConnectionManager.removeConnection(remoteAddress);
     }
 
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent && ((IdleStateEvent)evt).state() == IdleState.READER_IDLE) {
+            RecordLog.info("[TokenServerHandler] The connection <{}> has been idle for <{}>s. It will be closed now.",
+                getRemoteAddress(ctx), ClusterServerConfigManager.getIdleSeconds());
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
@@ -68,12 +126,22 @@ public class TokenServerHandler extends ChannelInboundHandlerAdapter {
                 handlePingRequest(ctx, request);
                 return;
             }
+            // Snapshot streamed from the active token server.
+            if (request.getType() == ClusterConstants.MSG_TYPE_SNAPSHOT) {
+                handleSnapshotRequest(ctx, request);
+                return;
+            }
+            replicationGuard.markServed();
 
             // Pick request processor for request type.
             RequestProcessor<?, ?> processor = RequestProcessorProvider.getProcessor(request.getType());
             if (processor == null) {
                 RecordLog.warn("[TokenServerHandler] No processor for request type: " + request.getType());
                 writeBadResponse(ctx, request);
+            } else if (dispatcher != null) {
+                dispatchRequest(ctx, request, processor);
+            } else if (TokenServerLatencyStat.isEnabled()) {
+                processWithLatency(ctx, request, processor, getReadStartTime());
             } else {
                 ClusterResponse<?> response = processor.processRequest(request);
                 writeResponse(ctx, response);
@@ -81,6 +149,67 @@ public class TokenServerHandler extends ChannelInboundHandlerAdapter {
         }
     }
 
+    private void dispatchRequest(ChannelHandlerContext ctx, ClusterRequest request, RequestProcessor processor) {
+        long readStartTime = getReadStartTime();
+        ProcessTask task = new ProcessTask(ctx, request, processor, readStartTime);
+        if (!dispatcher.dispatch(ctx.channel().attr(NAMESPACE_KEY).get(), task)) {
+            // Backpressure: the queue of the namespace is full, so reject the request directly.
+            writeResponse(ctx, newTooManyRequestResponse(request));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processRequest(ChannelHandlerContext ctx, ClusterRequest request, RequestProcessor processor,
+                                long readStartTime) {
+        if (TokenServerLatencyStat.isEnabled()) {
+            processWithLatency(ctx, request, processor, readStartTime);
+        } else {
+            writeResponse(ctx, processor.processRequest(request));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void processWithLatency(ChannelHandlerContext ctx, ClusterRequest request, RequestProcessor processor,
+                                    long readStartTime) {
+        long startTime = System.nanoTime();
+        RequestLatency latency = TokenServerLatencyStat.getOrCreate(ctx.channel().attr(NAMESPACE_KEY).get(),
+            request.getType());
+        if (latency == null) {
+            writeResponse(ctx, processor.processRequest(request));
+            return;
+        }
+        if (readStartTime != ReadTimeHandler.NONE) {
+            latency.getQueueTime().recordNanos(startTime - readStartTime);
+        }
+
+        ClusterResponse<?> response = processor.processRequest(request);
+        long writeStartTime = System.nanoTime();
+        latency.getProcessTime().recordNanos(writeStartTime - startTime);
+
+        ctx.writeAndFlush(response).addListener(new WriteLatencyListener(latency.getWriteTime(), writeStartTime));
+    }
+
+    private long getReadStartTime() {
+        ReadTimeHandler handler = readTimeHandler;
+        return handler == null ? ReadTimeHandler.NONE : handler.getLastReadNanos();
+    }
+
+    private ClusterResponse<?> newTooManyRequestResponse(ClusterRequest request) {
+        Object data = null;
+        switch (request.getType()) {
+            case ClusterConstants.MSG_TYPE_FLOW:
+            case ClusterConstants.MSG_TYPE_PARAM_FLOW:
+                data = new FlowTokenResponseData();
+                break;
+            case ClusterConstants.MSG_TYPE_CONCURRENT_FLOW_RELEASE:
+                data = 0;
+                break;
+            default:
+                break;
+        }
+        return new ClusterResponse<>(request.getId(), request.getType(), TokenResultStatus.TOO_MANY_REQUEST, data);
+    }
+
     private void writeBadResponse(ChannelHandlerContext ctx, ClusterRequest request) {
         ClusterResponse<?> response = new ClusterResponse<>(request.getId(), request.getType(),
             ClusterConstants.RESPONSE_STATUS_BAD, null);
@@ -97,6 +226,7 @@ public class TokenServerHandler extends ChannelInboundHandlerAdapter {
             return;
         }
         String namespace = (String)request.getData();
+        ctx.channel().attr(NAMESPACE_KEY).set(namespace);
         String clientAddress = getRemoteAddress(ctx);
         // Add the remote namespace to connection manager.
         int curCount = ConnectionManager.addConnection(namespace, clientAddress).getConnectedCount();
@@ -105,6 +235,32 @@ public class TokenServerHandler extends ChannelInboundHandlerAdapter {
         writeResponse(ctx, response);
     }
 
+    private void handleSnapshotRequest(ChannelHandlerContext ctx, ClusterRequest request) {
+        String remoteHost = getRemoteHost(ctx);
+        if (!replicationGuard.isPrimary(remoteHost)) {
+            RecordLog.warn("[TokenServerHandler] Snapshot from <{}> is not a configured primary, closing the connection",
+                remoteHost);
+            ctx.close();
+            return;
+        }
+        // Reject the snapshot if current server has taken over (served token requests recently).
+        if (!(request.getData() instanceof SnapshotChunk) || !replicationGuard.acceptSnapshot(remoteHost)) {
+            writeBadResponse(ctx, request);
+            return;
+        }
+        int applied = SnapshotApplier.apply((SnapshotChunk)request.getData());
+        ClusterResponse<Integer> response = new ClusterResponse<>(request.getId(), request.getType(),
+            ClusterConstants.RESPONSE_STATUS_OK, applied);
+        writeResponse(ctx, response);
+    }
+
+    private String getRemoteHost(ChannelHandlerContext ctx) {
+        if (!(ctx.channel().remoteAddress() instanceof InetSocketAddress)) {
+            return null;
+        }
+        return ((InetSocketAddress)ctx.channel().remoteAddress()).getAddress().getHostAddress();
+    }
+
     private String getRemoteAddress(ChannelHandlerContext ctx) {
         if (ctx.channel().remoteAddress() == null) {
             return null;
@@ -112,4 +268,41 @@ public class TokenServerHandler extends ChannelInboundHandlerAdapter {
         InetSocketAddress inetAddress = (InetSocketAddress) ctx.channel().remoteAddress();
         return inetAddress.getAddress().getHostAddress() + ":" + inetAddress.getPort();
     }
+
+    private class ProcessTask implements Runnable {
+
+        private final ChannelHandlerContext ctx;
+        private final ClusterRequest request;
+        private final RequestProcessor processor;
+        private final long readStartTime;
+
+        ProcessTask(ChannelHandlerContext ctx, ClusterRequest request, RequestProcessor processor,
+                    long readStartTime) {
+            this.ctx = ctx;
+            this.request = request;
+            this.processor = processor;
+            this.readStartTime = readStartTime;
+        }
+
+        @Override
+        public void run() {
+            processRequest(ctx, request, processor, readStartTime);
+        }
+    }
+
+    private static class WriteLatencyListener implements ChannelFutureListener {
+
+        private final LatencyHistogram histogram;
+        private final long startTime;
+
+        WriteLatencyListener(LatencyHistogram histogram, long startTime) {
+            this.histogram = histogram;
+            this.startTime = startTime;
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            histogram.recordNanos(System.nanoTime() - startTime);
+        }
+    }
 }
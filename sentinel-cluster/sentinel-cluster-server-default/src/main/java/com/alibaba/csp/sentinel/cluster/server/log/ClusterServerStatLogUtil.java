@@ -16,6 +16,7 @@
 package com.alibaba.csp.sentinel.cluster.server.log;
 
 import com.alibaba.csp.sentinel.eagleeye.EagleEye;
+import com.alibaba.csp.sentinel.eagleeye.IdStatKeys;
 import com.alibaba.csp.sentinel.eagleeye.StatLogger;
 import com.alibaba.csp.sentinel.log.LogBase;
 
@@ -45,11 +46,22 @@ public final class ClusterServerStatLogUtil {
     }
 
     public static void log(String msg) {
-        statLogger.stat(msg).count();
+        statLogger.statKey(msg).count();
     }
 
     public static void log(String msg, int count) {
-        statLogger.stat(msg).count(count);
+        statLogger.statKey(msg).count(count);
+    }
+
+    /**
+     * Get registered keys of the event for IDs, so that no key is built when logging.
+     *
+     * @param prefix the key of an ID is {@code prefix + id}, like {@code flow|block|}
+     * @return registered keys of the event
+     * @since 1.8.8
+     */
+    public static IdStatKeys idKeys(String prefix) {
+        return new IdStatKeys(statLogger, prefix);
     }
 
     private ClusterServerStatLogUtil() {}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.processor;
+
+import java.util.Collection;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.TokenService;
+import com.alibaba.csp.sentinel.cluster.annotation.RequestType;
+import com.alibaba.csp.sentinel.cluster.flow.DefaultTokenService;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.ConcurrentFlowReleaseRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.server.TokenServiceProvider;
+
+/**
+ * Processor of releasing a batch of concurrent tokens. The response carries the count of released tokens.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+@RequestType(ClusterConstants.MSG_TYPE_CONCURRENT_FLOW_RELEASE)
+public class ConcurrentFlowReleaseRequestProcessor
+    implements RequestProcessor<ConcurrentFlowReleaseRequestData, Integer> {
+
+    @Override
+    public ClusterResponse<Integer> processRequest(ClusterRequest<ConcurrentFlowReleaseRequestData> request) {
+        if (request.getData() == null || request.getData().getTokenIds() == null) {
+            return new ClusterResponse<>(request.getId(), request.getType(), TokenResultStatus.BAD_REQUEST, 0);
+        }
+        Collection<Long> tokenIds = request.getData().getTokenIds();
+        TokenService tokenService = TokenServiceProvider.getService();
+
+        int released;
+        if (tokenService instanceof DefaultTokenService) {
+            released = ((DefaultTokenService)tokenService).releaseConcurrentTokens(tokenIds);
+        } else {
+            for (Long tokenId : tokenIds) {
+                tokenService.releaseConcurrentToken(tokenId);
+            }
+            released = tokenIds.size();
+        }
+        return new ClusterResponse<>(request.getId(), request.getType(), TokenResultStatus.RELEASE_OK, released);
+    }
+}
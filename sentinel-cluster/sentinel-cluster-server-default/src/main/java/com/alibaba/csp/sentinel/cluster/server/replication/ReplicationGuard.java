@@ -0,0 +1,132 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.replication;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>Decides whether a token server should accept snapshots from a peer.</p>
+ * <p>
+ * Snapshots overwrite the flow statistics and the concurrent tokens, so they are only accepted from
+ * the configured primary token server hosts ({@link #PRIMARY_ADDRESS_KEY}). If no primary is configured,
+ * all snapshots are rejected.
+ * </p>
+ * <p>
+ * A token server acts as a standby until clients start to request tokens from it (e.g. after
+ * they have failed over). Once it has served token requests recently, it's regarded as active
+ * and snapshots are rejected, so that a restarted primary cannot overwrite the state of the
+ * server that has taken over.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class ReplicationGuard {
+
+    /**
+     * Hosts (separated by comma) of the token servers allowed to replicate their state to current server.
+     */
+    public static final String PRIMARY_ADDRESS_KEY = "csp.sentinel.cluster.server.primary.address";
+
+    public static final long DEFAULT_ACTIVE_WINDOW_MS = 3000;
+
+    /**
+     * The last served time is refreshed at most once per interval, to avoid contending on
+     * the shared field in the request path.
+     */
+    private static final long MARK_INTERVAL_MS = 100;
+
+    private final Set<String> primaryHosts;
+    private final long activeWindowMs;
+    private volatile long lastServedTime;
+
+    /**
+     * @param primaryHosts hosts (names or IP addresses) of the token servers allowed to send snapshots
+     */
+    public ReplicationGuard(Set<String> primaryHosts) {
+        this(primaryHosts, DEFAULT_ACTIVE_WINDOW_MS);
+    }
+
+    public ReplicationGuard(Set<String> primaryHosts, long activeWindowMs) {
+        this.primaryHosts = resolveHosts(primaryHosts);
+        this.activeWindowMs = activeWindowMs;
+    }
+
+    /**
+     * Create a guard from the Sentinel config.
+     *
+     * @return the guard accepting snapshots from the configured primary hosts only
+     */
+    public static ReplicationGuard fromConfig() {
+        String address = SentinelConfig.getConfig(PRIMARY_ADDRESS_KEY);
+        if (StringUtil.isBlank(address)) {
+            return new ReplicationGuard(Collections.<String>emptySet());
+        }
+        Set<String> hosts = new HashSet<>();
+        for (String host : address.split(",")) {
+            if (StringUtil.isNotBlank(host)) {
+                hosts.add(host.trim());
+            }
+        }
+        return new ReplicationGuard(hosts);
+    }
+
+    private static Set<String> resolveHosts(Set<String> hosts) {
+        Set<String> addresses = new HashSet<>();
+        if (hosts == null) {
+            return addresses;
+        }
+        for (String host : hosts) {
+            addresses.add(host);
+            try {
+                for (InetAddress address : InetAddress.getAllByName(host)) {
+                    addresses.add(address.getHostAddress());
+                }
+            } catch (UnknownHostException ex) {
+                RecordLog.warn("[ReplicationGuard] Cannot resolve the primary token server host: " + host, ex);
+            }
+        }
+        return addresses;
+    }
+
+    public void markServed() {
+        long now = TimeUtil.currentTimeMillis();
+        if (now - lastServedTime >= MARK_INTERVAL_MS) {
+            lastServedTime = now;
+        }
+    }
+
+    /**
+     * @param remoteHost IP address of the peer sending the snapshot
+     * @return true if the snapshot is sent by a primary and current server has not taken over
+     */
+    public boolean acceptSnapshot(String remoteHost) {
+        return isPrimary(remoteHost) && TimeUtil.currentTimeMillis() - lastServedTime > activeWindowMs;
+    }
+
+    public boolean isPrimary(String remoteHost) {
+        return remoteHost != null && primaryHosts.contains(remoteHost);
+    }
+}
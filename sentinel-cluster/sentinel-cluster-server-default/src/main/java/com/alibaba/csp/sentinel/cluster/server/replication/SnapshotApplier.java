@@ -0,0 +1,166 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.replication;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNodeManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamMetric;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.ConcurrentToken;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.FlowWindow;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.ParamValue;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>Applies the snapshot chunks received from the active token server to the statistics
+ * of current (standby) token server.</p>
+ * <p>
+ * Windows and parameter values are overwritten in place. Concurrent tokens are upserted and
+ * removed once released on the active server. The replicated tokens that are absent from a complete
+ * snapshot (e.g. a released token whose delta was lost) are removed when the end chunk arrives.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class SnapshotApplier {
+
+    /**
+     * (tokenId, epoch of the last snapshot containing the token)
+     */
+    private static final Map<Long, Long> REPLICATED_TOKENS = new ConcurrentHashMap<>();
+
+    /**
+     * Apply a snapshot chunk.
+     *
+     * @param chunk a valid snapshot chunk
+     * @return amount of the applied entries
+     */
+    public static int apply(/*@Valid*/ SnapshotChunk chunk) {
+        switch (chunk.getKind()) {
+            case SnapshotChunk.KIND_FLOW_WINDOW:
+                return applyFlowWindows(chunk);
+            case SnapshotChunk.KIND_PARAM_VALUE:
+                return applyParamValues(chunk);
+            case SnapshotChunk.KIND_CONCURRENT_TOKEN:
+                return applyConcurrentTokens(chunk);
+            case SnapshotChunk.KIND_RELEASED_TOKEN:
+                return removeReleasedTokens(chunk);
+            case SnapshotChunk.KIND_END:
+                return removeStaleTokens(chunk.getEpoch());
+            default:
+                return 0;
+        }
+    }
+
+    private static int applyFlowWindows(SnapshotChunk chunk) {
+        ClusterMetric metric = ClusterMetricStatistics.getMetric(chunk.getFlowId());
+        if (metric == null) {
+            return 0;
+        }
+        long now = TimeUtil.currentTimeMillis();
+        for (Object entry : chunk.getEntries()) {
+            FlowWindow window = (FlowWindow)entry;
+            metric.restoreWindow(now - window.getAgeMs(), window.getCounts());
+        }
+        return chunk.getEntries().size();
+    }
+
+    private static int applyParamValues(SnapshotChunk chunk) {
+        ClusterParamMetric metric = ClusterParamMetricStatistics.getMetric(chunk.getFlowId());
+        if (metric == null) {
+            return 0;
+        }
+        for (Object entry : chunk.getEntries()) {
+            ParamValue paramValue = (ParamValue)entry;
+            metric.restoreValue(paramValue.getValue(), paramValue.getSum());
+        }
+        return chunk.getEntries().size();
+    }
+
+    private static int applyConcurrentTokens(SnapshotChunk chunk) {
+        int applied = 0;
+        for (Object entry : chunk.getEntries()) {
+            ConcurrentToken token = (ConcurrentToken)entry;
+            REPLICATED_TOKENS.put(token.getTokenId(), chunk.getEpoch());
+            if (TokenCacheNodeManager.isContainsTokenId(token.getTokenId())) {
+                continue;
+            }
+            TokenCacheNode node = new TokenCacheNode();
+            node.setTokenId(token.getTokenId());
+            node.setFlowId(token.getFlowId());
+            node.setAcquireCount(token.getAcquireCount());
+            // The timeout setters take relative time.
+            node.setClientTimeout(token.getClientRemainMs());
+            node.setResourceTimeout(token.getResourceRemainMs());
+            node.setClientAddress(token.getClientAddress());
+            TokenCacheNodeManager.putTokenCacheNode(token.getTokenId(), node);
+            CurrentConcurrencyManager.addConcurrency(token.getFlowId(), token.getAcquireCount());
+            applied++;
+        }
+        return applied;
+    }
+
+    private static int removeReleasedTokens(SnapshotChunk chunk) {
+        int removed = 0;
+        for (Object entry : chunk.getEntries()) {
+            Long tokenId = (Long)entry;
+            REPLICATED_TOKENS.remove(tokenId);
+            if (removeToken(tokenId)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static int removeStaleTokens(long epoch) {
+        int removed = 0;
+        Iterator<Map.Entry<Long, Long>> iterator = REPLICATED_TOKENS.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> entry = iterator.next();
+            if (entry.getValue() >= epoch) {
+                continue;
+            }
+            iterator.remove();
+            if (removeToken(entry.getKey())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private static boolean removeToken(long tokenId) {
+        TokenCacheNode node = TokenCacheNodeManager.removeTokenCacheNode(tokenId);
+        if (node == null) {
+            return false;
+        }
+        CurrentConcurrencyManager.addConcurrency(node.getFlowId(), -node.getAcquireCount());
+        return true;
+    }
+
+    static void clear() {
+        REPLICATED_TOKENS.clear();
+    }
+
+    private SnapshotApplier() {}
+}
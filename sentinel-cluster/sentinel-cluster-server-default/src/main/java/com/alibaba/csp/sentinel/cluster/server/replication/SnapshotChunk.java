@@ -0,0 +1,207 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>A chunk of the token server state snapshot that is streamed from the active token server
+ * to the standby.</p>
+ * <p>
+ * A snapshot is made up of several chunks of the same epoch (so that each chunk fits in one frame),
+ * followed by an {@link #KIND_END} chunk that marks the end of the snapshot. A delta snapshot only
+ * carries the changes since the last snapshot, and has no end chunk.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class SnapshotChunk {
+
+    /**
+     * Windows of a flow metric, entries are {@link FlowWindow}.
+     */
+    public static final int KIND_FLOW_WINDOW = 0;
+    /**
+     * Parameter values of a param flow metric, entries are {@link ParamValue}.
+     */
+    public static final int KIND_PARAM_VALUE = 1;
+    /**
+     * Concurrent tokens, entries are {@link ConcurrentToken}.
+     */
+    public static final int KIND_CONCURRENT_TOKEN = 2;
+    /**
+     * End of the snapshot, carries no entries.
+     */
+    public static final int KIND_END = 3;
+    /**
+     * Concurrent tokens released since the last snapshot, entries are token IDs.
+     */
+    public static final int KIND_RELEASED_TOKEN = 4;
+
+    private long epoch;
+    private int kind;
+    private long flowId;
+    private List<Object> entries = new ArrayList<>();
+
+    public SnapshotChunk() {}
+
+    public SnapshotChunk(long epoch, int kind, long flowId) {
+        this.epoch = epoch;
+        this.kind = kind;
+        this.flowId = flowId;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public SnapshotChunk setEpoch(long epoch) {
+        this.epoch = epoch;
+        return this;
+    }
+
+    public int getKind() {
+        return kind;
+    }
+
+    public SnapshotChunk setKind(int kind) {
+        this.kind = kind;
+        return this;
+    }
+
+    public long getFlowId() {
+        return flowId;
+    }
+
+    public SnapshotChunk setFlowId(long flowId) {
+        this.flowId = flowId;
+        return this;
+    }
+
+    public List<Object> getEntries() {
+        return entries;
+    }
+
+    public SnapshotChunk addEntry(Object entry) {
+        this.entries.add(entry);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotChunk{" +
+            "epoch=" + epoch +
+            ", kind=" + kind +
+            ", flowId=" + flowId +
+            ", entries=" + entries.size() +
+            '}';
+    }
+
+    /**
+     * Counts of a metric window. The age (rather than the start time) of the window is carried,
+     * so that the snapshot does not depend on the clocks of the two servers being in sync.
+     */
+    public static class FlowWindow {
+
+        private final int ageMs;
+        private final long[] counts;
+
+        public FlowWindow(int ageMs, long[] counts) {
+            this.ageMs = ageMs;
+            this.counts = counts;
+        }
+
+        public int getAgeMs() {
+            return ageMs;
+        }
+
+        public long[] getCounts() {
+            return counts;
+        }
+    }
+
+    /**
+     * Count of a parameter value in the sliding window.
+     */
+    public static class ParamValue {
+
+        private final Object value;
+        private final long sum;
+
+        public ParamValue(Object value, long sum) {
+            this.value = value;
+            this.sum = sum;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+    }
+
+    /**
+     * A concurrent token held by a client. The timeouts are remaining times (in ms) rather than
+     * absolute timestamps, for the same reason as {@link FlowWindow}.
+     */
+    public static class ConcurrentToken {
+
+        private final long tokenId;
+        private final long flowId;
+        private final int acquireCount;
+        private final long clientRemainMs;
+        private final long resourceRemainMs;
+        private final String clientAddress;
+
+        public ConcurrentToken(long tokenId, long flowId, int acquireCount, long clientRemainMs,
+                               long resourceRemainMs, String clientAddress) {
+            this.tokenId = tokenId;
+            this.flowId = flowId;
+            this.acquireCount = acquireCount;
+            this.clientRemainMs = clientRemainMs;
+            this.resourceRemainMs = resourceRemainMs;
+            this.clientAddress = clientAddress;
+        }
+
+        public long getTokenId() {
+            return tokenId;
+        }
+
+        public long getFlowId() {
+            return flowId;
+        }
+
+        public int getAcquireCount() {
+            return acquireCount;
+        }
+
+        public long getClientRemainMs() {
+            return clientRemainMs;
+        }
+
+        public long getResourceRemainMs() {
+            return resourceRemainMs;
+        }
+
+        public String getClientAddress() {
+            return clientAddress;
+        }
+    }
+}
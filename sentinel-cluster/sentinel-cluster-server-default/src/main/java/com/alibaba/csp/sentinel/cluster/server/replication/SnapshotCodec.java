@@ -0,0 +1,206 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.replication;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.ConcurrentToken;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.FlowWindow;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.ParamValue;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * <p>Binary codec of {@link SnapshotChunk}.</p>
+ * <p>
+ * Chunk format: {@code epoch(8) | kind(1) | flowId(8) | amount(2) | entries}, where the entries are:
+ * <ul>
+ *     <li>flow window: {@code ageMs(4) | n(1) | counts(8 * n)}</li>
+ *     <li>param value: {@code paramType(1) | value | sum(8)}, values are encoded in the same way
+ *     as the param flow requests</li>
+ *     <li>concurrent token: {@code tokenId(8) | flowId(8) | acquireCount(4) | clientRemainMs(8)
+ *     | resourceRemainMs(8) | addressLength(2) | address}</li>
+ *     <li>released token: {@code tokenId(8)}</li>
+ * </ul>
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class SnapshotCodec {
+
+    public static final int CHUNK_HEADER_SIZE = 19;
+
+    public static SnapshotChunk decodeChunk(ByteBuf source) {
+        if (source.readableBytes() < CHUNK_HEADER_SIZE) {
+            return null;
+        }
+        SnapshotChunk chunk = new SnapshotChunk(source.readLong(), source.readByte(), source.readLong());
+        int amount = source.readUnsignedShort();
+        for (int i = 0; i < amount; i++) {
+            Object entry = decodeEntry(source, chunk.getKind());
+            if (entry == null) {
+                return null;
+            }
+            chunk.addEntry(entry);
+        }
+        return chunk;
+    }
+
+    static void writeChunkHeader(ByteBuf target, long epoch, int kind, long flowId) {
+        target.writeLong(epoch);
+        target.writeByte(kind);
+        target.writeLong(flowId);
+        // Placeholder of the entry amount.
+        target.writeShort(0);
+    }
+
+    /**
+     * Encode a snapshot entry.
+     *
+     * @param target target buffer
+     * @param kind   kind of the chunk
+     * @param entry  the entry
+     * @return true if the entry is encoded, false if the entry is not supported (e.g. unknown param type)
+     */
+    static boolean writeEntry(ByteBuf target, int kind, Object entry) {
+        switch (kind) {
+            case SnapshotChunk.KIND_FLOW_WINDOW:
+                FlowWindow window = (FlowWindow)entry;
+                target.writeInt(window.getAgeMs());
+                target.writeByte(window.getCounts().length);
+                for (long count : window.getCounts()) {
+                    target.writeLong(count);
+                }
+                return true;
+            case SnapshotChunk.KIND_PARAM_VALUE:
+                ParamValue paramValue = (ParamValue)entry;
+                if (!writeParamValue(target, paramValue.getValue())) {
+                    return false;
+                }
+                target.writeLong(paramValue.getSum());
+                return true;
+            case SnapshotChunk.KIND_CONCURRENT_TOKEN:
+                ConcurrentToken token = (ConcurrentToken)entry;
+                target.writeLong(token.getTokenId());
+                target.writeLong(token.getFlowId());
+                target.writeInt(token.getAcquireCount());
+                target.writeLong(token.getClientRemainMs());
+                target.writeLong(token.getResourceRemainMs());
+                byte[] address = token.getClientAddress() == null ? new byte[0] : token.getClientAddress().getBytes();
+                target.writeShort(address.length);
+                target.writeBytes(address);
+                return true;
+            case SnapshotChunk.KIND_RELEASED_TOKEN:
+                target.writeLong((Long)entry);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static Object decodeEntry(ByteBuf source, int kind) {
+        switch (kind) {
+            case SnapshotChunk.KIND_FLOW_WINDOW:
+                int ageMs = source.readInt();
+                long[] counts = new long[source.readUnsignedByte()];
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] = source.readLong();
+                }
+                return new FlowWindow(ageMs, counts);
+            case SnapshotChunk.KIND_PARAM_VALUE:
+                Object value = readParamValue(source);
+                if (value == null) {
+                    return null;
+                }
+                return new ParamValue(value, source.readLong());
+            case SnapshotChunk.KIND_CONCURRENT_TOKEN:
+                long tokenId = source.readLong();
+                long flowId = source.readLong();
+                int acquireCount = source.readInt();
+                long clientRemainMs = source.readLong();
+                long resourceRemainMs = source.readLong();
+                byte[] address = new byte[source.readUnsignedShort()];
+                source.readBytes(address);
+                return new ConcurrentToken(tokenId, flowId, acquireCount, clientRemainMs, resourceRemainMs,
+                    address.length == 0 ? null : new String(address));
+            case SnapshotChunk.KIND_RELEASED_TOKEN:
+                return source.readLong();
+            default:
+                return null;
+        }
+    }
+
+    private static boolean writeParamValue(ByteBuf target, Object value) {
+        if (value instanceof Integer) {
+            target.writeByte(ClusterConstants.PARAM_TYPE_INTEGER);
+            target.writeInt((Integer)value);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String)value).getBytes();
+            target.writeByte(ClusterConstants.PARAM_TYPE_STRING);
+            target.writeInt(bytes.length);
+            target.writeBytes(bytes);
+        } else if (value instanceof Boolean) {
+            target.writeByte(ClusterConstants.PARAM_TYPE_BOOLEAN);
+            target.writeBoolean((Boolean)value);
+        } else if (value instanceof Double) {
+            target.writeByte(ClusterConstants.PARAM_TYPE_DOUBLE);
+            target.writeDouble((Double)value);
+        } else if (value instanceof Long) {
+            target.writeByte(ClusterConstants.PARAM_TYPE_LONG);
+            target.writeLong((Long)value);
+        } else if (value instanceof Float) {
+            target.writeByte(ClusterConstants.PARAM_TYPE_FLOAT);
+            target.writeFloat((Float)value);
+        } else if (value instanceof Byte) {
+            target.writeByte(ClusterConstants.PARAM_TYPE_BYTE);
+            target.writeByte((Byte)value);
+        } else if (value instanceof Short) {
+            target.writeByte(ClusterConstants.PARAM_TYPE_SHORT);
+            target.writeShort((Short)value);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static Object readParamValue(ByteBuf source) {
+        byte paramType = source.readByte();
+        switch (paramType) {
+            case ClusterConstants.PARAM_TYPE_INTEGER:
+                return source.readInt();
+            case ClusterConstants.PARAM_TYPE_STRING:
+                byte[] bytes = new byte[source.readInt()];
+                source.readBytes(bytes);
+                return new String(bytes);
+            case ClusterConstants.PARAM_TYPE_BOOLEAN:
+                return source.readBoolean();
+            case ClusterConstants.PARAM_TYPE_DOUBLE:
+                return source.readDouble();
+            case ClusterConstants.PARAM_TYPE_LONG:
+                return source.readLong();
+            case ClusterConstants.PARAM_TYPE_FLOAT:
+                return source.readFloat();
+            case ClusterConstants.PARAM_TYPE_BYTE:
+                return source.readByte();
+            case ClusterConstants.PARAM_TYPE_SHORT:
+                return source.readShort();
+            default:
+                return null;
+        }
+    }
+
+    private SnapshotCodec() {}
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+/**
+ * <p>Packs the entries of a snapshot into {@link ClusterConstants#MSG_TYPE_SNAPSHOT} requests
+ * ({@code xid(4) | type(1) | chunk}).</p>
+ * <p>
+ * The token server rejects frames larger than 1024 bytes, so the entries are split into chunks
+ * that fit in one frame. An entry that can never fit (e.g. a huge string parameter) is skipped.
+ * The encoder is not thread-safe and is used for one snapshot only.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+class SnapshotEncoder {
+
+    /**
+     * Max size of a request, leaving room for the 2-byte length field of the frame.
+     */
+    static final int MAX_REQUEST_SIZE = 1000;
+    private static final int REQUEST_HEADER_SIZE = 5 + SnapshotCodec.CHUNK_HEADER_SIZE;
+    private static final int MAX_ENTRY_AMOUNT = 0xFFFF;
+
+    private final ByteBufAllocator allocator;
+    private final long epoch;
+    private final int firstXid;
+
+    private final List<ByteBuf> requests = new ArrayList<>();
+    private final ByteBuf scratch = Unpooled.buffer(MAX_REQUEST_SIZE);
+
+    private ByteBuf current;
+    private int currentKind;
+    private long currentFlowId;
+    private int currentAmount;
+
+    SnapshotEncoder(ByteBufAllocator allocator, long epoch, int firstXid) {
+        this.allocator = allocator;
+        this.epoch = epoch;
+        this.firstXid = firstXid;
+    }
+
+    /**
+     * Add an entry to the snapshot.
+     *
+     * @return true if the entry is added, otherwise false
+     */
+    boolean add(int kind, long flowId, Object entry) {
+        scratch.clear();
+        if (!SnapshotCodec.writeEntry(scratch, kind, entry)
+            || REQUEST_HEADER_SIZE + scratch.readableBytes() > MAX_REQUEST_SIZE) {
+            return false;
+        }
+        if (current == null || kind != currentKind || flowId != currentFlowId || currentAmount == MAX_ENTRY_AMOUNT
+            || current.readableBytes() + scratch.readableBytes() > MAX_REQUEST_SIZE) {
+            flush();
+            begin(kind, flowId);
+        }
+        current.writeBytes(scratch);
+        currentAmount++;
+        return true;
+    }
+
+    /**
+     * Finish the snapshot.
+     *
+     * @param end whether to end the snapshot with an end chunk (i.e. the snapshot is complete)
+     * @return encoded requests of the snapshot
+     */
+    List<ByteBuf> finish(boolean end) {
+        flush();
+        if (end) {
+            begin(SnapshotChunk.KIND_END, 0);
+            flush();
+        }
+        return requests;
+    }
+
+    private void begin(int kind, long flowId) {
+        current = allocator.buffer(MAX_REQUEST_SIZE);
+        current.writeInt(firstXid + requests.size());
+        current.writeByte(ClusterConstants.MSG_TYPE_SNAPSHOT);
+        SnapshotCodec.writeChunkHeader(current, epoch, kind, flowId);
+        currentKind = kind;
+        currentFlowId = flowId;
+        currentAmount = 0;
+    }
+
+    private void flush() {
+        if (current != null) {
+            // The entry amount is the last field of the header.
+            current.setShort(REQUEST_HEADER_SIZE - 2, currentAmount);
+            requests.add(current);
+            current = null;
+        }
+    }
+}
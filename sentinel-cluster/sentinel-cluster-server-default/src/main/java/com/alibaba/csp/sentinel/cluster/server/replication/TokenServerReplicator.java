@@ -0,0 +1,410 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.replication;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNodeManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterMetricBucket;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterParamMetric;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.ConcurrentToken;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.FlowWindow;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.ParamValue;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
+import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.StringUtil;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * <p>Streams the state of current (active) token server to a hot-standby token server.</p>
+ * <p>
+ * Every interval, the flow metric windows and the parameter values changed since the last tick, and the
+ * concurrent tokens acquired or released since then, are sent over the token server transport (as
+ * {@link ClusterConstants#MSG_TYPE_SNAPSHOT} requests), so that the standby can take over
+ * with warm statistics when clients fail over to it. A full snapshot is sent on each connection and
+ * every {@link #FULL_SYNC_INTERVAL_MS}. The tick is skipped if the standby cannot keep up
+ * (i.e. the channel is not writable).
+ * </p>
+ * <p>
+ * The standby only accepts snapshots from the hosts in its {@link ReplicationGuard#PRIMARY_ADDRESS_KEY}.
+ * Replication should be configured in both directions (each server as the standby and the primary of the
+ * other), so that a restarted token server gets the state of the standby before clients fail back to it,
+ * instead of starting over with empty statistics.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class TokenServerReplicator {
+
+    /**
+     * Address of the standby token server ({@code host:port}). Replication is disabled if absent.
+     */
+    public static final String STANDBY_ADDRESS_KEY = "csp.sentinel.cluster.server.standby.address";
+    public static final String INTERVAL_KEY = "csp.sentinel.cluster.server.replication.interval.ms";
+
+    public static final int DEFAULT_INTERVAL_MS = 100;
+    /**
+     * Interval of the full snapshots, the snapshots in between only carry the changes.
+     */
+    public static final int FULL_SYNC_INTERVAL_MS = 10_000;
+    private static final int CONNECT_TIMEOUT_MS = 3000;
+
+    private final String host;
+    private final int port;
+    private final int intervalMs;
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final AtomicBoolean connecting = new AtomicBoolean(false);
+    private final AtomicLong ackedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    private EventLoopGroup eventLoopGroup;
+    private Bootstrap bootstrap;
+    private volatile Channel channel;
+
+    private int nextXid = 0;
+    private long lastEpoch = 0;
+
+    private volatile boolean fullSyncRequired = true;
+    private volatile long lastFullSyncTime = 0;
+    /**
+     * State sent to the standby so far: (flowId, (windowStart, counts)), (flowId, (value, sum)) and token IDs.
+     */
+    private Map<Long, Map<Long, long[]>> sentWindows = new HashMap<>();
+    private Map<Long, Map<Object, Long>> sentParamValues = new HashMap<>();
+    private Set<Long> sentTokens = new HashSet<>();
+
+    public TokenServerReplicator(String host, int port) {
+        this(host, port, DEFAULT_INTERVAL_MS);
+    }
+
+    public TokenServerReplicator(String host, int port, int intervalMs) {
+        AssertUtil.assertNotBlank(host, "standby host cannot be blank");
+        AssertUtil.isTrue(port > 0, "port should be positive");
+        AssertUtil.isTrue(intervalMs > 0, "intervalMs should be positive");
+        this.host = host;
+        this.port = port;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Create a replicator from the Sentinel config.
+     *
+     * @return the replicator, or null if no valid standby address is configured
+     */
+    public static TokenServerReplicator fromConfig() {
+        String address = SentinelConfig.getConfig(STANDBY_ADDRESS_KEY);
+        if (StringUtil.isBlank(address)) {
+            return null;
+        }
+        try {
+            int idx = address.lastIndexOf(':');
+            String host = address.substring(0, idx).trim();
+            int port = Integer.parseInt(address.substring(idx + 1).trim());
+            String interval = SentinelConfig.getConfig(INTERVAL_KEY);
+            int intervalMs = StringUtil.isBlank(interval) ? DEFAULT_INTERVAL_MS : Integer.parseInt(interval.trim());
+            return new TokenServerReplicator(host, port, intervalMs);
+        } catch (Exception ex) {
+            RecordLog.warn("[TokenServerReplicator] Invalid standby address or interval, replication is disabled: "
+                + address, ex);
+            return null;
+        }
+    }
+
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        this.eventLoopGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("sentinel-cluster-replicator"));
+        this.bootstrap = new Bootstrap()
+            .group(eventLoopGroup)
+            .channel(NioSocketChannel.class)
+            .option(ChannelOption.TCP_NODELAY, true)
+            .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MS)
+            .handler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                public void initChannel(SocketChannel ch) {
+                    ChannelPipeline pipeline = ch.pipeline();
+                    pipeline.addLast(new LengthFieldBasedFrameDecoder(1024, 0, 2, 0, 2));
+                    pipeline.addLast(new LengthFieldPrepender(2));
+                    pipeline.addLast(new SnapshotAckHandler());
+                }
+            });
+        connect();
+        eventLoopGroup.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                replicate();
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        RecordLog.info("[TokenServerReplicator] Replicating token server state to standby <{}:{}> every {} ms",
+            host, port, intervalMs);
+    }
+
+    public void stop() {
+        if (!started.compareAndSet(true, false)) {
+            return;
+        }
+        Channel ch = channel;
+        if (ch != null) {
+            ch.close();
+        }
+        channel = null;
+        eventLoopGroup.shutdownGracefully();
+        RecordLog.info("[TokenServerReplicator] Replication to standby <{}:{}> stopped", host, port);
+    }
+
+    public boolean isConnected() {
+        Channel ch = channel;
+        return ch != null && ch.isActive();
+    }
+
+    /**
+     * @return amount of the snapshot chunks accepted by the standby
+     */
+    public long getAckedCount() {
+        return ackedCount.get();
+    }
+
+    /**
+     * @return amount of the snapshot chunks rejected by the standby (e.g. the standby has taken over)
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private void connect() {
+        if (!started.get() || !connecting.compareAndSet(false, true)) {
+            return;
+        }
+        bootstrap.connect(host, port).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                connecting.set(false);
+                if (future.isSuccess()) {
+                    channel = future.channel();
+                    // The standby may have missed any delta, so start over with a full snapshot.
+                    fullSyncRequired = true;
+                    RecordLog.info("[TokenServerReplicator] Connected to standby <{}:{}>", host, port);
+                } else {
+                    RecordLog.debug("[TokenServerReplicator] Could not connect to standby <{}:{}>", host, port);
+                }
+            }
+        });
+    }
+
+    private void replicate() {
+        Channel ch = channel;
+        if (ch == null || !ch.isActive()) {
+            connect();
+            return;
+        }
+        if (!ch.isWritable()) {
+            return;
+        }
+        boolean full = fullSyncRequired
+            || TimeUtil.currentTimeMillis() - lastFullSyncTime >= FULL_SYNC_INTERVAL_MS;
+        try {
+            fullSyncRequired = false;
+            send(ch, buildSnapshot(ch.alloc(), full));
+        } catch (Throwable ex) {
+            RecordLog.warn("[TokenServerReplicator] Failed to replicate snapshot to standby", ex);
+        }
+    }
+
+    /**
+     * Send the encoded requests of a snapshot to the standby.
+     *
+     * @return true if sent, false if not connected to the standby
+     */
+    boolean send(List<ByteBuf> requests) {
+        Channel ch = channel;
+        if (ch == null || !ch.isActive()) {
+            for (ByteBuf request : requests) {
+                request.release();
+            }
+            return false;
+        }
+        send(ch, requests);
+        return true;
+    }
+
+    private void send(Channel ch, List<ByteBuf> requests) {
+        for (ByteBuf request : requests) {
+            ch.write(request, ch.voidPromise());
+        }
+        ch.flush();
+    }
+
+    /**
+     * Take a snapshot of the statistics of current token server.
+     *
+     * @param allocator allocator of the request buffers
+     * @param full      whether to take a full snapshot; otherwise only the windows and parameter values
+     *                  changed since the last snapshot and the tokens acquired or released since then are taken
+     * @return encoded snapshot requests; the last one of a full snapshot is an end chunk
+     */
+    synchronized List<ByteBuf> buildSnapshot(ByteBufAllocator allocator, boolean full) {
+        long now = TimeUtil.currentTimeMillis();
+        // Epoch should be increasing, even if the clock goes backwards.
+        long epoch = Math.max(now, lastEpoch + 1);
+        lastEpoch = epoch;
+        if (full) {
+            sentWindows.clear();
+            sentParamValues.clear();
+            sentTokens.clear();
+            lastFullSyncTime = now;
+        }
+        SnapshotEncoder encoder = new SnapshotEncoder(allocator, epoch, nextXid);
+
+        ClusterFlowEvent[] events = ClusterFlowEvent.values();
+        Map<Long, Map<Long, long[]>> windows = new HashMap<>();
+        for (FlowRule rule : ClusterFlowRuleManager.getAllFlowRules()) {
+            long flowId = rule.getClusterConfig().getFlowId();
+            ClusterMetric metric = ClusterMetricStatistics.getMetric(flowId);
+            if (metric == null) {
+                continue;
+            }
+            Map<Long, long[]> lastCounts = sentWindows.get(flowId);
+            Map<Long, long[]> flowWindows = new HashMap<>();
+            for (WindowWrap<ClusterMetricBucket> window : metric.listWindows()) {
+                long[] counts = new long[events.length];
+                for (int i = 0; i < events.length; i++) {
+                    counts[i] = window.value().get(events[i]);
+                }
+                flowWindows.put(window.windowStart(), counts);
+                if (lastCounts != null && Arrays.equals(counts, lastCounts.get(window.windowStart()))) {
+                    continue;
+                }
+                int ageMs = (int)Math.max(0, now - window.windowStart());
+                encoder.add(SnapshotChunk.KIND_FLOW_WINDOW, flowId, new FlowWindow(ageMs, counts));
+            }
+            windows.put(flowId, flowWindows);
+        }
+        sentWindows = windows;
+
+        // Values absent from the current window are not sent, as they slide out on the standby as well.
+        Map<Long, Map<Object, Long>> paramValues = new HashMap<>();
+        for (ParamFlowRule rule : ClusterParamFlowRuleManager.getAllParamRules()) {
+            long flowId = rule.getClusterConfig().getFlowId();
+            ClusterParamMetric metric = ClusterParamMetricStatistics.getMetric(flowId);
+            if (metric == null) {
+                continue;
+            }
+            Map<Object, Long> lastSums = sentParamValues.get(flowId);
+            Map<Object, Long> sums = metric.getValueSums();
+            for (Map.Entry<Object, Long> e : sums.entrySet()) {
+                if (lastSums != null && e.getValue().equals(lastSums.get(e.getKey()))) {
+                    continue;
+                }
+                encoder.add(SnapshotChunk.KIND_PARAM_VALUE, flowId, new ParamValue(e.getKey(), e.getValue()));
+            }
+            paramValues.put(flowId, sums);
+        }
+        sentParamValues = paramValues;
+
+        Set<Long> tokens = new HashSet<>();
+        for (Long tokenId : TokenCacheNodeManager.getCacheKeySet()) {
+            TokenCacheNode node = TokenCacheNodeManager.getTokenCacheNode(tokenId);
+            if (node == null) {
+                continue;
+            }
+            tokens.add(tokenId);
+            if (sentTokens.contains(tokenId)) {
+                continue;
+            }
+            ConcurrentToken token = new ConcurrentToken(tokenId, node.getFlowId(), node.getAcquireCount(),
+                Math.max(0, node.getClientTimeout() - now), Math.max(0, node.getResourceTimeout() - now),
+                node.getClientAddress());
+            encoder.add(SnapshotChunk.KIND_CONCURRENT_TOKEN, 0, token);
+        }
+        if (!full) {
+            for (Long tokenId : sentTokens) {
+                if (!tokens.contains(tokenId)) {
+                    encoder.add(SnapshotChunk.KIND_RELEASED_TOKEN, 0, tokenId);
+                }
+            }
+        }
+        sentTokens = tokens;
+
+        List<ByteBuf> requests = encoder.finish(full);
+        nextXid += requests.size();
+        return requests;
+    }
+
+    private class SnapshotAckHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+            // xid(4) | type(1) | status(1) | data
+            if (msg.readableBytes() >= 6 && msg.getByte(4) == ClusterConstants.MSG_TYPE_SNAPSHOT) {
+                if (msg.getByte(5) == ClusterConstants.RESPONSE_STATUS_OK) {
+                    ackedCount.incrementAndGet();
+                } else {
+                    rejectedCount.incrementAndGet();
+                }
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            RecordLog.warn("[TokenServerReplicator] Replication channel error, closing", cause);
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.statistic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A lock-free log-linear latency histogram (in microseconds) with ~6% relative precision.</p>
+ * <p>
+ * Recording is wait-free except for the maximum value, which is only updated by CAS when a new
+ * maximum is observed. The histogram is cumulative, readers take a {@link Snapshot} of it.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    /**
+     * Values are capped at 2^40 microseconds (about 12 days).
+     */
+    private static final int MAX_MAGNITUDE = 40 - SUB_BUCKET_BITS + 1;
+    private static final int BUCKET_COUNT = (MAX_MAGNITUDE + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong maxValue = new AtomicLong();
+
+    public void record(long valueMicros) {
+        long value = Math.max(0, valueMicros);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        sum.add(value);
+        long max;
+        while (value > (max = maxValue.get())) {
+            if (maxValue.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    public void recordNanos(long valueNanos) {
+        record(valueNanos / 1000);
+    }
+
+    public Snapshot snapshot() {
+        long[] bucketCounts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = counts.get(i);
+            total += bucketCounts[i];
+        }
+        return new Snapshot(bucketCounts, total, sum.sum(), maxValue.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        sum.reset();
+        maxValue.set(0);
+    }
+
+    public long getTotalCount() {
+        return totalCount.sum();
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int magnitude = highestBit - SUB_BUCKET_BITS + 1;
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int)(value >>> (magnitude - 1)) - SUB_BUCKET_COUNT;
+        return magnitude * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long upperBoundOf(int index) {
+        int magnitude = index / SUB_BUCKET_COUNT;
+        long subBucket = index % SUB_BUCKET_COUNT;
+        if (magnitude == 0) {
+            return subBucket;
+        }
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << (magnitude - 1)) - 1;
+    }
+
+    /**
+     * An immutable view of the histogram. The bucket counts are read one by one, so the snapshot
+     * may be slightly inconsistent with the total sum under concurrent recording.
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+        private final long totalCount;
+        private final long sum;
+        private final long maxValue;
+
+        Snapshot(long[] counts, long totalCount, long sum, long maxValue) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.sum = sum;
+            this.maxValue = maxValue;
+        }
+
+        /**
+         * @param percentile percentile in range (0, 100]
+         * @return the upper bound (in microseconds) of the bucket holding the given percentile
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long)Math.ceil(totalCount * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(upperBoundOf(i), maxValue);
+                }
+            }
+            return maxValue;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * @return sum of the recorded values in microseconds
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMaxValue() {
+            return maxValue;
+        }
+
+        public double getMean() {
+            return totalCount == 0 ? 0 : (double)sum / totalCount;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.statistic;
+
+/**
+ * Latency histograms of one request type in one namespace.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class RequestLatency {
+
+    private final String namespace;
+    private final int requestType;
+
+    /**
+     * Time between the request is read from the connection and it's picked for processing.
+     */
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+    /**
+     * Time spent in the request processor.
+     */
+    private final LatencyHistogram processTime = new LatencyHistogram();
+    /**
+     * Time between the response is written and it's flushed to the connection.
+     */
+    private final LatencyHistogram writeTime = new LatencyHistogram();
+
+    public RequestLatency(String namespace, int requestType) {
+        this.namespace = namespace;
+        this.requestType = requestType;
+    }
+
+    public String getNamespace() {
+        return namespace;
+    }
+
+    public int getRequestType() {
+        return requestType;
+    }
+
+    public LatencyHistogram getQueueTime() {
+        return queueTime;
+    }
+
+    public LatencyHistogram getProcessTime() {
+        return processTime;
+    }
+
+    public LatencyHistogram getWriteTime() {
+        return writeTime;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.statistic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * <p>Latency statistics of the token server, recorded per namespace and request type.</p>
+ * <p>
+ * The statistics can be disabled via {@code csp.sentinel.cluster.server.latency.stat.enabled=false},
+ * then nothing is recorded in the request path.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class TokenServerLatencyStat {
+
+    public static final String ENABLED_KEY = "csp.sentinel.cluster.server.latency.stat.enabled";
+
+    private static final int MAX_REQUEST_TYPE = 15;
+
+    private static final boolean ENABLED = resolveEnabled();
+
+    private static final Map<String, AtomicReferenceArray<RequestLatency>> LATENCY_MAP = new ConcurrentHashMap<>();
+
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Get the latency statistics of given namespace and request type.
+     *
+     * @param namespace   namespace of the client, the default namespace will be used if absent
+     * @param requestType type of the request
+     * @return the latency statistics, or null if the request type is not valid
+     */
+    public static RequestLatency getOrCreate(String namespace, int requestType) {
+        if (requestType < 0 || requestType > MAX_REQUEST_TYPE) {
+            return null;
+        }
+        if (StringUtil.isEmpty(namespace)) {
+            namespace = ServerConstants.DEFAULT_NAMESPACE;
+        }
+        AtomicReferenceArray<RequestLatency> latencies = LATENCY_MAP.get(namespace);
+        if (latencies == null) {
+            AtomicReferenceArray<RequestLatency> newLatencies = new AtomicReferenceArray<>(MAX_REQUEST_TYPE + 1);
+            latencies = LATENCY_MAP.putIfAbsent(namespace, newLatencies);
+            if (latencies == null) {
+                latencies = newLatencies;
+            }
+        }
+        RequestLatency latency = latencies.get(requestType);
+        if (latency == null) {
+            RequestLatency newLatency = new RequestLatency(namespace, requestType);
+            latency = latencies.compareAndSet(requestType, null, newLatency) ? newLatency : latencies.get(requestType);
+        }
+        return latency;
+    }
+
+    /**
+     * @param namespace namespace to filter, or null for all namespaces
+     * @return latency statistics of the given namespace
+     */
+    public static List<RequestLatency> listLatencies(String namespace) {
+        List<RequestLatency> list = new ArrayList<>();
+        for (Map.Entry<String, AtomicReferenceArray<RequestLatency>> entry : LATENCY_MAP.entrySet()) {
+            if (namespace != null && !namespace.equals(entry.getKey())) {
+                continue;
+            }
+            AtomicReferenceArray<RequestLatency> latencies = entry.getValue();
+            for (int i = 0; i < latencies.length(); i++) {
+                RequestLatency latency = latencies.get(i);
+                if (latency != null) {
+                    list.add(latency);
+                }
+            }
+        }
+        return list;
+    }
+
+    public static String getRequestTypeName(int requestType) {
+        switch (requestType) {
+            case ClusterConstants.MSG_TYPE_PING:
+                return "ping";
+            case ClusterConstants.MSG_TYPE_FLOW:
+                return "flow";
+            case ClusterConstants.MSG_TYPE_PARAM_FLOW:
+                return "param_flow";
+            case ClusterConstants.MSG_TYPE_CONCURRENT_FLOW_ACQUIRE:
+                return "concurrent_acquire";
+            case ClusterConstants.MSG_TYPE_CONCURRENT_FLOW_RELEASE:
+                return "concurrent_release";
+            case ClusterConstants.MSG_TYPE_SNAPSHOT:
+                return "snapshot";
+            default:
+                return String.valueOf(requestType);
+        }
+    }
+
+    public static void clear() {
+        LATENCY_MAP.clear();
+    }
+
+    private static boolean resolveEnabled() {
+        String enabled = SentinelConfig.getConfig(ENABLED_KEY);
+        return StringUtil.isBlank(enabled) || Boolean.parseBoolean(enabled.trim());
+    }
+
+    private TokenServerLatencyStat() {}
+}
@@ -15,9 +15,13 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow;
 
+import java.util.Collections;
+
 import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
 import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
 import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
@@ -72,6 +76,44 @@ public class ClusterFlowCheckerTest {
         ClusterMetricStatistics.removeMetric(flowId);
     }
 
+    @Test
+    public void testAvgLocalThresholdFollowsConnectedCount() {
+        String namespace = "avg-local-threshold";
+        long flowId = 98766L;
+        FlowRule clusterRule = new FlowRule("abc")
+            .setCount(10)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(flowId)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL));
+        ClusterFlowRuleManager.registerPropertyIfAbsent(namespace);
+        ClusterFlowRuleManager.loadRules(namespace, Collections.singletonList(clusterRule));
+        try {
+            assertEquals(0, ClusterFlowRuleManager.getGlobalThreshold(clusterRule), 0.01);
+
+            ConnectionManager.addConnection(namespace, "12.23.34.45:1997");
+            ConnectionManager.addConnection(namespace, "12.23.34.46:1998");
+            assertEquals(20, ClusterFlowRuleManager.getGlobalThreshold(clusterRule), 0.01);
+
+            ConnectionManager.removeConnection(namespace, "12.23.34.46:1998");
+            assertEquals(10, ClusterFlowRuleManager.getGlobalThreshold(clusterRule), 0.01);
+
+            // Reloading rules takes the current connected count.
+            FlowRule newRule = new FlowRule("abc")
+                .setCount(5)
+                .setClusterMode(true)
+                .setClusterConfig(new ClusterFlowConfig()
+                    .setFlowId(flowId)
+                    .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_AVG_LOCAL));
+            ClusterFlowRuleManager.loadRules(namespace, Collections.singletonList(newRule));
+            assertEquals(5, ClusterFlowRuleManager.getGlobalThreshold(newRule), 0.01);
+        } finally {
+            ConnectionManager.removeConnection(namespace, "12.23.34.45:1997");
+            ClusterFlowRuleManager.loadRules(namespace, Collections.<FlowRule>emptyList());
+            ClusterFlowRuleManager.removeProperty(namespace);
+        }
+    }
+
     private TokenResult tryAcquire(FlowRule clusterRule, boolean occupy) {
         return ClusterFlowChecker.acquireClusterToken(clusterRule, 1, occupy);
     }
@@ -119,6 +119,24 @@ public class ConcurrentClusterFlowCheckerTest extends AbstractTimeBasedTest {
         }
     }
 
+    @Test
+    public void testBatchRelease() {
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(179L);
+        ArrayList<Long> list = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            TokenResult result = ConcurrentClusterFlowChecker.acquireConcurrentToken("127.0.0.1", rule, 2);
+            Assert.assertEquals(TokenResultStatus.OK, (int) result.getStatus());
+            list.add(result.getTokenId());
+        }
+        Assert.assertEquals(10, CurrentConcurrencyManager.get(179L).get());
+        // Unknown or duplicate tokens are ignored.
+        list.add(list.get(0));
+        list.add(-1L);
+        Assert.assertEquals(5, ConcurrentClusterFlowChecker.releaseConcurrentTokens(list));
+        Assert.assertTrue("fail to release token",
+                CurrentConcurrencyManager.get(179L).get() == 0 && TokenCacheNodeManager.getSize() == 0);
+    }
+
     @Test
     public void testReleaseExpiredToken() throws InterruptedException {
         ConnectionManager.addConnection("test", "127.0.0.1");
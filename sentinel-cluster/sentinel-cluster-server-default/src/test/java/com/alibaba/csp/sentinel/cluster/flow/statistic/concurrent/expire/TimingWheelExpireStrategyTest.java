@@ -0,0 +1,125 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.expire;
+
+import java.util.ArrayList;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.CurrentConcurrencyManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.concurrent.TokenCacheNode;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.RuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.googlecode.concurrentlinkedhashmap.ConcurrentLinkedHashMap;
+import com.googlecode.concurrentlinkedhashmap.Weighers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimingWheelExpireStrategyTest {
+
+    private static final long FLOW_ID = 283L;
+
+    private ConcurrentLinkedHashMap<Long, TokenCacheNode> cache;
+    private TimingWheelExpireStrategy strategy;
+
+    @Before
+    public void setUp() {
+        FlowRule rule = new FlowRule();
+        ClusterFlowConfig config = new ClusterFlowConfig();
+        config.setResourceTimeout(500);
+        config.setClientOfflineTime(1000);
+        config.setFlowId(FLOW_ID);
+        config.setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL);
+        rule.setClusterConfig(config);
+        rule.setClusterMode(true);
+        rule.setCount(100);
+        rule.setResource("testTimingWheel");
+        rule.setGrade(RuleConstant.FLOW_GRADE_THREAD);
+        ArrayList<FlowRule> rules = new ArrayList<>();
+        rules.add(rule);
+        ClusterFlowRuleManager.registerPropertyIfAbsent("timing-wheel");
+        ClusterFlowRuleManager.loadRules("timing-wheel", rules);
+
+        cache = new ConcurrentLinkedHashMap.Builder<Long, TokenCacheNode>()
+            .maximumWeightedCapacity(Integer.MAX_VALUE)
+            .weigher(Weighers.singleton())
+            .build();
+        // A small wheel so that deadlines span several rounds.
+        strategy = new TimingWheelExpireStrategy(cache, 100, 4);
+    }
+
+    private TokenCacheNode newToken(long tokenId, String clientAddress) {
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(FLOW_ID);
+        TokenCacheNode node = TokenCacheNode.generateTokenCacheNode(rule, 1, clientAddress);
+        node.setTokenId(tokenId);
+        cache.put(tokenId, node);
+        CurrentConcurrencyManager.addConcurrency(FLOW_ID, 1);
+        strategy.scheduleExpiration(node);
+        return node;
+    }
+
+    @Test
+    public void testExpireByResourceTimeout() {
+        ConnectionManager.addConnection("timing-wheel", "127.0.0.2:1");
+        int before = CurrentConcurrencyManager.get(FLOW_ID).get();
+        long now = System.currentTimeMillis();
+        newToken(1L, "127.0.0.2:1");
+        newToken(2L, "127.0.0.2:1");
+        strategy.advance(now);
+        Assert.assertEquals(2, cache.size());
+
+        // The client is online, so tokens are held until 2 times of the resource timeout.
+        strategy.advance(now + 900);
+        Assert.assertEquals(2, cache.size());
+        strategy.advance(now + 1200);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(before, CurrentConcurrencyManager.get(FLOW_ID).get());
+    }
+
+    @Test
+    public void testExpireByClientOffline() {
+        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(FLOW_ID);
+        rule.getClusterConfig().setResourceTimeout(100000);
+        int before = CurrentConcurrencyManager.get(FLOW_ID).get();
+        long now = System.currentTimeMillis();
+        newToken(3L, "127.0.0.3:1");
+        strategy.advance(now);
+
+        strategy.advance(now + 500);
+        Assert.assertEquals(1, cache.size());
+        strategy.advance(now + 1200);
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(before, CurrentConcurrencyManager.get(FLOW_ID).get());
+    }
+
+    @Test
+    public void testReleasedTokenIsSkipped() {
+        int before = CurrentConcurrencyManager.get(FLOW_ID).get();
+        long now = System.currentTimeMillis();
+        TokenCacheNode node = newToken(4L, "127.0.0.4:1");
+        strategy.advance(now);
+
+        // Released by the client, the wheel must not decrease the concurrency again.
+        cache.remove(node.getTokenId());
+        CurrentConcurrencyManager.addConcurrency(FLOW_ID, -1);
+        strategy.advance(now + 5000);
+        Assert.assertEquals(before, CurrentConcurrencyManager.get(FLOW_ID).get());
+        Assert.assertEquals(0, strategy.getPendingCount());
+    }
+}
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.cluster.flow.statistic.limit;
 
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.cluster.server.AbstractTimeBasedTest;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerFlowConfig;
 import com.alibaba.csp.sentinel.util.TimeUtil;
 import org.junit.Assert;
 import org.junit.Before;
@@ -57,4 +58,34 @@ public class GlobalRequestLimiterTest extends AbstractTimeBasedTest {
         GlobalRequestLimiter.applyMaxQpsChange(10);
         Assert.assertEquals(10, GlobalRequestLimiter.getMaxAllowedQps("foo"), 0.01);
     }
+
+    @Test
+    public void testTryAcquireBackoff() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 1_000_000L);
+            GlobalRequestLimiter.initIfAbsent("bar");
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(0, GlobalRequestLimiter.tryAcquire("bar"));
+            }
+            Assert.assertTrue(GlobalRequestLimiter.tryAcquire("bar") > 0);
+            // Namespaces are isolated from each other.
+            GlobalRequestLimiter.initIfAbsent("baz");
+            Assert.assertEquals(0, GlobalRequestLimiter.tryAcquire("baz"));
+
+            Assert.assertTrue(GlobalRequestLimiter.tryAcquire(null) > 0);
+        }
+    }
+
+    @Test
+    public void testApplyLimiterTypeChange() {
+        GlobalRequestLimiter.initIfAbsent("qux");
+        Assert.assertTrue(GlobalRequestLimiter.getRequestLimiter("qux") instanceof TokenBucketRequestLimiter);
+        try {
+            GlobalRequestLimiter.applyLimiterTypeChange(ServerFlowConfig.REQUEST_LIMITER_SLIDING_WINDOW);
+            Assert.assertTrue(GlobalRequestLimiter.getRequestLimiter("qux") instanceof RequestLimiter);
+            Assert.assertEquals(3, GlobalRequestLimiter.getMaxAllowedQps("qux"), 0.01);
+        } finally {
+            GlobalRequestLimiter.applyLimiterTypeChange(ServerFlowConfig.REQUEST_LIMITER_TOKEN_BUCKET);
+        }
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.flow.statistic.limit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.server.AbstractTimeBasedTest;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketRequestLimiterTest extends AbstractTimeBasedTest {
+
+    @Test
+    public void testTryAcquire() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 1_000_000L);
+            TokenBucketRequestLimiter limiter = new TokenBucketRequestLimiter(10);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(0, limiter.tryAcquire());
+            }
+            long backoff = limiter.tryAcquire();
+            assertEquals(100, backoff);
+            assertEquals(10, limiter.getQps(), 0.01);
+
+            // One token is refilled every 100 ms.
+            sleep(mocked, 50);
+            assertEquals(50, limiter.tryAcquire());
+            sleep(mocked, 50);
+            assertEquals(0, limiter.tryAcquire());
+            assertTrue(limiter.tryAcquire() > 0);
+
+            // The bucket never holds more than one second of tokens.
+            sleep(mocked, 5000);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(0, limiter.tryAcquire());
+            }
+            assertTrue(limiter.tryAcquire() > 0);
+            assertEquals(10, limiter.getQps(), 0.01);
+        }
+    }
+
+    @Test
+    public void testGetQpsAcrossSecondBoundary() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 1_000_500L);
+            TokenBucketRequestLimiter limiter = new TokenBucketRequestLimiter(10);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(0, limiter.tryAcquire());
+            }
+            assertEquals(10, limiter.getQps(), 0.01);
+
+            // Crossing the second boundary does not reset the QPS, the window slides.
+            sleep(mocked, 600);
+            assertEquals(10, limiter.getQps(), 0.01);
+            assertEquals(0, limiter.tryAcquire());
+            assertEquals(11, limiter.getQps(), 0.01);
+
+            sleep(mocked, 500);
+            assertEquals(1, limiter.getQps(), 0.01);
+
+            sleepSecond(mocked, 2);
+            assertEquals(0, limiter.getQps(), 0.01);
+        }
+    }
+
+    @Test
+    public void testZeroQpsAllowed() {
+        TokenBucketRequestLimiter limiter = new TokenBucketRequestLimiter(0);
+        assertTrue(limiter.tryAcquire() > 0);
+
+        limiter.setQpsAllowed(5);
+        assertEquals(0, limiter.tryAcquire());
+        assertEquals(5, limiter.getQpsAllowed(), 0.01);
+    }
+
+    @Test
+    public void testTryAcquireConcurrently() throws Exception {
+        final TokenBucketRequestLimiter limiter = new TokenBucketRequestLimiter(0.001);
+        // Allow a burst of exactly one token, and the next one won't come for 1000 seconds.
+        final int threadCount = 16;
+        final AtomicInteger passed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 1000; j++) {
+                            if (limiter.tryAcquire() == 0) {
+                                passed.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        assertEquals(1, passed.get());
+    }
+}
@@ -15,6 +15,12 @@
  */
 package com.alibaba.csp.sentinel.cluster.flow.statistic.metric;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.server.AbstractTimeBasedTest;
 import com.alibaba.csp.sentinel.util.TimeUtil;
@@ -47,4 +53,50 @@ public class ClusterMetricTest extends AbstractTimeBasedTest {
             Assert.assertEquals(0, metric.tryOccupyNext(ClusterFlowEvent.PASS, 333, 900));
         }
     }
+
+    @Test
+    public void testTryAcquirePass() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 1_000_000L);
+            ClusterMetric metric = new ClusterMetric(5, 1000);
+            Assert.assertEquals(7, metric.tryAcquirePass(3, 10), 0.01);
+            sleep(mocked, 200);
+            Assert.assertEquals(1, metric.tryAcquirePass(6, 10), 0.01);
+            Assert.assertTrue(metric.tryAcquirePass(2, 10) < 0);
+            Assert.assertEquals(0, metric.tryAcquirePass(1, 10), 0.01);
+            Assert.assertEquals(10, metric.getSum(ClusterFlowEvent.PASS));
+            // The first bucket slides out of the window.
+            sleep(mocked, 900);
+            Assert.assertEquals(0, metric.tryAcquirePass(3, 10), 0.01);
+        }
+    }
+
+    @Test
+    public void testTryAcquirePassConcurrently() throws Exception {
+        // Large window, so that all requests fall into the same window with real time.
+        final ClusterMetric metric = new ClusterMetric(2, 60000);
+        final int threshold = 10;
+        final int maxCount = threshold * 60;
+        final int threadCount = 16;
+        final AtomicInteger passCount = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(threadCount);
+        ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            pool.submit(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 200; j++) {
+                        if (metric.tryAcquirePass(1, threshold) >= 0) {
+                            passCount.incrementAndGet();
+                        }
+                    }
+                    latch.countDown();
+                }
+            });
+        }
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        pool.shutdownNow();
+        Assert.assertEquals(maxCount, passCount.get());
+        Assert.assertEquals(maxCount, metric.getSum(ClusterFlowEvent.PASS));
+    }
 }
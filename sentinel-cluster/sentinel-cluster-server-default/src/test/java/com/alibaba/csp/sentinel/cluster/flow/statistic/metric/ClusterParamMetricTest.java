@@ -23,6 +23,8 @@ import org.mockito.MockedStatic;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ClusterParamMetricTest extends AbstractTimeBasedTest {
 
@@ -52,6 +54,106 @@ public class ClusterParamMetricTest extends AbstractTimeBasedTest {
         }
     }
 
+    @Test
+    public void testTryAddValue() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 1_000_000L);
+            ClusterParamMetric metric = new ClusterParamMetric(10, 1000, 100);
+            Assert.assertEquals(7, metric.tryAddValue("a", 3, 10), 0.01);
+            Assert.assertEquals(4, metric.tryAddValue("a", 3, 10), 0.01);
+            Assert.assertEquals(1, metric.tryAddValue("a", 3, 10), 0.01);
+            Assert.assertEquals(ClusterParamMetric.BLOCKED, metric.tryAddValue("a", 3, 10), 0.01);
+            Assert.assertEquals(0, metric.tryAddValue("a", 1, 10), 0.01);
+            Assert.assertEquals(10, metric.getSum("a"));
+            // Other values are counted separately.
+            Assert.assertEquals(9, metric.tryAddValue("b", 1, 10), 0.01);
+
+            metric.revertValue("b", 1);
+            Assert.assertEquals(0, metric.getSum("b"));
+
+            // Counts of earlier windows still take effect until they slide out.
+            sleep(mocked, 500);
+            Assert.assertEquals(ClusterParamMetric.BLOCKED, metric.tryAddValue("a", 1, 10), 0.01);
+            sleep(mocked, 500);
+            Assert.assertEquals(0, metric.getSum("a"));
+            Assert.assertEquals(9, metric.tryAddValue("a", 1, 10), 0.01);
+        }
+    }
+
+    @Test
+    public void testGetHotValues() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 1_000_000L);
+            ClusterParamMetric metric = new ClusterParamMetric(10, 1000, 100, 3);
+            metric.tryAddValue("a", 5, 100);
+            metric.tryAddValue("b", 1, 100);
+            metric.addValue("c", 2);
+            metric.tryAddValue("d", 10, 100);
+            metric.tryAddValue("e", 1, 100);
+
+            Map<Object, Double> hotValues = metric.getHotValues(3);
+            Assert.assertArrayEquals(new Object[] {"d", "a", "c"}, hotValues.keySet().toArray());
+            Assert.assertEquals(10, hotValues.get("d"), 0.01);
+            Assert.assertEquals(2, metric.getHotValues(2).size());
+
+            // Cold values are evicted after their counts slide out.
+            sleep(mocked, 1000);
+            Assert.assertTrue(metric.getHotValues(3).isEmpty());
+            metric.tryAddValue("e", 1, 100);
+            Assert.assertArrayEquals(new Object[] {"e"}, metric.getHotValues(3).keySet().toArray());
+        }
+    }
+
+    @Test
+    public void testHotValueRecreatedAfterEvictionIsNotDuplicated() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            setCurrentMillis(mocked, 1_000_000L);
+            ClusterParamMetric metric = new ClusterParamMetric(10, 1000, 2, 3);
+            metric.addValue("a", 5);
+            metric.addValue("b", 3);
+            // Evicts the counter of "a" from the LRU map while "a" is still a hot value.
+            metric.addValue("c", 1);
+            metric.addValue("a", 2);
+
+            Map<Object, Double> hotValues = metric.getHotValues(3);
+            Assert.assertArrayEquals(new Object[] {"b", "a", "c"}, hotValues.keySet().toArray());
+            Assert.assertEquals(2, hotValues.get("a"), 0.01);
+        }
+    }
+
+    @Test
+    public void testTryAddValueConcurrently() throws Exception {
+        // Large window so that all the threads run in the same window.
+        final ClusterParamMetric metric = new ClusterParamMetric(2, 120000, 100);
+        final int threadCount = 16;
+        final AtomicInteger passed = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < 1000; j++) {
+                            if (metric.tryAddValue("hot", 1, 10) != ClusterParamMetric.BLOCKED) {
+                                passed.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+        // Pass while avg + 1 <= 10 holds in the 120-second window: sum <= 9 * 120 before adding.
+        Assert.assertEquals(1081, passed.get());
+        Assert.assertEquals(1081, metric.getSum("hot"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testIllegalArgument() {
         ClusterParamMetric metric = new ClusterParamMetric(5, 25, 100);
@@ -19,6 +19,27 @@ public class ClusterServerConfigManagerTest {
         assertTrue(ClusterServerConfigManager.isValidTransportConfig(goodConfig1));
     }
 
+    @Test
+    public void testIsValidTransportIoConfig() {
+        ServerTransportConfig badConfig1 = new ServerTransportConfig().setBossThreads(0);
+        ServerTransportConfig badConfig2 = new ServerTransportConfig().setWorkerThreads(-1);
+        ServerTransportConfig badConfig3 = new ServerTransportConfig().setReceiveBufferSize(0);
+        ServerTransportConfig goodConfig1 = new ServerTransportConfig().setBossThreads(4).setReusePort(true)
+            .setWorkerThreads(16).setTcpNoDelay(false);
+        assertFalse(ClusterServerConfigManager.isValidTransportConfig(badConfig1));
+        assertFalse(ClusterServerConfigManager.isValidTransportConfig(badConfig2));
+        assertFalse(ClusterServerConfigManager.isValidTransportConfig(badConfig3));
+        assertTrue(ClusterServerConfigManager.isValidTransportConfig(goodConfig1));
+    }
+
+    @Test
+    public void testTransportIoSettingsDiffer() {
+        ServerTransportConfig config = new ServerTransportConfig().setWorkerThreads(8);
+        assertFalse(config.ioSettingsDiffer(new ServerTransportConfig(config).setPort(23456)));
+        assertTrue(config.ioSettingsDiffer(new ServerTransportConfig(config).setReusePort(true)));
+        assertTrue(config.ioSettingsDiffer(null));
+    }
+
     @Test
     public void testIsValidFlowConfig() {
         ServerFlowConfig badConfig1 = new ServerFlowConfig().setMaxAllowedQps(-2);
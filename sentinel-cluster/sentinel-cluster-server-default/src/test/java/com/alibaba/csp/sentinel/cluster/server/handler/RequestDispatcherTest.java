@@ -0,0 +1,194 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.handler;
+
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.NettyTransportClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.response.ClusterResponse;
+import com.alibaba.csp.sentinel.cluster.server.NettyTransportServer;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
+import com.alibaba.csp.sentinel.cluster.server.config.ServerTransportConfig;
+import com.alibaba.csp.sentinel.init.InitExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Eric Zhao
+ */
+public class RequestDispatcherTest {
+
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Before
+    public void setUp() {
+        ClusterServerConfigManager.loadServerNamespaceSet(new HashSet<>(Arrays.asList("a", "ns-0", "ns-1", "ns-2")));
+    }
+
+    @After
+    public void tearDown() {
+        ClusterServerConfigManager.loadServerNamespaceSet(Collections.<String>emptySet());
+    }
+
+    @Test
+    public void testRejectWhenQueueIsFull() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(1, 2);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicInteger processed = new AtomicInteger();
+        try {
+            assertTrue(dispatcher.dispatch("a", new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        blocker.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            Runnable counter = new Runnable() {
+                @Override
+                public void run() {
+                    processed.incrementAndGet();
+                }
+            };
+            assertTrue(dispatcher.dispatch("a", counter));
+            assertTrue(dispatcher.dispatch("a", counter));
+            // The queue of namespace "a" is full, while other namespaces are not affected.
+            assertFalse(dispatcher.dispatch("a", counter));
+            assertTrue(dispatcher.dispatch(null, counter));
+            assertEquals(1, dispatcher.getRejectedCount());
+            assertEquals(2, dispatcher.getQueueSize("a"));
+            assertEquals(1, dispatcher.getQueueSize(ServerConstants.DEFAULT_NAMESPACE));
+
+            blocker.countDown();
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (processed.get() < 3) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            assertEquals(0, dispatcher.getQueueSize("a"));
+        } finally {
+            blocker.countDown();
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testUnknownNamespaceSharesDefaultQueue() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(1, 2);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        try {
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    started.countDown();
+                    try {
+                        blocker.await();
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            };
+            assertTrue(dispatcher.dispatch("unknown-1", task));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(dispatcher.dispatch("unknown-2", task));
+            assertTrue(dispatcher.dispatch("unknown-3", task));
+            // The queue of the default namespace is full, no queue is created for the unknown namespaces.
+            assertFalse(dispatcher.dispatch("unknown-4", task));
+            assertEquals(0, dispatcher.getQueueSize("unknown-2"));
+            assertTrue(dispatcher.dispatch("a", task));
+        } finally {
+            blocker.countDown();
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testProcessAllDispatchedTasks() throws Exception {
+        RequestDispatcher dispatcher = new RequestDispatcher(4, 100_000);
+        final int count = 50_000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                assertTrue(dispatcher.dispatch("ns-" + (i % 3), new Runnable() {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+                }));
+            }
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    @Test
+    public void testServeTokenRequestsInDispatchMode() throws Exception {
+        InitExecutor.doInit();
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(1000));
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        NettyTransportServer server = new NettyTransportServer(port,
+            new ServerTransportConfig().setPort(port).setDispatchThreads(2));
+        server.start();
+        NettyTransportClient client = new NettyTransportClient("127.0.0.1", port);
+        try {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (server.getCurrentState() != ServerConstants.SERVER_STATUS_STARTED) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            client.start();
+            while (!client.isReady()) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            for (int i = 0; i < 10; i++) {
+                FlowRequestData data = new FlowRequestData().setFlowId(Long.MAX_VALUE).setCount(1);
+                ClusterResponse<?> response = client.sendRequest(
+                    new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data));
+                assertEquals(TokenResultStatus.NO_RULE_EXISTS, response.getStatus());
+            }
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+}
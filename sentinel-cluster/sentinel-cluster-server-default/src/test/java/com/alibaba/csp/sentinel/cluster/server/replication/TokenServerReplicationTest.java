@@ -0,0 +1,295 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.replication;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.TokenResult;
+import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
+import com.alibaba.csp.sentinel.cluster.client.DefaultClusterTokenClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientAssignConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterParamFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.ClusterParamMetricStatistics;
+import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
+import com.alibaba.csp.sentinel.cluster.registry.ConfigSupplierRegistry;
+import com.alibaba.csp.sentinel.cluster.server.NettyTransportServer;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionGroup;
+import com.alibaba.csp.sentinel.cluster.server.connection.ConnectionManager;
+import com.alibaba.csp.sentinel.cluster.server.replication.SnapshotChunk.ParamValue;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.init.InitExecutor;
+import com.alibaba.csp.sentinel.slots.block.ClusterRuleConstant;
+import com.alibaba.csp.sentinel.slots.block.flow.ClusterFlowConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowClusterConfig;
+import com.alibaba.csp.sentinel.slots.block.flow.param.ParamFlowRule;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the active and standby token servers on loopback in the same JVM. As both servers share
+ * the statistics, the state is reset after the snapshot is taken and then restored from the standby.
+ *
+ * @author Eric Zhao
+ */
+public class TokenServerReplicationTest {
+
+    private static final String HOST = "127.0.0.1";
+    private static final long TIMEOUT_MS = 10_000;
+    /**
+     * The client reconnects with an increasing delay, and stays on the standby for a while.
+     */
+    private static final long FAILBACK_TIMEOUT_MS = 30_000;
+
+    private static final long FLOW_ID = 1201L;
+    private static final long PARAM_FLOW_ID = 1202L;
+
+    private String namespace;
+
+    @Before
+    public void setUp() throws Exception {
+        InitExecutor.doInit();
+        // Snapshots are accepted from the configured primary only.
+        SentinelConfig.setConfig(ReplicationGuard.PRIMARY_ADDRESS_KEY, HOST);
+        namespace = ConfigSupplierRegistry.getNamespaceSupplier().get();
+        FlowRule flowRule = new FlowRule("replication-resource")
+            .setCount(100)
+            .setClusterMode(true)
+            .setClusterConfig(new ClusterFlowConfig()
+                .setFlowId(FLOW_ID)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ParamFlowRule paramRule = new ParamFlowRule("replication-resource")
+            .setParamIdx(0)
+            .setCount(100)
+            .setClusterMode(true)
+            .setClusterConfig(new ParamFlowClusterConfig()
+                .setFlowId(PARAM_FLOW_ID)
+                .setThresholdType(ClusterRuleConstant.FLOW_THRESHOLD_GLOBAL));
+        ClusterFlowRuleManager.registerPropertyIfAbsent(namespace);
+        ClusterFlowRuleManager.loadRules(namespace, Collections.singletonList(flowRule));
+        ClusterParamFlowRuleManager.registerPropertyIfAbsent(namespace);
+        ClusterParamFlowRuleManager.loadRules(namespace, Collections.singletonList(paramRule));
+    }
+
+    @After
+    public void tearDown() {
+        ClusterFlowRuleManager.loadRules(namespace, Collections.<FlowRule>emptyList());
+        ClusterParamFlowRuleManager.loadRules(namespace, Collections.<ParamFlowRule>emptyList());
+        SnapshotApplier.clear();
+        SentinelConfig.setConfig(ReplicationGuard.PRIMARY_ADDRESS_KEY, "");
+    }
+
+    @Test
+    public void testReplicateSnapshotToStandby() throws Exception {
+        ClusterMetricStatistics.getMetric(FLOW_ID).add(ClusterFlowEvent.PASS, 3);
+        ClusterMetricStatistics.getMetric(FLOW_ID).add(ClusterFlowEvent.BLOCK, 1);
+        ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).addValue("a", 2);
+        ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).addValue(7, 1);
+
+        int standbyPort = findFreePort();
+        NettyTransportServer standby = startServer(standbyPort);
+        // Periodic replication is not triggered during the test.
+        final TokenServerReplicator replicator = new TokenServerReplicator(HOST, standbyPort, 60_000);
+        try {
+            replicator.start();
+            awaitTrue(new Condition() {
+                @Override
+                public boolean test() {
+                    return replicator.isConnected();
+                }
+            });
+
+            List<ByteBuf> requests = replicator.buildSnapshot(PooledByteBufAllocator.DEFAULT, true);
+            // Windows of the flow metric, param values and the end chunk.
+            assertEquals(3, requests.size());
+
+            ClusterMetricStatistics.resetFlowMetrics();
+            ClusterParamMetricStatistics.resetFlowMetrics();
+            assertEquals(0, ClusterMetricStatistics.getMetric(FLOW_ID).getSum(ClusterFlowEvent.PASS));
+            assertEquals(0, ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).getSum("a"));
+
+            final int expectedAcks = requests.size();
+            assertTrue(replicator.send(requests));
+            awaitTrue(new Condition() {
+                @Override
+                public boolean test() {
+                    return replicator.getAckedCount() == expectedAcks;
+                }
+            });
+
+            assertEquals(3, ClusterMetricStatistics.getMetric(FLOW_ID).getSum(ClusterFlowEvent.PASS));
+            assertEquals(1, ClusterMetricStatistics.getMetric(FLOW_ID).getSum(ClusterFlowEvent.BLOCK));
+            assertEquals(2, ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).getSum("a"));
+            assertEquals(1, ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).getSum(7));
+        } finally {
+            replicator.stop();
+            standby.stop();
+        }
+    }
+
+    @Test
+    public void testDeltaSnapshotCarriesChangesOnly() {
+        ClusterMetricStatistics.getMetric(FLOW_ID).add(ClusterFlowEvent.PASS, 3);
+        ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).addValue("a", 2);
+        ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).addValue(7, 1);
+
+        TokenServerReplicator replicator = new TokenServerReplicator(HOST, 1, 60_000);
+        release(replicator.buildSnapshot(PooledByteBufAllocator.DEFAULT, true));
+
+        // Nothing changed since the full snapshot.
+        assertTrue(replicator.buildSnapshot(PooledByteBufAllocator.DEFAULT, false).isEmpty());
+
+        ClusterParamMetricStatistics.getMetric(PARAM_FLOW_ID).addValue("a", 1);
+        List<ByteBuf> requests = replicator.buildSnapshot(PooledByteBufAllocator.DEFAULT, false);
+        try {
+            // Only the changed param value, without the end chunk.
+            assertEquals(1, requests.size());
+            ByteBuf request = requests.get(0);
+            request.skipBytes(5);
+            SnapshotChunk chunk = SnapshotCodec.decodeChunk(request);
+            assertNotNull(chunk);
+            assertEquals(SnapshotChunk.KIND_PARAM_VALUE, chunk.getKind());
+            assertEquals(1, chunk.getEntries().size());
+            assertEquals("a", ((ParamValue)chunk.getEntries().get(0)).getValue());
+            assertEquals(3, ((ParamValue)chunk.getEntries().get(0)).getSum());
+        } finally {
+            release(requests);
+        }
+    }
+
+    @Test
+    public void testStandbyRejectsSnapshotAfterTakingOver() {
+        ReplicationGuard guard = new ReplicationGuard(Collections.singleton(HOST));
+        assertTrue(guard.acceptSnapshot(HOST));
+        guard.markServed();
+        assertFalse(guard.acceptSnapshot(HOST));
+    }
+
+    @Test
+    public void testRejectSnapshotFromUnknownPeer() {
+        assertFalse(new ReplicationGuard(Collections.singleton(HOST)).acceptSnapshot("10.1.2.3"));
+        assertFalse(new ReplicationGuard(Collections.singleton("localhost")).acceptSnapshot(null));
+        assertTrue(new ReplicationGuard(Collections.singleton("localhost")).isPrimary(HOST));
+
+        SentinelConfig.setConfig(ReplicationGuard.PRIMARY_ADDRESS_KEY, "");
+        assertFalse(ReplicationGuard.fromConfig().acceptSnapshot(HOST));
+    }
+
+    @Test
+    public void testClientFailsOverToStandby() throws Exception {
+        final int primaryPort = findFreePort();
+        final int standbyPort = findFreePort();
+        NettyTransportServer primary = startServer(primaryPort);
+        NettyTransportServer standby = startServer(standbyPort);
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(1000));
+        ClusterClientConfigManager.applyNewAssignConfig(new ClusterClientAssignConfig(HOST, primaryPort)
+            .setStandbyServerHost(HOST)
+            .setStandbyServerPort(standbyPort));
+        final DefaultClusterTokenClient client = new DefaultClusterTokenClient();
+        try {
+            client.start();
+            // Both the server and the standby have been connected.
+            awaitTrue(new Condition() {
+                @Override
+                public boolean test() {
+                    ConnectionGroup group = ConnectionManager.getConnectionGroup(namespace);
+                    return group != null && group.getConnectedCount() >= 2;
+                }
+            });
+            assertEquals(TokenResultStatus.OK, (int)client.requestToken(FLOW_ID, 1, false).getStatus());
+            assertEquals(primaryPort, client.currentServer().getPort());
+
+            primary.stop();
+            awaitTrue(new Condition() {
+                @Override
+                public boolean test() {
+                    TokenResult result = client.requestToken(FLOW_ID, 1, false);
+                    return result.getStatus() == TokenResultStatus.OK
+                        && client.currentServer().getPort() == standbyPort;
+                }
+            });
+
+            // Fails back once the token server is up again (after the client reconnects to it).
+            primary = startServer(primaryPort);
+            awaitTrue(new Condition() {
+                @Override
+                public boolean test() {
+                    TokenResult result = client.requestToken(FLOW_ID, 1, false);
+                    return result.getStatus() == TokenResultStatus.OK
+                        && client.currentServer().getPort() == primaryPort;
+                }
+            }, FAILBACK_TIMEOUT_MS);
+        } finally {
+            client.stop();
+            primary.stop();
+            standby.stop();
+        }
+    }
+
+    private static NettyTransportServer startServer(int port) throws Exception {
+        final NettyTransportServer server = new NettyTransportServer(port);
+        server.start();
+        awaitTrue(new Condition() {
+            @Override
+            public boolean test() {
+                return server.getCurrentState() == ServerConstants.SERVER_STATUS_STARTED;
+            }
+        });
+        return server;
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void release(List<ByteBuf> requests) {
+        for (ByteBuf request : requests) {
+            request.release();
+        }
+    }
+
+    private static void awaitTrue(Condition condition) throws InterruptedException {
+        awaitTrue(condition, TIMEOUT_MS);
+    }
+
+    private static void awaitTrue(Condition condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.test()) {
+            assertTrue("Condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private interface Condition {
+        boolean test();
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.statistic;
+
+import java.net.ServerSocket;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.client.NettyTransportClient;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfig;
+import com.alibaba.csp.sentinel.cluster.client.config.ClusterClientConfigManager;
+import com.alibaba.csp.sentinel.cluster.registry.ConfigSupplierRegistry;
+import com.alibaba.csp.sentinel.cluster.request.ClusterRequest;
+import com.alibaba.csp.sentinel.cluster.request.data.FlowRequestData;
+import com.alibaba.csp.sentinel.cluster.server.NettyTransportServer;
+import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
+import com.alibaba.csp.sentinel.cluster.server.command.handler.FetchClusterServerLatencyCommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.init.InitExecutor;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Eric Zhao
+ */
+public class TokenServerLatencyStatTest {
+
+    private static final String HOST = "127.0.0.1";
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Before
+    public void setUp() {
+        InitExecutor.doInit();
+        ClusterClientConfigManager.applyNewConfig(new ClusterClientConfig().setRequestTimeout(1000));
+        TokenServerLatencyStat.clear();
+    }
+
+    @After
+    public void tearDown() {
+        TokenServerLatencyStat.clear();
+    }
+
+    @Test
+    public void testRecordLatencyOfTokenRequests() throws Exception {
+        assertTrue(TokenServerLatencyStat.isEnabled());
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        NettyTransportServer server = new NettyTransportServer(port);
+        server.start();
+        NettyTransportClient client = new NettyTransportClient(HOST, port);
+        try {
+            long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+            while (server.getCurrentState() != ServerConstants.SERVER_STATUS_STARTED) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            client.start();
+            while (!client.isReady()) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            int requestCount = 10;
+            for (int i = 0; i < requestCount; i++) {
+                FlowRequestData data = new FlowRequestData().setFlowId(Long.MAX_VALUE).setCount(1);
+                assertNotNull(client.sendRequest(new ClusterRequest<>(ClusterConstants.MSG_TYPE_FLOW, data)));
+            }
+
+            String namespace = ConfigSupplierRegistry.getNamespaceSupplier().get();
+            RequestLatency latency = TokenServerLatencyStat.getOrCreate(namespace, ClusterConstants.MSG_TYPE_FLOW);
+            assertEquals(requestCount, latency.getQueueTime().getTotalCount());
+            assertEquals(requestCount, latency.getProcessTime().getTotalCount());
+            // The write listener may complete after the response has been received.
+            while (latency.getWriteTime().getTotalCount() < requestCount) {
+                assertTrue(System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+
+            List<RequestLatency> latencies = TokenServerLatencyStat.listLatencies(namespace);
+            assertEquals(1, latencies.size());
+            assertTrue(TokenServerLatencyStat.listLatencies("absent-namespace").isEmpty());
+
+            CommandResponse<String> response = new FetchClusterServerLatencyCommandHandler().handle(
+                new CommandRequest().addParam("namespace", namespace));
+            assertTrue(response.isSuccess());
+            JSONArray array = JSON.parseObject(response.getResult()).getJSONArray("latency");
+            assertEquals(1, array.size());
+            JSONObject flow = array.getJSONObject(0);
+            assertEquals("flow", flow.getString("type"));
+            assertEquals(requestCount, flow.getJSONObject("process").getLongValue("count"));
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testInvalidRequestType() {
+        assertNull(TokenServerLatencyStat.getOrCreate("ns", -1));
+        assertNull(TokenServerLatencyStat.getOrCreate("ns", 1024));
+        RequestLatency latency = TokenServerLatencyStat.getOrCreate(null, ClusterConstants.MSG_TYPE_PARAM_FLOW);
+        assertEquals(ServerConstants.DEFAULT_NAMESPACE, latency.getNamespace());
+        assertSame(latency, TokenServerLatencyStat.getOrCreate(ServerConstants.DEFAULT_NAMESPACE,
+            ClusterConstants.MSG_TYPE_PARAM_FLOW));
+    }
+}
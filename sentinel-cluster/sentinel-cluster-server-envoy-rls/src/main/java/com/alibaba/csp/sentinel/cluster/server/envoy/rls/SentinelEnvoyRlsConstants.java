@@ -30,5 +30,13 @@ public final class SentinelEnvoyRlsConstants {
 
     public static final String ENABLE_ACCESS_LOG_ENV_KEY = "SENTINEL_RLS_ACCESS_LOG";
 
+    /**
+     * Thread count of the gRPC service executor: a positive value indicates a fixed thread pool,
+     * a negative value indicates running the calls in the transport threads directly (as the rate limit
+     * checking never blocks), and 0 (by default) indicates the default executor of gRPC.
+     */
+    public static final String GRPC_EXECUTOR_THREADS_ENV_KEY = "SENTINEL_RLS_GRPC_EXECUTOR_THREADS";
+    public static final String GRPC_EXECUTOR_THREADS_PROPERTY_KEY = "csp.sentinel.rls.grpc.executor.threads";
+
     private SentinelEnvoyRlsConstants() {}
 }
@@ -35,7 +35,7 @@ public class SentinelEnvoyRlsServer {
         dataSourceService.init();
 
         int port = resolvePort();
-        SentinelRlsGrpcServer server = new SentinelRlsGrpcServer(port);
+        SentinelRlsGrpcServer server = new SentinelRlsGrpcServer(port, resolveExecutorThreads());
         server.start();
 
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
@@ -49,6 +49,21 @@ public class SentinelEnvoyRlsServer {
         server.blockUntilShutdown();
     }
 
+    private static int resolveExecutorThreads() {
+        // Order: system env > property
+        String threadsStr = Optional.ofNullable(System.getenv(SentinelEnvoyRlsConstants.GRPC_EXECUTOR_THREADS_ENV_KEY))
+            .orElse(SentinelConfig.getConfig(SentinelEnvoyRlsConstants.GRPC_EXECUTOR_THREADS_PROPERTY_KEY));
+        if (StringUtil.isBlank(threadsStr)) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(threadsStr.trim());
+        } catch (Exception ex) {
+            RecordLog.warn("[SentinelEnvoyRlsServer] Invalid executor threads <" + threadsStr + ">, using default");
+            return 0;
+        }
+    }
+
     private static int resolvePort() {
         final int defaultPort = SentinelEnvoyRlsConstants.DEFAULT_GRPC_PORT;
         // Order: system env > property
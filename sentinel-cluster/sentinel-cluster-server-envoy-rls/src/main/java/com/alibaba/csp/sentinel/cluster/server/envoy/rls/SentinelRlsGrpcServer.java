@@ -16,7 +16,10 @@
 package com.alibaba.csp.sentinel.cluster.server.envoy.rls;
 
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.log.RecordLog;
 
 import io.grpc.Server;
@@ -28,11 +31,43 @@ import io.grpc.ServerBuilder;
 public class SentinelRlsGrpcServer {
 
     private final Server server;
+    private final ExecutorService executor;
 
     public SentinelRlsGrpcServer(int port) {
-        ServerBuilder<?> builder = ServerBuilder.forPort(port)
-            .addService(new com.alibaba.csp.sentinel.cluster.server.envoy.rls.service.v3.SentinelEnvoyRlsServiceImpl())
+        this(port, 0);
+    }
+
+    /**
+     * @param port            port of the gRPC server
+     * @param executorThreads thread count of the service executor, see
+     *                        {@link SentinelEnvoyRlsConstants#GRPC_EXECUTOR_THREADS_PROPERTY_KEY}
+     * @since 1.8.8
+     */
+    public SentinelRlsGrpcServer(int port, int executorThreads) {
+        this(ServerBuilder.forPort(port), executorThreads);
+    }
+
+    /**
+     * @param builder         builder of the gRPC server, which decides the underlying transport
+     * @param executorThreads thread count of the service executor, see
+     *                        {@link SentinelEnvoyRlsConstants#GRPC_EXECUTOR_THREADS_PROPERTY_KEY}
+     * @since 1.8.8
+     */
+    @SuppressWarnings("PMD.ThreadPoolCreationRule")
+    public SentinelRlsGrpcServer(ServerBuilder<?> builder, int executorThreads) {
+        builder.addService(new com.alibaba.csp.sentinel.cluster.server.envoy.rls.service.v3.SentinelEnvoyRlsServiceImpl())
             .addService(new SentinelEnvoyRlsServiceImpl());
+        if (executorThreads > 0) {
+            this.executor = Executors.newFixedThreadPool(executorThreads,
+                new NamedThreadFactory("sentinel-rls-grpc-executor", true));
+            builder.executor(executor);
+        } else {
+            this.executor = null;
+            if (executorThreads < 0) {
+                // The calls never block, so they can run in the transport threads to avoid the thread hop.
+                builder.directExecutor();
+            }
+        }
 
         server = builder.build();
     }
@@ -47,6 +82,9 @@ public class SentinelRlsGrpcServer {
 
     public void shutdown() {
         server.shutdownNow();
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     public boolean isShutdown() {
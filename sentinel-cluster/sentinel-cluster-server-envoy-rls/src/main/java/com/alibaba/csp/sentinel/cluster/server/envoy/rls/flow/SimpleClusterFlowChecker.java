@@ -22,6 +22,7 @@ import com.alibaba.csp.sentinel.cluster.flow.statistic.data.ClusterFlowEvent;
 import com.alibaba.csp.sentinel.cluster.flow.statistic.metric.ClusterMetric;
 import com.alibaba.csp.sentinel.cluster.server.config.ClusterServerConfigManager;
 import com.alibaba.csp.sentinel.cluster.server.log.ClusterServerStatLogUtil;
+import com.alibaba.csp.sentinel.eagleeye.IdStatKeys;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 
 /**
@@ -30,6 +31,11 @@ import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
  */
 public final class SimpleClusterFlowChecker {
 
+    private static final IdStatKeys PASS_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|pass|");
+    private static final IdStatKeys PASS_REQUEST_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|pass_request|");
+    private static final IdStatKeys BLOCK_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|block|");
+    private static final IdStatKeys BLOCK_REQUEST_LOG_KEYS = ClusterServerStatLogUtil.idKeys("flow|block_request|");
+
     public static TokenResult acquireClusterToken(/*@Valid*/ FlowRule rule, int acquireCount) {
         Long id = rule.getClusterConfig().getFlowId();
 
@@ -46,8 +52,8 @@ public final class SimpleClusterFlowChecker {
             metric.add(ClusterFlowEvent.PASS, acquireCount);
             metric.add(ClusterFlowEvent.PASS_REQUEST, 1);
 
-            ClusterServerStatLogUtil.log("flow|pass|" + id, acquireCount);
-            ClusterServerStatLogUtil.log("flow|pass_request|" + id, 1);
+            PASS_LOG_KEYS.get(id).count(acquireCount);
+            PASS_REQUEST_LOG_KEYS.get(id).count();
 
             // Remaining count is cut down to a smaller integer.
             return new TokenResult(TokenResultStatus.OK)
@@ -57,8 +63,8 @@ public final class SimpleClusterFlowChecker {
             // Blocked.
             metric.add(ClusterFlowEvent.BLOCK, acquireCount);
             metric.add(ClusterFlowEvent.BLOCK_REQUEST, 1);
-            ClusterServerStatLogUtil.log("flow|block|" + id, acquireCount);
-            ClusterServerStatLogUtil.log("flow|block_request|" + id, 1);
+            BLOCK_LOG_KEYS.get(id).count(acquireCount);
+            BLOCK_REQUEST_LOG_KEYS.get(id).count();
 
             return blockedResult();
         }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 1999-2019 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>Compiled Envoy RLS rules: a trie of descriptor entries (key/value pairs) per domain, whose
+ * nodes hold the pre-resolved Sentinel flow rules.</p>
+ * <p>
+ * A request descriptor is matched by walking down the trie with its entries in order, so no
+ * resource key needs to be built (and hashed) per request. The entries of a rule descriptor are
+ * inserted in the same order as {@link EnvoySentinelRuleConverter#generateKey}, so the matching
+ * is the same as comparing the generated keys. The trie is immutable once built.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class EnvoyRlsDescriptorTrie {
+
+    public static final EnvoyRlsDescriptorTrie EMPTY = new EnvoyRlsDescriptorTrie(
+        Collections.<String, Node>emptyMap());
+
+    private final Map<String, Node> domainRoots;
+
+    private EnvoyRlsDescriptorTrie(Map<String, Node> domainRoots) {
+        this.domainRoots = domainRoots;
+    }
+
+    /**
+     * @param domain RLS domain
+     * @return root node of the domain, or null if no rules exist for the domain
+     */
+    public Node getDomainRoot(String domain) {
+        return domainRoots.get(domain);
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    public static final class Node {
+
+        /**
+         * (key, (value, child))
+         */
+        private final Map<String, Map<String, Node>> children = new HashMap<>(4);
+        private FlowRule rule;
+
+        /**
+         * @return the child node of given entry, or null if absent
+         */
+        public Node next(String key, String value) {
+            Map<String, Node> valueMap = children.get(key);
+            return valueMap == null ? null : valueMap.get(value);
+        }
+
+        /**
+         * @return the flow rule of the descriptor ending at current node, or null if absent
+         */
+        public FlowRule getRule() {
+            return rule;
+        }
+
+        private Node getOrCreateChild(String key, String value) {
+            Map<String, Node> valueMap = children.get(key);
+            if (valueMap == null) {
+                valueMap = new HashMap<>(4);
+                children.put(key, valueMap);
+            }
+            Node child = valueMap.get(value);
+            if (child == null) {
+                child = new Node();
+                valueMap.put(value, child);
+            }
+            return child;
+        }
+    }
+
+    public static final class Builder {
+
+        private final Map<String, Node> domainRoots = new HashMap<>();
+
+        /**
+         * Add the converted flow rule of a descriptor.
+         *
+         * @param domain     RLS domain
+         * @param descriptor a valid resource descriptor
+         * @param rule       converted flow rule of the descriptor
+         * @return this builder
+         */
+        public Builder add(String domain, EnvoyRlsRule.ResourceDescriptor descriptor, FlowRule rule) {
+            AssertUtil.assertNotBlank(domain, "domain cannot be blank");
+            AssertUtil.notNull(rule, "rule cannot be null");
+            Node node = domainRoots.get(domain);
+            if (node == null) {
+                node = new Node();
+                domainRoots.put(domain, node);
+            }
+            for (EnvoyRlsRule.KeyValueResource resource : descriptor.getResources()) {
+                node = node.getOrCreateChild(resource.getKey(), resource.getValue());
+            }
+            node.rule = rule;
+            return this;
+        }
+
+        public EnvoyRlsDescriptorTrie build() {
+            return new EnvoyRlsDescriptorTrie(domainRoots);
+        }
+    }
+}
@@ -22,7 +22,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.stream.Collectors;
 
 import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.server.ServerConstants;
@@ -46,6 +45,8 @@ public final class EnvoyRlsRuleManager {
     private static final PropertyListener<List<EnvoyRlsRule>> PROPERTY_LISTENER = new EnvoyRlsRulePropertyListener();
     private static SentinelProperty<List<EnvoyRlsRule>> currentProperty = new DynamicSentinelProperty<>();
 
+    private static volatile EnvoyRlsDescriptorTrie descriptorTrie = EnvoyRlsDescriptorTrie.EMPTY;
+
     static {
         currentProperty.addListener(PROPERTY_LISTENER);
     }
@@ -79,15 +80,31 @@ public final class EnvoyRlsRuleManager {
         return new ArrayList<>(RULE_MAP.values());
     }
 
+    /**
+     * Get the compiled descriptor trie of current rules, which is used to match the request descriptors.
+     *
+     * @return the descriptor trie of current rules
+     * @since 1.8.8
+     */
+    public static EnvoyRlsDescriptorTrie getDescriptorTrie() {
+        return descriptorTrie;
+    }
+
     static final class EnvoyRlsRulePropertyListener extends SimplePropertyListener<List<EnvoyRlsRule>> {
 
         @Override
         public synchronized void configUpdate(List<EnvoyRlsRule> conf) {
             Map<String, EnvoyRlsRule> ruleMap = generateRuleMap(conf);
 
-            List<FlowRule> flowRules = ruleMap.values().stream()
-                .flatMap(e -> EnvoySentinelRuleConverter.toSentinelFlowRules(e).stream())
-                .collect(Collectors.toList());
+            List<FlowRule> flowRules = new ArrayList<>();
+            EnvoyRlsDescriptorTrie.Builder trieBuilder = EnvoyRlsDescriptorTrie.newBuilder();
+            for (EnvoyRlsRule rule : ruleMap.values()) {
+                for (EnvoyRlsRule.ResourceDescriptor descriptor : rule.getDescriptors()) {
+                    FlowRule flowRule = EnvoySentinelRuleConverter.toSentinelFlowRule(rule.getDomain(), descriptor);
+                    flowRules.add(flowRule);
+                    trieBuilder.add(rule.getDomain(), descriptor, flowRule);
+                }
+            }
 
             RULE_MAP.clear();
             RULE_MAP.putAll(ruleMap);
@@ -95,6 +112,8 @@ public final class EnvoyRlsRuleManager {
 
             // Use the "default" namespace.
             ClusterFlowRuleManager.loadRules(ServerConstants.DEFAULT_NAMESPACE, flowRules);
+            // Publish the trie after the cluster metrics of the rules are ready.
+            descriptorTrie = trieBuilder.build();
         }
 
         Map<String, EnvoyRlsRule> generateRuleMap(List<EnvoyRlsRule> conf) {
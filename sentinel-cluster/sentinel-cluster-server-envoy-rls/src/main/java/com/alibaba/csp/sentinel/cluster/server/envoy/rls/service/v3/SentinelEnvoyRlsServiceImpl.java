@@ -2,10 +2,10 @@ package com.alibaba.csp.sentinel.cluster.server.envoy.rls.service.v3;
 
 import com.alibaba.csp.sentinel.cluster.TokenResult;
 import com.alibaba.csp.sentinel.cluster.TokenResultStatus;
-import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
 import com.alibaba.csp.sentinel.cluster.server.envoy.rls.flow.SimpleClusterFlowChecker;
 import com.alibaba.csp.sentinel.cluster.server.envoy.rls.log.RlsAccessLogger;
-import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoySentinelRuleConverter;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsDescriptorTrie;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsRuleManager;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
 import com.alibaba.csp.sentinel.util.function.Tuple2;
 import com.google.protobuf.TextFormat;
@@ -18,11 +18,6 @@ import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitResponse.DescriptorStat
 import io.envoyproxy.envoy.service.ratelimit.v3.RateLimitServiceGrpc;
 import io.grpc.stub.StreamObserver;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import static com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoySentinelRuleConverter.SEPARATOR;
-
 /**
  * gRPC限流入口，实现envoy rls v3 api
  *
@@ -30,6 +25,14 @@ import static com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoySentin
  * @date 2021/8/4
  */
 public class SentinelEnvoyRlsServiceImpl extends RateLimitServiceGrpc.RateLimitServiceImplBase {
+
+    /**
+     * Status of the descriptors without rules, which is immutable and can be shared.
+     */
+    private static final DescriptorStatus NO_LIMIT_OK_STATUS = DescriptorStatus.newBuilder()
+            .setCode(Code.OK)
+            .build();
+
     @Override
     public void shouldRateLimit(RateLimitRequest request, StreamObserver<RateLimitResponse> responseObserver) {
         int acquireCount = request.getHitsAddend();
@@ -45,7 +48,7 @@ public class SentinelEnvoyRlsServiceImpl extends RateLimitServiceGrpc.RateLimitS
 
         String domain = request.getDomain();
         boolean blocked = false;
-        List<DescriptorStatus> statusList = new ArrayList<>(request.getDescriptorsCount());
+        RateLimitResponse.Builder responseBuilder = RateLimitResponse.newBuilder();
         for (RateLimitDescriptor descriptor : request.getDescriptorsList()) {
             Tuple2<FlowRule, TokenResult> t = checkToken(domain, descriptor, acquireCount);
             TokenResult r = t.r2;
@@ -62,23 +65,21 @@ public class SentinelEnvoyRlsServiceImpl extends RateLimitServiceGrpc.RateLimitS
             }
 
             Code statusCode = r.getStatus() == TokenResultStatus.OK ? Code.OK : Code.OVER_LIMIT;
-            DescriptorStatus.Builder descriptorStatusBuilder = DescriptorStatus.newBuilder()
-                    .setCode(statusCode);
-            if (t.r1 != null) {
-                descriptorStatusBuilder
+            if (t.r1 == null) {
+                responseBuilder.addStatuses(statusCode == Code.OK ? NO_LIMIT_OK_STATUS
+                        : DescriptorStatus.newBuilder().setCode(statusCode).build());
+            } else {
+                responseBuilder.addStatuses(DescriptorStatus.newBuilder()
+                        .setCode(statusCode)
                         .setCurrentLimit(RateLimit.newBuilder().setUnit(RateLimit.Unit.SECOND)
                                 .setRequestsPerUnit((int)t.r1.getCount())
                                 .build())
-                        .setLimitRemaining(r.getRemaining());
+                        .setLimitRemaining(r.getRemaining()));
             }
-            statusList.add(descriptorStatusBuilder.build());
         }
 
         Code overallStatus = blocked ? Code.OVER_LIMIT :Code.OK;
-        RateLimitResponse response = RateLimitResponse.newBuilder()
-                .setOverallCode(overallStatus)
-                .addAllStatuses(statusList)
-                .build();
+        RateLimitResponse response = responseBuilder.setOverallCode(overallStatus).build();
 
         responseObserver.onNext(response);
         responseObserver.onCompleted();
@@ -97,9 +98,7 @@ public class SentinelEnvoyRlsServiceImpl extends RateLimitServiceGrpc.RateLimitS
     }
 
     protected Tuple2<FlowRule, TokenResult> checkToken(String domain, RateLimitDescriptor descriptor, int acquireCount) {
-        long ruleId = EnvoySentinelRuleConverter.generateFlowId(generateKey(domain, descriptor));
-
-        FlowRule rule = ClusterFlowRuleManager.getFlowRuleById(ruleId);
+        FlowRule rule = matchRule(domain, descriptor);
         if (rule == null) {
             // Pass if the target rule is absent.
             return Tuple2.of(null, new TokenResult(TokenResultStatus.NO_RULE_EXISTS));
@@ -108,11 +107,15 @@ public class SentinelEnvoyRlsServiceImpl extends RateLimitServiceGrpc.RateLimitS
         return Tuple2.of(rule, SimpleClusterFlowChecker.acquireClusterToken(rule, acquireCount));
     }
 
-    private String generateKey(String domain, RateLimitDescriptor descriptor) {
-        StringBuilder sb = new StringBuilder(domain);
-        for (RateLimitDescriptor.Entry resource : descriptor.getEntriesList()) {
-            sb.append(SEPARATOR).append(resource.getKey()).append(SEPARATOR).append(resource.getValue());
+    /**
+     * Match the descriptor against the compiled rules, walking down the descriptor trie with the entries in order.
+     */
+    private FlowRule matchRule(String domain, RateLimitDescriptor descriptor) {
+        EnvoyRlsDescriptorTrie.Node node = EnvoyRlsRuleManager.getDescriptorTrie().getDomainRoot(domain);
+        for (int i = 0; node != null && i < descriptor.getEntriesCount(); i++) {
+            RateLimitDescriptor.Entry entry = descriptor.getEntries(i);
+            node = node.next(entry.getKey(), entry.getValue());
         }
-        return sb.toString();
+        return node == null ? null : node.getRule();
     }
 }
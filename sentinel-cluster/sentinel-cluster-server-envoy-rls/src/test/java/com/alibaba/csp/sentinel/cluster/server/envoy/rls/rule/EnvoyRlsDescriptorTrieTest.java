@@ -0,0 +1,73 @@
+/*
+ * Copyright 1999-2019 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.flow.rule.ClusterFlowRuleManager;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsRule.KeyValueResource;
+import com.alibaba.csp.sentinel.cluster.server.envoy.rls.rule.EnvoyRlsRule.ResourceDescriptor;
+import com.alibaba.csp.sentinel.slots.block.flow.FlowRule;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Eric Zhao
+ */
+public class EnvoyRlsDescriptorTrieTest {
+
+    @Test
+    public void testMatchDescriptorsOfLoadedRules() {
+        String domain = "testMatchDescriptorsOfLoadedRules";
+        EnvoyRlsRule rlsRule = new EnvoyRlsRule();
+        rlsRule.setDomain(domain);
+        List<ResourceDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(new ResourceDescriptor(Collections.singleton(new KeyValueResource("k1", "v1")), 10d));
+        descriptors.add(new ResourceDescriptor(new LinkedHashSet<>(Arrays.asList(
+            new KeyValueResource("k2", "v2"),
+            new KeyValueResource("k3", "v3")
+        )), 20d));
+        rlsRule.setDescriptors(descriptors);
+        EnvoyRlsRuleManager.loadRules(Collections.singletonList(rlsRule));
+        try {
+            EnvoyRlsDescriptorTrie trie = EnvoyRlsRuleManager.getDescriptorTrie();
+            assertNull(trie.getDomainRoot("absent-domain"));
+            EnvoyRlsDescriptorTrie.Node root = trie.getDomainRoot(domain);
+            assertNotNull(root);
+
+            FlowRule r1 = root.next("k1", "v1").getRule();
+            assertEquals(10d, r1.getCount(), 0.01);
+            // The rule is pre-resolved to the one loaded to the cluster rule manager.
+            assertSame(r1, ClusterFlowRuleManager.getFlowRuleById(r1.getClusterConfig().getFlowId()));
+            assertNull(root.next("k1", "v2"));
+
+            EnvoyRlsDescriptorTrie.Node prefix = root.next("k2", "v2");
+            assertNull(prefix.getRule());
+            assertEquals(20d, prefix.next("k3", "v3").getRule().getCount(), 0.01);
+            // Entries are matched in order.
+            assertNull(root.next("k3", "v3"));
+        } finally {
+            EnvoyRlsRuleManager.loadRules(new ArrayList<EnvoyRlsRule>());
+        }
+        assertNull(EnvoyRlsRuleManager.getDescriptorTrie().getDomainRoot(domain));
+    }
+}
@@ -122,7 +122,8 @@ class CtEntry extends Entry {
                 }
                 if (parent == null) {
                     // Default context (auto entered) will be exited automatically.
-                    if (ContextUtil.isDefaultContext(context)) {
+                    // Async contexts are never bound to current thread by Sentinel, so there is nothing to exit.
+                    if (!context.isAsync() && ContextUtil.isDefaultContext(context)) {
                         ContextUtil.exit();
                     }
                 }
@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel;
 import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.context.Context;
@@ -31,6 +32,7 @@ import com.alibaba.csp.sentinel.slotchain.SlotChainProvider;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.Rule;
+import com.alibaba.csp.sentinel.util.AssertUtil;
 
 /**
  * CtSph是Sentinel框架的核心实现类，实现了Sph接口，负责资源的统计和规则检查。
@@ -67,7 +69,10 @@ public class CtSph implements Sph {
     private static volatile Map<ResourceWrapper, ProcessorSlotChain> chainMap
         = new HashMap<ResourceWrapper, ProcessorSlotChain>();
 
-    private static final Object LOCK = new Object();
+    /**
+     * 使用显式锁而非对象监视器，避免虚拟线程在创建槽链时被固定（pinning）在载体线程上。
+     */
+    private static final ReentrantLock LOCK = new ReentrantLock();
 
     /**
      * 创建一个没有处理器槽链的异步Entry。
@@ -112,7 +117,39 @@ public class CtSph implements Sph {
             // Using default context.
             context = InternalContextUtil.internalEnter(Constants.CONTEXT_DEFAULT_NAME);
         }
+        return asyncEntryOnContext(context, resourceWrapper, count, prioritized, args);
+    }
+
+    /**
+     * 在显式传入的上下文中创建异步Entry，全程不读写 ThreadLocal。
+     *
+     * <p>传入的上下文仅作为父上下文句柄，不会被修改：每次调用都会基于它派生一个新的调用上下文，
+     * 因此同一个句柄可以在多个线程间（如响应式流的各个信号之间）安全共享。</p>
+     *
+     * @param parentContext   父上下文句柄（如 {@link ContextUtil#newDetachedContext(String, String)}
+     *                        或 {@link AsyncEntry#getAsyncContext()}）
+     * @param resourceWrapper 资源包装器
+     * @param count           请求的令牌数量
+     * @param prioritized     是否优先处理
+     * @param args            用户方法调用的参数
+     * @return 异步Entry对象
+     * @throws BlockException 如果规则检查不通过
+     */
+    private AsyncEntry asyncEntryWithParentContext(Context parentContext, ResourceWrapper resourceWrapper, int count,
+                                                   boolean prioritized, Object... args) throws BlockException {
+        AssertUtil.notNull(parentContext, "context cannot be null");
+        if (parentContext instanceof NullContext) {
+            return asyncEntryWithNoChain(resourceWrapper, parentContext);
+        }
+        InternalContextUtil.internalTouch(parentContext);
+        Context context = Context.newAsyncContext(parentContext.getEntranceNode(), parentContext.getName())
+            .setOrigin(parentContext.getOrigin())
+            .setCurEntry(parentContext.getCurEntry());
+        return asyncEntryOnContext(context, resourceWrapper, count, prioritized, args);
+    }
 
+    private AsyncEntry asyncEntryOnContext(Context context, ResourceWrapper resourceWrapper, int count,
+                                           boolean prioritized, Object... args) throws BlockException {
         // Global switch is turned off, so no rule checking will be done.
         if (!Constants.ON) {
             return asyncEntryWithNoChain(resourceWrapper, context);
@@ -191,7 +228,7 @@ public class CtSph implements Sph {
 
         if (context == null) {
             // Using default context. 默认创建名称为sentinel_default_context 的context 并放入ThreadLocal
-            //同时存放在ContextUtil contextNameNodeMap 以及 Constants.ROOT的子节点中
+            //同时存放在ContextUtil contextNameRegistry 以及 Constants.ROOT的子节点中
             context = InternalContextUtil.internalEnter(Constants.CONTEXT_DEFAULT_NAME);
         }
 
@@ -271,7 +308,8 @@ public class CtSph implements Sph {
         ProcessorSlotChain chain = chainMap.get(resourceWrapper);
         //DCL 防止并发创建
         if (chain == null) {
-            synchronized (LOCK) {
+            LOCK.lock();
+            try {
                 chain = chainMap.get(resourceWrapper);
                 if (chain == null) {
                     // Entry size limit. SLOT最大值 6000
@@ -288,6 +326,8 @@ public class CtSph implements Sph {
                     newMap.put(resourceWrapper, chain);
                     chainMap = newMap;
                 }
+            } finally {
+                LOCK.unlock();
             }
         }
         return chain;
@@ -342,6 +382,10 @@ public class CtSph implements Sph {
         static Context internalEnter(String name, String origin) {
             return trueEnter(name, origin);
         }
+
+        static void internalTouch(Context context) {
+            touch(context);
+        }
     }
 
     @Override
@@ -442,4 +486,11 @@ public class CtSph implements Sph {
         StringResourceWrapper resource = new StringResourceWrapper(name, entryType, resourceType);
         return asyncEntryWithPriorityInternal(resource, count, prioritized, args);
     }
+
+    @Override
+    public AsyncEntry asyncEntryWithContext(Context context, String name, int resourceType, EntryType entryType,
+                                            int count, boolean prioritized, Object[] args) throws BlockException {
+        StringResourceWrapper resource = new StringResourceWrapper(name, entryType, resourceType);
+        return asyncEntryWithParentContext(context, resource, count, prioritized, args);
+    }
 }
@@ -17,6 +17,8 @@ package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
 
+import com.alibaba.csp.sentinel.context.Context;
+import com.alibaba.csp.sentinel.context.ContextUtil;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.system.SystemRule;
 
@@ -193,4 +195,49 @@ public interface Sph extends SphResourceTypeSupport {
      */
     Entry entryWithPriority(String name, EntryType trafficType, int batchCount, boolean prioritized, Object... args)
         throws BlockException;
+
+    /**
+     * Create a protected asynchronous resource within an explicitly provided context.
+     * No thread-local context will be read or written, and the provided context won't be modified,
+     * so it could be shared across threads.
+     * <p>
+     * The default implementation binds the provided context to current thread during the call
+     * and delegates to {@link #asyncEntryWithType}, so the context should not be shared across threads.
+     * Implementations are expected to override it.
+     * </p>
+     *
+     * @param context      the parent context (e.g. a detached context or the async context of another entry)
+     * @param name         the unique name for the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal). This is used
+     *                     to mark whether it can be blocked when the system is unstable,
+     *                     only inbound traffic could be blocked by {@link SystemRule}
+     * @param batchCount   the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param prioritized  whether the entry is prioritized
+     * @param args         args for parameter flow control or customized slots
+     * @return created asynchronous entry
+     * @throws BlockException if the block criteria is met
+     * @since 1.8.8
+     */
+    default AsyncEntry asyncEntryWithContext(Context context, final String name, final int resourceType,
+                                             final EntryType trafficType, final int batchCount,
+                                             final boolean prioritized, final Object[] args)
+        throws BlockException {
+        final AsyncEntry[] entry = new AsyncEntry[1];
+        final BlockException[] blockException = new BlockException[1];
+        ContextUtil.runOnContext(context, new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    entry[0] = asyncEntryWithType(name, resourceType, trafficType, batchCount, prioritized, args);
+                } catch (BlockException ex) {
+                    blockException[0] = ex;
+                }
+            }
+        });
+        if (blockException[0] != null) {
+            throw blockException[0];
+        }
+        return entry[0];
+    }
 }
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel;
 
 import java.lang.reflect.Method;
 
+import com.alibaba.csp.sentinel.context.Context;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import com.alibaba.csp.sentinel.slots.block.Rule;
 import com.alibaba.csp.sentinel.slots.system.SystemRule;
@@ -355,4 +356,53 @@ public class SphU {
                                         Object[] args) throws BlockException {
         return Env.sph.asyncEntryWithType(name, resourceType, trafficType, batchCount, false, args);
     }
+
+    /**
+     * <p>
+     * Record statistics and perform rule checking for the given resource that indicates an async invocation,
+     * within the explicitly provided context.
+     * </p>
+     * <p>
+     * Unlike {@link #asyncEntry(String)}, no thread-local context will be read or written, and the provided
+     * context won't be modified. The context could be created via
+     * {@link com.alibaba.csp.sentinel.context.ContextUtil#newDetachedContext(String, String)}, or be the
+     * {@link AsyncEntry#getAsyncContext()} of another entry to nest the invocation.
+     * </p>
+     *
+     * @param context      the parent context
+     * @param name         the unique name for the protected resource
+     * @param trafficType  the traffic type (inbound, outbound or internal). This is used
+     *                     to mark whether it can be blocked when the system is unstable,
+     *                     only inbound traffic could be blocked by {@link SystemRule}
+     * @return the {@link Entry} of this invocation (used for mark the invocation complete and get context data)
+     * @throws BlockException if the block criteria is met (e.g. metric exceeded the threshold of any rules)
+     * @since 1.8.8
+     */
+    public static AsyncEntry asyncEntryWithContext(Context context, String name, EntryType trafficType)
+        throws BlockException {
+        return Env.sph.asyncEntryWithContext(context, name, ResourceTypeConstants.COMMON, trafficType, 1, false,
+            OBJECTS0);
+    }
+
+    /**
+     * Record statistics and perform rule checking for the given resource that indicates an async invocation,
+     * within the explicitly provided context. No thread-local context will be read or written.
+     *
+     * @param context      the parent context
+     * @param name         the unique name for the protected resource
+     * @param resourceType classification of the resource (e.g. Web or RPC)
+     * @param trafficType  the traffic type (inbound, outbound or internal). This is used
+     *                     to mark whether it can be blocked when the system is unstable,
+     *                     only inbound traffic could be blocked by {@link SystemRule}
+     * @param batchCount   the amount of calls within the invocation (e.g. batchCount=2 means request for 2 tokens)
+     * @param args         args for parameter flow control or customized slots
+     * @return the {@link Entry} of this invocation (used for mark the invocation complete and get context data)
+     * @throws BlockException if the block criteria is met (e.g. metric exceeded the threshold of any rules)
+     * @since 1.8.8
+     */
+    public static AsyncEntry asyncEntryWithContext(Context context, String name, int resourceType,
+                                                   EntryType trafficType, int batchCount, Object[] args)
+        throws BlockException {
+        return Env.sph.asyncEntryWithContext(context, name, resourceType, trafficType, batchCount, false, args);
+    }
 }
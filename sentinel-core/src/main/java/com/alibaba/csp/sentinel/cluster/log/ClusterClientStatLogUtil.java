@@ -46,11 +46,11 @@ public final class ClusterClientStatLogUtil {
     }
 
     public static void log(String msg) {
-        statLogger.stat(msg).count();
+        statLogger.statKey(msg).count();
     }
 
     public static void log(String msg, int count) {
-        statLogger.stat(msg).count(count);
+        statLogger.statKey(msg).count(count);
     }
 
     private ClusterClientStatLogUtil() {}
@@ -61,6 +61,12 @@ public final class SentinelConfig {
     public static final String STATISTIC_MAX_RT = "csp.sentinel.statistic.max.rt";
     public static final String SPI_CLASSLOADER = "csp.sentinel.spi.classloader";
     public static final String METRIC_FLUSH_INTERVAL = "csp.sentinel.metric.flush.interval";
+    public static final String CONTEXT_IDLE_EVICT_MS = "csp.sentinel.context.idle.evict.ms";
+    public static final String METRIC_FILE_FORMAT = "csp.sentinel.metric.file.format";
+    public static final String METRIC_FILE_FSYNC = "csp.sentinel.metric.file.fsync";
+    public static final String METRIC_ARCHIVE_MAX_SIZE = "csp.sentinel.metric.archive.max.size";
+    public static final String METRIC_ARCHIVE_HOT_MINUTES = "csp.sentinel.metric.archive.hot.minutes";
+    public static final String METRIC_ARCHIVE_FINE_HOURS = "csp.sentinel.metric.archive.fine.hours";
 
     public static final String DEFAULT_CHARSET = "UTF-8";
     public static final long DEFAULT_SINGLE_METRIC_FILE_SIZE = 1024 * 1024 * 50;
@@ -68,6 +74,17 @@ public final class SentinelConfig {
     public static final int DEFAULT_COLD_FACTOR = 3;
     public static final int DEFAULT_STATISTIC_MAX_RT = 5000;
     public static final long DEFAULT_METRIC_FLUSH_INTERVAL = 1L;
+    public static final long DEFAULT_CONTEXT_IDLE_EVICT_MS = 10 * 60 * 1000L;
+    public static final String METRIC_FILE_FORMAT_TEXT = "text";
+    public static final String METRIC_FILE_FORMAT_BINARY = "binary";
+    public static final String DEFAULT_METRIC_FILE_FORMAT = METRIC_FILE_FORMAT_TEXT;
+    public static final String METRIC_FILE_FSYNC_NONE = "none";
+    public static final String METRIC_FILE_FSYNC_ROLL = "roll";
+    public static final String METRIC_FILE_FSYNC_BATCH = "batch";
+    public static final String DEFAULT_METRIC_FILE_FSYNC = METRIC_FILE_FSYNC_NONE;
+    public static final long DEFAULT_METRIC_ARCHIVE_MAX_SIZE = 0L;
+    public static final int DEFAULT_METRIC_ARCHIVE_HOT_MINUTES = 60;
+    public static final int DEFAULT_METRIC_ARCHIVE_FINE_HOURS = 24;
 
     static {
         try {
@@ -259,6 +276,138 @@ public final class SentinelConfig {
         }
     }
 
+    /**
+     * <p>Get the idle time (in ms) after which a context name could be evicted when the amount of
+     * context names reaches {@link com.alibaba.csp.sentinel.Constants#MAX_CONTEXT_NAME_SIZE}.
+     * A non-positive value disables the eviction.</p>
+     *
+     * @return the idle time of context names before eviction
+     * @since 1.8.8
+     */
+    public static long contextIdleEvictMs() {
+        String v = props.get(CONTEXT_IDLE_EVICT_MS);
+        try {
+            if (StringUtil.isEmpty(v)) {
+                return DEFAULT_CONTEXT_IDLE_EVICT_MS;
+            }
+            return Long.parseLong(v);
+        } catch (Throwable throwable) {
+            RecordLog.warn("[SentinelConfig] Invalid contextIdleEvictMs value: {}, using the default value instead: "
+                    + DEFAULT_CONTEXT_IDLE_EVICT_MS, v, throwable);
+            return DEFAULT_CONTEXT_IDLE_EVICT_MS;
+        }
+    }
+
+    /**
+     * Get the format of metric log files, either {@code text} or {@code binary}.
+     *
+     * @return the metric file format
+     * @since 1.8.8
+     */
+    public static String metricFileFormat() {
+        String v = props.get(METRIC_FILE_FORMAT);
+        if (StringUtil.isEmpty(v)) {
+            return DEFAULT_METRIC_FILE_FORMAT;
+        }
+        v = v.trim().toLowerCase();
+        if (METRIC_FILE_FORMAT_TEXT.equals(v) || METRIC_FILE_FORMAT_BINARY.equals(v)) {
+            return v;
+        }
+        RecordLog.warn("[SentinelConfig] Invalid metricFileFormat value: {}, using the default value instead: "
+                + DEFAULT_METRIC_FILE_FORMAT, v);
+        return DEFAULT_METRIC_FILE_FORMAT;
+    }
+
+    /**
+     * Get the fsync policy of metric log files: {@code none} leaves it to the OS, {@code roll} forces
+     * a file to disk when it's closed, and {@code batch} forces files to disk after every written batch.
+     *
+     * @return the metric file fsync policy
+     * @since 1.8.8
+     */
+    public static String metricFileFsync() {
+        String v = props.get(METRIC_FILE_FSYNC);
+        if (StringUtil.isEmpty(v)) {
+            return DEFAULT_METRIC_FILE_FSYNC;
+        }
+        v = v.trim().toLowerCase();
+        if (METRIC_FILE_FSYNC_NONE.equals(v) || METRIC_FILE_FSYNC_ROLL.equals(v) || METRIC_FILE_FSYNC_BATCH.equals(v)) {
+            return v;
+        }
+        RecordLog.warn("[SentinelConfig] Invalid metricFileFsync value: {}, using the default value instead: "
+                + DEFAULT_METRIC_FILE_FSYNC, v);
+        return DEFAULT_METRIC_FILE_FSYNC;
+    }
+
+    /**
+     * Get the max disk size in bytes of the metric archive. The archive is disabled if it's not positive.
+     *
+     * @return the max size of the metric archive
+     * @since 1.8.8
+     */
+    public static long metricArchiveMaxSize() {
+        String v = props.get(METRIC_ARCHIVE_MAX_SIZE);
+        try {
+            if (StringUtil.isEmpty(v)) {
+                return DEFAULT_METRIC_ARCHIVE_MAX_SIZE;
+            }
+            return Long.parseLong(v);
+        } catch (Throwable throwable) {
+            RecordLog.warn("[SentinelConfig] Invalid metricArchiveMaxSize value: {}, using the default value instead: "
+                    + DEFAULT_METRIC_ARCHIVE_MAX_SIZE, v, throwable);
+            return DEFAULT_METRIC_ARCHIVE_MAX_SIZE;
+        }
+    }
+
+    /**
+     * Get how long (in minutes) metrics stay in uncompressed metric files before being archived.
+     *
+     * @return the hot period of metric files in minutes
+     * @since 1.8.8
+     */
+    public static int metricArchiveHotMinutes() {
+        String v = props.get(METRIC_ARCHIVE_HOT_MINUTES);
+        try {
+            if (StringUtil.isEmpty(v)) {
+                return DEFAULT_METRIC_ARCHIVE_HOT_MINUTES;
+            }
+            int minutes = Integer.parseInt(v);
+            if (minutes > 0) {
+                return minutes;
+            }
+        } catch (Throwable throwable) {
+            // Fall through.
+        }
+        RecordLog.warn("[SentinelConfig] Invalid metricArchiveHotMinutes value: {}, using the default value instead: "
+                + DEFAULT_METRIC_ARCHIVE_HOT_MINUTES, v);
+        return DEFAULT_METRIC_ARCHIVE_HOT_MINUTES;
+    }
+
+    /**
+     * Get how long (in hours) the 10-second aggregates are kept in the metric archive,
+     * only 1-minute aggregates are kept after that.
+     *
+     * @return the retention of 10-second aggregates in hours
+     * @since 1.8.8
+     */
+    public static int metricArchiveFineHours() {
+        String v = props.get(METRIC_ARCHIVE_FINE_HOURS);
+        try {
+            if (StringUtil.isEmpty(v)) {
+                return DEFAULT_METRIC_ARCHIVE_FINE_HOURS;
+            }
+            int hours = Integer.parseInt(v);
+            if (hours >= 0) {
+                return hours;
+            }
+        } catch (Throwable throwable) {
+            // Fall through.
+        }
+        RecordLog.warn("[SentinelConfig] Invalid metricArchiveFineHours value: {}, using the default value instead: "
+                + DEFAULT_METRIC_ARCHIVE_FINE_HOURS, v);
+        return DEFAULT_METRIC_ARCHIVE_FINE_HOURS;
+    }
+
     /**
      * Function for resolving project name. The order is elaborated below:
      *
@@ -101,6 +101,11 @@ public class Context {
      */
     private final boolean async;
 
+    /**
+     * Registration of the context name marked in use by this (thread-bound) context, released on exit.
+     */
+    ContextNameRegistry.Registration registration;
+
     /**
      * Create a new async context.
      * 创建一个新的异步上下文。
@@ -0,0 +1,51 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.context;
+
+/**
+ * <p>Carrier of the {@link Context} bound to the current unit of execution.</p>
+ * <p>
+ * The default implementation ({@link ThreadLocalContextHolder}) keeps the context in a {@link ThreadLocal}.
+ * Runtimes that prefer another carrier (e.g. a {@code ScopedValue}-backed holder for virtual threads
+ * on newer JDKs) can provide their own implementation via SPI
+ * ({@code META-INF/services/com.alibaba.csp.sentinel.context.ContextHolder}).
+ * The first non-default provider found will be used.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public interface ContextHolder {
+
+    /**
+     * Get the context bound to the current execution.
+     *
+     * @return current context, or null if absent
+     */
+    Context get();
+
+    /**
+     * Bind the given context to the current execution.
+     *
+     * @param context context to bind, should not be null
+     */
+    void set(Context context);
+
+    /**
+     * Unbind the context from the current execution.
+     */
+    void remove();
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.context;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.EntryType;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.node.EntranceNode;
+import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
+import com.alibaba.csp.sentinel.slots.nodeselector.NodeSelectorSlot;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+/**
+ * <p>
+ * The registry of context names and their {@link EntranceNode}s, backed by a {@link ConcurrentHashMap}
+ * so that registering a new context name never copies the whole map.
+ * </p>
+ * <p>
+ * The amount of context names is bounded by {@link Constants#MAX_CONTEXT_NAME_SIZE}. When the bound is reached,
+ * context names that are not in use and have not been used for {@link SentinelConfig#contextIdleEvictMs()}
+ * will be evicted, together with their {@link EntranceNode} in the {@link Constants#ROOT} tree and the
+ * {@link DefaultNode}s in {@link NodeSelectorSlot}. A context is in use from {@link ContextUtil#enter} till
+ * {@link ContextUtil#exit()} on the thread, and is used whenever it's entered or an async entry is created
+ * within it. Only when no context name is idle will new contexts fall back to the {@link NullContext}.
+ * The default context is never evicted.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+final class ContextNameRegistry {
+
+    /**
+     * The last-used time is only refreshed when it's older than this, to avoid writing on every enter.
+     */
+    private static final long TOUCH_INTERVAL_MS = 1000;
+
+    private final ConcurrentMap<String, Registration> registrations = new ConcurrentHashMap<>();
+    private final ReentrantLock evictLock = new ReentrantLock();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    /**
+     * Get the registration of given context name, or create a new one if absent.
+     *
+     * @param name    the context name
+     * @param acquire whether to mark the context as in use, which should be released via {@link Registration#release()}
+     * @return the registration, or null if the amount of context names exceeds the threshold
+     */
+    Registration getOrCreate(String name, boolean acquire) {
+        while (true) {
+            Registration registration = registrations.get(name);
+            if (registration == null) {
+                if (registrations.size() > Constants.MAX_CONTEXT_NAME_SIZE && !evictIdle()) {
+                    return null;
+                }
+                EntranceNode node = new EntranceNode(new StringResourceWrapper(name, EntryType.IN), null);
+                Registration created = new Registration(node, TimeUtil.currentTimeMillis());
+                registration = registrations.putIfAbsent(name, created);
+                if (registration == null) {
+                    registration = created;
+                    // Add entrance node.
+                    //将新建的EntranceNode添加到Root下 全局的 不会随着线程而消亡
+                    Constants.ROOT.addChild(node);
+                }
+            }
+            registration.touch(TimeUtil.currentTimeMillis());
+            if (!acquire) {
+                return registration;
+            }
+            registration.activeCount.incrementAndGet();
+            // The registration might have been evicted before it was marked in use, then retry.
+            if (registrations.get(name) == registration) {
+                return registration;
+            }
+            registration.release();
+        }
+    }
+
+    /**
+     * Refresh the last-used time of given context name (e.g. when an entry is created within the context).
+     *
+     * @param name the context name
+     */
+    void touch(String name) {
+        Registration registration = registrations.get(name);
+        if (registration != null) {
+            registration.touch(TimeUtil.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Evict the context names that have been idle for longer than the configured time.
+     *
+     * @return true if there is room for new context names after eviction
+     */
+    private boolean evictIdle() {
+        long idleMs = SentinelConfig.contextIdleEvictMs();
+        if (idleMs <= 0) {
+            return false;
+        }
+        // Only one thread evicts at a time, others won't wait for it.
+        if (!evictLock.tryLock()) {
+            return registrations.size() <= Constants.MAX_CONTEXT_NAME_SIZE;
+        }
+        try {
+            if (registrations.size() <= Constants.MAX_CONTEXT_NAME_SIZE) {
+                return true;
+            }
+            long now = TimeUtil.currentTimeMillis();
+            int evicted = 0;
+            for (Map.Entry<String, Registration> e : registrations.entrySet()) {
+                String name = e.getKey();
+                Registration registration = e.getValue();
+                if (Constants.CONTEXT_DEFAULT_NAME.equals(name) || registration.isInUse()
+                    || now - registration.lastUsedTime < idleMs) {
+                    continue;
+                }
+                if (registrations.remove(name, registration)) {
+                    Constants.ROOT.removeChild(registration.node);
+                    NodeSelectorSlot.removeContextNodes(name);
+                    evicted++;
+                }
+            }
+            if (evicted > 0) {
+                evictedCount.addAndGet(evicted);
+                RecordLog.info("[ContextNameRegistry] Evicted {} idle context names (idle time >= {} ms)",
+                    evicted, idleMs);
+            }
+            return registrations.size() <= Constants.MAX_CONTEXT_NAME_SIZE;
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    void register(String name, DefaultNode node) {
+        registrations.put(name, new Registration(node, TimeUtil.currentTimeMillis()));
+    }
+
+    int size() {
+        return registrations.size();
+    }
+
+    long getEvictedCount() {
+        return evictedCount.get();
+    }
+
+    void clear() {
+        registrations.clear();
+    }
+
+    static final class Registration {
+        final DefaultNode node;
+        /**
+         * Amount of the thread-bound contexts that have been entered but not exited yet.
+         */
+        private final AtomicInteger activeCount = new AtomicInteger();
+        private volatile long lastUsedTime;
+
+        Registration(DefaultNode node, long lastUsedTime) {
+            this.node = node;
+            this.lastUsedTime = lastUsedTime;
+        }
+
+        void touch(long now) {
+            if (now - lastUsedTime >= TOUCH_INTERVAL_MS) {
+                lastUsedTime = now;
+            }
+        }
+
+        void release() {
+            activeCount.decrementAndGet();
+        }
+
+        boolean isInUse() {
+            return activeCount.get() > 0;
+        }
+    }
+}
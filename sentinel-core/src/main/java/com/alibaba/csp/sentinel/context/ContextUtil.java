@@ -15,20 +15,16 @@
  */
 package com.alibaba.csp.sentinel.context;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.concurrent.locks.ReentrantLock;
-
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.EntryType;
 import com.alibaba.csp.sentinel.SphO;
 import com.alibaba.csp.sentinel.SphU;
 import com.alibaba.csp.sentinel.log.RecordLog;
-import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.node.EntranceNode;
 import com.alibaba.csp.sentinel.node.Node;
 import com.alibaba.csp.sentinel.slotchain.StringResourceWrapper;
 import com.alibaba.csp.sentinel.slots.nodeselector.NodeSelectorSlot;
+import com.alibaba.csp.sentinel.spi.SpiLoader;
 
 /**
  * Utility class to get or create {@link Context} in current thread.
@@ -45,17 +41,16 @@ import com.alibaba.csp.sentinel.slots.nodeselector.NodeSelectorSlot;
 public class ContextUtil {
 
     /**
-     * Store the context in ThreadLocal for easy access.
+     * Store the context in the holder (ThreadLocal by default) for easy access.
      */
-    private static ThreadLocal<Context> contextHolder = new ThreadLocal<>();
+    private static final ContextHolder contextHolder = resolveContextHolder();
 
     /**
      * Holds all {@link EntranceNode}. Each {@link EntranceNode} is associated with a distinct context name.
      * 全局对象 不会随线程消亡
      */
-    private static volatile Map<String, DefaultNode> contextNameNodeMap = new HashMap<>();
+    private static final ContextNameRegistry contextNameRegistry = new ContextNameRegistry();
 
-    private static final ReentrantLock LOCK = new ReentrantLock();
     private static final Context NULL_CONTEXT = new NullContext();
 
     static {
@@ -63,22 +58,34 @@ public class ContextUtil {
         initDefaultContext();
     }
 
+    private static ContextHolder resolveContextHolder() {
+        ContextHolder holder = null;
+        try {
+            holder = SpiLoader.of(ContextHolder.class).loadFirstInstanceOrDefault();
+        } catch (Throwable ex) {
+            RecordLog.warn("[ContextUtil] Failed to load ContextHolder via SPI, using ThreadLocal holder", ex);
+        }
+        if (holder == null) {
+            holder = new ThreadLocalContextHolder();
+        }
+        RecordLog.info("[ContextUtil] Using context holder: {}", holder.getClass().getName());
+        return holder;
+    }
+
     private static void initDefaultContext() {
         String defaultContextName = Constants.CONTEXT_DEFAULT_NAME;
         EntranceNode node = new EntranceNode(new StringResourceWrapper(defaultContextName, EntryType.IN), null);
         Constants.ROOT.addChild(node);
-        contextNameNodeMap.put(defaultContextName, node);
+        contextNameRegistry.register(defaultContextName, node);
     }
 
     /**
      * Not thread-safe, only for test.
      */
     static void resetContextMap() {
-        if (contextNameNodeMap != null) {
-            RecordLog.warn("Context map cleared and reset to initial state");
-            contextNameNodeMap.clear();
-            initDefaultContext();
-        }
+        RecordLog.warn("Context map cleared and reset to initial state");
+        contextNameRegistry.clear();
+        initDefaultContext();
     }
 
     /**
@@ -123,44 +130,16 @@ public class ContextUtil {
         Context context = contextHolder.get();
         //为空，则从缓存map中获取
         if (context == null) {
-            //key String ，Value为EntranceNode
-            Map<String, DefaultNode> localCacheNameMap = contextNameNodeMap;
-            DefaultNode node = localCacheNameMap.get(name);
-            if (node == null) {
-                //超过阈值直接返回
-                if (localCacheNameMap.size() > Constants.MAX_CONTEXT_NAME_SIZE) {
-                    setNullContext();
-                    return NULL_CONTEXT;
-                } else {
-                    //双重检测锁DCL，防止并发创建
-                    LOCK.lock();
-                    try {
-                        node = contextNameNodeMap.get(name);
-                        if (node == null) {
-                            if (contextNameNodeMap.size() > Constants.MAX_CONTEXT_NAME_SIZE) {
-                                setNullContext();
-                                return NULL_CONTEXT;
-                            } else {
-                                //真正创建Node EntranceNode
-                                node = new EntranceNode(new StringResourceWrapper(name, EntryType.IN), null);
-                                // Add entrance node.
-                                //将新建的EntranceNode添加到Root下 全局的 不会随着线程而消亡
-                                Constants.ROOT.addChild(node);
-                                //将新建Node写入到缓存
-                                //典型的结构，为了防止 ‘迭代稳定性问题-Iterate stable’ 对一个共享集合的写操作，有可能影响读操作的问题 读到脏数据
-                                Map<String, DefaultNode> newMap = new HashMap<>(contextNameNodeMap.size() + 1);
-                                newMap.putAll(contextNameNodeMap);
-                                newMap.put(name, node);
-                                contextNameNodeMap = newMap;
-                            }
-                        }
-                    } finally {
-                        LOCK.unlock();
-                    }
-                }
+            ContextNameRegistry.Registration registration = contextNameRegistry.getOrCreate(name, true);
+            //超过阈值直接返回
+            if (registration == null) {
+                setNullContext();
+                return NULL_CONTEXT;
             }
             //将context Name 与EntranceNode 封装为context
-            context = new Context(node, name);
+            context = new Context(registration.node, name);
+            // The context name stays in use (won't be evicted) until the context exits.
+            context.registration = registration;
             //初始化来源
             context.setOrigin(origin);
             //将context保存到当前线程Holder
@@ -170,14 +149,59 @@ public class ContextUtil {
         return context;
     }
 
+    /**
+     * <p>
+     * Create a context which is NOT bound to current thread, for the explicit context-passing entry API
+     * (e.g. {@link SphU#asyncEntryWithContext(Context, String, int, EntryType, int, Object[])}).
+     * The returned context is only used as the parent handle of entries and won't be modified by them,
+     * so it could be shared across threads (e.g. among the signals of a reactive stream) without
+     * any {@code ThreadLocal} access.
+     * </p>
+     * <p>
+     * Same as {@link #enter(String, String)}, contexts of the same name share the same {@link EntranceNode}.
+     * If the amount of context exceeds the threshold, a {@link NullContext} will be returned.
+     * </p>
+     *
+     * @param name   the context name
+     * @param origin the origin of this invocation
+     * @return the detached context
+     * @since 1.8.8
+     */
+    public static Context newDetachedContext(String name, String origin) {
+        ContextNameRegistry.Registration registration = contextNameRegistry.getOrCreate(name, false);
+        if (registration == null) {
+            warnContextExceeded();
+            return NULL_CONTEXT;
+        }
+        return Context.newAsyncContext(registration.node, name).setOrigin(origin);
+    }
+
+    /**
+     * Mark the context name as recently used, so that it won't be evicted while entries are still
+     * created within a detached context.
+     *
+     * @param context the context
+     * @since 1.8.8
+     */
+    protected static void touch(Context context) {
+        if (!(context instanceof NullContext)) {
+            contextNameRegistry.touch(context.getName());
+        }
+    }
+
     private static boolean shouldWarn = true;
 
     private static void setNullContext() {
         contextHolder.set(NULL_CONTEXT);
+        warnContextExceeded();
+    }
+
+    private static void warnContextExceeded() {
         // Don't need to be thread-safe.
         if (shouldWarn) {
             RecordLog.warn("[SentinelStatusChecker] WARN: Amount of context exceeds the threshold "
-                + Constants.MAX_CONTEXT_NAME_SIZE + ". Entries in new contexts will NOT take effect!");
+                + Constants.MAX_CONTEXT_NAME_SIZE + " and no context is idle for eviction."
+                + " Entries in new contexts will NOT take effect!");
             shouldWarn = false;
         }
     }
@@ -212,7 +236,12 @@ public class ContextUtil {
     public static void exit() {
         Context context = contextHolder.get();
         if (context != null && context.getCurEntry() == null) {
-            contextHolder.set(null);
+            contextHolder.remove();
+            ContextNameRegistry.Registration registration = context.registration;
+            if (registration != null) {
+                context.registration = null;
+                registration.release();
+            }
         }
     }
 
@@ -223,7 +252,17 @@ public class ContextUtil {
      * @since 0.2.0
      */
     public static int contextSize() {
-        return contextNameNodeMap.size();
+        return contextNameRegistry.size();
+    }
+
+    /**
+     * Get the total amount of context names that have been evicted since they were idle.
+     *
+     * @return the amount of evicted context names
+     * @since 1.8.8
+     */
+    public static long evictedContextCount() {
+        return contextNameRegistry.getEvictedCount();
     }
 
     /**
@@ -0,0 +1,257 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.eagleeye;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An appender that hands logs over to a single writer thread through a preallocated ring buffer.
+ * <p>
+ * The ring buffer is a bounded multi-producer single-consumer queue: producers claim a slot with a CAS
+ * on the tail and publish it through the slot sequence, so {@link #append(String)} never takes a lock
+ * or waits. When the buffer is full the log is dropped and counted, see {@link #getDroppedCount()}.
+ * The writer thread drains the buffer in batches into the delegate, and flushes the delegate once
+ * per batch instead of once per log. When the buffer is empty the writer thread parks, and the first
+ * producer appending afterwards unparks it.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+final class AsyncAppender extends EagleEyeAppender {
+
+    static final int DEFAULT_CAPACITY = 16384;
+
+    private static final int MAX_BATCH = 1024;
+    /**
+     * The writer thread is woken up by producers once logs arrive, so the idle park time only bounds
+     * the delay in case a wakeup is missed.
+     */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final EagleEyeAppender delegate;
+    /**
+     * Guards the delegate, which is accessed by the writer thread and by control methods.
+     */
+    private final Object lock = new Object();
+
+    private final int mask;
+    private final AtomicReferenceArray<String> slots;
+    /**
+     * A slot can be written at position {@code p} when its sequence is {@code p},
+     * and read when its sequence is {@code p + 1}.
+     */
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    /**
+     * Only accessed by the writer thread.
+     */
+    private long head;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private long reportedDropped;
+
+    /**
+     * Whether the writer thread is (about to be) parked for an empty buffer.
+     */
+    private final AtomicBoolean writerIdle = new AtomicBoolean(false);
+    private final AtomicBoolean running = new AtomicBoolean(true);
+    private volatile boolean flushRequested;
+    private final Thread writer;
+
+    AsyncAppender(EagleEyeAppender delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    AsyncAppender(EagleEyeAppender delegate, int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity should be a power of 2: " + capacity);
+        }
+        this.delegate = delegate;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<String>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "EagleEye-AsyncAppender-" + delegate.getOutputLocation());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void append(String log) {
+        if (!offer(log)) {
+            dropped.incrementAndGet();
+        } else if (writerIdle.get() && writerIdle.compareAndSet(true, false)) {
+            // The buffer was empty, wake up the writer thread.
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private boolean offer(String log) {
+        while (true) {
+            long position = tail.get();
+            int index = (int)position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, log);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                // The slot has not been consumed yet, the buffer is full.
+                return false;
+            }
+            // Another producer claimed the position, retry with the new tail.
+        }
+    }
+
+    /**
+     * Move at most {@link #MAX_BATCH} logs to the delegate.
+     *
+     * @return count of logs moved
+     */
+    private int drain() {
+        int count = 0;
+        while (count < MAX_BATCH) {
+            int index = (int)head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            String log = slots.get(index);
+            slots.lazySet(index, null);
+            sequences.set(index, head + mask + 1);
+            head++;
+            delegate.append(log);
+            count++;
+        }
+        return count;
+    }
+
+    private void writeLoop() {
+        while (running.get()) {
+            int count;
+            synchronized (lock) {
+                count = drain();
+                if (count > 0 || flushRequested) {
+                    flushRequested = false;
+                    delegate.flush();
+                }
+            }
+            if (count == 0) {
+                parkWhileEmpty();
+            }
+        }
+        synchronized (lock) {
+            int count;
+            do {
+                count = drain();
+            } while (count > 0);
+            delegate.flush();
+        }
+    }
+
+    private void parkWhileEmpty() {
+        writerIdle.set(true);
+        // Check again after announcing the idle state, as a log published before that won't wake us up.
+        if (isEmpty() && !flushRequested && running.get()) {
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        writerIdle.set(false);
+    }
+
+    private boolean isEmpty() {
+        return sequences.get((int)head & mask) != head + 1;
+    }
+
+    /**
+     * Ask the writer thread to flush after writing the pending logs, without waiting for it.
+     */
+    @Override
+    public void flush() {
+        flushRequested = true;
+        LockSupport.unpark(writer);
+    }
+
+    @Override
+    public void rollOver() {
+        synchronized (lock) {
+            delegate.rollOver();
+        }
+    }
+
+    @Override
+    public void reload() {
+        long droppedCount = dropped.get();
+        if (droppedCount > reportedDropped) {
+            EagleEye.selfLog("[WARN] " + (droppedCount - reportedDropped) + " logs dropped as the buffer is full: "
+                + delegate.getOutputLocation());
+            reportedDropped = droppedCount;
+        }
+        synchronized (lock) {
+            delegate.reload();
+        }
+    }
+
+    /**
+     * Stop the writer thread after it writes all pending logs, then close the delegate.
+     */
+    @Override
+    public void close() {
+        if (running.compareAndSet(true, false)) {
+            LockSupport.unpark(writer);
+            try {
+                writer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (lock) {
+            delegate.close();
+        }
+    }
+
+    @Override
+    public void cleanup() {
+        delegate.cleanup();
+    }
+
+    @Override
+    public String getOutputLocation() {
+        return delegate.getOutputLocation();
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncAppender [appender=" + delegate + "]";
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.eagleeye;
+
+import java.util.Arrays;
+
+/**
+ * Registered stat keys of an event for numeric IDs, like {@code flow|block|${flowId}}. Getting the key
+ * of an ID is lock-free and allocation-free, keys are only built when an ID is first seen or its key has been
+ * retired.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class IdStatKeys {
+
+    private final StatLogger statLogger;
+    private final String prefix;
+
+    private volatile Table table = new Table(new long[0], new StatKey[0]);
+
+    /**
+     * @param statLogger the logger to register keys in
+     * @param prefix     the key of an ID is {@code prefix + id}
+     */
+    public IdStatKeys(StatLogger statLogger, String prefix) {
+        EagleEyeCoreUtils.checkNotNullEmpty(prefix, "prefix");
+        if (statLogger == null) {
+            throw new IllegalArgumentException("statLogger cannot be null");
+        }
+        this.statLogger = statLogger;
+        this.prefix = prefix;
+    }
+
+    public StatKey get(long id) {
+        Table t = table;
+        int i = Arrays.binarySearch(t.ids, id);
+        if (i >= 0) {
+            StatKey key = t.keys[i];
+            if (!key.isRetired()) {
+                return key;
+            }
+        }
+        return register(id);
+    }
+
+    private synchronized StatKey register(long id) {
+        Table t = table;
+        int i = Arrays.binarySearch(t.ids, id);
+        if (i >= 0 && !t.keys[i].isRetired()) {
+            return t.keys[i];
+        }
+        StatKey key = statLogger.statKey(prefix + id);
+        if (i >= 0) {
+            StatKey[] keys = t.keys.clone();
+            keys[i] = key;
+            table = new Table(t.ids, keys);
+        } else {
+            int at = -i - 1;
+            int n = t.ids.length;
+            long[] ids = new long[n + 1];
+            StatKey[] keys = new StatKey[n + 1];
+            System.arraycopy(t.ids, 0, ids, 0, at);
+            System.arraycopy(t.keys, 0, keys, 0, at);
+            ids[at] = id;
+            keys[at] = key;
+            System.arraycopy(t.ids, at, ids, at + 1, n - at);
+            System.arraycopy(t.keys, at, keys, at + 1, n - at);
+            table = new Table(ids, keys);
+        }
+        return key;
+    }
+
+    /**
+     * Sorted IDs and their keys.
+     */
+    private static final class Table {
+        final long[] ids;
+        final StatKey[] keys;
+
+        Table(long[] ids, StatKey[] keys) {
+            this.ids = ids;
+            this.keys = keys;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.eagleeye;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A stat key registered in a {@link StatLogger} in advance, see {@link StatLogger#statKey(String...)}.
+ * Counting through a registered key only adds to striped counters, without building keys or looking up
+ * the rolling data. Counters are cumulative, the rolling thread writes their increments of every interval
+ * without locking counting threads.
+ * <p>
+ * A key idle for a long time is retired and no longer written, so it should be obtained from the logger
+ * again if {@link #isRetired()}.
+ * </p>
+ * <p>
+ * When the logger already holds as many registered keys as its max entry count, the key is not registered,
+ * and counting through it is the same as counting through its {@link StatEntry}.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class StatKey {
+
+    private final StatEntry entry;
+    private final boolean registered;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder value = new LongAdder();
+
+    private volatile boolean retired = false;
+
+    /**
+     * Accessed by the rolling thread only.
+     */
+    private long rolledCount = 0;
+    private long rolledValue = 0;
+    private long lastCountedMillis;
+
+    StatKey(StatEntry entry, boolean registered) {
+        this.entry = entry;
+        this.registered = registered;
+        this.lastCountedMillis = System.currentTimeMillis();
+    }
+
+    public void count() {
+        if (!registered) {
+            entry.count();
+            return;
+        }
+        count.increment();
+    }
+
+    public void count(long count) {
+        if (!registered) {
+            entry.count(count);
+            return;
+        }
+        this.count.add(count);
+    }
+
+    public void countAndSum(long valueToSum) {
+        countAndSum(1, valueToSum);
+    }
+
+    public void countAndSum(long count, long valueToSum) {
+        if (!registered) {
+            entry.countAndSum(count, valueToSum);
+            return;
+        }
+        this.count.add(count);
+        this.value.add(valueToSum);
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    public boolean isRetired() {
+        return retired;
+    }
+
+    public String[] getKeys() {
+        return entry.getKeys();
+    }
+
+    StatEntry getEntry() {
+        return entry;
+    }
+
+    long getLastCountedMillis() {
+        return lastCountedMillis;
+    }
+
+    void retire() {
+        this.retired = true;
+    }
+
+    /**
+     * Add the increments since the last rolling to the rolling data.
+     *
+     * @param now current time of the rolling
+     * @return false if there are no increments
+     */
+    boolean rollTo(StatRollingData data, long now) {
+        long currentCount = count.sum();
+        long currentValue = value.sum();
+        if (currentCount == rolledCount && currentValue == rolledValue) {
+            return false;
+        }
+        data.getStatEntryFunc(entry, StatEntryFuncFactory.COUNT_SUM)
+            .countAndSum(currentCount - rolledCount, currentValue - rolledValue);
+        rolledCount = currentCount;
+        rolledValue = currentValue;
+        lastCountedMillis = now;
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "StatKey [keys=" + entry + ", registered=" + registered + ", retired=" + retired + "]";
+    }
+}
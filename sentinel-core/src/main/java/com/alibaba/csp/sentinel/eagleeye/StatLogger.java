@@ -15,7 +15,11 @@
  */
 package com.alibaba.csp.sentinel.eagleeye;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -23,6 +27,11 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public final class StatLogger {
 
+    /**
+     * Registered keys idle for this long are retired.
+     */
+    private static final long STAT_KEY_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
     private final String loggerName;
 
     private final EagleEyeAppender appender;
@@ -37,8 +46,21 @@ public final class StatLogger {
     private final char keyDelimiter;
     private final char valueDelimiter;
 
+    private final ConcurrentMap<StatEntry, StatKey> statKeys = new ConcurrentHashMap<StatEntry, StatKey>();
+    /**
+     * Keys retired by the last rolling, which may still be counted by threads holding them.
+     */
+    private final List<StatKey> retiredKeys = new ArrayList<StatKey>();
+    private final long statKeyIdleMillis;
+
     StatLogger(String loggerName, EagleEyeAppender appender, long intervalMillis, int maxEntryCount,
                char entryDelimiter, char keyDelimiter, char valueDelimiter) {
+        this(loggerName, appender, intervalMillis, maxEntryCount, entryDelimiter, keyDelimiter, valueDelimiter,
+            STAT_KEY_IDLE_MILLIS);
+    }
+
+    StatLogger(String loggerName, EagleEyeAppender appender, long intervalMillis, int maxEntryCount,
+               char entryDelimiter, char keyDelimiter, char valueDelimiter, long statKeyIdleMillis) {
         this.loggerName = loggerName;
         this.appender = appender;
         this.intervalMillis = intervalMillis;
@@ -46,6 +68,7 @@ public final class StatLogger {
         this.entryDelimiter = entryDelimiter;
         this.keyDelimiter = keyDelimiter;
         this.valueDelimiter = valueDelimiter;
+        this.statKeyIdleMillis = statKeyIdleMillis;
         this.ref = new AtomicReference<StatRollingData>();
         rolling();
     }
@@ -93,11 +116,62 @@ public final class StatLogger {
             StatRollingData nextData = new StatRollingData(
                 this, initialCapacity, timeSlot, rollingTimeMillis);
             if (ref.compareAndSet(prevData, nextData)) {
+                if (prevData != null) {
+                    rollStatKeys(prevData, now);
+                }
                 return prevData;
             }
         } while (true);
     }
 
+    /**
+     * Add increments of registered keys to the rolled data, and retire keys idle for a long time.
+     */
+    private void rollStatKeys(StatRollingData data, long now) {
+        synchronized (retiredKeys) {
+            for (StatKey key : retiredKeys) {
+                key.rollTo(data, now);
+            }
+            retiredKeys.clear();
+            for (StatKey key : statKeys.values()) {
+                if (!key.rollTo(data, now) && now - key.getLastCountedMillis() >= statKeyIdleMillis) {
+                    key.retire();
+                    statKeys.remove(key.getEntry(), key);
+                    retiredKeys.add(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the registered key of the keys, the key is registered if absent. Counting through a registered key
+     * is cheaper than {@link #stat(String[])}, the key should be held if it's counted frequently.
+     * <p>
+     * Registered keys live until they have been idle for a while, so at most {@code maxEntryCount} keys are
+     * registered. Beyond that the returned key is not registered and counts through the rolling data as
+     * {@link #stat(String[])} does.
+     * </p>
+     *
+     * @param keys keys of the stat entry
+     * @return the registered key
+     * @since 1.8.8
+     */
+    public StatKey statKey(String... keys) {
+        StatEntry entry = new StatEntry(this, keys);
+        StatKey key = statKeys.get(entry);
+        if (key == null) {
+            if (statKeys.size() >= maxEntryCount) {
+                return new StatKey(entry, false);
+            }
+            StatKey newKey = new StatKey(entry, true);
+            key = statKeys.putIfAbsent(entry, newKey);
+            if (key == null) {
+                key = newKey;
+            }
+        }
+        return key;
+    }
+
     public StatEntry stat(String key) {
         return new StatEntry(this, key);
     }
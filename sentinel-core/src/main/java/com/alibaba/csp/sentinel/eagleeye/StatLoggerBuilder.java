@@ -30,6 +30,8 @@ public final class StatLoggerBuilder extends BaseLoggerBuilder<StatLoggerBuilder
 
     private char valueDelimiter = ',';
 
+    private boolean asyncAppender = false;
+
     private EagleEyeAppender appender = null;
 
     StatLoggerBuilder(String loggerName) {
@@ -60,6 +62,18 @@ public final class StatLoggerBuilder extends BaseLoggerBuilder<StatLoggerBuilder
         return this;
     }
 
+    /**
+     * Write logs on a dedicated thread through a ring buffer, logs are dropped when the buffer is full.
+     *
+     * @param asyncAppender whether to write logs asynchronously
+     * @return the builder
+     * @since 1.8.8
+     */
+    public StatLoggerBuilder asyncAppender(boolean asyncAppender) {
+        this.asyncAppender = asyncAppender;
+        return this;
+    }
+
     StatLoggerBuilder appender(EagleEyeAppender appender) {
         this.appender = appender;
         return this;
@@ -80,7 +94,7 @@ public final class StatLoggerBuilder extends BaseLoggerBuilder<StatLoggerBuilder
         EagleEyeAppender appender = this.appender;
         if (appender == null) {
             EagleEyeRollingFileAppender rfAppender = new EagleEyeRollingFileAppender(filePath, maxFileSize);
-            appender = new SyncAppender(rfAppender);
+            appender = asyncAppender ? new AsyncAppender(rfAppender) : new SyncAppender(rfAppender);
         }
 
         EagleEyeLogDaemon.watch(appender);
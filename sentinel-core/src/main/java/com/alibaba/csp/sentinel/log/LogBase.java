@@ -42,6 +42,13 @@ public class LogBase {
     public static final String LOG_OUTPUT_TYPE = "csp.sentinel.log.output.type";
     public static final String LOG_CHARSET = "csp.sentinel.log.charset";
     public static final String LOG_LEVEL = "csp.sentinel.log.level";
+    /**
+     * Whether biz log records are written by background threads, "true" by default. When turned off,
+     * records are written by the logging threads, and none is discarded under heavy logging.
+     *
+     * @since 1.8.8
+     */
+    public static final String LOG_ASYNC = "csp.sentinel.log.async";
 
     /**
      * Output biz log (e.g. RecordLog and CommandCenterLog) to file.
@@ -63,6 +70,7 @@ public class LogBase {
     private static String logBaseDir;
     private static String logCharSet;
     private static Level logLevel;
+    private static boolean logAsync;
 
     static {
         try {
@@ -80,6 +88,7 @@ public class LogBase {
         logBaseDir = addSeparator(System.getProperty(USER_HOME)) + DIR_NAME + File.separator;
         logCharSet = LOG_CHARSET_UTF8;
         logLevel = LOG_DEFAULT_LEVEL;
+        logAsync = true;
     }
 
     private static void loadProperties() {
@@ -119,6 +128,10 @@ public class LogBase {
             }
         }
         System.out.println("INFO: Sentinel log level is: " + logLevel);
+
+        String async = properties.getProperty(LOG_ASYNC);
+        logAsync = async == null || !"false".equalsIgnoreCase(async.trim());
+        System.out.println("INFO: Sentinel log async is: " + logAsync);
     }
 
 
@@ -161,4 +174,14 @@ public class LogBase {
     public static Level getLogLevel() {
         return logLevel;
     }
+
+    /**
+     * Whether biz log records are written by background threads.
+     *
+     * @return true by default
+     * @since 1.8.8
+     */
+    public static boolean isLogAsync() {
+        return logAsync;
+    }
 }
@@ -34,20 +34,30 @@ import static com.alibaba.csp.sentinel.log.LogBase.LOG_OUTPUT_TYPE_FILE;
  */
 public class BaseJulLogger {
 
+    /**
+     * Larger buffers are not kept by threads, so that a huge message won't be retained.
+     */
+    private static final int MAX_FORMAT_BUFFER_CAPACITY = 4096;
+
+    private static final ThreadLocal<StringBuilder> FORMAT_BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
     protected void log(Logger logger, Handler handler, Level level, String detail, Object... params) {
-        if (detail == null) {
+        // Check the level first, so that nothing is formatted for disabled levels.
+        if (detail == null || !logger.isLoggable(level)) {
             return;
         }
         disableOtherHandlers(logger, handler);
 
-        // Compatible with slf4j placeholder format "{}".
-        FormattingTuple formattingTuple = MessageFormatter.arrayFormat(detail, params);
-        String message = formattingTuple.getMessage();
-        logger.log(level, message);
+        logger.log(level, formatMessage(detail, params));
     }
 
     protected void log(Logger logger, Handler handler, Level level, String detail, Throwable throwable) {
-        if (detail == null) {
+        if (detail == null || !logger.isLoggable(level)) {
             return;
         }
         disableOtherHandlers(logger, handler);
@@ -67,7 +77,8 @@ public class BaseJulLogger {
                     fileName += ".pid" + PidUtil.getPid();
                 }
                 try {
-                    handler = new DateFileLogHandler(fileName + ".%d", 1024 * 1024 * 200, 4, true);
+                    handler = new DateFileLogHandler(fileName + ".%d", 1024 * 1024 * 200, 4, true,
+                        LogBase.isLogAsync());
                     handler.setFormatter(formatter);
                     handler.setEncoding(logCharSet);
                     handler.setLevel(LogBase.getLogLevel());
@@ -77,7 +88,7 @@ public class BaseJulLogger {
                 break;
             case LOG_OUTPUT_TYPE_CONSOLE:
                 try {
-                    handler = new ConsoleHandler();
+                    handler = new ConsoleHandler(LogBase.isLogAsync());
                     handler.setFormatter(formatter);
                     handler.setEncoding(logCharSet);
                     handler.setLevel(LogBase.getLogLevel());
@@ -98,6 +109,32 @@ public class BaseJulLogger {
         return handler;
     }
 
+    /**
+     * Format the message in a buffer reused by the thread. Compatible with slf4j placeholder format "{}",
+     * a trailing {@link Throwable} argument is not substituted.
+     *
+     * @param detail message pattern
+     * @param params arguments of the pattern
+     * @return the formatted message
+     */
+    static String formatMessage(String detail, Object... params) {
+        int argCount = params == null ? 0 : params.length;
+        if (argCount > 0 && params[argCount - 1] instanceof Throwable) {
+            argCount--;
+        }
+        if (argCount == 0 || detail.indexOf(MessageFormatter.DELIM_STR) == -1) {
+            return detail;
+        }
+        StringBuilder buffer = FORMAT_BUFFER.get();
+        buffer.setLength(0);
+        MessageFormatter.formatTo(buffer, detail, params, argCount);
+        String message = buffer.toString();
+        if (buffer.capacity() > MAX_FORMAT_BUFFER_CAPACITY) {
+            FORMAT_BUFFER.remove();
+        }
+        return message;
+    }
+
     /**
      * Remove all current handlers from the logger and attach it with the given log handler.
      *
@@ -109,6 +146,10 @@ public class BaseJulLogger {
             return;
         }
 
+        // Handlers are rarely changed, so check without the lock first.
+        if (isOnlyHandler(logger, handler)) {
+            return;
+        }
         synchronized (logger) {
             Handler[] handlers = logger.getHandlers();
             if (handlers == null) {
@@ -127,4 +168,9 @@ public class BaseJulLogger {
             logger.addHandler(handler);
         }
     }
+
+    private static boolean isOnlyHandler(Logger logger, Handler handler) {
+        Handler[] handlers = logger.getHandlers();
+        return handlers != null && handlers.length == 1 && handlers[0].equals(handler);
+    }
 }
@@ -65,9 +65,20 @@ class ConsoleHandler extends Handler {
 
     private AtomicReference<Future<?>> lastFuture = new AtomicReference<>();
 
+    private final boolean async;
+
     public ConsoleHandler() {
+        this(true);
+    }
+
+    /**
+     * @param async whether records are written by background threads
+     * @since 1.8.8
+     */
+    public ConsoleHandler(boolean async) {
         this.stdoutHandler = new StreamHandler(System.out, new CspFormatter());
         this.stderrHandler = new StreamHandler(System.err, new CspFormatter());
+        this.async = async;
     }
 
     @Override
@@ -84,7 +95,12 @@ class ConsoleHandler extends Handler {
 
     @Override
     public void publish(LogRecord record) {
-        lastFuture.set(executor.submit(new LogTask(record, stdoutHandler, stderrHandler)));
+        LogTask task = new LogTask(record, stdoutHandler, stderrHandler);
+        if (async) {
+            lastFuture.set(executor.submit(task));
+        } else {
+            task.run();
+        }
     }
 
     @Override
@@ -25,30 +25,78 @@ import java.util.logging.LogRecord;
  */
 class CspFormatter extends Formatter {
 
+    /**
+     * Larger buffers are not kept by threads, so that a huge record won't be retained.
+     */
+    private static final int MAX_BUFFER_CAPACITY = 8192;
+
     private final DateTimeFormatter dateFormat = DateTimeFormatter
-            .ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+            .ofPattern("yyyy-MM-dd HH:mm:ss.")
             .withZone(ZoneId.systemDefault());
 
+    private final ThreadLocal<StringBuilder> buffer = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(1000);
+        }
+    };
+
+    /**
+     * The formatted date of the last second, milliseconds are appended to it.
+     */
+    private volatile DatePrefix datePrefix = new DatePrefix(Long.MIN_VALUE, null);
+
     @Override
     public String format(LogRecord record) {
-        StringBuilder builder = new StringBuilder(1000);
-        builder.append(dateFormat.format(Instant.ofEpochMilli(record.getMillis()))).append(" ");
+        StringBuilder builder = buffer.get();
+        builder.setLength(0);
+        appendDate(builder, record.getMillis());
+        builder.append(" ");
         builder.append(record.getLevel().getName()).append(" ");
         builder.append(formatMessage(record));
 
-        String throwable = "";
         if (record.getThrown() != null) {
             StringWriter sw = new StringWriter();
             PrintWriter pw = new PrintWriter(sw);
             pw.println();
             record.getThrown().printStackTrace(pw);
             pw.close();
-            throwable = sw.toString();
-        }
-        builder.append(throwable);
-        if ("".equals(throwable)) {
+            builder.append(sw.getBuffer());
+        } else {
             builder.append("\n");
         }
-        return builder.toString();
+        String log = builder.toString();
+        if (builder.capacity() > MAX_BUFFER_CAPACITY) {
+            buffer.remove();
+        }
+        return log;
+    }
+
+    private void appendDate(StringBuilder builder, long millis) {
+        long second = Math.floorDiv(millis, 1000L);
+        DatePrefix prefix = datePrefix;
+        if (prefix.second != second) {
+            prefix = new DatePrefix(second, dateFormat.format(Instant.ofEpochSecond(second)));
+            datePrefix = prefix;
+        }
+        builder.append(prefix.text);
+        int milliOfSecond = (int)Math.floorMod(millis, 1000L);
+        if (milliOfSecond < 100) {
+            builder.append('0');
+        }
+        if (milliOfSecond < 10) {
+            builder.append('0');
+        }
+        builder.append(milliOfSecond);
+    }
+
+    private static final class DatePrefix {
+        final long second;
+        final String text;
+
+        DatePrefix(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
     }
 }
@@ -60,19 +60,36 @@ class DateFileLogHandler extends Handler {
     private final int limit;
     private final int count;
     private final boolean append;
+    private final boolean async;
 
     private volatile boolean initialized = false;
 
+    /**
+     * Name of the current log file, which is checked at most once a second.
+     */
+    private volatile String currentFileName;
+    private volatile long nextFileCheckMillis;
+
     private volatile long startDate = System.currentTimeMillis();
     private volatile long endDate;
 
     private final Object monitor = new Object();
 
     DateFileLogHandler(String pattern, int limit, int count, boolean append) throws SecurityException {
+        this(pattern, limit, count, append, true);
+    }
+
+    /**
+     * @param async whether records are written by background threads
+     * @since 1.8.8
+     */
+    DateFileLogHandler(String pattern, int limit, int count, boolean append, boolean async)
+        throws SecurityException {
         this.pattern = pattern;
         this.limit = limit;
         this.count = count;
         this.append = append;
+        this.async = async;
         rotateDate();
         this.initialized = true;
     }
@@ -101,11 +118,15 @@ class DateFileLogHandler extends Handler {
             record.setMessage("missed file rolling at: " + new Date(endDate) + "\n" + msg);
         }
 
-        executor.execute(new LogTask(record,handler));
+        if (async) {
+            executor.execute(new LogTask(record, handler));
+        } else {
+            handler.publish(record);
+        }
     }
 
     private boolean shouldRotate(LogRecord record) {
-        if (endDate <= record.getMillis() || !logFileExits()) {
+        if (endDate <= record.getMillis() || !logFileExits(record.getMillis())) {
             return true;
         }
         return false;
@@ -117,15 +138,16 @@ class DateFileLogHandler extends Handler {
         if (handler != null) { handler.setFormatter(newFormatter); }
     }
 
-    private boolean logFileExits() {
+    private boolean logFileExits(long now) {
+        if (now < nextFileCheckMillis) {
+            return true;
+        }
         try {
-            String fileName = pattern.replace("%d", dateFormat.format(Instant.now()));
-            // When file count is not 1, the first log file name will end with ".0"
-            if (count != 1) {
-                fileName += ".0";
+            boolean exists = new File(currentFileName).exists();
+            if (exists) {
+                nextFileCheckMillis = now + 1000;
             }
-            File logFile = new File(fileName);
-            return logFile.exists();
+            return exists;
         } catch (Throwable e) {
 
         }
@@ -138,6 +160,9 @@ class DateFileLogHandler extends Handler {
             handler.close();
         }
         String newPattern = pattern.replace("%d", dateFormat.format(Instant.now()));
+        // When file count is not 1, the first log file name will end with ".0"
+        this.currentFileName = count != 1 ? newPattern + ".0" : newPattern;
+        this.nextFileCheckMillis = 0;
         // Get current date.
         Calendar next = Calendar.getInstance();
         // Begin of next date.
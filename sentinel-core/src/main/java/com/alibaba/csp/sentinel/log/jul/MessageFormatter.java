@@ -188,25 +188,38 @@ final public class MessageFormatter {
             return new FormattingTuple(messagePattern);
         }
 
-        int i = 0;
-        int j;
+        if (argArray.length > 0 && messagePattern.indexOf(DELIM_STR) == -1) {
+            // this is a simple string
+            return new FormattingTuple(messagePattern, argArray, throwable);
+        }
+
         // use string builder for better multicore performance
         StringBuilder sbuf = new StringBuilder(messagePattern.length() + 50);
+        formatTo(sbuf, messagePattern, argArray, argArray.length);
+        return new FormattingTuple(sbuf.toString(), argArray, throwable);
+    }
+
+    /**
+     * Append the formatted message to the given builder, without creating a {@link FormattingTuple}.
+     *
+     * @param sbuf           the builder to append to
+     * @param messagePattern the message pattern which will be parsed and formatted
+     * @param argArray       an array of arguments to be substituted in place of formatting anchors
+     * @param argCount       count of the leading arguments to substitute
+     * @since 1.8.8
+     */
+    static void formatTo(StringBuilder sbuf, final String messagePattern, final Object[] argArray, int argCount) {
+        int i = 0;
+        int j;
 
         int L;
-        for (L = 0; L < argArray.length; L++) {
+        for (L = 0; L < argCount; L++) {
 
             j = messagePattern.indexOf(DELIM_STR, i);
 
             if (j == -1) {
                 // no more variables
-                if (i == 0) { // this is a simple string
-                    return new FormattingTuple(messagePattern, argArray, throwable);
-                } else { // add the tail string which contains no variables and return
-                    // the result.
-                    sbuf.append(messagePattern, i, messagePattern.length());
-                    return new FormattingTuple(sbuf.toString(), argArray, throwable);
-                }
+                break;
             } else {
                 if (isEscapedDelimeter(messagePattern, j)) {
                     if (!isDoubleEscaped(messagePattern, j)) {
@@ -219,20 +232,19 @@ final public class MessageFormatter {
                         // itself escaped: "abc x:\\{}"
                         // we have to consume one backward slash
                         sbuf.append(messagePattern, i, j - 1);
-                        deeplyAppendParameter(sbuf, argArray[L], new HashMap<Object[], Object>());
+                        deeplyAppendParameter(sbuf, argArray[L], null);
                         i = j + 2;
                     }
                 } else {
                     // normal case
                     sbuf.append(messagePattern, i, j);
-                    deeplyAppendParameter(sbuf, argArray[L], new HashMap<Object[], Object>());
+                    deeplyAppendParameter(sbuf, argArray[L], null);
                     i = j + 2;
                 }
             }
         }
         // append the characters following the last {} pair.
         sbuf.append(messagePattern, i, messagePattern.length());
-        return new FormattingTuple(sbuf.toString(), argArray, throwable);
     }
 
     final static boolean isEscapedDelimeter(String messagePattern, int delimeterStartIndex) {
@@ -301,6 +313,10 @@ final public class MessageFormatter {
 
     private static void objectArrayAppend(StringBuilder sbuf, Object[] a, Map<Object[], Object> seenMap) {
         sbuf.append('[');
+        if (seenMap == null) {
+            // Only created for arrays of objects.
+            seenMap = new HashMap<Object[], Object>();
+        }
         if (!seenMap.containsKey(a)) {
             seenMap.put(a, null);
             final int len = a.length;
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.node;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.SphO;
@@ -50,6 +51,8 @@ public class DefaultNode extends StatisticNode {
      */
     private volatile Set<Node> childList = new HashSet<>();
 
+    private final ReentrantLock childLock = new ReentrantLock();
+
     /**
      * Associated cluster node.
      */
@@ -83,18 +86,43 @@ public class DefaultNode extends StatisticNode {
             return;
         }
         if (!childList.contains(node)) {
-            synchronized (this) {
+            childLock.lock();
+            try {
                 if (!childList.contains(node)) {
                     Set<Node> newSet = new HashSet<>(childList.size() + 1);
                     newSet.addAll(childList);
                     newSet.add(node);
                     childList = newSet;
                 }
+            } finally {
+                childLock.unlock();
             }
             RecordLog.info("Add child <{}> to node <{}>", ((DefaultNode)node).id.getName(), id.getName());
         }
     }
 
+    /**
+     * Remove the child node from current node.
+     *
+     * @param node the child node to remove
+     * @since 1.8.8
+     */
+    public void removeChild(Node node) {
+        if (node == null || !childList.contains(node)) {
+            return;
+        }
+        childLock.lock();
+        try {
+            if (childList.contains(node)) {
+                Set<Node> newSet = new HashSet<>(childList);
+                newSet.remove(node);
+                childList = newSet;
+            }
+        } finally {
+            childLock.unlock();
+        }
+    }
+
     /**
      * Reset the child node list.
      */
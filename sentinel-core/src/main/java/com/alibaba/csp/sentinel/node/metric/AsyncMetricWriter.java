@@ -0,0 +1,188 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
+import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>
+ * Writes metrics with a {@link MetricWriter} on a dedicated I/O thread, so that the thread aggregating
+ * metrics never waits for disk I/O.
+ * </p>
+ * <p>
+ * Submitted metrics are copied into the front batch, which is swapped with the back batch whenever the
+ * I/O thread gets idle. The I/O thread then writes all seconds in the back batch and flushes them at once.
+ * Both batches are reusable {@link MetricSnapshot}s. When the I/O thread falls behind and the front batch
+ * holds more than {@code maxPendingRows} rows, new metrics are dropped rather than blocking the caller.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class AsyncMetricWriter {
+
+    public static final int DEFAULT_MAX_PENDING_ROWS = 200000;
+
+    private static final long CLOSE_TIMEOUT_MS = 3000;
+
+    private final MetricWriter writer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final int maxPendingRows;
+    private MetricSnapshot front = new MetricSnapshot();
+    private MetricSnapshot back = new MetricSnapshot();
+    private boolean stopped = false;
+
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final Thread ioThread;
+
+    public AsyncMetricWriter(MetricWriter writer) {
+        this(writer, DEFAULT_MAX_PENDING_ROWS);
+    }
+
+    public AsyncMetricWriter(MetricWriter writer, int maxPendingRows) {
+        AssertUtil.notNull(writer, "metric writer cannot be null");
+        AssertUtil.isTrue(maxPendingRows > 0, "maxPendingRows should be positive");
+        this.writer = writer;
+        this.maxPendingRows = maxPendingRows;
+        this.ioThread = new NamedThreadFactory("sentinel-metrics-writer", true).newThread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        });
+        this.ioThread.start();
+    }
+
+    /**
+     * Submit metrics of the given second. This method never waits for I/O.
+     *
+     * @param time  timestamp of the second
+     * @param nodes metrics of the second
+     * @return false if the metrics are dropped as too many rows are pending or the writer is closed
+     */
+    public boolean submit(long time, List<MetricNode> nodes) {
+        lock.lock();
+        try {
+            if (!accept(nodes.size())) {
+                return false;
+            }
+            front.addNodes(time, nodes);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Submit all metrics of the snapshot. The snapshot is copied, so the caller may reuse it at once.
+     * This method never waits for I/O.
+     *
+     * @param snapshot metrics to write
+     * @return false if the metrics are dropped as too many rows are pending or the writer is closed
+     * @since 1.8.8
+     */
+    public boolean submit(MetricSnapshot snapshot) {
+        lock.lock();
+        try {
+            if (!accept(snapshot.rowCount())) {
+                return false;
+            }
+            front.addAll(snapshot);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean accept(int rows) {
+        if (!stopped && front.rowCount() + rows <= maxPendingRows) {
+            return true;
+        }
+        long dropped = droppedCount.incrementAndGet();
+        if (dropped % 60 == 1) {
+            RecordLog.warn("[AsyncMetricWriter] Metric writing falls behind, dropped submissions: {}", dropped);
+        }
+        return false;
+    }
+
+    /**
+     * Write all pending metrics and stop the I/O thread, then close the underlying writer.
+     */
+    public void close() throws Exception {
+        lock.lock();
+        try {
+            stopped = true;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        ioThread.join(CLOSE_TIMEOUT_MS);
+        writer.close();
+    }
+
+    /**
+     * @return count of submissions dropped since the I/O thread fell behind
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    private void drain() {
+        while (true) {
+            MetricSnapshot batch;
+            lock.lock();
+            try {
+                while (front.rowCount() == 0 && !stopped) {
+                    notEmpty.await(1, TimeUnit.SECONDS);
+                }
+                if (front.rowCount() == 0) {
+                    return;
+                }
+                batch = front;
+                front = back;
+                back = batch;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+            write(batch);
+        }
+    }
+
+    private void write(MetricSnapshot batch) {
+        try {
+            writer.append(batch);
+            writer.flush();
+        } catch (Exception e) {
+            RecordLog.warn("[AsyncMetricWriter] Write metric error", e);
+        } finally {
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes {@link MetricNode}s of every second into the binary metric format, see {@link BinaryMetricFormat}.
+ * Not thread-safe, and the dictionary should be {@link #reset()} whenever a new metric file is opened.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+class BinaryMetricEncoder {
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+    void reset() {
+        dictionary.clear();
+    }
+
+    void writeHeader(OutputStream out, long createTime) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(BinaryMetricFormat.HEADER_SIZE);
+        header.putInt(BinaryMetricFormat.MAGIC)
+            .putShort(BinaryMetricFormat.VERSION)
+            .putShort((short)0)
+            .putLong(createTime);
+        out.write(header.array(), 0, header.position());
+    }
+
+    /**
+     * Write the metrics of one second, including dictionary entries of resources not seen before.
+     *
+     * @param out   the output stream
+     * @param time  timestamp of the second
+     * @param nodes metrics of the second
+     * @return offset of the block relative to the first written byte
+     * @throws IOException if an I/O error occurs
+     */
+    int write(OutputStream out, long time, List<MetricNode> nodes) throws IOException {
+        int rows = nodes.size();
+        int[] ids = new int[rows];
+        int dictSize = 0;
+        for (int i = 0; i < rows; i++) {
+            MetricNode node = nodes.get(i);
+            Integer id = dictionary.get(node.getResource());
+            if (id == null) {
+                id = dictionary.size();
+                byte[] name = node.getResource().getBytes(BinaryMetricFormat.CHARSET);
+                ensureCapacity(dictSize + BinaryMetricFormat.DICT_FIXED_SIZE + name.length);
+                buffer.put(BinaryMetricFormat.TYPE_DICT)
+                    .putInt(id)
+                    .putInt(node.getClassification())
+                    .putInt(name.length)
+                    .put(name);
+                dictSize = buffer.position();
+                dictionary.put(node.getResource(), id);
+            }
+            ids[i] = id;
+        }
+        ensureCapacity(dictSize + BinaryMetricFormat.blockSize(rows));
+        buffer.put(BinaryMetricFormat.TYPE_BLOCK).putLong(time).putInt(rows);
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(ids[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putLong(nodes.get(i).getPassQps());
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putLong(nodes.get(i).getBlockQps());
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putLong(nodes.get(i).getSuccessQps());
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putLong(nodes.get(i).getExceptionQps());
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putLong(nodes.get(i).getRt());
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putLong(nodes.get(i).getOccupiedPassQps());
+        }
+        for (int i = 0; i < rows; i++) {
+            buffer.putInt(nodes.get(i).getConcurrency());
+        }
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+        return dictSize;
+    }
+
+    private void ensureCapacity(int required) {
+        if (buffer.capacity() >= required) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+        ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+    }
+}
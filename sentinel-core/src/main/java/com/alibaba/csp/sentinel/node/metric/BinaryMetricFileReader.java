@@ -0,0 +1,331 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Reads a binary metric file (see {@link BinaryMetricFormat}) through a read-only memory mapping,
+ * so that rows can be filtered by the ID column without decoding anything else. The mapping is
+ * refreshed when the file grows, together with the resource dictionary. Reads share a read lock,
+ * so concurrent queries of the same file don't block each other.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+class BinaryMetricFileReader {
+
+    private final String fileName;
+    private final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+
+    private MappedByteBuffer buffer;
+    private int limit;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<Integer> classifications = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    /**
+     * All dictionary entries before this position have been loaded.
+     */
+    private int dictScannedTo = BinaryMetricFormat.HEADER_SIZE;
+
+    BinaryMetricFileReader(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return if should continue read, return true, else false.
+     */
+    boolean readMetricsByEndTime(List<MetricNode> list, long offset, long beginSecond, long endSecond,
+                                 String identity, int maxLines) throws IOException {
+        lockForRead();
+        try {
+            int pos = startPosition(offset);
+            if (pos < 0) {
+                return true;
+            }
+            int targetId = identity == null ? -1 : idOf(identity);
+            while (pos < limit) {
+                byte type = buffer.get(pos);
+                if (type == BinaryMetricFormat.TYPE_DICT) {
+                    int end = dictEntryEnd(pos);
+                    if (end < 0) {
+                        return true;
+                    }
+                    pos = end;
+                    continue;
+                }
+                if (type != BinaryMetricFormat.TYPE_BLOCK) {
+                    // Corrupted file, stop reading.
+                    return false;
+                }
+                int rows = blockRows(pos);
+                if (rows < 0) {
+                    return true;
+                }
+                long timestamp = buffer.getLong(pos + 1);
+                long currentSecond = timestamp / 1000;
+                // currentSecond should >= beginSecond, otherwise a wrong metric file must occur
+                if (currentSecond < beginSecond || currentSecond > endSecond) {
+                    return false;
+                }
+                if (identity == null || targetId >= 0) {
+                    int idColumn = pos + BinaryMetricFormat.BLOCK_FIXED_SIZE;
+                    for (int r = 0; r < rows; r++) {
+                        if (identity == null || buffer.getInt(idColumn + r * 4) == targetId) {
+                            list.add(readRow(pos, rows, r, timestamp));
+                            if (list.size() >= maxLines) {
+                                return false;
+                            }
+                        }
+                    }
+                }
+                pos += BinaryMetricFormat.blockSize(rows);
+            }
+            return true;
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    void readMetrics(List<MetricNode> list, long offset, int recommendLines) throws IOException {
+        lockForRead();
+        try {
+            int pos = startPosition(offset);
+            if (pos < 0) {
+                return;
+            }
+            long lastSecond = -1;
+            if (list.size() > 0) {
+                lastSecond = list.get(list.size() - 1).getTimestamp() / 1000;
+            }
+            while (pos < limit) {
+                byte type = buffer.get(pos);
+                if (type == BinaryMetricFormat.TYPE_DICT) {
+                    int end = dictEntryEnd(pos);
+                    if (end < 0) {
+                        return;
+                    }
+                    pos = end;
+                    continue;
+                }
+                if (type != BinaryMetricFormat.TYPE_BLOCK) {
+                    return;
+                }
+                int rows = blockRows(pos);
+                if (rows < 0) {
+                    return;
+                }
+                long timestamp = buffer.getLong(pos + 1);
+                long currentSecond = timestamp / 1000;
+                // Data of the same second should not be split.
+                if (list.size() >= recommendLines && currentSecond != lastSecond) {
+                    return;
+                }
+                for (int r = 0; r < rows; r++) {
+                    list.add(readRow(pos, rows, r, timestamp));
+                }
+                lastSecond = currentSecond;
+                pos += BinaryMetricFormat.blockSize(rows);
+            }
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read a single row located by the resource index.
+     *
+     * @param blockOffset offset of the block
+     * @param row         row number in the block
+     * @return the row, or null if the location is invalid
+     */
+    MetricNode readRowAt(long blockOffset, int row) throws IOException {
+        lockForRead();
+        try {
+            if (blockOffset < BinaryMetricFormat.HEADER_SIZE || blockOffset >= limit) {
+                return null;
+            }
+            int pos = (int)blockOffset;
+            if (buffer.get(pos) != BinaryMetricFormat.TYPE_BLOCK) {
+                return null;
+            }
+            int rows = blockRows(pos);
+            if (row < 0 || row >= rows) {
+                return null;
+            }
+            return readRow(pos, rows, row, buffer.getLong(pos + 1));
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Acquire the read lock, after the mapping and the dictionary are brought up to date with the file.
+     */
+    private void lockForRead() throws IOException {
+        rwLock.readLock().lock();
+        long size = new File(fileName).length();
+        if (buffer != null && size <= limit) {
+            return;
+        }
+        rwLock.readLock().unlock();
+        rwLock.writeLock().lock();
+        try {
+            if (buffer == null || new File(fileName).length() > limit) {
+                map();
+                loadDictionary();
+            }
+            // Downgrade to the read lock.
+            rwLock.readLock().lock();
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    private int startPosition(long offset) {
+        if (offset < BinaryMetricFormat.HEADER_SIZE) {
+            offset = BinaryMetricFormat.HEADER_SIZE;
+        }
+        return offset >= limit ? -1 : (int)offset;
+    }
+
+    private void map() throws IOException {
+        MappedByteBuffer newBuffer;
+        int newLimit;
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            long size = Math.min(channel.size(), Integer.MAX_VALUE);
+            newBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            newLimit = (int)size;
+        }
+        if (newLimit < BinaryMetricFormat.HEADER_SIZE || newBuffer.getInt(0) != BinaryMetricFormat.MAGIC) {
+            throw new IOException("Not a binary metric file: " + fileName);
+        }
+        short version = newBuffer.getShort(4);
+        if (version > BinaryMetricFormat.VERSION) {
+            throw new IOException("Unsupported binary metric file version " + version + ": " + fileName);
+        }
+        buffer = newBuffer;
+        limit = newLimit;
+    }
+
+    /**
+     * Load all dictionary entries of the mapped part, so that reads never modify the dictionary.
+     */
+    private void loadDictionary() {
+        int pos = dictScannedTo;
+        while (pos < limit) {
+            byte type = buffer.get(pos);
+            int end;
+            if (type == BinaryMetricFormat.TYPE_DICT) {
+                end = dictEntryEnd(pos);
+                if (end > 0) {
+                    loadDictEntry(pos);
+                }
+            } else if (type == BinaryMetricFormat.TYPE_BLOCK) {
+                int rows = blockRows(pos);
+                end = rows < 0 ? -1 : pos + BinaryMetricFormat.blockSize(rows);
+            } else {
+                end = -1;
+            }
+            if (end < 0) {
+                break;
+            }
+            pos = end;
+        }
+        dictScannedTo = pos;
+    }
+
+    /**
+     * @return end position of the dictionary entry at {@code pos}, or -1 if the entry is incomplete
+     */
+    private int dictEntryEnd(int pos) {
+        if (pos + BinaryMetricFormat.DICT_FIXED_SIZE > limit) {
+            return -1;
+        }
+        int nameLength = buffer.getInt(pos + 9);
+        int end = pos + BinaryMetricFormat.DICT_FIXED_SIZE + nameLength;
+        if (nameLength < 0 || end > limit) {
+            return -1;
+        }
+        return end;
+    }
+
+    private void loadDictEntry(int pos) {
+        int id = buffer.getInt(pos + 1);
+        if (id != names.size()) {
+            return;
+        }
+        int nameLength = buffer.getInt(pos + 9);
+        byte[] name = new byte[nameLength];
+        for (int i = 0; i < nameLength; i++) {
+            name[i] = buffer.get(pos + BinaryMetricFormat.DICT_FIXED_SIZE + i);
+        }
+        String resource = new String(name, BinaryMetricFormat.CHARSET);
+        ids.put(resource, id);
+        names.add(resource);
+        classifications.add(buffer.getInt(pos + 5));
+    }
+
+    private int idOf(String resource) {
+        Integer id = ids.get(resource);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return row count of the block at {@code pos}, or -1 if the block is incomplete
+     */
+    private int blockRows(int pos) {
+        if (pos + BinaryMetricFormat.BLOCK_FIXED_SIZE > limit) {
+            return -1;
+        }
+        int rows = buffer.getInt(pos + 9);
+        if (rows < 0 || (long)pos + BinaryMetricFormat.blockSize(rows) > limit) {
+            return -1;
+        }
+        return rows;
+    }
+
+    private MetricNode readRow(int blockPos, int rows, int row, long timestamp) {
+        int idPos = blockPos + BinaryMetricFormat.BLOCK_FIXED_SIZE + row * 4;
+        int longColumns = blockPos + BinaryMetricFormat.BLOCK_FIXED_SIZE + rows * 4;
+        int columnSize = rows * 8;
+        int id = buffer.getInt(idPos);
+
+        MetricNode node = new MetricNode();
+        node.setTimestamp(timestamp);
+        node.setResource(id < names.size() ? names.get(id) : String.valueOf(id));
+        node.setClassification(id < classifications.size() ? classifications.get(id) : 0);
+        node.setPassQps(buffer.getLong(longColumns + row * 8));
+        node.setBlockQps(buffer.getLong(longColumns + columnSize + row * 8));
+        node.setSuccessQps(buffer.getLong(longColumns + columnSize * 2 + row * 8));
+        node.setExceptionQps(buffer.getLong(longColumns + columnSize * 3 + row * 8));
+        node.setRt(buffer.getLong(longColumns + columnSize * 4 + row * 8));
+        node.setOccupiedPassQps(buffer.getLong(longColumns + columnSize * 5 + row * 8));
+        node.setConcurrency(buffer.getInt(longColumns + columnSize * 6 + row * 4));
+        return node;
+    }
+}
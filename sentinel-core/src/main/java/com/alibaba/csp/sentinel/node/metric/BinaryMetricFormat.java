@@ -0,0 +1,93 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * <p>
+ * Layout of the binary metric file (all numbers are big-endian, strings are UTF-8):
+ * </p>
+ * <pre>
+ * header:     magic(int) | version(short) | flags(short) | createTime(long)
+ * dictionary: TYPE_DICT(byte) | id(int) | classification(int) | nameLength(int) | name(bytes)
+ * block:      TYPE_BLOCK(byte) | timestamp(long) | rows(int) | ids(int[rows]) | passQps(long[rows])
+ *             | blockQps(long[rows]) | successQps(long[rows]) | exceptionQps(long[rows]) | rt(long[rows])
+ *             | occupiedPassQps(long[rows]) | concurrency(int[rows])
+ * </pre>
+ * <p>
+ * Each second is written as one columnar block of fixed-width rows, in which resources are referred by
+ * the ID of a dictionary entry written earlier in the same file. So a dictionary entry is written only
+ * once per resource per file. As with the text format, the {@code .idx} file maps every second to the
+ * offset of its first entry.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+final class BinaryMetricFormat {
+
+    static final Charset CHARSET = Charset.forName("UTF-8");
+
+    /**
+     * "SNMF" (Sentinel metric file).
+     */
+    static final int MAGIC = 0x534E4D46;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 4 + 2 + 2 + 8;
+
+    static final byte TYPE_DICT = 1;
+    static final byte TYPE_BLOCK = 2;
+
+    static final int DICT_FIXED_SIZE = 1 + 4 + 4 + 4;
+    static final int BLOCK_FIXED_SIZE = 1 + 8 + 4;
+    static final int ROW_SIZE = 4 + 8 * 6 + 4;
+
+    static int blockSize(int rows) {
+        return BLOCK_FIXED_SIZE + rows * ROW_SIZE;
+    }
+
+    /**
+     * Check whether the given metric file is in binary format.
+     *
+     * @param fileName metric file name
+     * @return true if the file starts with the binary magic number
+     */
+    static boolean isBinaryFile(String fileName) {
+        File file = new File(fileName);
+        if (!file.exists() || file.length() < 4) {
+            return false;
+        }
+        try (FileInputStream in = new FileInputStream(file)) {
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                int b = in.read();
+                if (b < 0) {
+                    return false;
+                }
+                magic = (magic << 8) | b;
+            }
+            return magic == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private BinaryMetricFormat() {}
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.log.RecordLog;
+
+/**
+ * Archive of cold metric files, so that days of metrics can be kept in a bounded disk budget.
+ * <p>
+ * Once a metric file is older than the hot period, {@link MetricWriter} downsamples its metrics to
+ * 10-second and 1-minute aggregates before removing it. Aggregates are appended to per-hour segments
+ * compressed with deflate (gzip), named {@code ${baseFileName}.archive.yyyy-MM-dd-HH.10s.gz} and
+ * {@code ${baseFileName}.archive.yyyy-MM-dd-HH.1m.gz}. 10-second segments are kept for {@code fineHours},
+ * and the oldest segments are removed (10-second ones first) when the archive is larger than {@code maxSize}.
+ * </p>
+ * <p>
+ * A segment row is a metric line ({@link MetricNode#toFatString()}) whose timestamp is the start of the
+ * interval. Its counts are totals of the interval, its rt is the total rt (rt * success) and its concurrency
+ * is the max of the interval. An interval spanning two metric files appears twice in a segment,
+ * {@link MetricsReader#readArchive(List, long, long, String)} merges them and turns the total rt back to
+ * the average rt.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class MetricArchive {
+
+    static final String ARCHIVE_INFIX = ".archive.";
+    static final String SEGMENT_SUFFIX = ".gz";
+    static final int FINE_SECONDS = 10;
+    static final int COARSE_SECONDS = 60;
+
+    private static final String HOUR_PATTERN = "yyyy-MM-dd-HH";
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    /**
+     * Metric files are read in chunks of about this many rows when archiving.
+     */
+    private static final int CHUNK_LINES = 10000;
+
+    private final long maxSize;
+    private final long hotMillis;
+    private final long fineMillis;
+    private final Charset charset = Charset.forName(SentinelConfig.charset());
+    private final MetricsReader reader = new MetricsReader(charset);
+
+    /**
+     * @param maxSize    max disk size of the archive in bytes
+     * @param hotMinutes how long metrics stay in uncompressed metric files
+     * @param fineHours  how long 10-second aggregates are kept
+     */
+    public MetricArchive(long maxSize, int hotMinutes, int fineHours) {
+        if (maxSize <= 0 || hotMinutes <= 0 || fineHours < 0) {
+            throw new IllegalArgumentException("Invalid metric archive config: maxSize=" + maxSize
+                + ", hotMinutes=" + hotMinutes + ", fineHours=" + fineHours);
+        }
+        this.maxSize = maxSize;
+        this.hotMillis = hotMinutes * 60 * 1000L;
+        this.fineMillis = fineHours * HOUR_MS;
+    }
+
+    /**
+     * @return the metric archive configured in {@link SentinelConfig}, or null if the archive is disabled
+     */
+    public static MetricArchive fromConfig() {
+        long maxSize = SentinelConfig.metricArchiveMaxSize();
+        if (maxSize <= 0) {
+            return null;
+        }
+        return new MetricArchive(maxSize, SentinelConfig.metricArchiveHotMinutes(),
+            SentinelConfig.metricArchiveFineHours());
+    }
+
+    long getHotMillis() {
+        return hotMillis;
+    }
+
+    /**
+     * Downsample all metrics of the metric file into the archive. The metric file is not removed.
+     *
+     * @param baseDir        directory of the metric files, ends with the file separator
+     * @param baseFileName   base name of the metric files
+     * @param metricFileName the metric file to archive
+     */
+    void archive(String baseDir, String baseFileName, String metricFileName) throws Exception {
+        long[] index = readIndex(MetricWriter.formIndexFileName(metricFileName));
+        // Without an index we can't read the file in chunks.
+        int chunkLines = index.length == 0 ? Integer.MAX_VALUE : CHUNK_LINES;
+        SegmentWriter fine = new SegmentWriter(baseDir, baseFileName, FINE_SECONDS);
+        SegmentWriter coarse = new SegmentWriter(baseDir, baseFileName, COARSE_SECONDS);
+        List<MetricNode> chunk = new ArrayList<MetricNode>();
+        try {
+            long offset = 0;
+            int next = 0;
+            while (true) {
+                chunk.clear();
+                reader.readMetricsInOneFile(chunk, metricFileName, offset, chunkLines);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                for (MetricNode node : chunk) {
+                    fine.add(node);
+                    coarse.add(node);
+                }
+                // Continue with the first second that has not been read.
+                long lastSecond = chunk.get(chunk.size() - 1).getTimestamp() / 1000;
+                while (next < index.length && index[next] <= lastSecond) {
+                    next += 2;
+                }
+                if (next >= index.length) {
+                    break;
+                }
+                offset = index[next + 1];
+            }
+        } finally {
+            try {
+                fine.close();
+            } finally {
+                coarse.close();
+                reader.retainFiles(Collections.<String>emptyList());
+            }
+        }
+        RecordLog.info("[MetricArchive] Metric file archived: {}", metricFileName);
+    }
+
+    /**
+     * Remove 10-second segments older than the retention, then remove the oldest segments until the archive
+     * fits in the max size.
+     */
+    void enforceRetention(String baseDir, String baseFileName, long now) {
+        List<String> fine = listSegments(baseDir, baseFileName, FINE_SECONDS);
+        List<String> coarse = listSegments(baseDir, baseFileName, COARSE_SECONDS);
+        long total = 0;
+        for (String segment : fine) {
+            total += new File(segment).length();
+        }
+        for (String segment : coarse) {
+            total += new File(segment).length();
+        }
+        while (!fine.isEmpty() && hourOf(fine.get(0)) + HOUR_MS <= now - fineMillis) {
+            total -= removeSegment(fine.remove(0));
+        }
+        while (total > maxSize && !fine.isEmpty()) {
+            total -= removeSegment(fine.remove(0));
+        }
+        while (total > maxSize && !coarse.isEmpty()) {
+            total -= removeSegment(coarse.remove(0));
+        }
+    }
+
+    private static long removeSegment(String segment) {
+        File file = new File(segment);
+        long length = file.length();
+        file.delete();
+        RecordLog.info("[MetricArchive] Removing metric archive segment: {}", segment);
+        return length;
+    }
+
+    /**
+     * Find segments of hours overlapping [beginTimeMs, endTimeMs], in the order of hours. The 10-second
+     * segment of an hour is preferred, the 1-minute one is used if it has been removed.
+     *
+     * @return the segment files' absolute path
+     */
+    static List<String> findSegments(String baseDir, String baseFileName, long beginTimeMs, long endTimeMs) {
+        Map<Long, String> segments = new TreeMap<Long, String>();
+        for (String segment : listSegments(baseDir, baseFileName, COARSE_SECONDS)) {
+            putIfOverlapping(segments, segment, beginTimeMs, endTimeMs);
+        }
+        for (String segment : listSegments(baseDir, baseFileName, FINE_SECONDS)) {
+            putIfOverlapping(segments, segment, beginTimeMs, endTimeMs);
+        }
+        return new ArrayList<String>(segments.values());
+    }
+
+    private static void putIfOverlapping(Map<Long, String> segments, String segment, long beginTimeMs,
+                                         long endTimeMs) {
+        long hour = hourOf(segment);
+        if (hour >= 0 && hour <= endTimeMs && hour + HOUR_MS > beginTimeMs) {
+            segments.put(hour, segment);
+        }
+    }
+
+    /**
+     * Get all segments of the resolution in {@code baseDir}, in the order of hours.
+     */
+    static List<String> listSegments(String baseDir, String baseFileName, int seconds) {
+        List<String> list = new ArrayList<String>();
+        File[] files = new File(baseDir).listFiles();
+        if (files == null) {
+            return list;
+        }
+        String prefix = baseFileName + ARCHIVE_INFIX;
+        String suffix = "." + resolutionName(seconds) + SEGMENT_SUFFIX;
+        for (File file : files) {
+            String name = file.getName();
+            if (file.isFile() && name.startsWith(prefix) && name.endsWith(suffix)
+                && name.length() == prefix.length() + HOUR_PATTERN.length() + suffix.length()) {
+                list.add(file.getAbsolutePath());
+            }
+        }
+        // Names only differ in the hour, so they are sorted by hours.
+        Collections.sort(list);
+        return list;
+    }
+
+    static String segmentFileName(String baseDir, String baseFileName, String hour, int seconds) {
+        return baseDir + baseFileName + ARCHIVE_INFIX + hour + "." + resolutionName(seconds) + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * @return start of the hour of the segment, or -1 if the segment name is invalid
+     */
+    static long hourOf(String segment) {
+        String name = new File(segment).getName();
+        int begin = name.lastIndexOf(ARCHIVE_INFIX) + ARCHIVE_INFIX.length();
+        try {
+            return new SimpleDateFormat(HOUR_PATTERN).parse(name.substring(begin, begin + HOUR_PATTERN.length()))
+                .getTime();
+        } catch (ParseException e) {
+            return -1;
+        } catch (IndexOutOfBoundsException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return interval of the segment rows in seconds
+     */
+    static int resolutionOf(String segment) {
+        String suffix = "." + resolutionName(COARSE_SECONDS) + SEGMENT_SUFFIX;
+        return segment.endsWith(suffix) ? COARSE_SECONDS : FINE_SECONDS;
+    }
+
+    private static String resolutionName(int seconds) {
+        return seconds % 60 == 0 ? (seconds / 60) + "m" : seconds + "s";
+    }
+
+    /**
+     * Add a row to the totals of its interval.
+     *
+     * @param total   totals of the interval
+     * @param row     the row to add
+     * @param totalRt total rt of the row
+     */
+    static void addTotals(MetricNode total, MetricNode row, long totalRt) {
+        total.setPassQps(total.getPassQps() + row.getPassQps());
+        total.setBlockQps(total.getBlockQps() + row.getBlockQps());
+        total.setSuccessQps(total.getSuccessQps() + row.getSuccessQps());
+        total.setExceptionQps(total.getExceptionQps() + row.getExceptionQps());
+        total.setOccupiedPassQps(total.getOccupiedPassQps() + row.getOccupiedPassQps());
+        total.setRt(total.getRt() + totalRt);
+        total.setConcurrency(Math.max(total.getConcurrency(), row.getConcurrency()));
+    }
+
+    /**
+     * @return pairs of (second, offset) in the index file
+     */
+    private static long[] readIndex(String indexFileName) throws IOException {
+        File file = new File(indexFileName);
+        if (!file.exists()) {
+            return new long[0];
+        }
+        long[] index = new long[(int)(file.length() / 16) * 2];
+        int n = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            while (n < index.length) {
+                index[n] = in.readLong();
+                index[n + 1] = in.readLong();
+                n += 2;
+            }
+        } catch (EOFException ignore) {
+        } finally {
+            in.close();
+        }
+        return n == index.length ? index : Arrays.copyOf(index, n);
+    }
+
+    /**
+     * Aggregates time-ordered rows into intervals, and appends them to the segment of their hour.
+     */
+    private final class SegmentWriter {
+
+        private final String baseDir;
+        private final String baseFileName;
+        private final int seconds;
+        private final DateFormat hourFormat = new SimpleDateFormat(HOUR_PATTERN);
+        private final Map<String, MetricNode> totals = new LinkedHashMap<String, MetricNode>();
+
+        private long intervalStart = -1;
+        private String hour;
+        private OutputStream out;
+
+        SegmentWriter(String baseDir, String baseFileName, int seconds) {
+            this.baseDir = baseDir;
+            this.baseFileName = baseFileName;
+            this.seconds = seconds;
+        }
+
+        void add(MetricNode row) throws IOException {
+            long start = row.getTimestamp() - row.getTimestamp() % (seconds * 1000L);
+            if (start != intervalStart) {
+                writeInterval();
+                intervalStart = start;
+            }
+            MetricNode total = totals.get(row.getResource());
+            if (total == null) {
+                total = new MetricNode();
+                total.setTimestamp(start);
+                total.setResource(row.getResource());
+                total.setClassification(row.getClassification());
+                totals.put(row.getResource(), total);
+            }
+            addTotals(total, row, row.getRt() * row.getSuccessQps());
+        }
+
+        private void writeInterval() throws IOException {
+            if (totals.isEmpty()) {
+                return;
+            }
+            // Intervals never span hours, as time zone offsets are multiples of a minute.
+            String intervalHour = hourFormat.format(new Date(intervalStart));
+            if (!intervalHour.equals(hour)) {
+                closeSegment();
+                hour = intervalHour;
+                // Every archiving appends a new gzip member to the segment.
+                out = new GZIPOutputStream(new FileOutputStream(
+                    segmentFileName(baseDir, baseFileName, intervalHour, seconds), true), 8192);
+            }
+            for (MetricNode total : totals.values()) {
+                out.write(total.toFatString().getBytes(charset));
+            }
+            totals.clear();
+        }
+
+        private void closeSegment() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+        }
+
+        void close() throws IOException {
+            try {
+                writeInterval();
+            } finally {
+                closeSegment();
+            }
+        }
+    }
+}
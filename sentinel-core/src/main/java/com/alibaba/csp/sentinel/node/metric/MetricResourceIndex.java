@@ -0,0 +1,220 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * The resource index of a metric file ({@code ${metricFileName}.ridx}) maps every row of every second
+ * to its location in the metric file, so that queries of a single resource can read its rows directly
+ * instead of scanning all rows of the time range. The file consists of fixed-width entries, which are
+ * appended in the order of seconds, and the entries of the same second are sorted by the hashCode of
+ * the resource:
+ * </p>
+ * <pre>
+ * second(long) | hashCode of resource(int) | offset(long) | extra(int)
+ * </pre>
+ * <p>
+ * For text metric files, {@code offset} and {@code extra} are the offset and length of the line.
+ * For binary metric files, they are the offset of the block and the row number in it.
+ * </p>
+ * <p>
+ * A query binary-searches the first entry of every second in range, and then the entries of the
+ * resource inside that second, so rows of the other resources are never visited.
+ * </p>
+ * <p>
+ * The reader maps the index file read-only and is thread-safe.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+final class MetricResourceIndex {
+
+    static final int ENTRY_SIZE = 8 + 4 + 8 + 4;
+
+    private final String fileName;
+    private final ReentrantLock remapLock = new ReentrantLock();
+    private volatile Mapping mapping;
+
+    MetricResourceIndex(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Write the entries of all rows in one second, sorted by the hashCode of the resource.
+     *
+     * @param out       the pending buffer of the index file
+     * @param second    the second of the rows
+     * @param nodes     rows of the second
+     * @param locations (offset, extra) of every row, in the same order as {@code nodes}
+     */
+    static void writeSecond(MetricWriter.PendingBuffer out, long second, List<MetricNode> nodes,
+                            Locations locations) {
+        int size = nodes.size();
+        // High 32 bits: signed hash, low 32 bits: row number, so sorting the keys sorts rows by hash.
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long)nodes.get(i).getResource().hashCode() << 32) | i;
+        }
+        Arrays.sort(keys);
+        for (long key : keys) {
+            int i = (int)key;
+            out.writeLong(second);
+            out.writeInt((int)(key >> 32));
+            out.writeLong(locations.offset(i));
+            out.writeInt(locations.extra(i));
+        }
+    }
+
+    /**
+     * Find locations of the rows of the resource in [beginSecond, endSecond].
+     *
+     * @param beginSecond begin second, inclusive
+     * @param endSecond   end second, inclusive
+     * @param resource    resource name
+     * @param locations   to collect locations of rows, which may include other resources with the same hash
+     * @return true if no second after {@code endSecond} is found, so that the next file should be read
+     */
+    boolean find(long beginSecond, long endSecond, String resource, Locations locations) throws IOException {
+        Mapping m = currentMapping();
+        int hash = resource.hashCode();
+        int from = firstOfSecond(m, 0, m.entries, beginSecond);
+        while (from < m.entries) {
+            long second = m.buffer.getLong(from * ENTRY_SIZE);
+            if (second > endSecond) {
+                return false;
+            }
+            int to = firstOfSecond(m, from, m.entries, second + 1);
+            for (int i = firstOfHash(m, from, to, hash); i < to; i++) {
+                int pos = i * ENTRY_SIZE;
+                if (m.buffer.getInt(pos + 8) != hash) {
+                    break;
+                }
+                locations.add(m.buffer.getLong(pos + 12), m.buffer.getInt(pos + 20));
+            }
+            from = to;
+        }
+        return true;
+    }
+
+    /**
+     * @return the first entry in [lo, hi) whose second >= {@code second}
+     */
+    private static int firstOfSecond(Mapping m, int lo, int hi, long second) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (m.buffer.getLong(mid * ENTRY_SIZE) < second) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * @return the first entry in [lo, hi) of one second whose hash >= {@code hash}
+     */
+    private static int firstOfHash(Mapping m, int lo, int hi, int hash) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (m.buffer.getInt(mid * ENTRY_SIZE + 8) < hash) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private Mapping currentMapping() throws IOException {
+        Mapping m = mapping;
+        long size = new File(fileName).length();
+        if (m != null && size / ENTRY_SIZE <= m.entries) {
+            return m;
+        }
+        remapLock.lock();
+        try {
+            m = mapping;
+            if (m == null || size / ENTRY_SIZE > m.entries) {
+                try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+                    FileChannel channel = file.getChannel();
+                    int entries = (int)Math.min(channel.size() / ENTRY_SIZE, Integer.MAX_VALUE / ENTRY_SIZE);
+                    m = new Mapping(channel.map(FileChannel.MapMode.READ_ONLY, 0, (long)entries * ENTRY_SIZE),
+                        entries);
+                }
+                mapping = m;
+            }
+            return m;
+        } finally {
+            remapLock.unlock();
+        }
+    }
+
+    private static final class Mapping {
+        final MappedByteBuffer buffer;
+        final int entries;
+
+        Mapping(MappedByteBuffer buffer, int entries) {
+            this.buffer = buffer;
+            this.entries = entries;
+        }
+    }
+
+    /**
+     * A reusable list of (offset, extra) pairs.
+     */
+    static final class Locations {
+        private long[] offsets = new long[64];
+        private int[] extras = new int[64];
+        private int size;
+
+        void add(long offset, int extra) {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size << 1);
+                extras = Arrays.copyOf(extras, size << 1);
+            }
+            offsets[size] = offset;
+            extras[size] = extra;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long offset(int i) {
+            return offsets[i];
+        }
+
+        int extra(int i) {
+            return extras[i];
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
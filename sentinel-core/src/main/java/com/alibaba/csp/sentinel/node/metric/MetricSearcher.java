@@ -15,6 +15,7 @@
  */
 package com.alibaba.csp.sentinel.node.metric;
 
+import java.io.BufferedInputStream;
 import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.File;
@@ -39,7 +40,10 @@ public class MetricSearcher {
     private String baseDir;
     private String baseFileName;
 
-    private Position lastPosition = new Position();
+    /**
+     * 上一次检索的位置，会被并发的检索替换，因此是不可变的
+     */
+    private volatile Position lastPosition = Position.EMPTY;
 
     /**
      * @param baseDir      metric文件所在目录
@@ -74,6 +78,7 @@ public class MetricSearcher {
 
     /**
      * 从beginTime开始，检索recommendLines条(大概)记录。同一秒中的数据是原子的，不能分割成多次查询。
+     * 多个线程可以并发检索。
      *
      * @param beginTimeMs    检索的最小时间戳
      * @param recommendLines 查询最多想得到的记录条数，返回条数会尽可能不超过这个数字。但是为保证每一秒的数据不被分割，有时候
@@ -81,60 +86,72 @@ public class MetricSearcher {
      * @return
      * @throws Exception
      */
-    public synchronized List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
+    public List<MetricNode> find(long beginTimeMs, int recommendLines) throws Exception {
         List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
-        int i = 0;
-        long offsetInIndex = 0;
-        if (validPosition(beginTimeMs)) {
-            i = fileNames.indexOf(lastPosition.metricFileName);
-            if (i == -1) {
-                i = 0;
-            } else {
-                offsetInIndex = lastPosition.offsetInIndex;
-            }
+        metricsReader.retainFiles(fileNames);
+        Position position = findPosition(fileNames, beginTimeMs);
+        if (position == null) {
+            return null;
         }
-        for (; i < fileNames.size(); i++) {
-            String fileName = fileNames.get(i);
-            long offset = findOffset(beginTimeMs, fileName,
-                MetricWriter.formIndexFileName(fileName), offsetInIndex);
-            offsetInIndex = 0;
-            if (offset != -1) {
-                return metricsReader.readMetrics(fileNames, i, offset, recommendLines);
-            }
-        }
-        return null;
+        return metricsReader.readMetrics(fileNames, position.fileIndex, position.offset, recommendLines);
     }
 
     /**
      * Find metric between [beginTimeMs, endTimeMs], both side inclusive.
      * When identity is null, all metric between the time intervalMs will be read, otherwise, only the specific
-     * identity will be read.
+     * identity will be read, through the resource index if present. Archived metrics are included, with one row
+     * per interval of the archive. Multiple threads can search concurrently.
      */
-    public synchronized List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
+    public List<MetricNode> findByTimeAndResource(long beginTimeMs, long endTimeMs, String identity)
         throws Exception {
+        // 已归档的metric比metric文件中的更早，参考{@link MetricArchive}
+        List<MetricNode> archived = metricsReader.readArchive(
+            MetricArchive.findSegments(baseDir, baseFileName, beginTimeMs, endTimeMs), beginTimeMs, endTimeMs,
+            identity);
         List<String> fileNames = MetricWriter.listMetricFiles(baseDir, baseFileName);
-        //RecordLog.info("pid=" + pid + ", findByTimeAndResource([" + beginTimeMs + ", " + endTimeMs
-        //    + "], " + identity + ")");
+        metricsReader.retainFiles(fileNames);
+        Position position = findPosition(fileNames, beginTimeMs);
+        if (position == null) {
+            return archived.isEmpty() ? null : archived;
+        }
+        List<MetricNode> list;
+        if (identity == null) {
+            list = metricsReader.readMetricsByEndTime(fileNames, position.fileIndex, position.offset,
+                beginTimeMs, endTimeMs, null);
+        } else {
+            list = metricsReader.readMetricsByResource(fileNames, position.fileIndex, position.offset,
+                beginTimeMs, endTimeMs, identity);
+        }
+        if (archived.isEmpty()) {
+            return list;
+        }
+        archived.addAll(list);
+        return archived;
+    }
+
+    /**
+     * Find the first metric file containing seconds >= beginTimeMs and the offset of the second in it.
+     */
+    private Position findPosition(List<String> fileNames, long beginTimeMs) throws Exception {
         int i = 0;
         long offsetInIndex = 0;
-        if (validPosition(beginTimeMs)) {
-            i = fileNames.indexOf(lastPosition.metricFileName);
+        Position last = lastPosition;
+        if (validPosition(last, beginTimeMs)) {
+            i = fileNames.indexOf(last.metricFileName);
             if (i == -1) {
                 i = 0;
             } else {
-                offsetInIndex = lastPosition.offsetInIndex;
+                offsetInIndex = last.offsetInIndex;
             }
-        } else {
-            //RecordLog.info("lastPosition is invalidate, will re iterate all files, pid = " + pid);
         }
-
         for (; i < fileNames.size(); i++) {
             String fileName = fileNames.get(i);
-            long offset = findOffset(beginTimeMs, fileName,
-                    MetricWriter.formIndexFileName(fileName), offsetInIndex);
+            Position position = findOffset(beginTimeMs, fileName, i,
+                MetricWriter.formIndexFileName(fileName), offsetInIndex);
             offsetInIndex = 0;
-            if (offset != -1) {
-                return metricsReader.readMetricsByEndTime(fileNames, i, offset, beginTimeMs, endTimeMs, identity);
+            if (position != null) {
+                lastPosition = position;
+                return position;
             }
         }
         return null;
@@ -144,40 +161,60 @@ public class MetricSearcher {
      * 记录上一次读取的index文件位置和数值
      */
     private static final class Position {
-        String metricFileName;
-        String indexFileName;
+        static final Position EMPTY = new Position(null, null, -1, 0, 0, 0);
+
+        final String metricFileName;
+        final String indexFileName;
+        /**
+         * metric文件在文件列表中的位置
+         */
+        final int fileIndex;
         /**
          * 索引文件内的偏移
          */
-        long offsetInIndex;
+        final long offsetInIndex;
         /**
          * 索引文件中offsetInIndex位置上的数字，秒数。
          */
-        long second;
+        final long second;
+        /**
+         * 该秒在metric文件内的偏移
+         */
+        final long offset;
+
+        Position(String metricFileName, String indexFileName, int fileIndex, long offsetInIndex, long second,
+                 long offset) {
+            this.metricFileName = metricFileName;
+            this.indexFileName = indexFileName;
+            this.fileIndex = fileIndex;
+            this.offsetInIndex = offsetInIndex;
+            this.second = second;
+            this.offset = offset;
+        }
     }
 
     /**
      * The position we cached is useful only when {@code beginTimeMs} is >= {@code lastPosition.second}
      * and the index file exists and the second we cached is same as in the index file.
      */
-    private boolean validPosition(long beginTimeMs) {
-        if (beginTimeMs / 1000 < lastPosition.second) {
+    private boolean validPosition(Position last, long beginTimeMs) {
+        if (beginTimeMs / 1000 < last.second) {
             return false;
         }
-        if (lastPosition.indexFileName == null) {
+        if (last.indexFileName == null) {
             return false;
         }
         // index file dose not exits
-        if (!new File(lastPosition.indexFileName).exists()) {
+        if (!new File(last.indexFileName).exists()) {
             return false;
         }
         FileInputStream in = null;
         try {
-            in = new FileInputStream(lastPosition.indexFileName);
-            in.getChannel().position(lastPosition.offsetInIndex);
+            in = new FileInputStream(last.indexFileName);
+            in.getChannel().position(last.offsetInIndex);
             DataInputStream indexIn = new DataInputStream(in);
             // timestamp(second) in the specific position == that we cached
-            return indexIn.readLong() == lastPosition.second;
+            return indexIn.readLong() == last.second;
         } catch (Exception e) {
             return false;
         } finally {
@@ -190,32 +227,28 @@ public class MetricSearcher {
         }
     }
 
-    private long findOffset(long beginTime, String metricFileName,
-                            String idxFileName, long offsetInIndex) throws Exception {
-        lastPosition.metricFileName = null;
-        lastPosition.indexFileName = null;
+    private Position findOffset(long beginTime, String metricFileName, int fileIndex,
+                                String idxFileName, long offsetInIndex) throws Exception {
         if (!new File(idxFileName).exists()) {
-            return -1;
+            return null;
         }
         long beginSecond = beginTime / 1000;
         FileInputStream in = new FileInputStream(idxFileName);
         in.getChannel().position(offsetInIndex);
-        DataInputStream indexIn = new DataInputStream(in);
-        long offset;
+        DataInputStream indexIn = new DataInputStream(new BufferedInputStream(in));
         try {
             long second;
-            lastPosition.offsetInIndex = in.getChannel().position();
+            long position = offsetInIndex;
+            long secondPosition = position;
             while ((second = indexIn.readLong()) < beginSecond) {
-                offset = indexIn.readLong();
-                lastPosition.offsetInIndex = in.getChannel().position();
+                indexIn.readLong();
+                position += 16;
+                secondPosition = position;
             }
-            offset = indexIn.readLong();
-            lastPosition.metricFileName = metricFileName;
-            lastPosition.indexFileName = idxFileName;
-            lastPosition.second = second;
-            return offset;
+            long offset = indexIn.readLong();
+            return new Position(metricFileName, idxFileName, fileIndex, secondPosition, second, offset);
         } catch (EOFException ignore) {
-            return -1;
+            return null;
         } finally {
             indexIn.close();
         }
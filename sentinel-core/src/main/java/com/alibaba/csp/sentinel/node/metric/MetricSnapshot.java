@@ -0,0 +1,192 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * A reusable, columnar table of per-second metrics. Resources are registered once per snapshot and
+ * rows refer to them by index, so that filling a snapshot does not allocate any object once its
+ * arrays have grown to the working size.
+ * </p>
+ * <p>
+ * Not thread-safe.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public final class MetricSnapshot {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private String[] resources = new String[INITIAL_CAPACITY];
+    private int[] classifications = new int[INITIAL_CAPACITY];
+    private int resourceCount;
+
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private int[] resourceIds = new int[INITIAL_CAPACITY];
+    private long[] passQps = new long[INITIAL_CAPACITY];
+    private long[] blockQps = new long[INITIAL_CAPACITY];
+    private long[] successQps = new long[INITIAL_CAPACITY];
+    private long[] exceptionQps = new long[INITIAL_CAPACITY];
+    private long[] rt = new long[INITIAL_CAPACITY];
+    private long[] occupiedPassQps = new long[INITIAL_CAPACITY];
+    private int[] concurrency = new int[INITIAL_CAPACITY];
+    private int rowCount;
+
+    /**
+     * Register a resource in this snapshot.
+     *
+     * @param resource       resource name
+     * @param classification resource classification
+     * @return index of the resource, used by {@link #addRow}
+     */
+    public int addResource(String resource, int classification) {
+        if (resourceCount == resources.length) {
+            int capacity = resourceCount << 1;
+            resources = Arrays.copyOf(resources, capacity);
+            classifications = Arrays.copyOf(classifications, capacity);
+        }
+        resources[resourceCount] = resource;
+        classifications[resourceCount] = classification;
+        return resourceCount++;
+    }
+
+    public void addRow(long timestamp, int resourceId, long pass, long block, long success, long exception,
+                       long avgRt, long occupiedPass, int curConcurrency) {
+        if (rowCount == timestamps.length) {
+            grow(rowCount << 1);
+        }
+        int i = rowCount++;
+        timestamps[i] = timestamp;
+        resourceIds[i] = resourceId;
+        passQps[i] = pass;
+        blockQps[i] = block;
+        successQps[i] = success;
+        exceptionQps[i] = exception;
+        rt[i] = avgRt;
+        occupiedPassQps[i] = occupiedPass;
+        concurrency[i] = curConcurrency;
+    }
+
+    /**
+     * Add metrics of the given second, which are usually provided by legacy code.
+     *
+     * @param time  timestamp of the second
+     * @param nodes metrics of the second
+     */
+    public void addNodes(long time, List<MetricNode> nodes) {
+        for (MetricNode node : nodes) {
+            int id = addResource(node.getResource(), node.getClassification());
+            addRow(time, id, node.getPassQps(), node.getBlockQps(), node.getSuccessQps(), node.getExceptionQps(),
+                node.getRt(), node.getOccupiedPassQps(), node.getConcurrency());
+        }
+    }
+
+    /**
+     * Append all resources and rows of another snapshot.
+     *
+     * @param other the snapshot to copy from
+     */
+    public void addAll(MetricSnapshot other) {
+        int base = resourceCount;
+        for (int i = 0; i < other.resourceCount; i++) {
+            addResource(other.resources[i], other.classifications[i]);
+        }
+        int required = rowCount + other.rowCount;
+        if (required > timestamps.length) {
+            grow(Math.max(required, timestamps.length << 1));
+        }
+        int n = other.rowCount;
+        System.arraycopy(other.timestamps, 0, timestamps, rowCount, n);
+        System.arraycopy(other.passQps, 0, passQps, rowCount, n);
+        System.arraycopy(other.blockQps, 0, blockQps, rowCount, n);
+        System.arraycopy(other.successQps, 0, successQps, rowCount, n);
+        System.arraycopy(other.exceptionQps, 0, exceptionQps, rowCount, n);
+        System.arraycopy(other.rt, 0, rt, rowCount, n);
+        System.arraycopy(other.occupiedPassQps, 0, occupiedPassQps, rowCount, n);
+        System.arraycopy(other.concurrency, 0, concurrency, rowCount, n);
+        for (int i = 0; i < n; i++) {
+            resourceIds[rowCount + i] = other.resourceIds[i] + base;
+        }
+        rowCount = required;
+    }
+
+    /**
+     * Remove all resources and rows, keeping the allocated arrays for reuse.
+     */
+    public void clear() {
+        Arrays.fill(resources, 0, resourceCount, null);
+        resourceCount = 0;
+        rowCount = 0;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int resourceCount() {
+        return resourceCount;
+    }
+
+    public long timestamp(int row) {
+        return timestamps[row];
+    }
+
+    public String resource(int row) {
+        return resources[resourceIds[row]];
+    }
+
+    public int classification(int row) {
+        return classifications[resourceIds[row]];
+    }
+
+    /**
+     * Fill the given node with the metrics of a row.
+     *
+     * @param row  row index
+     * @param node the node to fill
+     * @return the given node
+     */
+    public MetricNode fill(int row, MetricNode node) {
+        node.setTimestamp(timestamps[row]);
+        node.setResource(resource(row));
+        node.setClassification(classification(row));
+        node.setPassQps(passQps[row]);
+        node.setBlockQps(blockQps[row]);
+        node.setSuccessQps(successQps[row]);
+        node.setExceptionQps(exceptionQps[row]);
+        node.setRt(rt[row]);
+        node.setOccupiedPassQps(occupiedPassQps[row]);
+        node.setConcurrency(concurrency[row]);
+        return node;
+    }
+
+    private void grow(int capacity) {
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        resourceIds = Arrays.copyOf(resourceIds, capacity);
+        passQps = Arrays.copyOf(passQps, capacity);
+        blockQps = Arrays.copyOf(blockQps, capacity);
+        successQps = Arrays.copyOf(successQps, capacity);
+        exceptionQps = Arrays.copyOf(exceptionQps, capacity);
+        rt = Arrays.copyOf(rt, capacity);
+        occupiedPassQps = Arrays.copyOf(occupiedPassQps, capacity);
+        concurrency = Arrays.copyOf(concurrency, capacity);
+    }
+}
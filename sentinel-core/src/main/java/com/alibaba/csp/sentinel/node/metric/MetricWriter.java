@@ -15,13 +15,16 @@
  */
 package com.alibaba.csp.sentinel.node.metric;
 
-import java.io.BufferedOutputStream;
-import java.io.DataOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -40,7 +43,22 @@ import com.alibaba.csp.sentinel.log.RecordLog;
  * <li>file name is like: {@code ${appName}-metrics.log.pid${pid}.yyyy-MM-dd.[number]}</li>
  * <li>metric of different day should in different file;</li>
  * <li>every metric file is accompanied with an index file, which file name is {@code ${metricFileName}.idx}</li>
+ * <li>every metric file is also accompanied with a resource index file, which file name is
+ * {@code ${metricFileName}.ridx}, see {@link MetricResourceIndex}</li>
+ * <li>metric file is written in text format by default, or in binary format (see {@link BinaryMetricFormat})
+ * if {@link SentinelConfig#METRIC_FILE_FORMAT} is {@code binary}.</li>
  * </ol>
+ * <p>
+ * Metrics and indexes are buffered in memory and written through {@link FileChannel}s on {@link #flush()}.
+ * {@link #write(long, List)} flushes at once, while {@link AsyncMetricWriter} appends several seconds
+ * before flushing them as one batch. Whether to {@code fsync} is decided by the fsync policy,
+ * see {@link SentinelConfig#METRIC_FILE_FSYNC}.
+ * </p>
+ * <p>
+ * If a {@link MetricArchive} is given, the metric file is rolled once it has been written for the hot period,
+ * and metric files are archived instead of simply removed, when they are older than the hot period or
+ * exceed the total file count.
+ * </p>
  *
  * @author Carpenter Lee
  */
@@ -56,6 +74,10 @@ public class MetricWriter {
      */
     public static final String METRIC_FILE = "metrics.log";
     public static final String METRIC_FILE_INDEX_SUFFIX = ".idx";
+    /**
+     * @since 1.8.8
+     */
+    public static final String METRIC_FILE_RESOURCE_INDEX_SUFFIX = ".ridx";
     public static final Comparator<String> METRIC_FILE_NAME_CMP = new MetricFileNameComparator();
 
     private final DateFormat df = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
@@ -71,13 +93,42 @@ public class MetricWriter {
     private File curMetricFile;
     private File curMetricIndexFile;
 
-    private FileOutputStream outMetric;
-    private DataOutputStream outIndex;
-    private BufferedOutputStream outMetricBuf;
+    private FileChannel outMetric;
+    private FileChannel outIndex;
+    private FileChannel outResourceIndex;
+    private final PendingBuffer pendingMetric = new PendingBuffer(64 * 1024);
+    private final PendingBuffer pendingIndex = new PendingBuffer(1024);
+    private final PendingBuffer pendingResourceIndex = new PendingBuffer(16 * 1024);
+    private final MetricResourceIndex.Locations rowLocations = new MetricResourceIndex.Locations();
+    /**
+     * Metric files of {@code baseFileName}, sorted by {@link #METRIC_FILE_NAME_CMP}. It's loaded from disk
+     * once and then maintained when rolling, so that we don't need to list the directory every time.
+     */
+    private List<String> cachedMetricFiles;
+
+    /**
+     * Reusable state for writing {@link MetricSnapshot}s.
+     */
+    private long[] snapshotOrder = new long[64];
+    private final List<MetricNode> nodePool = new ArrayList<MetricNode>();
+    private final List<MetricNode> secondNodes = new ArrayList<MetricNode>();
     private long singleFileSize;
     private int totalFileCount;
     private boolean append = false;
     private final int pid = PidUtil.getPid();
+    /**
+     * Null when writing in text format.
+     */
+    private final BinaryMetricEncoder binaryEncoder;
+    private final String fsyncPolicy;
+    /**
+     * Null if metric files are not archived.
+     */
+    private final MetricArchive archive;
+    /**
+     * The first second written to the current metric file, -1 if nothing is written yet.
+     */
+    private long curFileFirstSecond = -1;
 
     /**
      * 秒级统计，忽略毫秒数。
@@ -89,11 +140,49 @@ public class MetricWriter {
     }
 
     public MetricWriter(long singleFileSize, int totalFileCount) {
+        this(singleFileSize, totalFileCount, SentinelConfig.METRIC_FILE_FORMAT_TEXT);
+    }
+
+    /**
+     * @param singleFileSize max size of a single metric file
+     * @param totalFileCount max count of metric files
+     * @param format         metric file format, {@code text} or {@code binary}
+     * @since 1.8.8
+     */
+    public MetricWriter(long singleFileSize, int totalFileCount, String format) {
+        this(singleFileSize, totalFileCount, format, SentinelConfig.METRIC_FILE_FSYNC_NONE);
+    }
+
+    /**
+     * @param singleFileSize max size of a single metric file
+     * @param totalFileCount max count of metric files
+     * @param format         metric file format, {@code text} or {@code binary}
+     * @param fsyncPolicy    when to fsync metric files, {@code none}, {@code roll} or {@code batch}
+     * @since 1.8.8
+     */
+    public MetricWriter(long singleFileSize, int totalFileCount, String format, String fsyncPolicy) {
+        this(singleFileSize, totalFileCount, format, fsyncPolicy, null);
+    }
+
+    /**
+     * @param singleFileSize max size of a single metric file
+     * @param totalFileCount max count of metric files
+     * @param format         metric file format, {@code text} or {@code binary}
+     * @param fsyncPolicy    when to fsync metric files, {@code none}, {@code roll} or {@code batch}
+     * @param archive        archive of cold metric files, or null to remove them directly
+     * @since 1.8.8
+     */
+    public MetricWriter(long singleFileSize, int totalFileCount, String format, String fsyncPolicy,
+                        MetricArchive archive) {
         if (singleFileSize <= 0 || totalFileCount <= 0) {
             throw new IllegalArgumentException();
         }
-        RecordLog.info("[MetricWriter] Creating new MetricWriter, singleFileSize={}, totalFileCount={}",
-            singleFileSize, totalFileCount);
+        RecordLog.info("[MetricWriter] Creating new MetricWriter, singleFileSize={}, totalFileCount={}, format={}, "
+            + "fsync={}, archive={}", singleFileSize, totalFileCount, format, fsyncPolicy, archive != null);
+        this.fsyncPolicy = fsyncPolicy == null ? SentinelConfig.METRIC_FILE_FSYNC_NONE : fsyncPolicy;
+        this.archive = archive;
+        this.binaryEncoder = SentinelConfig.METRIC_FILE_FORMAT_BINARY.equals(format)
+            ? new BinaryMetricEncoder() : null;
         this.baseDir = METRIC_BASE_DIR;
         File dir = new File(baseDir);
         if (!dir.exists()) {
@@ -118,6 +207,18 @@ public class MetricWriter {
      * @param nodes
      */
     public synchronized void write(long time, List<MetricNode> nodes) throws Exception {
+        append(time, nodes);
+        flush();
+    }
+
+    /**
+     * Append metrics of the given second to the pending buffer without flushing.
+     *
+     * @param time  timestamp of the second
+     * @param nodes metrics of the second
+     * @since 1.8.8
+     */
+    synchronized void append(long time, List<MetricNode> nodes) throws Exception {
         if (nodes == null) {
             return;
         }
@@ -135,6 +236,8 @@ public class MetricWriter {
             closeAndNewFile(nextFileNameOfDay(time));
         }
         if (!(curMetricFile.exists() && curMetricIndexFile.exists())) {
+            // Files have been removed by others, reload the file list.
+            cachedMetricFiles = null;
             closeAndNewFile(nextFileNameOfDay(time));
         }
 
@@ -142,29 +245,20 @@ public class MetricWriter {
         if (second < lastSecond) {
             // 时间靠前的直接忽略，不应该发生。
         } else if (second == lastSecond) {
-            for (MetricNode node : nodes) {
-                outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-            }
-            outMetricBuf.flush();
+            writeNodes(time, nodes);
             if (!validSize()) {
                 closeAndNewFile(nextFileNameOfDay(time));
             }
         } else {
-            writeIndex(second, outMetric.getChannel().position());
-            if (isNewDay(lastSecond, second)) {
+            writeIndex(second, outMetric.position() + pendingMetric.size());
+            if (isNewDay(lastSecond, second) || outlivesHotPeriod(second)) {
                 closeAndNewFile(nextFileNameOfDay(time));
-                for (MetricNode node : nodes) {
-                    outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-                }
-                outMetricBuf.flush();
+                writeNodes(time, nodes);
                 if (!validSize()) {
                     closeAndNewFile(nextFileNameOfDay(time));
                 }
             } else {
-                for (MetricNode node : nodes) {
-                    outMetricBuf.write(node.toFatString().getBytes(CHARSET));
-                }
-                outMetricBuf.flush();
+                writeNodes(time, nodes);
                 if (!validSize()) {
                     closeAndNewFile(nextFileNameOfDay(time));
                 }
@@ -173,36 +267,143 @@ public class MetricWriter {
         }
     }
 
+    /**
+     * Append all metrics of the snapshot to the pending buffer without flushing, in the order of seconds.
+     * {@link MetricNode}s passed to {@link #append(long, List)} are pooled, so no object is allocated
+     * for a snapshot in the steady state.
+     *
+     * @param snapshot metrics to write
+     * @since 1.8.8
+     */
+    synchronized void append(MetricSnapshot snapshot) throws Exception {
+        int rows = snapshot.rowCount();
+        if (rows == 0) {
+            return;
+        }
+        long minSecond = Long.MAX_VALUE;
+        for (int i = 0; i < rows; i++) {
+            minSecond = Math.min(minSecond, snapshot.timestamp(i) / 1000);
+        }
+        if (snapshotOrder.length < rows) {
+            snapshotOrder = new long[Math.max(rows, snapshotOrder.length << 1)];
+        }
+        // Sort rows by (second, row) with a single primitive array.
+        for (int i = 0; i < rows; i++) {
+            snapshotOrder[i] = ((snapshot.timestamp(i) / 1000 - minSecond) << 32) | i;
+        }
+        Arrays.sort(snapshotOrder, 0, rows);
+
+        int start = 0;
+        while (start < rows) {
+            long secondOffset = snapshotOrder[start] >>> 32;
+            int end = start;
+            secondNodes.clear();
+            while (end < rows && (snapshotOrder[end] >>> 32) == secondOffset) {
+                int row = (int)snapshotOrder[end];
+                int k = end - start;
+                if (k == nodePool.size()) {
+                    nodePool.add(new MetricNode());
+                }
+                secondNodes.add(snapshot.fill(row, nodePool.get(k)));
+                end++;
+            }
+            append(snapshot.timestamp((int)snapshotOrder[start]), secondNodes);
+            start = end;
+        }
+        secondNodes.clear();
+    }
+
     public synchronized void close() throws Exception {
-        if (outMetricBuf != null) {
-            outMetricBuf.close();
+        closeChannels();
+    }
+
+    /**
+     * Write all pending metrics and indexes to the files. Metrics are always written before
+     * their indexes, so an index never points to data that's not written yet.
+     *
+     * @since 1.8.8
+     */
+    public synchronized void flush() throws Exception {
+        if (outMetric == null) {
+            return;
+        }
+        pendingMetric.writeTo(outMetric);
+        pendingIndex.writeTo(outIndex);
+        pendingResourceIndex.writeTo(outResourceIndex);
+        if (SentinelConfig.METRIC_FILE_FSYNC_BATCH.equals(fsyncPolicy)) {
+            forceAll();
+        }
+    }
+
+    private void closeChannels() throws Exception {
+        if (outMetric == null) {
+            return;
         }
-        if (outIndex != null) {
+        try {
+            flush();
+            if (SentinelConfig.METRIC_FILE_FSYNC_ROLL.equals(fsyncPolicy)) {
+                forceAll();
+            }
+        } finally {
+            outMetric.close();
             outIndex.close();
+            outResourceIndex.close();
+            outMetric = null;
+            outIndex = null;
+            outResourceIndex = null;
         }
     }
 
+    private void forceAll() throws IOException {
+        outMetric.force(false);
+        outIndex.force(false);
+        outResourceIndex.force(false);
+    }
+
+    private void writeNodes(long time, List<MetricNode> nodes) throws Exception {
+        long second = time / 1000;
+        if (curFileFirstSecond < 0) {
+            curFileFirstSecond = second;
+        }
+        long base = outMetric.position() + pendingMetric.size();
+        rowLocations.clear();
+        if (binaryEncoder != null) {
+            long blockOffset = base + binaryEncoder.write(pendingMetric, time, nodes);
+            for (int i = 0; i < nodes.size(); i++) {
+                rowLocations.add(blockOffset, i);
+            }
+        } else {
+            for (MetricNode node : nodes) {
+                byte[] line = node.toFatString().getBytes(CHARSET);
+                rowLocations.add(base + pendingMetric.size(), line.length);
+                pendingMetric.write(line);
+            }
+        }
+        MetricResourceIndex.writeSecond(pendingResourceIndex, second, nodes, rowLocations);
+    }
+
     private void writeIndex(long time, long offset) throws Exception {
-        outIndex.writeLong(time);
-        outIndex.writeLong(offset);
-        outIndex.flush();
+        pendingIndex.writeLong(time);
+        pendingIndex.writeLong(offset);
     }
 
-    private String nextFileNameOfDay(long time) {
+    private List<String> metricFiles() throws Exception {
+        if (cachedMetricFiles == null) {
+            cachedMetricFiles = listMetricFiles(baseDir, baseFileName);
+        }
+        return cachedMetricFiles;
+    }
+
+    private String nextFileNameOfDay(long time) throws Exception {
         List<String> list = new ArrayList<String>();
-        File baseFile = new File(baseDir);
         DateFormat fileNameDf = new SimpleDateFormat("yyyy-MM-dd");
         String dateStr = fileNameDf.format(new Date(time));
         String fileNameModel = baseFileName + "." + dateStr;
-        for (File file : baseFile.listFiles()) {
-            String fileName = file.getName();
-            if (fileName.contains(fileNameModel)
-                && !fileName.endsWith(METRIC_FILE_INDEX_SUFFIX)
-                && !fileName.endsWith(".lck")) {
-                list.add(file.getAbsolutePath());
+        for (String file : metricFiles()) {
+            if (new File(file).getName().contains(fileNameModel)) {
+                list.add(file);
             }
         }
-        Collections.sort(list, METRIC_FILE_NAME_CMP);
         if (list.isEmpty()) {
             return baseDir + fileNameModel;
         }
@@ -319,49 +520,124 @@ public class MetricWriter {
     }
 
     private void removeMoreFiles() throws Exception {
-        List<String> list = listMetricFiles(baseDir, baseFileName);
+        List<String> list = metricFiles();
         if (list == null || list.isEmpty()) {
             return;
         }
-        for (int i = 0; i < list.size() - totalFileCount + 1; i++) {
-            String fileName = list.get(i);
-            String indexFile = formIndexFileName(fileName);
-            new File(fileName).delete();
-            RecordLog.info("[MetricWriter] Removing metric file: {}", fileName);
-            new File(indexFile).delete();
-            RecordLog.info("[MetricWriter] Removing metric index file: {}", indexFile);
+        if (archive == null) {
+            while (list.size() > totalFileCount - 1) {
+                removeFile(list.remove(0));
+            }
+            return;
+        }
+        long coldTime = System.currentTimeMillis() - archive.getHotMillis();
+        boolean archived = false;
+        while (!list.isEmpty()
+            && (list.size() > totalFileCount - 1 || new File(list.get(0)).lastModified() <= coldTime)) {
+            String fileName = list.remove(0);
+            try {
+                archive.archive(baseDir, baseFileName, fileName);
+                archived = true;
+            } catch (Exception e) {
+                RecordLog.warn("[MetricWriter] Failed to archive metric file: " + fileName, e);
+            }
+            removeFile(fileName);
+        }
+        if (archived) {
+            archive.enforceRetention(baseDir, baseFileName, System.currentTimeMillis());
         }
     }
 
+    private void removeFile(String fileName) {
+        String indexFile = formIndexFileName(fileName);
+        new File(fileName).delete();
+        RecordLog.info("[MetricWriter] Removing metric file: {}", fileName);
+        new File(indexFile).delete();
+        RecordLog.info("[MetricWriter] Removing metric index file: {}", indexFile);
+        new File(formResourceIndexFileName(fileName)).delete();
+    }
+
     private void closeAndNewFile(String fileName) throws Exception {
+        closeChannels();
         removeMoreFiles();
-        if (outMetricBuf != null) {
-            outMetricBuf.close();
-        }
-        if (outIndex != null) {
-            outIndex.close();
-        }
-        outMetric = new FileOutputStream(fileName, append);
-        outMetricBuf = new BufferedOutputStream(outMetric);
+        outMetric = new FileOutputStream(fileName, append).getChannel();
         curMetricFile = new File(fileName);
         String idxFile = formIndexFileName(fileName);
         curMetricIndexFile = new File(idxFile);
-        outIndex = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(idxFile, append)));
+        outIndex = new FileOutputStream(idxFile, append).getChannel();
+        outResourceIndex = new FileOutputStream(formResourceIndexFileName(fileName), append).getChannel();
+        curFileFirstSecond = -1;
+        List<String> files = metricFiles();
+        String path = curMetricFile.getAbsolutePath();
+        if (!files.contains(path)) {
+            files.add(path);
+            Collections.sort(files, METRIC_FILE_NAME_CMP);
+        }
+        if (binaryEncoder != null) {
+            // Every binary metric file has its own header and resource dictionary.
+            binaryEncoder.reset();
+            binaryEncoder.writeHeader(pendingMetric, System.currentTimeMillis());
+            flush();
+        }
         RecordLog.info("[MetricWriter] New metric file created: {}", fileName);
         RecordLog.info("[MetricWriter] New metric index file created: {}", idxFile);
     }
 
     private boolean validSize() throws Exception {
-        long size = outMetric.getChannel().size();
+        long size = outMetric.size() + pendingMetric.size();
         return size < singleFileSize;
     }
 
+    /**
+     * The current metric file should be rolled to be archived, if it has been written for the hot period.
+     */
+    private boolean outlivesHotPeriod(long second) {
+        return archive != null && curFileFirstSecond >= 0
+            && (second - curFileFirstSecond) * 1000 >= archive.getHotMillis();
+    }
+
     private boolean isNewDay(long lastSecond, long second) {
         long lastDay = (lastSecond - timeSecondBase) / 86400;
         long newDay = (second - timeSecondBase) / 86400;
         return newDay > lastDay;
     }
 
+    /**
+     * A reusable in-memory buffer whose content is written to a {@link FileChannel} directly.
+     */
+    static final class PendingBuffer extends ByteArrayOutputStream {
+
+        private final byte[] longBuf = new byte[8];
+
+        PendingBuffer(int size) {
+            super(size);
+        }
+
+        void writeLong(long v) {
+            for (int i = 7; i >= 0; i--) {
+                longBuf[i] = (byte)v;
+                v >>>= 8;
+            }
+            write(longBuf, 0, 8);
+        }
+
+        void writeInt(int v) {
+            for (int i = 3; i >= 0; i--) {
+                longBuf[i] = (byte)v;
+                v >>>= 8;
+            }
+            write(longBuf, 0, 4);
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(buf, 0, count);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            reset();
+        }
+    }
+
     /**
      * Form metric file name use the specific appName and pid. Note that only
      * form the file name, not include path.
@@ -399,4 +675,15 @@ public class MetricWriter {
     public static String formIndexFileName(String metricFileName) {
         return metricFileName + METRIC_FILE_INDEX_SUFFIX;
     }
+
+    /**
+     * Form resource index file name of the {@code metricFileName}
+     *
+     * @param metricFileName
+     * @return the resource index file name of the metricFileName
+     * @since 1.8.8
+     */
+    public static String formResourceIndexFileName(String metricFileName) {
+        return metricFileName + METRIC_FILE_RESOURCE_INDEX_SUFFIX;
+    }
 }
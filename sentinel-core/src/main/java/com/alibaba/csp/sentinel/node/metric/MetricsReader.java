@@ -16,14 +16,29 @@
 package com.alibaba.csp.sentinel.node.metric;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+import com.alibaba.csp.sentinel.log.RecordLog;
 
 /**
- * Reads metrics data from log file.
+ * Reads metrics data from log file. Both text and binary ({@link BinaryMetricFormat}) metric files
+ * are supported, the format is detected per file. Archived metrics ({@link MetricArchive}) are read by
+ * {@link #readArchive(List, long, long, String)}. It's thread-safe.
  */
 class MetricsReader {
 
@@ -34,10 +49,61 @@ class MetricsReader {
 
     private final Charset charset;
 
+    private final Map<String, BinaryMetricFileReader> binaryReaders = new ConcurrentHashMap<>();
+    private final Set<String> textFiles = ConcurrentHashMap.newKeySet();
+    private final Map<String, MetricResourceIndex> resourceIndexes = new ConcurrentHashMap<>();
+
     public MetricsReader(Charset charset) {
         this.charset = charset;
     }
 
+    /**
+     * Drop the cached state of files that no longer exist.
+     *
+     * @param fileNames current metric files
+     */
+    void retainFiles(List<String> fileNames) {
+        binaryReaders.keySet().retainAll(fileNames);
+        textFiles.retainAll(fileNames);
+        resourceIndexes.keySet().retainAll(fileNames);
+    }
+
+    /**
+     * @return the resource index of the file, or null if the file has no resource index
+     */
+    private MetricResourceIndex resourceIndexOf(String fileName) {
+        MetricResourceIndex index = resourceIndexes.get(fileName);
+        if (index == null && new File(MetricWriter.formResourceIndexFileName(fileName)).exists()) {
+            index = new MetricResourceIndex(MetricWriter.formResourceIndexFileName(fileName));
+            MetricResourceIndex old = resourceIndexes.putIfAbsent(fileName, index);
+            if (old != null) {
+                index = old;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @return the binary reader of the file, or null if it's a text metric file
+     */
+    private BinaryMetricFileReader binaryReaderOf(String fileName) {
+        BinaryMetricFileReader reader = binaryReaders.get(fileName);
+        if (reader != null || textFiles.contains(fileName)) {
+            return reader;
+        }
+        if (BinaryMetricFormat.isBinaryFile(fileName)) {
+            reader = new BinaryMetricFileReader(fileName);
+            BinaryMetricFileReader old = binaryReaders.putIfAbsent(fileName, reader);
+            if (old != null) {
+                reader = old;
+            }
+        } else if (new File(fileName).length() >= BinaryMetricFormat.HEADER_SIZE) {
+            // An empty file may still turn out to be binary when its header is flushed.
+            textFiles.add(fileName);
+        }
+        return reader;
+    }
+
     /**
      * @return if should continue read, return true, else false.
      */
@@ -46,6 +112,11 @@ class MetricsReader {
         FileInputStream in = null;
         long beginSecond = beginTimeMs / 1000;
         long endSecond = endTimeMs / 1000;
+        BinaryMetricFileReader binaryReader = binaryReaderOf(fileName);
+        if (binaryReader != null) {
+            return binaryReader.readMetricsByEndTime(list, offset, beginSecond, endSecond, identity,
+                MAX_LINES_RETURN);
+        }
         try {
             in = new FileInputStream(fileName);
             in.getChannel().position(offset);
@@ -85,6 +156,11 @@ class MetricsReader {
         //if(list.size() >= recommendLines){
         //    return;
         //}
+        BinaryMetricFileReader binaryReader = binaryReaderOf(fileName);
+        if (binaryReader != null) {
+            binaryReader.readMetrics(list, offset, recommendLines);
+            return;
+        }
         long lastSecond = -1;
         if (list.size() > 0) {
             lastSecond = list.get(list.size() - 1).getTimestamp() / 1000;
@@ -130,6 +206,140 @@ class MetricsReader {
         return list;
     }
 
+    /**
+     * Read metrics of the specific identity between [beginTimeMs, endTimeMs]. Rows are located through
+     * the resource index if the file has one, otherwise the file is scanned.
+     */
+    List<MetricNode> readMetricsByResource(List<String> fileNames, int pos, long offset,
+                                           long beginTimeMs, long endTimeMs, String identity) throws Exception {
+        List<MetricNode> list = new ArrayList<MetricNode>();
+        MetricResourceIndex.Locations locations = new MetricResourceIndex.Locations();
+        long beginSecond = beginTimeMs / 1000;
+        long endSecond = endTimeMs / 1000;
+        for (; pos < fileNames.size(); pos++, offset = 0) {
+            String fileName = fileNames.get(pos);
+            MetricResourceIndex index = resourceIndexOf(fileName);
+            boolean shouldContinue;
+            if (index == null) {
+                shouldContinue = readMetricsInOneFileByEndTime(list, fileName, offset, beginTimeMs, endTimeMs,
+                    identity);
+            } else {
+                locations.clear();
+                shouldContinue = index.find(beginSecond, endSecond, identity, locations);
+                readRows(list, fileName, locations, identity);
+            }
+            if (!shouldContinue || list.size() >= MAX_LINES_RETURN) {
+                break;
+            }
+        }
+        return list;
+    }
+
+    private void readRows(List<MetricNode> list, String fileName, MetricResourceIndex.Locations locations,
+                          String identity) throws Exception {
+        if (locations.size() == 0) {
+            return;
+        }
+        BinaryMetricFileReader binaryReader = binaryReaderOf(fileName);
+        if (binaryReader != null) {
+            for (int i = 0; i < locations.size() && list.size() < MAX_LINES_RETURN; i++) {
+                MetricNode node = binaryReader.readRowAt(locations.offset(i), locations.extra(i));
+                if (node != null && identity.equals(node.getResource())) {
+                    list.add(node);
+                }
+            }
+            return;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(fileName, "r")) {
+            FileChannel channel = file.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            for (int i = 0; i < locations.size() && list.size() < MAX_LINES_RETURN; i++) {
+                int length = locations.extra(i);
+                if (buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(length);
+                }
+                buffer.clear();
+                buffer.limit(length);
+                long position = locations.offset(i);
+                while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+                }
+                if (buffer.hasRemaining()) {
+                    // The line is not completely written yet.
+                    continue;
+                }
+                String line = new String(buffer.array(), 0, length, charset).trim();
+                MetricNode node = MetricNode.fromFatString(line);
+                if (identity.equals(node.getResource())) {
+                    list.add(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read archived metrics of the segments between [beginTimeMs, endTimeMs]. When identity is null, metrics
+     * of all resources will be read. Rows of the same interval and resource are merged, see {@link MetricArchive}.
+     *
+     * @param segmentFiles archive segments in the order of hours
+     * @return archived metrics in the order of time
+     */
+    List<MetricNode> readArchive(List<String> segmentFiles, long beginTimeMs, long endTimeMs, String identity) {
+        List<MetricNode> list = new ArrayList<MetricNode>();
+        for (String segment : segmentFiles) {
+            long intervalMs = MetricArchive.resolutionOf(segment) * 1000L;
+            Map<String, MetricNode> totals = new LinkedHashMap<String, MetricNode>();
+            BufferedReader reader = null;
+            try {
+                reader = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new FileInputStream(segment)), charset));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    MetricNode row = MetricNode.fromFatString(line);
+                    if (row.getTimestamp() + intervalMs <= beginTimeMs || row.getTimestamp() > endTimeMs
+                        || (identity != null && !identity.equals(row.getResource()))) {
+                        continue;
+                    }
+                    String key = row.getTimestamp() + "|" + row.getResource();
+                    MetricNode total = totals.get(key);
+                    if (total == null) {
+                        totals.put(key, row);
+                    } else {
+                        MetricArchive.addTotals(total, row, row.getRt());
+                    }
+                }
+            } catch (Exception e) {
+                // The last gzip member may be incomplete if the process died when archiving.
+                RecordLog.warn("[MetricsReader] Failed to read metric archive segment: " + segment, e);
+            } finally {
+                closeQuietly(reader);
+            }
+            for (MetricNode total : totals.values()) {
+                total.setRt(total.getSuccessQps() > 0 ? total.getRt() / total.getSuccessQps() : 0);
+                list.add(total);
+            }
+            if (list.size() >= MAX_LINES_RETURN) {
+                break;
+            }
+        }
+        // Merged rows of different metric files may be out of order.
+        Collections.sort(list, new Comparator<MetricNode>() {
+            @Override
+            public int compare(MetricNode o1, MetricNode o2) {
+                return Long.compare(o1.getTimestamp(), o2.getTimestamp());
+            }
+        });
+        return list;
+    }
+
+    private static void closeQuietly(BufferedReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+
     List<MetricNode> readMetrics(List<String> fileNames, int pos,
                                  long offset, int recommendLines) throws Exception {
         List<MetricNode> list = new ArrayList<MetricNode>(recommendLines);
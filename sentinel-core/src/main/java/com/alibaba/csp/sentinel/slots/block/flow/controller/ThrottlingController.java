@@ -153,6 +153,7 @@ public class ThrottlingController implements TrafficShapingController {
         }
     }
 
+    // No monitor is held while waiting, so the waits below unmount a virtual thread instead of pinning its carrier.
     private void sleepMs(long ms) {
         try {
             Thread.sleep(ms);
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.slots.block.flow.tokenbucket;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
@@ -22,8 +24,8 @@ import com.alibaba.csp.sentinel.util.TimeUtil;
  */
 public class StrictTokenBucket extends AbstractTokenBucket{
 
-    final private Object refreshLock = new Object();
-    final private Object consumeLock = new Object();
+    final private ReentrantLock refreshLock = new ReentrantLock();
+    final private ReentrantLock consumeLock = new ReentrantLock();
 
     public StrictTokenBucket(long unitProduceNum, long maxTokenNum, long intervalInMs) {
         super(unitProduceNum, maxTokenNum, false, intervalInMs);
@@ -41,11 +43,14 @@ public class StrictTokenBucket extends AbstractTokenBucket{
         long currentTimestamp = TimeUtil.currentTimeMillis();
         refreshCurrentTokenNum(currentTimestamp);
         if (tokenNum <= currentTokenNum) {
-            synchronized (consumeLock) {
+            consumeLock.lock();
+            try {
                 if (tokenNum <= currentTokenNum) {
                     currentTokenNum -= tokenNum;
                     return true;
                 }
+            } finally {
+                consumeLock.unlock();
             }
         }
         return false;
@@ -57,12 +62,15 @@ public class StrictTokenBucket extends AbstractTokenBucket{
             return;
         }
         long producedTokenNum = calProducedTokenNum(currentTimestamp);
-        synchronized (refreshLock) {
+        refreshLock.lock();
+        try {
             if (nextProduceTime > currentTimestamp) {
                 return;
             }
             currentTokenNum = Math.min(maxTokenNum, currentTokenNum + producedTokenNum);
             updateNextProduceTime(currentTimestamp);
+        } finally {
+            refreshLock.unlock();
         }
     }
 
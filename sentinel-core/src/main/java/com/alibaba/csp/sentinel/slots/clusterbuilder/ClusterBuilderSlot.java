@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.slots.clusterbuilder;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.EntryType;
@@ -69,7 +70,7 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
      */
     private static volatile Map<ResourceWrapper, ClusterNode> clusterNodeMap = new HashMap<>();
 
-    private static final Object lock = new Object();
+    private static final ReentrantLock lock = new ReentrantLock();
 
     private volatile ClusterNode clusterNode = null;
 
@@ -78,7 +79,8 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
                       boolean prioritized, Object... args)
         throws Throwable {
         if (clusterNode == null) {
-            synchronized (lock) {
+            lock.lock();
+            try {
                 if (clusterNode == null) {
                     // Create the cluster node.
                     clusterNode = new ClusterNode(resourceWrapper.getName(), resourceWrapper.getResourceType());
@@ -88,6 +90,8 @@ public class ClusterBuilderSlot extends AbstractLinkedProcessorSlot<DefaultNode>
 
                     clusterNodeMap = newMap;
                 }
+            } finally {
+                lock.unlock();
             }
         }
         node.setClusterNode(clusterNode);
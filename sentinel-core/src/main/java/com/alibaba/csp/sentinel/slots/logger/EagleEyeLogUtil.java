@@ -38,6 +38,7 @@ public class EagleEyeLogUtil {
             .configLogFilePath(path)
             .maxFileSizeMB(300)
             .maxBackupIndex(3)
+            .asyncAppender(true)
             .buildSingleton();
     }
 
@@ -46,6 +47,6 @@ public class EagleEyeLogUtil {
         if (ruleId != null) {
             ruleIdString = String.valueOf(ruleId);
         }
-        statLogger.stat(resource, exceptionName, ruleLimitApp, origin, ruleIdString).count(count);
+        statLogger.statKey(resource, exceptionName, ruleLimitApp, origin, ruleIdString).count(count);
     }
 }
@@ -25,8 +25,12 @@ import com.alibaba.csp.sentinel.slotchain.AbstractLinkedProcessorSlot;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
 import com.alibaba.csp.sentinel.spi.Spi;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * </p>
@@ -127,11 +131,22 @@ import java.util.Map;
 @Spi(isSingleton = false, order = Constants.ORDER_NODE_SELECTOR_SLOT)
 public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
 
+    /**
+     * All slots that have created nodes, so that nodes of evicted contexts can be removed.
+     */
+    private static final Set<NodeSelectorSlot> SLOTS = Collections.newSetFromMap(
+        new ConcurrentHashMap<NodeSelectorSlot, Boolean>());
+
     /**
      * {@link DefaultNode}s of the same resource in different context.
      */
     private volatile Map<String, DefaultNode> map = new HashMap<String, DefaultNode>(10);
 
+    /**
+     * An explicit lock (rather than a monitor) won't pin virtual threads to their carrier threads.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
     @Override
     public void entry(Context context, ResourceWrapper resourceWrapper, Object obj, int count, boolean prioritized, Object... args)
         throws Throwable {
@@ -155,7 +170,8 @@ public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
          */
         DefaultNode node = map.get(context.getName());
         if (node == null) {
-            synchronized (this) {
+            lock.lock();
+            try {
                 node = map.get(context.getName());
                 if (node == null) {
                     node = new DefaultNode(resourceWrapper, null);
@@ -163,10 +179,12 @@ public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
                     cacheMap.putAll(map);
                     cacheMap.put(context.getName(), node);
                     map = cacheMap;
+                    SLOTS.add(this);
                     // Build invocation tree
                     ((DefaultNode) context.getLastNode()).addChild(node);
                 }
-
+            } finally {
+                lock.unlock();
             }
         }
 
@@ -178,4 +196,33 @@ public class NodeSelectorSlot extends AbstractLinkedProcessorSlot<Object> {
     public void exit(Context context, ResourceWrapper resourceWrapper, int count, Object... args) {
         fireExit(context, resourceWrapper, count, args);
     }
+
+    private void removeNode(String contextName) {
+        if (!map.containsKey(contextName)) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (map.containsKey(contextName)) {
+                HashMap<String, DefaultNode> cacheMap = new HashMap<String, DefaultNode>(map);
+                cacheMap.remove(contextName);
+                map = cacheMap;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove the {@link DefaultNode}s of all resources in the given context.
+     * This is called when the context name has been evicted from {@link ContextUtil}.
+     *
+     * @param contextName the evicted context name
+     * @since 1.8.8
+     */
+    public static void removeContextNodes(String contextName) {
+        for (NodeSelectorSlot slot : SLOTS) {
+            slot.removeNode(contextName);
+        }
+    }
 }
@@ -362,6 +362,18 @@ public abstract class LeapArray<T> {
         return wrap;
     }
 
+    /**
+     * Get the bucket at the given index of the underlying array, which may be null or deprecated.
+     * It's used to iterate all buckets without allocating a list.
+     *
+     * @param idx index in [0, sampleCount)
+     * @return the bucket at the index, may be null
+     * @since 1.8.8
+     */
+    public WindowWrap<T> getWindowAt(int idx) {
+        return array.get(idx);
+    }
+
     /**
      * Get the valid "head" bucket of the sliding window at current timestamp.
      *
@@ -20,11 +20,13 @@ import java.util.List;
 
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricSnapshot;
 import com.alibaba.csp.sentinel.slots.statistic.MetricEvent;
 import com.alibaba.csp.sentinel.slots.statistic.base.LeapArray;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
 import com.alibaba.csp.sentinel.slots.statistic.base.WindowWrap;
 import com.alibaba.csp.sentinel.slots.statistic.metric.occupy.OccupiableBucketLeapArray;
+import com.alibaba.csp.sentinel.util.TimeUtil;
 import com.alibaba.csp.sentinel.util.function.Predicate;
 
 /**
@@ -187,6 +189,38 @@ public class ArrayMetric implements Metric {
         return details;
     }
 
+    @Override
+    public long snapshotBuckets(long beginTimeExclusive, long endTimeExclusive, MetricSnapshot snapshot,
+                                int resourceId) {
+        long now = TimeUtil.currentTimeMillis();
+        long maxTime = beginTimeExclusive;
+        int size = data.getSampleCount();
+        for (int i = 0; i < size; i++) {
+            WindowWrap<MetricBucket> wrap = data.getWindowAt(i);
+            if (wrap == null || data.isWindowDeprecated(now, wrap)) {
+                continue;
+            }
+            long start = wrap.windowStart();
+            if (start <= beginTimeExclusive || start >= endTimeExclusive) {
+                continue;
+            }
+            MetricBucket bucket = wrap.value();
+            long pass = bucket.pass();
+            long block = bucket.block();
+            long success = bucket.success();
+            long exception = bucket.exception();
+            long rt = bucket.rt();
+            long occupiedPass = bucket.occupiedPass();
+            if (pass <= 0 && block <= 0 && success <= 0 && exception <= 0 && rt <= 0 && occupiedPass <= 0) {
+                continue;
+            }
+            snapshot.addRow(start, resourceId, pass, block, success, exception,
+                success != 0 ? rt / success : rt, occupiedPass, 0);
+            maxTime = Math.max(maxTime, start);
+        }
+        return maxTime;
+    }
+
     private MetricNode fromBucket(WindowWrap<MetricBucket> wrap) {
         MetricNode node = new MetricNode();
         node.setBlockQps(wrap.value().block());
@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel.slots.statistic.metric;
 import java.util.List;
 
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
+import com.alibaba.csp.sentinel.node.metric.MetricSnapshot;
 import com.alibaba.csp.sentinel.slots.statistic.data.MetricBucket;
 import com.alibaba.csp.sentinel.util.function.Predicate;
 
@@ -94,6 +95,35 @@ public interface Metric extends DebugSupport {
      */
     List<MetricNode> detailsOnCondition(Predicate<Long> timePredicate);
 
+    /**
+     * Add the non-empty buckets whose start time is in ({@code beginTimeExclusive}, {@code endTimeExclusive})
+     * to the snapshot, without allocating intermediate objects.
+     * <p>
+     * The default implementation falls back to {@link #details()}, which does allocate the metric nodes.
+     * </p>
+     *
+     * @param beginTimeExclusive lower bound of bucket start time
+     * @param endTimeExclusive   upper bound of bucket start time
+     * @param snapshot           the snapshot to fill
+     * @param resourceId         resource index in the snapshot
+     * @return the max start time of added buckets, or {@code beginTimeExclusive} if none is added
+     * @since 1.8.8
+     */
+    default long snapshotBuckets(long beginTimeExclusive, long endTimeExclusive, MetricSnapshot snapshot,
+                                 int resourceId) {
+        long maxTime = beginTimeExclusive;
+        for (MetricNode node : details()) {
+            long time = node.getTimestamp();
+            if (time <= beginTimeExclusive || time >= endTimeExclusive) {
+                continue;
+            }
+            snapshot.addRow(time, resourceId, node.getPassQps(), node.getBlockQps(), node.getSuccessQps(),
+                node.getExceptionQps(), node.getRt(), node.getOccupiedPassQps(), 0);
+            maxTime = Math.max(maxTime, time);
+        }
+        return maxTime;
+    }
+
     /**
      * Get the raw window array.
      *
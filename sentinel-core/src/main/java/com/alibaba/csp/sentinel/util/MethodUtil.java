@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel.util;
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 /***
  * Util class for processing {@link Method}.
@@ -28,7 +29,7 @@ public final class MethodUtil {
 
     private static final Map<Method, String> methodNameMap = new ConcurrentHashMap<Method, String>();
 
-    private static final Object LOCK = new Object();
+    private static final ReentrantLock LOCK = new ReentrantLock();
 
     /**
      * Parse and resolve the method name, then cache to the map.
@@ -42,7 +43,8 @@ public final class MethodUtil {
         }
         String methodName = methodNameMap.get(method);
         if (methodName == null) {
-            synchronized (LOCK) {
+            LOCK.lock();
+            try {
                 methodName = methodNameMap.get(method);
                 if (methodName == null) {
                     StringBuilder sb = new StringBuilder();
@@ -65,6 +67,8 @@ public final class MethodUtil {
 
                     methodNameMap.put(method, methodName);
                 }
+            } finally {
+                LOCK.unlock();
             }
         }
         return methodName;
@@ -94,6 +94,41 @@ public class AsyncEntryTest {
         assertSame(asyncContext, entry.getAsyncContext());
     }
 
+    @Test
+    public void testAsyncEntryWithExplicitContext() throws Exception {
+        Context parent = ContextUtil.newDetachedContext("testAsyncEntryWithExplicitContext", "originA");
+        assertTrue(parent.isAsync());
+        assertNull(ContextUtil.getContext());
+
+        AsyncEntry entry = SphU.asyncEntryWithContext(parent, "explicit-context-outer", EntryType.IN);
+        // Neither the thread-local context nor the provided context should be touched.
+        assertNull(ContextUtil.getContext());
+        assertNull(parent.getCurEntry());
+
+        Context asyncContext = entry.getAsyncContext();
+        assertNotNull(asyncContext);
+        assertEquals("testAsyncEntryWithExplicitContext", asyncContext.getName());
+        assertEquals("originA", asyncContext.getOrigin());
+        assertSame(parent.getEntranceNode(), asyncContext.getEntranceNode());
+
+        // Nested entry within the async context of the outer entry.
+        AsyncEntry child = SphU.asyncEntryWithContext(asyncContext, "explicit-context-inner", EntryType.OUT);
+        assertSame(entry, child.parent);
+        assertSame(entry, asyncContext.getCurEntry());
+
+        child.exit();
+        entry.exit();
+        assertNull(ContextUtil.getContext());
+    }
+
+    @Test
+    public void testAsyncEntryWithDetachedDefaultContext() throws Exception {
+        Context parent = ContextUtil.newDetachedContext(Constants.CONTEXT_DEFAULT_NAME, "");
+        AsyncEntry entry = SphU.asyncEntryWithContext(parent, "explicit-default-context", EntryType.OUT);
+        entry.exit();
+        assertNull(ContextUtil.getContext());
+    }
+
     @After
     public void tearDown() {
         ContextTestUtil.cleanUpContext();
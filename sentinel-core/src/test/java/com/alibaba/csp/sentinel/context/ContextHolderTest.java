@@ -0,0 +1,70 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.context;
+
+import com.alibaba.csp.sentinel.spi.SpiLoader;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Eric Zhao
+ */
+public class ContextHolderTest {
+
+    @After
+    public void cleanUp() {
+        ContextTestUtil.cleanUpContext();
+    }
+
+    @Test
+    public void testDefaultContextHolderLoadedViaSpi() {
+        ContextHolder holder = SpiLoader.of(ContextHolder.class).loadFirstInstanceOrDefault();
+        assertTrue(holder instanceof ThreadLocalContextHolder);
+    }
+
+    @Test
+    public void testThreadLocalContextHolder() throws Exception {
+        final ThreadLocalContextHolder holder = new ThreadLocalContextHolder();
+        Context context = new Context(null, "test-context-holder");
+        holder.set(context);
+        assertSame(context, holder.get());
+
+        final Context[] seenInOtherThread = new Context[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                seenInOtherThread[0] = holder.get();
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNull(seenInOtherThread[0]);
+
+        holder.remove();
+        assertNull(holder.get());
+    }
+
+    @Test
+    public void testExitRemovesContext() {
+        ContextUtil.enter("test-context-holder-exit");
+        assertNotNull(ContextUtil.getContext());
+        ContextUtil.exit();
+        assertNull(ContextUtil.getContext());
+    }
+}
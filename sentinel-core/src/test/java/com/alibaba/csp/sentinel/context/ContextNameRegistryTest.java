@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.context;
+
+import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.node.DefaultNode;
+import com.alibaba.csp.sentinel.node.Node;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Eric Zhao
+ */
+public class ContextNameRegistryTest {
+
+    @Before
+    public void setUp() {
+        ContextTestUtil.resetContextMap();
+    }
+
+    @After
+    public void tearDown() {
+        SentinelConfig.setConfig(SentinelConfig.CONTEXT_IDLE_EVICT_MS,
+            String.valueOf(SentinelConfig.DEFAULT_CONTEXT_IDLE_EVICT_MS));
+        ContextTestUtil.cleanUpContext();
+        ContextTestUtil.resetContextMap();
+    }
+
+    @Test
+    public void testEvictIdleContextNames() throws Exception {
+        SentinelConfig.setConfig(SentinelConfig.CONTEXT_IDLE_EVICT_MS, "1");
+        ContextNameRegistry registry = new ContextNameRegistry();
+        DefaultNode defaultNode = registry.getOrCreate(Constants.CONTEXT_DEFAULT_NAME, false).node;
+        DefaultNode first = registry.getOrCreate("test-evict-context-0", false).node;
+        assertTrue(containsChild(Constants.ROOT, first));
+        Thread.sleep(1200);
+        for (int i = 1; i <= Constants.MAX_CONTEXT_NAME_SIZE; i++) {
+            assertNotNull(registry.getOrCreate("test-evict-context-" + i, false));
+        }
+
+        // Full, but the idle context names could be evicted.
+        assertNotNull(registry.getOrCreate("test-evict-context-new", false));
+        assertTrue(registry.getEvictedCount() > 0);
+        assertTrue(registry.size() <= Constants.MAX_CONTEXT_NAME_SIZE + 1);
+        assertFalse(containsChild(Constants.ROOT, first));
+        // The default context is never evicted.
+        assertSame(defaultNode, registry.getOrCreate(Constants.CONTEXT_DEFAULT_NAME, false).node);
+    }
+
+    @Test
+    public void testNoEvictionOfContextInUse() throws Exception {
+        SentinelConfig.setConfig(SentinelConfig.CONTEXT_IDLE_EVICT_MS, "1");
+        ContextNameRegistry registry = new ContextNameRegistry();
+        ContextNameRegistry.Registration inUse = registry.getOrCreate("test-in-use-context", true);
+        for (int i = 0; i < Constants.MAX_CONTEXT_NAME_SIZE; i++) {
+            assertNotNull(registry.getOrCreate("test-idle-context-" + i, false));
+        }
+        Thread.sleep(1200);
+
+        assertNotNull(registry.getOrCreate("test-idle-context-new", false));
+        assertTrue(registry.getEvictedCount() > 0);
+        // Entered long ago but not exited yet.
+        assertTrue(containsChild(Constants.ROOT, inUse.node));
+        assertSame(inUse, registry.getOrCreate("test-in-use-context", false));
+        inUse.release();
+    }
+
+    @Test
+    public void testNoEvictionWhenDisabled() throws Exception {
+        SentinelConfig.setConfig(SentinelConfig.CONTEXT_IDLE_EVICT_MS, "0");
+        ContextNameRegistry registry = new ContextNameRegistry();
+        for (int i = 0; i <= Constants.MAX_CONTEXT_NAME_SIZE; i++) {
+            assertNotNull(registry.getOrCreate("test-no-evict-context-" + i, false));
+        }
+        Thread.sleep(20);
+        assertNull(registry.getOrCreate("test-no-evict-context-new", false));
+        assertEquals(0, registry.getEvictedCount());
+    }
+
+    @Test
+    public void testEnterAfterEviction() throws Exception {
+        SentinelConfig.setConfig(SentinelConfig.CONTEXT_IDLE_EVICT_MS, "1");
+        for (int i = 0; i < Constants.MAX_CONTEXT_NAME_SIZE; i++) {
+            ContextUtil.enter("test-context-" + i);
+            ContextUtil.exit();
+        }
+        Thread.sleep(1200);
+        long evicted = ContextUtil.evictedContextCount();
+
+        Context context = ContextUtil.enter("test-context-after-eviction");
+        assertFalse(context instanceof NullContext);
+        assertNotNull(context.getEntranceNode());
+        assertTrue(ContextUtil.evictedContextCount() > evicted);
+        ContextUtil.exit();
+    }
+
+    private boolean containsChild(DefaultNode parent, DefaultNode child) {
+        for (Node node : parent.getChildList()) {
+            if (node == child) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
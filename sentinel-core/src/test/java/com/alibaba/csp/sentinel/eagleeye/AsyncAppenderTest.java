@@ -0,0 +1,135 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.eagleeye;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eric Zhao
+ */
+public class AsyncAppenderTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new AsyncAppender(new RecordingAppender(null), 10);
+    }
+
+    @Test
+    public void testAppendConcurrentlyInOrderOfProducers() throws Exception {
+        final RecordingAppender delegate = new RecordingAppender(null);
+        final AsyncAppender appender = new AsyncAppender(delegate, 1 << 16);
+        final int producers = 4;
+        final int logsPerProducer = 10000;
+        Thread[] threads = new Thread[producers];
+        for (int t = 0; t < producers; t++) {
+            final int producer = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < logsPerProducer; i++) {
+                        appender.append(producer + "," + i);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        appender.close();
+
+        assertEquals(0, appender.getDroppedCount());
+        assertTrue(delegate.closed);
+        assertTrue(delegate.flushes > 0);
+        int[] next = new int[producers];
+        for (String log : delegate.logs) {
+            String[] parts = log.split(",");
+            int producer = Integer.parseInt(parts[0]);
+            assertEquals(next[producer]++, Integer.parseInt(parts[1]));
+        }
+        for (int count : next) {
+            assertEquals(logsPerProducer, count);
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        RecordingAppender delegate = new RecordingAppender(blocked);
+        AsyncAppender appender = new AsyncAppender(delegate, 4);
+        // The writer thread is blocked by the first log, 4 more logs fill the buffer.
+        appender.append("0");
+        while (delegate.logs.isEmpty()) {
+            Thread.sleep(1);
+        }
+        for (int i = 1; i <= 10; i++) {
+            appender.append(String.valueOf(i));
+        }
+        assertEquals(6, appender.getDroppedCount());
+
+        blocked.countDown();
+        appender.close();
+        assertEquals(5, delegate.logs.size());
+        assertEquals("4", delegate.logs.get(4));
+    }
+
+    private static class RecordingAppender extends EagleEyeAppender {
+
+        final List<String> logs = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch blocked;
+        volatile int flushes;
+        volatile boolean closed;
+
+        RecordingAppender(CountDownLatch blocked) {
+            this.blocked = blocked;
+        }
+
+        @Override
+        public void append(String log) {
+            logs.add(log);
+            if (blocked != null) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public String getOutputLocation() {
+            return "recording";
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.eagleeye;
+
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eric Zhao
+ */
+public class StatKeyTest {
+
+    private static StatLogger newStatLogger(long statKeyIdleMillis) {
+        return new StatLogger("test", new EagleEyeAppender() {
+            @Override
+            public void append(String log) {
+            }
+        }, 1000, 100, '|', ',', ',', statKeyIdleMillis);
+    }
+
+    private static long countOf(StatRollingData data, String key) {
+        for (Entry<StatEntry, StatEntryFunc> e : data.getStatEntrySet()) {
+            if (e.getKey().equals(new StatEntry(data.getStatLogger(), key))) {
+                return (Long)e.getValue().getValues()[0];
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void testCountConcurrentlyAcrossRollings() throws Exception {
+        StatLogger statLogger = newStatLogger(TimeUnit.MINUTES.toMillis(10));
+        final StatKey key = statLogger.statKey("flow|block|1");
+        assertSame(key, statLogger.statKey("flow|block|1"));
+
+        final int threads = 4;
+        final int countsPerThread = 100000;
+        Thread[] counters = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            counters[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < countsPerThread; i++) {
+                        key.count(2);
+                    }
+                }
+            });
+            counters[t].start();
+        }
+        long total = 0;
+        boolean running = true;
+        while (running) {
+            running = false;
+            for (Thread counter : counters) {
+                running |= counter.isAlive();
+            }
+            total += countOf(statLogger.rolling(), "flow|block|1");
+        }
+        total += countOf(statLogger.rolling(), "flow|block|1");
+        assertEquals(2L * threads * countsPerThread, total);
+    }
+
+    @Test
+    public void testRetireIdleKey() {
+        StatLogger statLogger = newStatLogger(0);
+        StatKey key = statLogger.statKey("flow|pass|1");
+        key.count();
+        assertEquals(1, countOf(statLogger.rolling(), "flow|pass|1"));
+        // Idle for a rolling.
+        statLogger.rolling();
+        assertTrue(key.isRetired());
+
+        // Counts of threads still holding the retired key are written by the next rolling.
+        key.count(3);
+        assertEquals(3, countOf(statLogger.rolling(), "flow|pass|1"));
+        key.count(5);
+        assertEquals(0, countOf(statLogger.rolling(), "flow|pass|1"));
+
+        StatKey newKey = statLogger.statKey("flow|pass|1");
+        assertNotSame(key, newKey);
+        assertFalse(newKey.isRetired());
+    }
+
+    @Test
+    public void testIdStatKeys() {
+        StatLogger statLogger = newStatLogger(0);
+        IdStatKeys keys = new IdStatKeys(statLogger, "flow|block|");
+        for (long id = 10; id > 0; id--) {
+            keys.get(id).count(id);
+        }
+        StatKey key = keys.get(3);
+        assertSame(key, keys.get(3));
+        assertSame(key, statLogger.statKey("flow|block|3"));
+        StatRollingData data = statLogger.rolling();
+        for (long id = 1; id <= 10; id++) {
+            assertEquals(id, countOf(data, "flow|block|" + id));
+        }
+
+        statLogger.rolling();
+        assertTrue(key.isRetired());
+        StatKey newKey = keys.get(3);
+        assertNotSame(key, newKey);
+        assertSame(newKey, keys.get(3));
+    }
+
+    @Test
+    public void testRegisteredKeysAreBounded() {
+        StatLogger statLogger = newStatLogger(TimeUnit.MINUTES.toMillis(10));
+        for (int i = 0; i < statLogger.getMaxEntryCount(); i++) {
+            assertTrue(statLogger.statKey("param|block|" + i).isRegistered());
+        }
+        StatKey key = statLogger.statKey("param|block|overflow");
+        assertFalse(key.isRegistered());
+        assertNotSame(key, statLogger.statKey("param|block|overflow"));
+
+        // Keys beyond the limit still count through the rolling data.
+        key.count(3);
+        assertEquals(3, countOf(statLogger.rolling(), "param|block|overflow"));
+    }
+}
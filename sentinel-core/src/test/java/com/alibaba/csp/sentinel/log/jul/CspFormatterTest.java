@@ -0,0 +1,79 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.log.jul;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link CspFormatter}.
+ *
+ * @author Eric Zhao
+ */
+public class CspFormatterTest {
+
+    private final DateTimeFormatter dateFormat = DateTimeFormatter
+        .ofPattern("yyyy-MM-dd HH:mm:ss.SSS")
+        .withZone(ZoneId.systemDefault());
+
+    @Test
+    public void testFormatDateOfEveryMillisecond() {
+        CspFormatter formatter = new CspFormatter();
+        long base = 1600000000000L;
+        long[] times = {base, base + 1, base + 9, base + 10, base + 99, base + 100, base + 999, base + 1000,
+            base + 5, base + 86400000L + 7};
+        for (long time : times) {
+            LogRecord record = new LogRecord(Level.INFO, "message");
+            record.setMillis(time);
+            assertEquals(dateFormat.format(Instant.ofEpochMilli(time)) + " INFO message\n",
+                formatter.format(record));
+        }
+    }
+
+    @Test
+    public void testFormatThrown() {
+        LogRecord record = new LogRecord(Level.WARNING, "failed");
+        record.setThrown(new IllegalStateException("test"));
+        String log = new CspFormatter().format(record);
+        assertTrue(log.contains(" WARNING failed"));
+        assertTrue(log.contains("java.lang.IllegalStateException: test"));
+    }
+
+    @Test
+    public void testFormatMessage() {
+        assertEquals("a 1 b [2, 3]", BaseJulLogger.formatMessage("a {} b {}", 1, new int[] {2, 3}));
+        assertEquals("a {} b [x, null]", BaseJulLogger.formatMessage("a \\{} b {}", (Object)new Object[] {"x", null}));
+        assertEquals("no placeholder", BaseJulLogger.formatMessage("no placeholder", 1));
+        assertEquals("error {}", BaseJulLogger.formatMessage("error {}", new RuntimeException()));
+        assertEquals("error 1", BaseJulLogger.formatMessage("error {}", 1, new RuntimeException()));
+        assertEquals("null and {}", BaseJulLogger.formatMessage("{} and {}", (Object)null));
+
+        StringBuilder huge = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            huge.append('x');
+        }
+        assertEquals(huge + "!", BaseJulLogger.formatMessage("{}!", huge));
+        assertEquals("small", BaseJulLogger.formatMessage("{}", "small"));
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eric Zhao
+ */
+public class AsyncMetricWriterTest {
+
+    @Test
+    public void testWriteInBatches() throws Exception {
+        RecordingMetricWriter writer = new RecordingMetricWriter(null);
+        AsyncMetricWriter asyncWriter = new AsyncMetricWriter(writer, 16);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(asyncWriter.submit(i * 1000L, oneNode()));
+        }
+        asyncWriter.close();
+
+        assertEquals(10, writer.times.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i * 1000L, (long)writer.times.get(i));
+        }
+        assertTrue(writer.flushCount >= 1 && writer.flushCount <= 10);
+        assertTrue(writer.closed);
+        assertEquals(0, asyncWriter.getDroppedCount());
+    }
+
+    @Test
+    public void testDropWhenFallingBehind() throws Exception {
+        CountDownLatch blocker = new CountDownLatch(1);
+        RecordingMetricWriter writer = new RecordingMetricWriter(blocker);
+        AsyncMetricWriter asyncWriter = new AsyncMetricWriter(writer, 2);
+
+        assertTrue(asyncWriter.submit(0, oneNode()));
+        // Wait until the I/O thread takes the first batch and gets blocked.
+        assertTrue(writer.appending.await(3, TimeUnit.SECONDS));
+        assertTrue(asyncWriter.submit(1000, oneNode()));
+        assertTrue(asyncWriter.submit(2000, oneNode()));
+        long start = System.currentTimeMillis();
+        assertFalse(asyncWriter.submit(3000, oneNode()));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+        assertEquals(1, asyncWriter.getDroppedCount());
+
+        blocker.countDown();
+        asyncWriter.close();
+        assertEquals(3, writer.times.size());
+        assertFalse(asyncWriter.submit(4000, oneNode()));
+    }
+
+    private static List<MetricNode> oneNode() {
+        MetricNode node = new MetricNode();
+        node.setResource("res");
+        node.setPassQps(1);
+        return Collections.singletonList(node);
+    }
+
+    @Test
+    public void testSubmitSnapshotInOrderOfSeconds() throws Exception {
+        RecordingMetricWriter writer = new RecordingMetricWriter(null);
+        AsyncMetricWriter asyncWriter = new AsyncMetricWriter(writer);
+        MetricSnapshot snapshot = new MetricSnapshot();
+        int a = snapshot.addResource("a", 0);
+        int b = snapshot.addResource("b", 0);
+        snapshot.addRow(3000, a, 1, 0, 0, 0, 0, 0, 0);
+        snapshot.addRow(1000, a, 1, 0, 0, 0, 0, 0, 0);
+        snapshot.addRow(2000, b, 1, 0, 0, 0, 0, 0, 0);
+        snapshot.addRow(1000, b, 1, 0, 0, 0, 0, 0, 0);
+        assertTrue(asyncWriter.submit(snapshot));
+        // The snapshot can be reused at once.
+        snapshot.clear();
+        asyncWriter.close();
+
+        assertEquals(Arrays.asList(1000L, 2000L, 3000L), writer.times);
+        assertEquals(Arrays.asList("a", "b"), writer.resources.get(0));
+    }
+
+    private static class RecordingMetricWriter extends MetricWriter {
+
+        final List<Long> times = Collections.synchronizedList(new ArrayList<Long>());
+        final List<List<String>> resources = Collections.synchronizedList(new ArrayList<List<String>>());
+        final CountDownLatch appending = new CountDownLatch(1);
+        private final CountDownLatch blocker;
+        volatile int flushCount;
+        volatile boolean closed;
+
+        RecordingMetricWriter(CountDownLatch blocker) {
+            super(1024);
+            this.blocker = blocker;
+        }
+
+        @Override
+        synchronized void append(long time, List<MetricNode> nodes) throws Exception {
+            appending.countDown();
+            if (blocker != null) {
+                blocker.await();
+            }
+            times.add(time);
+            List<String> names = new ArrayList<>();
+            for (MetricNode node : nodes) {
+                names.add(node.getResource());
+            }
+            resources.add(names);
+        }
+
+        @Override
+        public synchronized void flush() {
+            flushCount++;
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+    }
+}
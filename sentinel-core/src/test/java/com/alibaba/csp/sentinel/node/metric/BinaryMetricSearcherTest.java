@@ -0,0 +1,151 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eric Zhao
+ */
+public class BinaryMetricSearcherTest {
+
+    private static final String BASE_FILE_NAME = "test-metrics.log";
+    private static final long BEGIN_TIME = 1700000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFindByTimeAndResource() throws Exception {
+        File file = folder.newFile(BASE_FILE_NAME + ".2023-11-14");
+        writeBinaryFile(file, 10);
+        assertTrue(BinaryMetricFormat.isBinaryFile(file.getAbsolutePath()));
+
+        MetricSearcher searcher = new MetricSearcher(folder.getRoot().getAbsolutePath(), BASE_FILE_NAME);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BEGIN_TIME + 2000, BEGIN_TIME + 4000, "res-b");
+        assertEquals(3, nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            MetricNode node = nodes.get(i);
+            assertEquals("res-b", node.getResource());
+            assertEquals(BEGIN_TIME + (i + 2) * 1000, node.getTimestamp());
+            assertEquals(i + 2, node.getPassQps());
+            assertEquals(1, node.getBlockQps());
+            assertEquals(2, node.getSuccessQps());
+            assertEquals(3, node.getExceptionQps());
+            assertEquals(4, node.getRt());
+            assertEquals(5, node.getOccupiedPassQps());
+            assertEquals(6, node.getConcurrency());
+            assertEquals(1, node.getClassification());
+        }
+
+        // "res-c" appears since the 5th second, its dictionary entry is located after the block found by index.
+        nodes = searcher.findByTimeAndResource(BEGIN_TIME + 3000, BEGIN_TIME + 6000, "res-c");
+        assertEquals(2, nodes.size());
+        assertEquals(BEGIN_TIME + 5000, nodes.get(0).getTimestamp());
+
+        nodes = searcher.findByTimeAndResource(BEGIN_TIME + 8000, BEGIN_TIME + 20000, null);
+        assertEquals(2 * 3, nodes.size());
+
+        assertTrue(searcher.findByTimeAndResource(BEGIN_TIME, BEGIN_TIME + 20000, "absent").isEmpty());
+    }
+
+    @Test
+    public void testFind() throws Exception {
+        File file = folder.newFile(BASE_FILE_NAME + ".2023-11-14");
+        writeBinaryFile(file, 10);
+
+        MetricSearcher searcher = new MetricSearcher(folder.getRoot().getAbsolutePath(), BASE_FILE_NAME);
+        // Data of the same second are never split.
+        List<MetricNode> nodes = searcher.find(BEGIN_TIME + 1000, 3);
+        assertEquals(4, nodes.size());
+        assertEquals(BEGIN_TIME + 1000, nodes.get(0).getTimestamp());
+        assertEquals(BEGIN_TIME + 2000, nodes.get(3).getTimestamp());
+        assertEquals(Arrays.asList("res-a", "res-b"), Arrays.asList(nodes.get(0).getResource(),
+            nodes.get(1).getResource()));
+    }
+
+    @Test
+    public void testIncompleteTailIgnored() throws Exception {
+        File file = folder.newFile(BASE_FILE_NAME + ".2023-11-14");
+        writeBinaryFile(file, 3);
+        // A block whose rows are not flushed yet.
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file, true))) {
+            out.writeByte(BinaryMetricFormat.TYPE_BLOCK);
+            out.writeLong(BEGIN_TIME + 3000);
+            out.writeInt(2);
+            out.writeInt(0);
+        }
+        MetricsReader reader = new MetricsReader(BinaryMetricFormat.CHARSET);
+        List<MetricNode> list = new ArrayList<>();
+        assertTrue(reader.readMetricsInOneFileByEndTime(list, file.getAbsolutePath(), 0,
+            BEGIN_TIME, BEGIN_TIME + 10000, null));
+        assertEquals(2 * 3, list.size());
+        assertFalse(reader.readMetricsInOneFileByEndTime(list, file.getAbsolutePath(), 0,
+            BEGIN_TIME, BEGIN_TIME + 1000, "res-a"));
+    }
+
+    /**
+     * Write {@code seconds} seconds of metrics: "res-a" and "res-b" in every second, "res-c" since the 5th second.
+     */
+    private void writeBinaryFile(File file, int seconds) throws Exception {
+        BinaryMetricEncoder encoder = new BinaryMetricEncoder();
+        File idxFile = new File(MetricWriter.formIndexFileName(file.getAbsolutePath()));
+        try (FileOutputStream out = new FileOutputStream(file);
+             DataOutputStream idxOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(idxFile)))) {
+            encoder.writeHeader(out, BEGIN_TIME);
+            for (int i = 0; i < seconds; i++) {
+                long time = BEGIN_TIME + i * 1000;
+                List<MetricNode> nodes = new ArrayList<>();
+                nodes.add(newNode("res-a", i));
+                nodes.add(newNode("res-b", i));
+                if (i >= 5) {
+                    nodes.add(newNode("res-c", i));
+                }
+                idxOut.writeLong(time / 1000);
+                idxOut.writeLong(out.getChannel().position());
+                encoder.write(out, time, nodes);
+            }
+        }
+    }
+
+    private MetricNode newNode(String resource, long passQps) {
+        MetricNode node = new MetricNode();
+        node.setResource(resource);
+        node.setClassification(1);
+        node.setPassQps(passQps);
+        node.setBlockQps(1);
+        node.setSuccessQps(2);
+        node.setExceptionQps(3);
+        node.setRt(4);
+        node.setOccupiedPassQps(5);
+        node.setConcurrency(6);
+        return node;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eric Zhao
+ */
+public class MetricArchiveTest {
+
+    private static final String BASE_FILE_NAME = "test-metrics.log";
+    /**
+     * Start of a minute.
+     */
+    private static final long BEGIN_TIME = 1699999980000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testArchiveAndSearch() throws Exception {
+        String dir = baseDir();
+        String fileName = writeMetricFile(BASE_FILE_NAME + ".2023-11-14", 0, 30);
+        MetricArchive archive = new MetricArchive(1024 * 1024, 1, 24);
+        archive.archive(dir, BASE_FILE_NAME, fileName);
+        removeMetricFile(fileName);
+
+        MetricSearcher searcher = new MetricSearcher(dir, BASE_FILE_NAME);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BEGIN_TIME, BEGIN_TIME + 29999, "res-1");
+        assertEquals(3, nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            MetricNode node = nodes.get(i);
+            assertEquals(BEGIN_TIME + i * 10000, node.getTimestamp());
+            assertEquals("res-1", node.getResource());
+            assertEquals(20, node.getPassQps());
+            assertEquals(10, node.getSuccessQps());
+            assertEquals(15, node.getRt());
+            assertEquals(i * 10 + 9, node.getConcurrency());
+        }
+        assertEquals(6, searcher.findByTimeAndResource(BEGIN_TIME, BEGIN_TIME + 29999, null).size());
+        assertEquals(1, searcher.findByTimeAndResource(BEGIN_TIME + 15000, BEGIN_TIME + 15000, "res-0").size());
+        assertNull(searcher.findByTimeAndResource(BEGIN_TIME + 3600000, BEGIN_TIME + 7200000, null));
+    }
+
+    @Test
+    public void testMergeIntervalsOfFilesAndFallBackToCoarseSegments() throws Exception {
+        String dir = baseDir();
+        String first = writeMetricFile(BASE_FILE_NAME + ".2023-11-14", 0, 15);
+        String second = writeMetricFile(BASE_FILE_NAME + ".2023-11-14.1", 15, 15);
+        MetricArchive archive = new MetricArchive(1024 * 1024, 1, 0);
+        archive.archive(dir, BASE_FILE_NAME, first);
+        archive.archive(dir, BASE_FILE_NAME, second);
+        removeMetricFile(first);
+        removeMetricFile(second);
+
+        MetricSearcher searcher = new MetricSearcher(dir, BASE_FILE_NAME);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BEGIN_TIME, BEGIN_TIME + 29999, "res-0");
+        assertEquals(3, nodes.size());
+        assertEquals(BEGIN_TIME + 10000, nodes.get(1).getTimestamp());
+        assertEquals(20, nodes.get(1).getPassQps());
+
+        // 10-second segments are no longer kept, the 1-minute one is used instead.
+        archive.enforceRetention(dir, BASE_FILE_NAME, System.currentTimeMillis());
+        assertTrue(MetricArchive.listSegments(dir, BASE_FILE_NAME, MetricArchive.FINE_SECONDS).isEmpty());
+        nodes = searcher.findByTimeAndResource(BEGIN_TIME, BEGIN_TIME + 29999, "res-0");
+        assertEquals(1, nodes.size());
+        assertEquals(BEGIN_TIME, nodes.get(0).getTimestamp());
+        assertEquals(60, nodes.get(0).getPassQps());
+        assertEquals(15, nodes.get(0).getRt());
+        assertEquals(29, nodes.get(0).getConcurrency());
+    }
+
+    @Test
+    public void testRemoveFineSegmentsFirstWhenExceedingMaxSize() throws Exception {
+        String dir = baseDir();
+        String fileName = writeMetricFile(BASE_FILE_NAME + ".2023-11-14", 0, 120);
+        new MetricArchive(1024 * 1024, 1, 24).archive(dir, BASE_FILE_NAME, fileName);
+        List<String> coarse = MetricArchive.listSegments(dir, BASE_FILE_NAME, MetricArchive.COARSE_SECONDS);
+        assertEquals(1, coarse.size());
+        assertEquals(1, MetricArchive.listSegments(dir, BASE_FILE_NAME, MetricArchive.FINE_SECONDS).size());
+
+        long coarseSize = new File(coarse.get(0)).length();
+        new MetricArchive(coarseSize, 1, 1000000).enforceRetention(dir, BASE_FILE_NAME, BEGIN_TIME);
+        assertTrue(MetricArchive.listSegments(dir, BASE_FILE_NAME, MetricArchive.FINE_SECONDS).isEmpty());
+        assertEquals(coarse, MetricArchive.listSegments(dir, BASE_FILE_NAME, MetricArchive.COARSE_SECONDS));
+
+        new MetricArchive(coarseSize - 1, 1, 1000000).enforceRetention(dir, BASE_FILE_NAME, BEGIN_TIME);
+        assertTrue(MetricArchive.listSegments(dir, BASE_FILE_NAME, MetricArchive.COARSE_SECONDS).isEmpty());
+    }
+
+    private String baseDir() {
+        return folder.getRoot().getAbsolutePath() + File.separator;
+    }
+
+    /**
+     * Write a text metric file of two resources, each second has 2 passed requests and 1 successful request,
+     * the rt is alternately 10 and 20, and the concurrency is the second.
+     */
+    private String writeMetricFile(String name, int fromSecond, int seconds) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        MetricWriter.PendingBuffer index = new MetricWriter.PendingBuffer(1024);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            for (int i = fromSecond; i < fromSecond + seconds; i++) {
+                long time = BEGIN_TIME + i * 1000;
+                index.writeLong(time / 1000);
+                index.writeLong(out.getChannel().position());
+                for (int r = 0; r < 2; r++) {
+                    MetricNode node = new MetricNode();
+                    node.setTimestamp(time);
+                    node.setResource("res-" + r);
+                    node.setPassQps(2);
+                    node.setSuccessQps(1);
+                    node.setRt(i % 2 == 0 ? 10 : 20);
+                    node.setConcurrency(i);
+                    out.write(node.toFatString().getBytes(Charset.forName("UTF-8")));
+                }
+            }
+        }
+        try (FileOutputStream out = new FileOutputStream(MetricWriter.formIndexFileName(file.getAbsolutePath()))) {
+            index.writeTo(out.getChannel());
+        }
+        return file.getAbsolutePath();
+    }
+
+    private void removeMetricFile(String fileName) {
+        new File(fileName).delete();
+        new File(MetricWriter.formIndexFileName(fileName)).delete();
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eric Zhao
+ */
+public class MetricResourceIndexTest {
+
+    private static final String BASE_FILE_NAME = "test-metrics.log";
+    private static final long BEGIN_TIME = 1700000000000L;
+    private static final int RESOURCES = 50;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFindTextByResourceIndex() throws Exception {
+        writeFiles(BASE_FILE_NAME + ".2023-11-14", false, 0, 10);
+        writeFiles(BASE_FILE_NAME + ".2023-11-14.1", false, 10, 10);
+
+        MetricSearcher searcher = new MetricSearcher(folder.getRoot().getAbsolutePath(), BASE_FILE_NAME);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BEGIN_TIME + 5000, BEGIN_TIME + 14000, "res-7");
+        assertEquals(10, nodes.size());
+        for (int i = 0; i < nodes.size(); i++) {
+            assertEquals("res-7", nodes.get(i).getResource());
+            assertEquals(BEGIN_TIME + (i + 5) * 1000, nodes.get(i).getTimestamp());
+            assertEquals(7, nodes.get(i).getPassQps());
+        }
+        assertTrue(searcher.findByTimeAndResource(BEGIN_TIME, BEGIN_TIME + 20000, "absent").isEmpty());
+
+        MetricResourceIndex index = new MetricResourceIndex(MetricWriter.formResourceIndexFileName(
+            folder.getRoot().getAbsolutePath() + File.separator + BASE_FILE_NAME + ".2023-11-14"));
+        MetricResourceIndex.Locations locations = new MetricResourceIndex.Locations();
+        // Seconds after the end of the file, the search should go on with the next file.
+        assertTrue(index.find(BEGIN_TIME / 1000 + 5, BEGIN_TIME / 1000 + 14, "res-7", locations));
+        assertEquals(5, locations.size());
+        locations.clear();
+        assertFalse(index.find(BEGIN_TIME / 1000, BEGIN_TIME / 1000 + 1, "res-7", locations));
+        assertEquals(2, locations.size());
+    }
+
+    @Test
+    public void testFindBinaryByResourceIndex() throws Exception {
+        writeFiles(BASE_FILE_NAME + ".2023-11-14", true, 0, 10);
+
+        MetricSearcher searcher = new MetricSearcher(folder.getRoot().getAbsolutePath(), BASE_FILE_NAME);
+        List<MetricNode> nodes = searcher.findByTimeAndResource(BEGIN_TIME + 2000, BEGIN_TIME + 4000, "res-49");
+        assertEquals(3, nodes.size());
+        assertEquals(BEGIN_TIME + 2000, nodes.get(0).getTimestamp());
+        assertEquals(49, nodes.get(2).getPassQps());
+    }
+
+    @Test
+    public void testFindWithinSecondsSortedByHash() throws Exception {
+        File file = new File(folder.getRoot(), "sorted.ridx");
+        MetricResourceIndex.Locations rows = new MetricResourceIndex.Locations();
+        List<MetricNode> nodes = new ArrayList<>();
+        // "Aa" and "BB" have the same hashCode.
+        String[] resources = {"zzz", "Aa", "a", "BB", "res-1"};
+        for (int i = 0; i < resources.length; i++) {
+            MetricNode node = new MetricNode();
+            node.setResource(resources[i]);
+            nodes.add(node);
+            rows.add(i * 100, i);
+        }
+        MetricWriter.PendingBuffer buffer = new MetricWriter.PendingBuffer(1024);
+        for (long second = 10; second < 13; second++) {
+            MetricResourceIndex.writeSecond(buffer, second, nodes, rows);
+        }
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            buffer.writeTo(out.getChannel());
+        }
+
+        MetricResourceIndex index = new MetricResourceIndex(file.getAbsolutePath());
+        MetricResourceIndex.Locations locations = new MetricResourceIndex.Locations();
+        assertTrue(index.find(10, 12, "zzz", locations));
+        assertEquals(3, locations.size());
+        for (int i = 0; i < locations.size(); i++) {
+            assertEquals(0, locations.offset(i));
+            assertEquals(0, locations.extra(i));
+        }
+        locations.clear();
+        assertFalse(index.find(11, 11, "Aa", locations));
+        assertEquals(2, locations.size());
+        assertEquals(100 + 300, locations.offset(0) + locations.offset(1));
+        locations.clear();
+        assertTrue(index.find(12, 20, "res-1", locations));
+        assertEquals(1, locations.size());
+        assertEquals(4, locations.extra(0));
+        locations.clear();
+        assertTrue(index.find(10, 12, "absent", locations));
+        assertEquals(0, locations.size());
+    }
+
+    @Test
+    public void testConcurrentSearch() throws Exception {
+        writeFiles(BASE_FILE_NAME + ".2023-11-14", false, 0, 30);
+        final MetricSearcher searcher = new MetricSearcher(folder.getRoot().getAbsolutePath(), BASE_FILE_NAME);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 64; t++) {
+                final int n = t;
+                futures.add(pool.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        long begin = BEGIN_TIME + (n % 20) * 1000;
+                        String resource = "res-" + (n % RESOURCES);
+                        List<MetricNode> byResource = searcher.findByTimeAndResource(begin, begin + 9000,
+                            resource);
+                        List<MetricNode> all = searcher.findByTimeAndResource(begin, begin + 9000, null);
+                        List<MetricNode> recent = searcher.find(begin, RESOURCES);
+                        return byResource.size() == 10 && all.size() == 10 * RESOURCES
+                            && recent.size() == RESOURCES && recent.get(0).getTimestamp() == begin;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void writeFiles(String fileName, boolean binary, int fromSecond, int seconds) throws Exception {
+        File file = new File(folder.getRoot(), fileName);
+        MetricWriter.PendingBuffer index = new MetricWriter.PendingBuffer(1024);
+        MetricWriter.PendingBuffer resourceIndex = new MetricWriter.PendingBuffer(1024);
+        BinaryMetricEncoder encoder = new BinaryMetricEncoder();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            if (binary) {
+                encoder.writeHeader(out, BEGIN_TIME);
+            }
+            for (int i = fromSecond; i < fromSecond + seconds; i++) {
+                long time = BEGIN_TIME + i * 1000;
+                List<MetricNode> nodes = new ArrayList<>();
+                for (int r = 0; r < RESOURCES; r++) {
+                    MetricNode node = new MetricNode();
+                    node.setResource("res-" + r);
+                    node.setPassQps(r);
+                    node.setTimestamp(time);
+                    nodes.add(node);
+                }
+                long base = out.getChannel().position();
+                index.writeLong(time / 1000);
+                index.writeLong(base);
+                MetricResourceIndex.Locations locations = new MetricResourceIndex.Locations();
+                if (binary) {
+                    long blockOffset = base + encoder.write(out, time, nodes);
+                    for (int r = 0; r < nodes.size(); r++) {
+                        locations.add(blockOffset, r);
+                    }
+                } else {
+                    for (MetricNode node : nodes) {
+                        byte[] line = node.toFatString().getBytes(Charset.forName("UTF-8"));
+                        locations.add(out.getChannel().position(), line.length);
+                        out.write(line);
+                    }
+                }
+                MetricResourceIndex.writeSecond(resourceIndex, time / 1000, nodes, locations);
+            }
+        }
+        try (FileOutputStream out = new FileOutputStream(MetricWriter.formIndexFileName(file.getAbsolutePath()))) {
+            index.writeTo(out.getChannel());
+        }
+        try (FileOutputStream out = new FileOutputStream(
+            MetricWriter.formResourceIndexFileName(file.getAbsolutePath()))) {
+            resourceIndex.writeTo(out.getChannel());
+        }
+    }
+}
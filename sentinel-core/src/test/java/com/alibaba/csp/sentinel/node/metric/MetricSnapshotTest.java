@@ -0,0 +1,111 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.node.metric;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import com.alibaba.csp.sentinel.node.StatisticNode;
+import com.alibaba.csp.sentinel.test.AbstractTimeBasedTest;
+import com.alibaba.csp.sentinel.util.TimeUtil;
+
+import org.junit.Test;
+import org.mockito.MockedStatic;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Eric Zhao
+ */
+public class MetricSnapshotTest extends AbstractTimeBasedTest {
+
+    @Test
+    public void testSnapshotMetricsSameAsMetrics() {
+        try (MockedStatic<TimeUtil> mocked = super.mockTimeUtil()) {
+            StatisticNode node = new StatisticNode();
+            StatisticNode expectedNode = new StatisticNode();
+            setCurrentMillis(mocked, 100000);
+            for (StatisticNode n : Arrays.asList(node, expectedNode)) {
+                n.addPassRequest(3);
+                n.addRtAndSuccess(30, 3);
+                n.increaseBlockQps(1);
+            }
+            sleep(mocked, 1000);
+            for (StatisticNode n : Arrays.asList(node, expectedNode)) {
+                n.addPassRequest(2);
+                n.increaseExceptionQps(1);
+            }
+            // The current second is not completed yet.
+            MetricSnapshot snapshot = new MetricSnapshot();
+            node.snapshotMetrics(snapshot, snapshot.addResource("res", 1));
+            Map<Long, MetricNode> expected = expectedNode.metrics();
+            assertEquals(1, snapshot.rowCount());
+            assertSameMetric(expected.get(100000L), snapshot, 0);
+
+            // Completed seconds are only fetched once.
+            sleep(mocked, 1000);
+            snapshot.clear();
+            node.snapshotMetrics(snapshot, snapshot.addResource("res", 1));
+            expected = expectedNode.metrics();
+            assertEquals(1, snapshot.rowCount());
+            assertSameMetric(expected.get(101000L), snapshot, 0);
+            assertEquals("res", snapshot.resource(0));
+            assertEquals(1, snapshot.classification(0));
+
+            sleep(mocked, 1000);
+            snapshot.clear();
+            node.snapshotMetrics(snapshot, snapshot.addResource("res", 1));
+            assertEquals(0, snapshot.rowCount());
+        }
+    }
+
+    @Test
+    public void testAddAll() {
+        MetricSnapshot first = new MetricSnapshot();
+        int a = first.addResource("a", 0);
+        first.addRow(1000, a, 1, 0, 1, 0, 5, 0, 0);
+
+        MetricSnapshot second = new MetricSnapshot();
+        int b = second.addResource("b", 1);
+        int c = second.addResource("c", 2);
+        for (int i = 0; i < 100; i++) {
+            second.addRow(2000, i % 2 == 0 ? b : c, i, 0, 0, 0, 0, 0, 0);
+        }
+        first.addAll(second);
+        assertEquals(101, first.rowCount());
+        assertEquals(3, first.resourceCount());
+        assertEquals("a", first.resource(0));
+        assertEquals("b", first.resource(1));
+        assertEquals("c", first.resource(2));
+        assertEquals(2, first.classification(100));
+        assertEquals(99, first.fill(100, new MetricNode()).getPassQps());
+
+        first.clear();
+        assertEquals(0, first.rowCount());
+        assertEquals(0, first.resourceCount());
+    }
+
+    private void assertSameMetric(MetricNode expected, MetricSnapshot snapshot, int row) {
+        MetricNode actual = snapshot.fill(row, new MetricNode());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getPassQps(), actual.getPassQps());
+        assertEquals(expected.getBlockQps(), actual.getBlockQps());
+        assertEquals(expected.getSuccessQps(), actual.getSuccessQps());
+        assertEquals(expected.getExceptionQps(), actual.getExceptionQps());
+        assertEquals(expected.getRt(), actual.getRt());
+        assertEquals(expected.getOccupiedPassQps(), actual.getOccupiedPassQps());
+    }
+}
@@ -22,6 +22,7 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slots.statistic.cache.CacheMap;
@@ -39,7 +40,7 @@ public class ParameterMetric {
     private static final int BASE_PARAM_MAX_CAPACITY = 4000;
     private static final int TOTAL_MAX_CAPACITY = 20_0000;
 
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * Format: (rule, (value, timeRecorder))
@@ -69,10 +70,13 @@ public class ParameterMetric {
     }
 
     public void clear() {
-        synchronized (lock) {
+        lock.lock();
+        try {
             ruleTimeCounters.clear();
             ruleTokenCounter.clear();
             threadCountMap.clear();
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -88,38 +92,50 @@ public class ParameterMetric {
     }
 
     public void clearForRule(ParamFlowRule rule) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             ruleTimeCounters.remove(rule);
             ruleTokenCounter.remove(rule);
             threadCountMap.remove(rule.getParamIdx());
+        } finally {
+            lock.unlock();
         }
     }
 
     public void initialize(ParamFlowRule rule) {
         if (!ruleTimeCounters.containsKey(rule)) {
-            synchronized (lock) {
+            lock.lock();
+            try {
                 if (ruleTimeCounters.get(rule) == null) {
                     long size = Math.min(BASE_PARAM_MAX_CAPACITY * rule.getDurationInSec(), TOTAL_MAX_CAPACITY);
                     ruleTimeCounters.put(rule, new ConcurrentLinkedHashMapWrapper<Object, AtomicLong>(size));
                 }
+            } finally {
+                lock.unlock();
             }
         }
 
         if (!ruleTokenCounter.containsKey(rule)) {
-            synchronized (lock) {
+            lock.lock();
+            try {
                 if (ruleTokenCounter.get(rule) == null) {
                     long size = Math.min(BASE_PARAM_MAX_CAPACITY * rule.getDurationInSec(), TOTAL_MAX_CAPACITY);
                     ruleTokenCounter.put(rule, new ConcurrentLinkedHashMapWrapper<>(size));
                 }
+            } finally {
+                lock.unlock();
             }
         }
 
         if (!threadCountMap.containsKey(rule.getParamIdx())) {
-            synchronized (lock) {
+            lock.lock();
+            try {
                 if (threadCountMap.get(rule.getParamIdx()) == null) {
                     threadCountMap.put(rule.getParamIdx(),
                         new ConcurrentLinkedHashMapWrapper<Object, AtomicInteger>(THREAD_COUNT_MAX_CAPACITY));
                 }
+            } finally {
+                lock.unlock();
             }
         }
     }
@@ -17,6 +17,7 @@ package com.alibaba.csp.sentinel.slots.block.flow.param;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.alibaba.csp.sentinel.log.RecordLog;
 import com.alibaba.csp.sentinel.slotchain.ResourceWrapper;
@@ -33,7 +34,7 @@ public final class ParameterMetricStorage {
     /**
      * Lock for a specific resource.
      */
-    private static final Object LOCK = new Object();
+    private static final ReentrantLock LOCK = new ReentrantLock();
 
     /**
      * Init the parameter metric and index map for given resource.
@@ -50,12 +51,15 @@ public final class ParameterMetricStorage {
         ParameterMetric metric;
         // Assume that the resource is valid.
         if ((metric = metricsMap.get(resourceName)) == null) {
-            synchronized (LOCK) {
+            LOCK.lock();
+            try {
                 if ((metric = metricsMap.get(resourceName)) == null) {
                     metric = new ParameterMetric();
                     metricsMap.put(resourceWrapper.getName(), metric);
                     RecordLog.info("[ParameterMetricStorage] Creating parameter metric for: {}", resourceWrapper.getName());
                 }
+            } finally {
+                LOCK.unlock();
             }
         }
         metric.initialize(rule);
@@ -46,6 +46,30 @@ public final class MetricConstants {
 
     public static final String CONCURRENCY = "concurrency";
 
+    public static final String CLUSTER_SERVER_LATENCY = "sentinel_cluster_server_latency_seconds";
+
+    public static final String CLUSTER_SERVER_LATENCY_HELP = "latency of the sentinel cluster token server";
+
+    public static final String NAMESPACE = "namespace";
+
+    public static final String REQUEST_TYPE = "request_type";
+
+    public static final String STAGE = "stage";
+
+    public static final String STAGE_QUEUE = "queue";
+
+    public static final String STAGE_PROCESS = "process";
+
+    public static final String STAGE_WRITE = "write";
+
+    public static final String CONTEXT_NAMES = "sentinel_context_names";
+
+    public static final String CONTEXT_NAMES_HELP = "current amount of sentinel context names";
+
+    public static final String CONTEXT_EVICTED = "sentinel_context_evicted_total";
+
+    public static final String CONTEXT_EVICTED_HELP = "total amount of evicted idle sentinel context names";
+
     private MetricConstants() {
     }
 }
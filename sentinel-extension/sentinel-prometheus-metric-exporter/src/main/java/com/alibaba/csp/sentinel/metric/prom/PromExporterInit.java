@@ -17,6 +17,8 @@ package com.alibaba.csp.sentinel.metric.prom;
 
 import com.alibaba.csp.sentinel.init.InitFunc;
 import com.alibaba.csp.sentinel.log.RecordLog;
+import com.alibaba.csp.sentinel.metric.prom.collector.ClusterServerLatencyCollector;
+import com.alibaba.csp.sentinel.metric.prom.collector.ContextRegistryCollector;
 import com.alibaba.csp.sentinel.metric.prom.collector.SentinelCollector;
 import com.alibaba.csp.sentinel.metric.prom.config.PrometheusGlobalConfig;
 import io.prometheus.client.exporter.HTTPServer;
@@ -35,6 +37,10 @@ public class PromExporterInit implements InitFunc {
         HTTPServer server = null;
         try {
             new SentinelCollector().register();
+            new ContextRegistryCollector().register();
+            if (ClusterServerLatencyCollector.isAvailable()) {
+                new ClusterServerLatencyCollector().register();
+            }
             // 开启http服务供prometheus调用
             // 默认只提供一个接口 http://ip:port/metrics，返回所有指标
             int promPort = PrometheusGlobalConfig.getPromFetchPort();
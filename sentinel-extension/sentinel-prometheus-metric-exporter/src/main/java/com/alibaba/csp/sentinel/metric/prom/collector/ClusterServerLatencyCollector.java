@@ -0,0 +1,81 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.metric.prom.collector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.server.statistic.LatencyHistogram;
+import com.alibaba.csp.sentinel.cluster.server.statistic.RequestLatency;
+import com.alibaba.csp.sentinel.cluster.server.statistic.TokenServerLatencyStat;
+import com.alibaba.csp.sentinel.metric.prom.MetricConstants;
+import io.prometheus.client.Collector;
+import io.prometheus.client.SummaryMetricFamily;
+
+/**
+ * Collector of the cluster token server latency, which is only registered when the
+ * token server module is present.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class ClusterServerLatencyCollector extends Collector {
+
+    private static final double MICROS_PER_SECOND = 1000_000d;
+
+    private static final List<Double> QUANTILES = Arrays.asList(0.5, 0.9, 0.99, 0.999);
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        SummaryMetricFamily summary = new SummaryMetricFamily(MetricConstants.CLUSTER_SERVER_LATENCY,
+            MetricConstants.CLUSTER_SERVER_LATENCY_HELP,
+            Arrays.asList(MetricConstants.NAMESPACE, MetricConstants.REQUEST_TYPE, MetricConstants.STAGE),
+            QUANTILES);
+        for (RequestLatency latency : TokenServerLatencyStat.listLatencies(null)) {
+            String type = TokenServerLatencyStat.getRequestTypeName(latency.getRequestType());
+            addMetric(summary, latency.getNamespace(), type, MetricConstants.STAGE_QUEUE, latency.getQueueTime());
+            addMetric(summary, latency.getNamespace(), type, MetricConstants.STAGE_PROCESS, latency.getProcessTime());
+            addMetric(summary, latency.getNamespace(), type, MetricConstants.STAGE_WRITE, latency.getWriteTime());
+        }
+        List<MetricFamilySamples> list = new ArrayList<>(1);
+        list.add(summary);
+        return list;
+    }
+
+    private void addMetric(SummaryMetricFamily summary, String namespace, String type, String stage,
+                           LatencyHistogram histogram) {
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        List<Double> quantileValues = new ArrayList<>(QUANTILES.size());
+        for (Double quantile : QUANTILES) {
+            quantileValues.add(snapshot.getValueAtPercentile(quantile * 100) / MICROS_PER_SECOND);
+        }
+        summary.addMetric(Arrays.asList(namespace, type, stage), snapshot.getTotalCount(),
+            snapshot.getSum() / MICROS_PER_SECOND, quantileValues);
+    }
+
+    /**
+     * @return whether the cluster token server module is present in the classpath
+     */
+    public static boolean isAvailable() {
+        try {
+            Class.forName("com.alibaba.csp.sentinel.cluster.server.statistic.TokenServerLatencyStat");
+            return true;
+        } catch (Throwable ex) {
+            return false;
+        }
+    }
+}
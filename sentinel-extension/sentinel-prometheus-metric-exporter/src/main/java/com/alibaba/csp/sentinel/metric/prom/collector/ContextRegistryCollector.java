@@ -0,0 +1,45 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.metric.prom.collector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.metric.prom.MetricConstants;
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+/**
+ * Collector of the context name registry: the current amount of context names
+ * and the total amount of evicted idle context names.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class ContextRegistryCollector extends Collector {
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        List<MetricFamilySamples> list = new ArrayList<>(2);
+        list.add(new GaugeMetricFamily(MetricConstants.CONTEXT_NAMES, MetricConstants.CONTEXT_NAMES_HELP,
+            ContextUtil.contextSize()));
+        list.add(new CounterMetricFamily(MetricConstants.CONTEXT_EVICTED, MetricConstants.CONTEXT_EVICTED_HELP,
+            ContextUtil.evictedContextCount()));
+        return list;
+    }
+}
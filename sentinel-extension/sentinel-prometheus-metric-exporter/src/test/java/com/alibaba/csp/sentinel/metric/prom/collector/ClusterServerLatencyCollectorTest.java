@@ -0,0 +1,49 @@
+package com.alibaba.csp.sentinel.metric.prom.collector;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.cluster.ClusterConstants;
+import com.alibaba.csp.sentinel.cluster.server.statistic.RequestLatency;
+import com.alibaba.csp.sentinel.cluster.server.statistic.TokenServerLatencyStat;
+import com.alibaba.csp.sentinel.metric.prom.MetricConstants;
+import io.prometheus.client.Collector;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClusterServerLatencyCollectorTest {
+
+    @After
+    public void tearDown() {
+        TokenServerLatencyStat.clear();
+    }
+
+    @Test
+    public void testCollect() {
+        Assert.assertTrue(ClusterServerLatencyCollector.isAvailable());
+        RequestLatency latency = TokenServerLatencyStat.getOrCreate("ns", ClusterConstants.MSG_TYPE_FLOW);
+        latency.getProcessTime().record(2000);
+        latency.getProcessTime().record(4000);
+
+        List<Collector.MetricFamilySamples> list = new ClusterServerLatencyCollector().collect();
+        Assert.assertEquals(1, list.size());
+        Collector.MetricFamilySamples family = list.get(0);
+        Assert.assertEquals(Collector.Type.SUMMARY, family.type);
+
+        double count = -1;
+        double sum = -1;
+        for (Collector.MetricFamilySamples.Sample sample : family.samples) {
+            if (!sample.labelValues.contains(MetricConstants.STAGE_PROCESS)) {
+                continue;
+            }
+            Assert.assertEquals("flow", sample.labelValues.get(1));
+            if (sample.name.endsWith("_count")) {
+                count = sample.value;
+            } else if (sample.name.endsWith("_sum")) {
+                sum = sample.value;
+            }
+        }
+        Assert.assertEquals(2, count, 1e-6);
+        Assert.assertEquals(0.006, sum, 1e-6);
+    }
+}
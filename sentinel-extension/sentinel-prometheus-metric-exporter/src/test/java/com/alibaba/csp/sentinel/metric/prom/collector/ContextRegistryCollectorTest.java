@@ -0,0 +1,30 @@
+package com.alibaba.csp.sentinel.metric.prom.collector;
+
+import java.util.List;
+
+import com.alibaba.csp.sentinel.context.ContextUtil;
+import com.alibaba.csp.sentinel.metric.prom.MetricConstants;
+import io.prometheus.client.Collector;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ContextRegistryCollectorTest {
+
+    @Test
+    public void testCollect() {
+        ContextUtil.enter("test-context-registry-collector");
+        ContextUtil.exit();
+
+        List<Collector.MetricFamilySamples> list = new ContextRegistryCollector().collect();
+        Assert.assertEquals(2, list.size());
+        for (Collector.MetricFamilySamples family : list) {
+            if (MetricConstants.CONTEXT_NAMES.equals(family.name)) {
+                Assert.assertEquals(Collector.Type.GAUGE, family.type);
+                Assert.assertEquals(ContextUtil.contextSize(), family.samples.get(0).value, 1e-6);
+            } else {
+                Assert.assertEquals(Collector.Type.COUNTER, family.type);
+                Assert.assertEquals(ContextUtil.evictedContextCount(), family.samples.get(0).value, 1e-6);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.command;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import com.alibaba.fastjson.JSON;
+
+/**
+ * <p>A command result that writes itself incrementally, so that a large result (e.g. metrics or the
+ * node tree) is never built as a whole string. Transports that support streaming send it in chunks
+ * (compressed with gzip if the client accepts it), see {@code StreamingBodyOutputStream}.</p>
+ * <p>Other transports still get the whole text through {@link #toString()}.</p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public abstract class StreamingResult {
+
+    /**
+     * Write the result to the given writer. The writer should not be closed here.
+     *
+     * @param writer writer of the response body
+     * @throws IOException if failed to write, e.g. the client is gone
+     */
+    public abstract void writeTo(Writer writer) throws IOException;
+
+    /**
+     * Create a streaming result of the JSON text of given object, which is the same as
+     * {@code JSON.toJSONString(value)}.
+     *
+     * @param value object to serialize
+     * @return streaming result of the JSON text
+     */
+    public static StreamingResult ofJson(final Object value) {
+        return new StreamingResult() {
+            @Override
+            public void writeTo(Writer writer) {
+                JSON.writeJSONString(writer, value);
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringWriter writer = new StringWriter();
+        try {
+            writeTo(writer);
+        } catch (IOException e) {
+            // Never happens as it's written to memory.
+            throw new IllegalStateException(e);
+        }
+        return writer.toString();
+    }
+}
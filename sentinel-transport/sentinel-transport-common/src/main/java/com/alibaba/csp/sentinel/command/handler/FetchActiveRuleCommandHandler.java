@@ -18,30 +18,34 @@ package com.alibaba.csp.sentinel.command.handler;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
 import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
 import com.alibaba.csp.sentinel.slots.block.authority.AuthorityRuleManager;
 import com.alibaba.csp.sentinel.slots.block.degrade.DegradeRuleManager;
 import com.alibaba.csp.sentinel.slots.block.flow.FlowRuleManager;
 import com.alibaba.csp.sentinel.slots.system.SystemRuleManager;
-import com.alibaba.fastjson.JSON;
 
 /**
+ * <p>Since 1.8.8, the rules are returned as a {@link StreamingResult} (written as JSON) rather than a
+ * {@code String}. Callers reading the result of {@code handle(...)} directly should use
+ * {@link StreamingResult#toString()} to get the JSON text.</p>
+ *
  * @author jialiang.linjl
  */
 @CommandMapping(name = "getRules", desc = "get all active rules by type, request param: type={ruleType}")
-public class FetchActiveRuleCommandHandler implements CommandHandler<String> {
+public class FetchActiveRuleCommandHandler implements CommandHandler<StreamingResult> {
 
     @Override
-    public CommandResponse<String> handle(CommandRequest request) {
+    public CommandResponse<StreamingResult> handle(CommandRequest request) {
         String type = request.getParam("type");
         if ("flow".equalsIgnoreCase(type)) {
-            return CommandResponse.ofSuccess(JSON.toJSONString(FlowRuleManager.getRules()));
+            return CommandResponse.ofSuccess(StreamingResult.ofJson(FlowRuleManager.getRules()));
         } else if ("degrade".equalsIgnoreCase(type)) {
-            return CommandResponse.ofSuccess(JSON.toJSONString(DegradeRuleManager.getRules()));
+            return CommandResponse.ofSuccess(StreamingResult.ofJson(DegradeRuleManager.getRules()));
         } else if ("authority".equalsIgnoreCase(type)) {
-            return CommandResponse.ofSuccess(JSON.toJSONString(AuthorityRuleManager.getRules()));
+            return CommandResponse.ofSuccess(StreamingResult.ofJson(AuthorityRuleManager.getRules()));
         } else if ("system".equalsIgnoreCase(type)) {
-            return CommandResponse.ofSuccess(JSON.toJSONString(SystemRuleManager.getRules()));
+            return CommandResponse.ofSuccess(StreamingResult.ofJson(SystemRuleManager.getRules()));
         } else {
             return CommandResponse.ofFailure(new IllegalArgumentException("invalid type"));
         }
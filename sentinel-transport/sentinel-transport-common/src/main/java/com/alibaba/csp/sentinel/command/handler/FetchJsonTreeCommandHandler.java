@@ -15,13 +15,14 @@
  */
 package com.alibaba.csp.sentinel.command.handler;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
 
 import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
 import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
 import com.alibaba.csp.sentinel.node.DefaultNode;
 import com.alibaba.csp.sentinel.node.Node;
@@ -30,27 +31,40 @@ import com.alibaba.csp.sentinel.command.vo.NodeVo;
 import com.alibaba.fastjson.JSON;
 
 /**
+ * <p>Since 1.8.8, the node tree is returned as a {@link StreamingResult} rather than a {@code String}.
+ * Use {@link StreamingResult#toString()} for the JSON text, or {@code writeTo(Writer)} to avoid building it
+ * in memory.</p>
+ *
  * @author leyou
  */
 @CommandMapping(name = "jsonTree", desc = "get tree node VO start from root node")
-public class FetchJsonTreeCommandHandler implements CommandHandler<String> {
+public class FetchJsonTreeCommandHandler implements CommandHandler<StreamingResult> {
 
     @Override
-    public CommandResponse<String> handle(CommandRequest request) {
-        List<NodeVo> results = new ArrayList<NodeVo>();
-        visit(Constants.ROOT, results, null);
-        return CommandResponse.ofSuccess(JSON.toJSONString(results));
+    public CommandResponse<StreamingResult> handle(CommandRequest request) {
+        return CommandResponse.ofSuccess(new StreamingResult() {
+            @Override
+            public void writeTo(Writer writer) throws IOException {
+                // The same as the JSON array of all node VOs, but a VO is written once it's visited.
+                writer.write('[');
+                visit(Constants.ROOT, writer, null, true);
+                writer.write(']');
+            }
+        });
     }
 
     /**
      * Preorder traversal.
      */
-    private void visit(DefaultNode node, List<NodeVo> results, String parentId) {
+    private void visit(DefaultNode node, Writer writer, String parentId, boolean first) throws IOException {
         NodeVo vo = NodeVo.fromDefaultNode(node, parentId);
-        results.add(vo);
+        if (!first) {
+            writer.write(',');
+        }
+        JSON.writeJSONString(writer, vo);
         String id = vo.getId();
         for (Node n : node.getChildList()) {
-            visit((DefaultNode)n, results, id);
+            visit((DefaultNode)n, writer, id, false);
         }
     }
 }
@@ -15,6 +15,8 @@
  */
 package com.alibaba.csp.sentinel.command.handler;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,6 +24,7 @@ import com.alibaba.csp.sentinel.Constants;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
 import com.alibaba.csp.sentinel.command.annotation.CommandMapping;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.node.metric.MetricNode;
@@ -34,20 +37,24 @@ import com.alibaba.csp.sentinel.util.TimeUtil;
 
 /**
  * Retrieve and aggregate {@link MetricNode} metrics.
+ * <p>
+ * Since 1.8.8, the metric lines are returned as a {@link StreamingResult} rather than a {@code String}.
+ * Callers reading the result of {@code handle(...)} as text should use {@link StreamingResult#toString()}.
+ * </p>
  *
  * @author leyou
  * @author Eric Zhao
  */
 @CommandMapping(name = "metric", desc = "get and aggregate metrics, accept param: "
     + "startTime={startTime}&endTime={endTime}&maxLines={maxLines}&identify={resourceName}")
-public class SendMetricCommandHandler implements CommandHandler<String> {
+public class SendMetricCommandHandler implements CommandHandler<StreamingResult> {
 
     private volatile MetricSearcher searcher;
 
     private final Object lock = new Object();
 
     @Override
-    public CommandResponse<String> handle(CommandRequest request) {
+    public CommandResponse<StreamingResult> handle(CommandRequest request) {
         // Note: not thread-safe.
         if (searcher == null) {
             synchronized (lock) {
@@ -70,7 +77,7 @@ public class SendMetricCommandHandler implements CommandHandler<String> {
         if (StringUtil.isNotBlank(startTimeStr)) {
             startTime = Long.parseLong(startTimeStr);
         } else {
-            return CommandResponse.ofSuccess("");
+            return CommandResponse.ofSuccess(toLines(new ArrayList<MetricNode>()));
         }
         List<MetricNode> list;
         try {
@@ -94,11 +101,22 @@ public class SendMetricCommandHandler implements CommandHandler<String> {
         if (StringUtil.isBlank(identity)) {
             addCpuUsageAndLoad(list);
         }
-        StringBuilder sb = new StringBuilder();
-        for (MetricNode node : list) {
-            sb.append(node.toThinString()).append("\n");
-        }
-        return CommandResponse.ofSuccess(sb.toString());
+        return CommandResponse.ofSuccess(toLines(list));
+    }
+
+    /**
+     * The metrics are written line by line, so that the response can be streamed rather than built as a whole.
+     */
+    private StreamingResult toLines(final List<MetricNode> list) {
+        return new StreamingResult() {
+            @Override
+            public void writeTo(Writer writer) throws IOException {
+                for (MetricNode node : list) {
+                    writer.write(node.toThinString());
+                    writer.write('\n');
+                }
+            }
+        };
     }
 
     /**
@@ -38,6 +38,19 @@ public class TransportConfig {
     public static final String HEARTBEAT_CLIENT_IP = "csp.sentinel.heartbeat.client.ip";
     public static final String HEARTBEAT_API_PATH = "csp.sentinel.heartbeat.api.path";
 
+    /**
+     * Whether the simple HTTP command center serves connections with a non-blocking selector, true by default.
+     *
+     * @since 1.8.8
+     */
+    public static final String SERVER_NIO_ENABLED = "csp.sentinel.api.nio.enabled";
+    /**
+     * Max count of commands handled concurrently by the command center, more commands are rejected.
+     *
+     * @since 1.8.8
+     */
+    public static final String SERVER_MAX_CONCURRENCY = "csp.sentinel.api.max.concurrency";
+
     public static final String HEARTBEAT_DEFAULT_PATH = "/registry/machine";
 
     private static int runtimePort = -1;
@@ -152,6 +165,41 @@ public class TransportConfig {
         runtimePort = port;
     }
 
+    /**
+     * Whether the simple HTTP command center serves connections with a non-blocking selector.
+     *
+     * @return true if not configured
+     * @since 1.8.8
+     */
+    public static boolean isServerNioEnabled() {
+        String enabled = SentinelConfig.getConfig(SERVER_NIO_ENABLED);
+        return enabled == null || !"false".equalsIgnoreCase(enabled.trim());
+    }
+
+    /**
+     * Get max count of commands handled concurrently by the command center.
+     *
+     * @return the max concurrency, or {@code availableProcessors + 10} if not configured or invalid
+     * @since 1.8.8
+     */
+    public static int getServerMaxConcurrency() {
+        int defaultConcurrency = Runtime.getRuntime().availableProcessors() + 10;
+        String config = SentinelConfig.getConfig(SERVER_MAX_CONCURRENCY);
+        if (StringUtil.isBlank(config)) {
+            return defaultConcurrency;
+        }
+        try {
+            int concurrency = Integer.parseInt(config.trim());
+            if (concurrency > 0) {
+                return concurrency;
+            }
+        } catch (Exception ex) {
+        }
+        RecordLog.warn("[TransportConfig] Invalid command center max concurrency: " + config
+            + ", use default value: " + defaultConcurrency);
+        return defaultConcurrency;
+    }
+
     /**
      * Get heartbeat client local ip.
      * If the client ip not configured,it will be the address of local host
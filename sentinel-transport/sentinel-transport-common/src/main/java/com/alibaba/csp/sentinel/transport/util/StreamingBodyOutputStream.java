@@ -0,0 +1,131 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import com.alibaba.csp.sentinel.util.AssertUtil;
+
+/**
+ * <p>Body of a response of a {@link com.alibaba.csp.sentinel.command.StreamingResult}. Bytes are buffered
+ * until the buffer is full, so a small body can still be sent as a whole with {@code Content-Length}.
+ * Otherwise the transport starts streaming: it sends the response header and the body is sent piece by piece
+ * (compressed with gzip if required), each piece is about the size of the buffer.</p>
+ * <p>The stream is not thread-safe.</p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public abstract class StreamingBodyOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final byte[] buffer;
+    private final boolean gzip;
+    private int count = 0;
+
+    private OutputStream body;
+    private boolean finished = false;
+
+    /**
+     * @param bufferSize size of the buffer, as well as the size of the streamed pieces
+     * @param gzip       whether to compress the body with gzip once streaming
+     */
+    protected StreamingBodyOutputStream(int bufferSize, boolean gzip) {
+        AssertUtil.isTrue(bufferSize > 0, "bufferSize should be positive");
+        this.buffer = new byte[bufferSize];
+        this.gzip = gzip;
+    }
+
+    /**
+     * Send the header of a streaming response.
+     *
+     * @param gzip whether the body is compressed with gzip
+     * @return the stream that sends every piece of the (compressed) body written to it, it's closed
+     * after the last piece
+     * @throws IOException if failed to send the header
+     */
+    protected abstract OutputStream startStreaming(boolean gzip) throws IOException;
+
+    @Override
+    public void write(int b) throws IOException {
+        if (body == null && count == buffer.length) {
+            start();
+        }
+        if (body != null) {
+            body.write(b);
+        } else {
+            buffer[count++] = (byte)b;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (body == null && len > buffer.length - count) {
+            start();
+        }
+        if (body != null) {
+            body.write(b, off, len);
+        } else {
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+    }
+
+    private void start() throws IOException {
+        OutputStream sink = new BufferedOutputStream(startStreaming(gzip), buffer.length);
+        body = gzip ? new GZIPOutputStream(sink, buffer.length) : sink;
+        body.write(buffer, 0, count);
+        count = 0;
+    }
+
+    /**
+     * @return whether the transport has started streaming
+     */
+    public boolean isStreaming() {
+        return body != null;
+    }
+
+    /**
+     * Finish the body. If it's not streaming, the whole body is still in the buffer, see {@link #toByteArray()}.
+     *
+     * @return whether the body has been streamed
+     * @throws IOException if failed to send the rest of the body
+     */
+    public boolean finish() throws IOException {
+        if (body != null && !finished) {
+            finished = true;
+            body.close();
+        }
+        return body != null;
+    }
+
+    /**
+     * @return the buffered body, only useful when it's not streaming
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+}
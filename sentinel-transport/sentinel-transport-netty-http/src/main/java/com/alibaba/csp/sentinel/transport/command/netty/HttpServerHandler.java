@@ -16,34 +16,50 @@
 package com.alibaba.csp.sentinel.transport.command.netty;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
+import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
 import com.alibaba.csp.sentinel.transport.command.codec.CodecRegistry;
 import com.alibaba.csp.sentinel.transport.command.codec.Encoder;
 import com.alibaba.csp.sentinel.transport.util.HttpCommandUtils;
+import com.alibaba.csp.sentinel.transport.util.StreamingBodyOutputStream;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.multipart.HttpData;
 import io.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
@@ -53,18 +69,43 @@ import io.netty.handler.codec.http.multipart.InterfaceHttpData.HttpDataType;
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static io.netty.handler.codec.http.HttpResponseStatus.INTERNAL_SERVER_ERROR;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
+import static io.netty.handler.codec.http.HttpResponseStatus.SERVICE_UNAVAILABLE;
 
 /**
  * Netty-based HTTP server handler for command center.
  *
  * Note: HTTP chunked is not tested!
  *
+ * A large {@link StreamingResult} is sent with {@code Transfer-Encoding: chunked} while it's being written
+ * in a streaming thread, and compressed with gzip if the client accepts it. The streaming thread waits while
+ * the channel is not writable, so a slow client won't pile the whole response up in the outbound buffer.
+ * Responses beyond the streaming threads wait in the queue of the streaming executor.
+ *
  * @author Eric Zhao
  */
 public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
+    /**
+     * Max time (in ms) to wait for the client to receive the pieces of a streaming response.
+     */
+    private static final long STREAMING_WRITE_TIMEOUT_MS = 3000;
+    private static final int MAX_STREAMING_THREADS = 4;
+
+    private static final ThreadPoolExecutor STREAMING_EXECUTOR = new ThreadPoolExecutor(MAX_STREAMING_THREADS,
+        MAX_STREAMING_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+        new NamedThreadFactory("sentinel-netty-command-streaming", true));
+
+    static {
+        STREAMING_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
     private final CodecRegistry codecRegistry = new CodecRegistry();
 
+    /**
+     * Output of the response being streamed on this channel, woken up when the channel becomes writable.
+     */
+    private volatile ChunkOutputStream streamingOut;
+
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
         ctx.flush();
@@ -79,7 +120,7 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
                 writeErrorResponse(BAD_REQUEST.code(), "Invalid command", ctx);
                 return;
             }
-            handleRequest(request, ctx, HttpUtil.isKeepAlive(httpRequest));
+            handleRequest(request, ctx, HttpUtil.isKeepAlive(httpRequest), acceptGzip(httpRequest));
 
         } catch (Exception ex) {
             writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx);
@@ -87,13 +128,17 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         }
     }
 
-    private void handleRequest(CommandRequest request, ChannelHandlerContext ctx, boolean keepAlive)
-        throws Exception {
+    private void handleRequest(CommandRequest request, ChannelHandlerContext ctx, boolean keepAlive,
+                               boolean acceptGzip) throws Exception {
         String commandName = HttpCommandUtils.getTarget(request);
         // Find the matching command handler.
         CommandHandler<?> commandHandler = getHandler(commandName);
         if (commandHandler != null) {
             CommandResponse<?> response = commandHandler.handle(request);
+            if (response.isSuccess() && response.getResult() instanceof StreamingResult) {
+                submitStreamingResponse((StreamingResult)response.getResult(), ctx, acceptGzip);
+                return;
+            }
             writeResponse(response, ctx, keepAlive);
         } else {
             // No matching command handler.
@@ -145,7 +190,10 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         }
 
         HttpResponseStatus status = response.isSuccess() ? OK : BAD_REQUEST;
+        writeFullResponse(status, body, ctx);
+    }
 
+    private void writeFullResponse(HttpResponseStatus status, byte[] body, ChannelHandlerContext ctx) {
         FullHttpResponse httpResponse = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status,
             Unpooled.copiedBuffer(body));
 
@@ -165,6 +213,98 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
         ctx.writeAndFlush(Unpooled.EMPTY_BUFFER).addListener(ChannelFutureListener.CLOSE);
     }
 
+    private void submitStreamingResponse(final StreamingResult result, final ChannelHandlerContext ctx,
+                                         final boolean gzip) {
+        try {
+            STREAMING_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (!ctx.channel().isActive()) {
+                        // The client has gone while the response was queued.
+                        return;
+                    }
+                    try {
+                        writeStreamingResponse(result, ctx, gzip);
+                    } catch (Exception ex) {
+                        writeErrorResponse(INTERNAL_SERVER_ERROR.code(), SERVER_ERROR_MESSAGE, ctx);
+                        CommandCenterLog.warn("Internal error", ex);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Never happens as the queue is unbounded.
+            writeErrorResponse(SERVICE_UNAVAILABLE.code(), "Too many responses are being streamed", ctx);
+        }
+    }
+
+    /**
+     * A small result is still sent as a whole. Otherwise the pieces are written to the channel while the result
+     * is being written. This runs in a streaming thread rather than the I/O thread, so that the writer could wait
+     * while the channel is not writable (i.e. the client can't receive the pieces in time).
+     */
+    private void writeStreamingResponse(StreamingResult result, final ChannelHandlerContext ctx, boolean gzip)
+        throws Exception {
+        Charset charset = Charset.forName(SentinelConfig.charset());
+        StreamingBodyOutputStream out = new StreamingBodyOutputStream(StreamingBodyOutputStream.DEFAULT_BUFFER_SIZE,
+            gzip) {
+            @Override
+            protected OutputStream startStreaming(boolean gzip) {
+                HttpResponse httpResponse = new DefaultHttpResponse(HttpVersion.HTTP_1_1, OK);
+                httpResponse.headers().set("Content-Type", "text/plain; charset=" + SentinelConfig.charset());
+                HttpUtil.setTransferEncodingChunked(httpResponse, true);
+                if (gzip) {
+                    httpResponse.headers().set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.GZIP);
+                }
+                httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+                ctx.write(httpResponse);
+                ChunkOutputStream chunkOut = new ChunkOutputStream(ctx);
+                streamingOut = chunkOut;
+                return chunkOut;
+            }
+        };
+        try {
+            Writer writer = new OutputStreamWriter(out, charset);
+            result.writeTo(writer);
+            writer.flush();
+            if (!out.finish()) {
+                writeFullResponse(OK, out.toByteArray(), ctx);
+            }
+        } catch (Exception ex) {
+            if (!out.isStreaming()) {
+                throw ex;
+            }
+            // The header has been sent, the client can only tell the failure by the closed connection.
+            CommandCenterLog.warn("Error when streaming the response", ex);
+            ctx.close();
+        } finally {
+            streamingOut = null;
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        wakeUpStreaming();
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        wakeUpStreaming();
+        super.channelInactive(ctx);
+    }
+
+    private void wakeUpStreaming() {
+        ChunkOutputStream out = streamingOut;
+        if (out != null) {
+            out.wakeUp();
+        }
+    }
+
+    private static boolean acceptGzip(FullHttpRequest request) {
+        String acceptEncoding = request.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
     private CommandRequest parseRequest(FullHttpRequest request) {
         QueryStringDecoder queryStringDecoder = new QueryStringDecoder(request.uri());
         CommandRequest serverRequest = new CommandRequest();
@@ -245,4 +385,64 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
     }
 
     private static final String SERVER_ERROR_MESSAGE = "Command server error";
+
+    /**
+     * Writes every piece of the body as an HTTP chunk.
+     */
+    private static final class ChunkOutputStream extends OutputStream {
+
+        private final ChannelHandlerContext ctx;
+
+        ChunkOutputStream(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte)b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > 0) {
+                awaitWritable();
+                ctx.writeAndFlush(new DefaultHttpContent(Unpooled.copiedBuffer(b, off, len)));
+            }
+        }
+
+        @Override
+        public void close() {
+            ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT).addListener(ChannelFutureListener.CLOSE);
+        }
+
+        private void awaitWritable() throws IOException {
+            Channel channel = ctx.channel();
+            // Never block the I/O thread, which is the one making the channel writable again.
+            if (channel.isWritable() || ctx.executor().inEventLoop()) {
+                return;
+            }
+            long deadline = System.currentTimeMillis() + STREAMING_WRITE_TIMEOUT_MS;
+            synchronized (this) {
+                while (!channel.isWritable()) {
+                    if (!channel.isActive()) {
+                        throw new IOException("Connection closed");
+                    }
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        throw new IOException("Timed out waiting for the client to receive the response");
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+            }
+        }
+
+        synchronized void wakeUp() {
+            notifyAll();
+        }
+    }
 }
@@ -16,6 +16,10 @@
 package com.alibaba.csp.sentinel.transport.command.netty;
 
 import com.alibaba.csp.sentinel.Constants;
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.init.InitExecutor;
 import com.alibaba.csp.sentinel.slots.block.RuleConstant;
@@ -33,16 +37,27 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
 
 import static io.netty.handler.codec.http.HttpResponseStatus.BAD_REQUEST;
 import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Test cases for {@link HttpServerHandler}.
@@ -174,6 +189,105 @@ public class HttpServerHandlerTest {
         processSuccess(httpRequestStr, expectedBody);
     }
 
+    @Test
+    public void testFetchActiveRuleCommandStreaming() throws Exception {
+        List<FlowRule> rules = new ArrayList<FlowRule>();
+        for (int i = 0; i < 1000; i++) {
+            FlowRule rule = new FlowRule();
+            rule.setResource("key" + i);
+            rule.setCount(20);
+            rule.setGrade(RuleConstant.FLOW_GRADE_QPS);
+            rule.setLimitApp("default");
+            rules.add(rule);
+        }
+        FlowRuleManager.loadRules(rules);
+
+        String httpRequestStr = "GET /getRules?type=flow HTTP/1.1" + CRLF
+                              + "Host: localhost:8719" + CRLF
+                              + "Accept-Encoding: gzip, deflate" + CRLF
+                              + CRLF;
+        embeddedChannel.writeInbound(Unpooled.wrappedBuffer(httpRequestStr.getBytes(SENTINEL_CHARSET)));
+        awaitResponse();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        ByteBuf byteBuf;
+        while ((byteBuf = embeddedChannel.readOutbound()) != null) {
+            byte[] bytes = new byte[byteBuf.readableBytes()];
+            byteBuf.readBytes(bytes);
+            raw.write(bytes);
+            byteBuf.release();
+        }
+
+        InputStream in = new ByteArrayInputStream(raw.toByteArray());
+        assertEquals(HttpVersion.HTTP_1_1 + " " + OK, readLine(in));
+        List<String> headers = new ArrayList<String>();
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            headers.add(line.toLowerCase());
+        }
+        assertTrue(headers.contains("transfer-encoding: chunked"));
+        assertTrue(headers.contains("content-encoding: gzip"));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int size;
+        while ((size = Integer.parseInt(readLine(in), 16)) > 0) {
+            byte[] chunk = new byte[size];
+            assertEquals(size, in.read(chunk));
+            body.write(chunk);
+            readLine(in);
+        }
+        InputStream bodyIn = new GZIPInputStream(new ByteArrayInputStream(body.toByteArray()));
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        int n;
+        while ((n = bodyIn.read(buf)) > 0) {
+            text.write(buf, 0, n);
+        }
+        assertEquals(JSON.toJSONString(FlowRuleManager.getRules()), text.toString(SENTINEL_CHARSET_NAME));
+    }
+
+    @Test
+    public void testConcurrentStreamingResponsesAreQueued() throws Exception {
+        final CountDownLatch released = new CountDownLatch(1);
+        HttpServer.handlerMap.put("testBlockingStream", new CommandHandler<StreamingResult>() {
+            @Override
+            public CommandResponse<StreamingResult> handle(CommandRequest request) {
+                return CommandResponse.<StreamingResult>ofSuccess(new StreamingResult() {
+                    @Override
+                    public void writeTo(Writer writer) throws IOException {
+                        try {
+                            released.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            throw new InterruptedIOException();
+                        }
+                        writer.write("released");
+                    }
+                });
+            }
+        });
+        String httpRequestStr = "GET /testBlockingStream HTTP/1.1" + CRLF
+                              + "Host: localhost:8719" + CRLF
+                              + CRLF;
+        // More responses than the streaming threads, e.g. several dashboards fetching at the same time.
+        List<EmbeddedChannel> channels = new ArrayList<EmbeddedChannel>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                EmbeddedChannel channel = new EmbeddedChannel(new HttpRequestDecoder(),
+                    new HttpObjectAggregator(1024 * 1024), new HttpResponseEncoder(), new HttpServerHandler());
+                channel.writeInbound(Unpooled.wrappedBuffer(httpRequestStr.getBytes(SENTINEL_CHARSET)));
+                channels.add(channel);
+            }
+            released.countDown();
+            for (EmbeddedChannel channel : channels) {
+                embeddedChannel = channel;
+                String responseStr = readResponse();
+                assertStatusAndBody(OK, "released", responseStr);
+            }
+        } finally {
+            released.countDown();
+            HttpServer.handlerMap.remove("testBlockingStream");
+        }
+    }
+
     /**
      * {@link MultipleSlashNameCommandTestHandler}
      *
@@ -213,6 +327,11 @@ public class HttpServerHandlerTest {
 
     private String processResponse(String httpRequestStr) {
         embeddedChannel.writeInbound(Unpooled.wrappedBuffer(httpRequestStr.getBytes(SENTINEL_CHARSET)));
+        return readResponse();
+    }
+
+    private String readResponse() {
+        awaitResponse();
 
         StringBuilder sb = new StringBuilder();
 
@@ -224,6 +343,29 @@ public class HttpServerHandlerTest {
         return sb.toString();
     }
 
+    /**
+     * Streaming results are written in another thread, and the channel is closed once the response is written.
+     */
+    private void awaitResponse() {
+        // Can't block on the close future, as the embedded event loop is the current thread.
+        long deadline = System.currentTimeMillis() + 5000;
+        while (embeddedChannel.isOpen()) {
+            assertTrue("Response not written in time", System.currentTimeMillis() < deadline);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private static String readLine(InputStream in) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (b != '\r') {
+                sb.append((char)b);
+            }
+        }
+        return sb.toString();
+    }
+
     private void assertErrorStatusAndBody(HttpResponseStatus status, String expectedBody, String httpResponseStr) {
         StringBuilder text = new StringBuilder();
         text.append(HttpVersion.HTTP_1_1.toString()).append(' ').append(status.toString()).append(CRLF);
@@ -16,9 +16,11 @@
 package com.alibaba.csp.sentinel.transport.command;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -37,11 +39,17 @@ import com.alibaba.csp.sentinel.concurrent.NamedThreadFactory;
 import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
 import com.alibaba.csp.sentinel.transport.CommandCenter;
 import com.alibaba.csp.sentinel.transport.command.http.HttpEventTask;
+import com.alibaba.csp.sentinel.transport.command.http.NioHttpServer;
 import com.alibaba.csp.sentinel.transport.config.TransportConfig;
 import com.alibaba.csp.sentinel.util.StringUtil;
 
 /***
  * The simple command center provides service to exchange information.
+ * <p>
+ * Connections are served by a non-blocking {@link NioHttpServer} by default. The former blocking server, which
+ * reads every connection with a thread of the business executor, is used if
+ * {@link TransportConfig#SERVER_NIO_ENABLED} is false.
+ * </p>
  *
  * @author youji.zj
  */
@@ -61,6 +69,7 @@ public class SimpleHttpCommandCenter implements CommandCenter {
     private ExecutorService bizExecutor;
 
     private ServerSocket socketReference;
+    private volatile NioHttpServer nioServer;
 
     @Override
     @SuppressWarnings("rawtypes")
@@ -72,9 +81,13 @@ public class SimpleHttpCommandCenter implements CommandCenter {
 
     @Override
     public void start() throws Exception {
+        final boolean nioEnabled = TransportConfig.isServerNioEnabled();
+        final int maxConcurrency = TransportConfig.getServerMaxConcurrency();
         int nThreads = Runtime.getRuntime().availableProcessors();
+        // The NIO server never submits more commands than the max concurrency.
+        int queueSize = nioEnabled ? maxConcurrency : 10;
         this.bizExecutor = new ThreadPoolExecutor(nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
-            new ArrayBlockingQueue<Runnable>(10),
+            new ArrayBlockingQueue<Runnable>(queueSize),
             new NamedThreadFactory("sentinel-command-center-service-executor", true),
             new RejectedExecutionHandler() {
                 @Override
@@ -97,6 +110,10 @@ public class SimpleHttpCommandCenter implements CommandCenter {
 
             @Override
             public void run() {
+                if (nioEnabled) {
+                    startNioServer();
+                    return;
+                }
                 boolean success = false;
                 ServerSocket serverSocket = getServerSocketFromBasePort(port);
 
@@ -118,6 +135,29 @@ public class SimpleHttpCommandCenter implements CommandCenter {
                 executor.shutdown();
             }
 
+            private void startNioServer() {
+                ServerSocketChannel serverChannel = getServerChannelFromBasePort(port);
+                NioHttpServer server = null;
+                if (serverChannel != null) {
+                    try {
+                        server = new NioHttpServer(serverChannel, bizExecutor, maxConcurrency);
+                    } catch (IOException e) {
+                        CommandCenterLog.warn("[CommandCenter] Failed to create the NIO server", e);
+                        closeQuietly(serverChannel);
+                    }
+                }
+                if (server != null) {
+                    port = server.getLocalPort();
+                    CommandCenterLog.info("[CommandCenter] Begin listening at port " + port + " (NIO)");
+                    nioServer = server;
+                    executor.submit(server);
+                } else {
+                    CommandCenterLog.info("[CommandCenter] chooses port fail, http command center will not work");
+                    port = PORT_UNINITIALIZED;
+                }
+                TransportConfig.setRuntimePort(port);
+                executor.shutdown();
+            }
         };
 
         new Thread(serverInitTask).start();
@@ -149,8 +189,50 @@ public class SimpleHttpCommandCenter implements CommandCenter {
         return null;
     }
 
+    /**
+     * Get a bound server channel from an available port from a base port, like
+     * {@link #getServerSocketFromBasePort(int)}.
+     *
+     * @param basePort base port to start
+     * @return new server channel with available port
+     */
+    private static ServerSocketChannel getServerChannelFromBasePort(int basePort) {
+        int tryCount = 0;
+        while (true) {
+            ServerSocketChannel channel = null;
+            try {
+                channel = ServerSocketChannel.open();
+                channel.socket().setReuseAddress(true);
+                channel.socket().bind(new InetSocketAddress(basePort + tryCount / 3), 100);
+                return channel;
+            } catch (IOException e) {
+                closeQuietly(channel);
+                tryCount++;
+                try {
+                    TimeUnit.MILLISECONDS.sleep(30);
+                } catch (InterruptedException e1) {
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void closeQuietly(ServerSocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
     @Override
     public void stop() throws Exception {
+        if (nioServer != null) {
+            nioServer.close();
+            nioServer = null;
+        }
         if (socketReference != null) {
             try {
                 socketReference.close();
@@ -0,0 +1,107 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+import com.alibaba.csp.sentinel.transport.util.StreamingBodyOutputStream;
+
+/**
+ * Body of a streaming response of the simple HTTP command center. The body is sent with
+ * {@code Transfer-Encoding: chunked} to HTTP/1.1 clients, or delimited by closing the connection for
+ * HTTP/1.0 clients which don't support chunks.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+abstract class ChunkedResponseOutputStream extends StreamingBodyOutputStream {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] LAST_CHUNK = {'0', '\r', '\n', '\r', '\n'};
+
+    private final Charset charset;
+    private final boolean http10;
+    private final boolean keepAlive;
+
+    ChunkedResponseOutputStream(Charset charset, boolean http10, boolean keepAlive, boolean acceptGzip) {
+        super(DEFAULT_BUFFER_SIZE, acceptGzip);
+        this.charset = charset;
+        this.http10 = http10;
+        this.keepAlive = keepAlive && !http10;
+    }
+
+    /**
+     * Send the bytes to the client, the array is not modified afterwards.
+     */
+    protected abstract void send(byte[] bytes) throws IOException;
+
+    /**
+     * @return whether the connection can be reused after a streamed body
+     */
+    boolean isKeepAlive() {
+        return keepAlive;
+    }
+
+    @Override
+    protected OutputStream startStreaming(boolean gzip) throws IOException {
+        StringBuilder head = new StringBuilder(160)
+            .append(http10 ? "HTTP/1.0 " : "HTTP/1.1 ").append(StatusCode.OK.toString()).append("\r\n")
+            .append("Content-Type: text/plain; charset=").append(charset.name()).append("\r\n");
+        if (!http10) {
+            head.append("Transfer-Encoding: chunked\r\n");
+        }
+        if (gzip) {
+            head.append("Content-Encoding: gzip\r\n");
+        }
+        head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        send(head.toString().getBytes(charset));
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte)b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return;
+                }
+                if (http10) {
+                    byte[] bytes = new byte[len];
+                    System.arraycopy(b, off, bytes, 0, len);
+                    send(bytes);
+                    return;
+                }
+                byte[] size = Integer.toHexString(len).getBytes(charset);
+                byte[] chunk = new byte[size.length + len + 4];
+                System.arraycopy(size, 0, chunk, 0, size.length);
+                System.arraycopy(CRLF, 0, chunk, size.length, 2);
+                System.arraycopy(b, off, chunk, size.length + 2, len);
+                System.arraycopy(CRLF, 0, chunk, size.length + 2 + len, 2);
+                send(chunk);
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!http10) {
+                    send(LAST_CHUNK);
+                }
+            }
+        };
+    }
+}
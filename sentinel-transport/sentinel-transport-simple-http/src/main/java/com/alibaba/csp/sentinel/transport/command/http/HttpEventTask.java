@@ -18,6 +18,7 @@ package com.alibaba.csp.sentinel.transport.command.http;
 import com.alibaba.csp.sentinel.command.CommandHandler;
 import com.alibaba.csp.sentinel.command.CommandRequest;
 import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
 import com.alibaba.csp.sentinel.config.SentinelConfig;
 import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
 import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
@@ -34,6 +35,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.UnsupportedEncodingException;
+import java.io.Writer;
 import java.net.Socket;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
@@ -75,7 +77,7 @@ public class HttpEventTask implements Runnable {
         try {
             long start = System.currentTimeMillis();
             inputStream = new BufferedInputStream(socket.getInputStream());
-            OutputStream outputStream = socket.getOutputStream();
+            final OutputStream outputStream = socket.getOutputStream();
 
             printWriter = new PrintWriter(
                 new OutputStreamWriter(outputStream, Charset.forName(SentinelConfig.charset())));
@@ -101,7 +103,7 @@ public class HttpEventTask implements Runnable {
             CommandHandler<?> commandHandler = SimpleHttpCommandCenter.getHandler(commandName);
             if (commandHandler != null) {
                 CommandResponse<?> response = commandHandler.handle(request);
-                handleResponse(response, printWriter);
+                handleResponse(response, printWriter, outputStream);
             } else {
                 // No matching command handler.
                 writeResponse(printWriter, StatusCode.BAD_REQUEST, "Unknown command `" + commandName + '`');
@@ -223,7 +225,7 @@ public class HttpEventTask implements Runnable {
         }
     }
 
-    private static boolean checkContentTypeSupported(String contentType) {
+    static boolean checkContentTypeSupported(String contentType) {
         int idx = contentType.indexOf(";");
         String type;
         if (idx > 0) {
@@ -302,12 +304,17 @@ public class HttpEventTask implements Runnable {
         }
     }
 
-    private <T> void handleResponse(CommandResponse<T> response, final PrintWriter printWriter) throws Exception {
+    private <T> void handleResponse(CommandResponse<T> response, final PrintWriter printWriter,
+                                    OutputStream outputStream) throws Exception {
         if (response.isSuccess()) {
             if (response.getResult() == null) {
                 writeResponse(printWriter, StatusCode.OK, null);
                 return;
             }
+            if (response.getResult() instanceof StreamingResult) {
+                writeStreamingResponse((StreamingResult)response.getResult(), printWriter, outputStream);
+                return;
+            }
             // Here we directly use `toString` to encode the result to plain text.
             byte[] buffer = response.getResult().toString().getBytes(SentinelConfig.charset());
             writeResponse(printWriter, StatusCode.OK, new String(buffer));
@@ -320,6 +327,30 @@ public class HttpEventTask implements Runnable {
         }
     }
 
+    /**
+     * The response is sent as a whole if it's small, otherwise its body is written to the socket while the
+     * result is being written, and delimited by closing the connection.
+     */
+    private void writeStreamingResponse(StreamingResult result, PrintWriter printWriter,
+                                        final OutputStream outputStream) throws IOException {
+        Charset charset = Charset.forName(SentinelConfig.charset());
+        ChunkedResponseOutputStream out = new ChunkedResponseOutputStream(charset, true, false, false) {
+            @Override
+            protected void send(byte[] bytes) throws IOException {
+                writtenHead = true;
+                outputStream.write(bytes);
+            }
+        };
+        Writer writer = new OutputStreamWriter(out, charset);
+        result.writeTo(writer);
+        writer.flush();
+        if (out.finish()) {
+            outputStream.flush();
+            return;
+        }
+        writeResponse(printWriter, StatusCode.OK, new String(out.toByteArray(), charset));
+    }
+
     private void writeResponse(PrintWriter out, StatusCode statusCode, String message) {
         out.print("HTTP/1.0 " + statusCode.toString() + "\r\n"
             + "Content-Length: " + (message == null ? 0 : message.getBytes().length) + "\r\n"
@@ -0,0 +1,293 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.transport.command.exception.RequestException;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * State of a connection of {@link NioHttpServer}, only accessed by the selector thread. Requests are parsed from
+ * the buffered bytes one at a time, so pipelined requests are answered in order. A streaming response arrives
+ * piece by piece, and every piece written to the socket gives a permit back to the command handler.
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+final class NioHttpConnection {
+
+    static final int MAX_HEADER_SIZE = 16 * 1024;
+    /**
+     * Commands only carry small bodies (e.g. rules), and every connection may buffer a whole request.
+     */
+    static final int MAX_BODY_SIZE = 64 * 1024;
+
+    private static final int INITIAL_BUFFER_SIZE = 2048;
+
+    private final SocketChannel channel;
+    private final SelectionKey key;
+    private final Charset charset = Charset.forName(SentinelConfig.charset());
+
+    private ByteBuffer in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private final ArrayDeque<ByteBuffer> out = new ArrayDeque<ByteBuffer>();
+    private Semaphore writePermits;
+    private boolean closeAfterWrite = false;
+
+    /**
+     * Whether a request is being handled, no more request is parsed until its response is written.
+     */
+    boolean processing = false;
+    long lastActiveMillis;
+    /**
+     * When the first byte of the pending request arrived, or -1 if no bytes are pending.
+     */
+    long requestStartMillis = -1;
+
+    NioHttpConnection(SocketChannel channel, SelectionKey key, long now) {
+        this.channel = channel;
+        this.key = key;
+        this.lastActiveMillis = now;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    SelectionKey getKey() {
+        return key;
+    }
+
+    /**
+     * Read available bytes, the buffer grows if it's full.
+     *
+     * @return count of bytes read, or -1 if the peer has closed the connection
+     */
+    int read(long now) throws IOException {
+        if (!in.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(in.capacity() * 2, MAX_HEADER_SIZE + MAX_BODY_SIZE));
+            in.flip();
+            larger.put(in);
+            in = larger;
+        }
+        int n = channel.read(in);
+        if (n > 0) {
+            lastActiveMillis = now;
+            if (requestStartMillis < 0) {
+                requestStartMillis = now;
+            }
+        }
+        return n;
+    }
+
+    boolean hasPendingBytes() {
+        return in.position() > 0;
+    }
+
+    /**
+     * Parse the next request in the buffered bytes.
+     *
+     * @return the request, or null if the request is incomplete
+     * @throws RequestException if the request is illegal, the connection can't be reused then
+     */
+    Request parse() throws RequestException {
+        int limit = in.position();
+        int headerEnd = findHeaderEnd(limit);
+        if (headerEnd < 0) {
+            if (limit > MAX_HEADER_SIZE) {
+                throw new RequestException(StatusCode.REQUEST_ENTITY_TOO_LARGE, "Request header too large");
+            }
+            return null;
+        }
+        byte[] bytes = in.array();
+        String[] lines = new String(bytes, 0, headerEnd, charset).split("\n");
+        String requestLine = null;
+        Map<String, String> headers = new HashMap<String, String>(8);
+        for (String line : lines) {
+            line = line.trim();
+            if (line.length() == 0) {
+                continue;
+            }
+            if (requestLine == null) {
+                requestLine = line;
+                continue;
+            }
+            int index = line.indexOf(':');
+            if (index < 1) {
+                continue;
+            }
+            headers.put(line.substring(0, index).trim().toLowerCase(), line.substring(index + 1).trim());
+        }
+
+        boolean post = requestLine.length() > 4 && StringUtil.equalsIgnoreCase("POST", requestLine.substring(0, 4));
+        int bodyLength = parseContentLength(headers.get("content-length"));
+        if (post) {
+            String contentType = headers.get("content-type");
+            if (contentType != null && !HttpEventTask.checkContentTypeSupported(contentType)) {
+                throw new RequestException(StatusCode.UNSUPPORTED_MEDIA_TYPE,
+                    "Only form-encoded post request is supported");
+            }
+            if (bodyLength < 1) {
+                throw new RequestException(StatusCode.LENGTH_REQUIRED, "No legal Content-Length");
+            }
+        }
+        if (bodyLength > MAX_BODY_SIZE) {
+            throw new RequestException(StatusCode.REQUEST_ENTITY_TOO_LARGE, "Request body too large");
+        }
+        bodyLength = Math.max(bodyLength, 0);
+        if (limit < headerEnd + bodyLength) {
+            return null;
+        }
+
+        CommandRequest request = HttpEventTask.processQueryString(requestLine);
+        if (post) {
+            HttpEventTask.parseParams(new String(bytes, headerEnd, bodyLength, charset), request);
+        }
+        consume(headerEnd + bodyLength);
+
+        boolean http10 = requestLine.endsWith("HTTP/1.0");
+        String connection = headers.get("connection");
+        boolean keepAlive = http10 ? "keep-alive".equalsIgnoreCase(connection)
+            : !"close".equalsIgnoreCase(connection);
+        String acceptEncoding = headers.get("accept-encoding");
+        boolean acceptGzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        return new Request(requestLine, request, http10, keepAlive, acceptGzip);
+    }
+
+    /**
+     * @return position after the empty line ending the header, or -1 if the header is incomplete
+     */
+    private int findHeaderEnd(int limit) {
+        int lineStart = 0;
+        boolean hasContent = false;
+        for (int i = 0; i < limit; i++) {
+            if (in.get(i) != '\n') {
+                continue;
+            }
+            int lineLength = i - lineStart;
+            if (lineLength > 0 && in.get(i - 1) == '\r') {
+                lineLength--;
+            }
+            if (lineLength == 0 && hasContent) {
+                return i + 1;
+            }
+            hasContent |= lineLength > 0;
+            lineStart = i + 1;
+        }
+        return -1;
+    }
+
+    private static int parseContentLength(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private void consume(int length) {
+        in.flip();
+        in.position(length);
+        in.compact();
+        if (in.position() == 0 && in.capacity() > INITIAL_BUFFER_SIZE) {
+            // Release the large buffer of a large request.
+            in = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+    }
+
+    void setResponse(ByteBuffer response, boolean closeAfterWrite) {
+        addResponse(response, closeAfterWrite, null);
+    }
+
+    /**
+     * Append a response, or a piece of a streaming response.
+     *
+     * @param writePermits released once the piece is written, or null if it's not a streaming piece
+     */
+    void addResponse(ByteBuffer response, boolean closeAfterWrite, Semaphore writePermits) {
+        this.out.add(response);
+        this.closeAfterWrite |= closeAfterWrite;
+        this.writePermits = writePermits;
+    }
+
+    boolean hasResponse() {
+        return !out.isEmpty();
+    }
+
+    boolean isCloseAfterWrite() {
+        return closeAfterWrite;
+    }
+
+    /**
+     * Write the pending responses as far as possible.
+     *
+     * @return true if all the responses are completely written
+     */
+    boolean flush(long now) throws IOException {
+        ByteBuffer buffer;
+        while ((buffer = out.peek()) != null) {
+            if (channel.write(buffer) > 0) {
+                lastActiveMillis = now;
+            }
+            if (buffer.hasRemaining()) {
+                return false;
+            }
+            out.poll();
+            if (writePermits != null) {
+                writePermits.release();
+            }
+        }
+        return true;
+    }
+
+    void close() {
+        key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    static final class Request {
+        final String requestLine;
+        final CommandRequest commandRequest;
+        final boolean http10;
+        final boolean keepAlive;
+        final boolean acceptGzip;
+
+        Request(String requestLine, CommandRequest commandRequest, boolean http10, boolean keepAlive,
+                boolean acceptGzip) {
+            this.requestLine = requestLine;
+            this.commandRequest = commandRequest;
+            this.http10 = http10;
+            this.keepAlive = keepAlive;
+            this.acceptGzip = acceptGzip;
+        }
+    }
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
+import com.alibaba.csp.sentinel.config.SentinelConfig;
+import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
+import com.alibaba.csp.sentinel.transport.command.exception.RequestException;
+import com.alibaba.csp.sentinel.transport.log.CommandCenterLog;
+import com.alibaba.csp.sentinel.transport.util.HttpCommandUtils;
+import com.alibaba.csp.sentinel.util.AssertUtil;
+import com.alibaba.csp.sentinel.util.StringUtil;
+
+/**
+ * A non-blocking HTTP server of the command center. A single selector thread accepts connections, reads
+ * requests and writes responses, and only command handlers run on the business executor, so slow or idle
+ * clients never occupy a thread.
+ * <p>
+ * Connections are kept alive as HTTP/1.1 defines, pipelined requests are answered in order. Responses are
+ * compressed with gzip if the client accepts it. A large {@link StreamingResult} is sent in chunks while it's
+ * being written, at most {@link #MAX_PENDING_PIECES} pieces are queued for a slow client. Commands beyond the
+ * max concurrency are rejected with {@code 503 Service Unavailable}, and connections beyond the max connection
+ * count are closed once accepted, as each connection may buffer a whole request.
+ * </p>
+ *
+ * @author Eric Zhao
+ * @since 1.8.8
+ */
+public class NioHttpServer implements Runnable {
+
+    /**
+     * A request should be completely received (or a response be completely sent) in 3 seconds,
+     * the same as the timeout of the blocking server.
+     */
+    static final long REQUEST_TIMEOUT_MS = 3000;
+    static final long KEEP_ALIVE_TIMEOUT_MS = 30000;
+    static final int GZIP_MIN_LENGTH = 1024;
+    static final int MAX_PENDING_PIECES = 8;
+    static final int DEFAULT_MAX_CONNECTIONS = 128;
+
+    private static final long SELECT_TIMEOUT_MS = 1000;
+
+    private final ServerSocketChannel serverChannel;
+    private final Selector selector;
+    private final ExecutorService bizExecutor;
+    private final int maxConcurrency;
+    private final int maxConnections;
+    private final Charset charset = Charset.forName(SentinelConfig.charset());
+
+    private final AtomicInteger concurrency = new AtomicInteger();
+    private final Queue<Completion> completions = new ConcurrentLinkedQueue<Completion>();
+
+    private volatile boolean closed = false;
+    private long lastTimeoutCheck = 0;
+
+    /**
+     * @param serverChannel  a bound server channel
+     * @param bizExecutor    executor of the command handlers
+     * @param maxConcurrency max count of commands handled concurrently
+     */
+    public NioHttpServer(ServerSocketChannel serverChannel, ExecutorService bizExecutor, int maxConcurrency)
+        throws IOException {
+        this(serverChannel, bizExecutor, maxConcurrency, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * @param serverChannel  a bound server channel
+     * @param bizExecutor    executor of the command handlers
+     * @param maxConcurrency max count of commands handled concurrently
+     * @param maxConnections max count of open connections
+     */
+    public NioHttpServer(ServerSocketChannel serverChannel, ExecutorService bizExecutor, int maxConcurrency,
+                         int maxConnections) throws IOException {
+        AssertUtil.notNull(serverChannel, "serverChannel cannot be null");
+        AssertUtil.notNull(bizExecutor, "bizExecutor cannot be null");
+        AssertUtil.isTrue(maxConcurrency > 0, "maxConcurrency should be positive");
+        AssertUtil.isTrue(maxConnections > 0, "maxConnections should be positive");
+        this.serverChannel = serverChannel;
+        this.bizExecutor = bizExecutor;
+        this.maxConcurrency = maxConcurrency;
+        this.maxConnections = maxConnections;
+        this.selector = Selector.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        while (!closed) {
+            try {
+                selector.select(SELECT_TIMEOUT_MS);
+                long now = System.currentTimeMillis();
+                processCompletions(now);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    processKey(key, now);
+                }
+                selector.selectedKeys().clear();
+                if (now - lastTimeoutCheck >= SELECT_TIMEOUT_MS) {
+                    closeTimeoutConnections(now);
+                    lastTimeoutCheck = now;
+                }
+            } catch (Throwable e) {
+                if (!closed) {
+                    CommandCenterLog.warn("[NioHttpServer] Selector error", e);
+                }
+            }
+        }
+        closeAll();
+    }
+
+    /**
+     * Stop serving, the selector thread closes all connections and exits.
+     */
+    public void close() {
+        closed = true;
+        selector.wakeup();
+    }
+
+    private void processKey(SelectionKey key, long now) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept(now);
+            return;
+        }
+        NioHttpConnection connection = (NioHttpConnection)key.attachment();
+        try {
+            if (key.isReadable()) {
+                if (connection.read(now) < 0) {
+                    connection.close();
+                    return;
+                }
+            }
+            drive(connection, now);
+        } catch (IOException e) {
+            connection.close();
+        }
+    }
+
+    private void accept(long now) {
+        SocketChannel channel;
+        try {
+            while ((channel = serverChannel.accept()) != null) {
+                // The key of the server channel is registered as well.
+                if (selector.keys().size() > maxConnections) {
+                    CommandCenterLog.info("[NioHttpServer] Connection rejected as too many connections are open: "
+                        + channel.socket().getRemoteSocketAddress());
+                    channel.close();
+                    continue;
+                }
+                try {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+                    key.attach(new NioHttpConnection(channel, key, now));
+                } catch (IOException e) {
+                    CommandCenterLog.info("[NioHttpServer] Failed to register a connection", e);
+                    channel.close();
+                }
+            }
+        } catch (IOException e) {
+            CommandCenterLog.info("[NioHttpServer] Accept error", e);
+        }
+    }
+
+    /**
+     * Write the pending response, and then handle the next buffered request, until it has to wait for the
+     * client or a command handler.
+     */
+    private void drive(NioHttpConnection connection, long now) throws IOException {
+        SelectionKey key = connection.getKey();
+        while (true) {
+            if (connection.hasResponse()) {
+                if (!connection.flush(now)) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (connection.isCloseAfterWrite()) {
+                    connection.close();
+                    return;
+                }
+            }
+            if (connection.processing) {
+                // Stop reading until the response is ready.
+                key.interestOps(0);
+                return;
+            }
+            NioHttpConnection.Request request;
+            try {
+                request = connection.parse();
+            } catch (RequestException e) {
+                connection.setResponse(encodeResponse(e.getStatusCode(), e.getMessage(), false, false, false),
+                    true);
+                continue;
+            }
+            if (request == null) {
+                key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+            connection.requestStartMillis = connection.hasPendingBytes() ? now : -1;
+            dispatch(connection, request);
+        }
+    }
+
+    private void dispatch(NioHttpConnection connection, NioHttpConnection.Request request) {
+        if (concurrency.incrementAndGet() > maxConcurrency) {
+            concurrency.decrementAndGet();
+            rejectRequest(connection, request);
+            return;
+        }
+        connection.processing = true;
+        try {
+            bizExecutor.execute(new CommandTask(connection, request));
+        } catch (RejectedExecutionException e) {
+            concurrency.decrementAndGet();
+            connection.processing = false;
+            rejectRequest(connection, request);
+        }
+    }
+
+    private void rejectRequest(NioHttpConnection connection, NioHttpConnection.Request request) {
+        CommandCenterLog.info("[NioHttpServer] Request rejected as too many commands are being handled: "
+            + request.requestLine);
+        connection.setResponse(encodeResponse(StatusCode.SERVICE_UNAVAILABLE, "Too many concurrent commands",
+            request.http10, request.keepAlive, false), !request.keepAlive);
+    }
+
+    private void processCompletions(long now) {
+        Completion completion;
+        while ((completion = completions.poll()) != null) {
+            NioHttpConnection connection = completion.connection;
+            if (completion.last) {
+                connection.processing = false;
+            }
+            if (!connection.getKey().isValid()) {
+                continue;
+            }
+            if (completion.response == null) {
+                // A streaming response is aborted, the client can only tell it by the closed connection.
+                connection.close();
+                continue;
+            }
+            connection.addResponse(completion.response, completion.close, completion.writePermits);
+            try {
+                drive(connection, now);
+            } catch (IOException e) {
+                connection.close();
+            }
+        }
+    }
+
+    private void closeTimeoutConnections(long now) {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (!(attachment instanceof NioHttpConnection)) {
+                continue;
+            }
+            NioHttpConnection connection = (NioHttpConnection)attachment;
+            if (connection.processing) {
+                continue;
+            }
+            boolean timeout;
+            if (connection.hasResponse()) {
+                timeout = now - connection.lastActiveMillis > REQUEST_TIMEOUT_MS;
+            } else if (connection.requestStartMillis >= 0) {
+                timeout = now - connection.requestStartMillis > REQUEST_TIMEOUT_MS;
+            } else {
+                timeout = now - connection.lastActiveMillis > KEEP_ALIVE_TIMEOUT_MS;
+            }
+            if (timeout) {
+                connection.close();
+            }
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof NioHttpConnection) {
+                ((NioHttpConnection)attachment).close();
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            CommandCenterLog.warn("[NioHttpServer] Error when closing the selector", e);
+        }
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            CommandCenterLog.warn("[NioHttpServer] Error when closing the server channel", e);
+        }
+    }
+
+    private ByteBuffer encodeResponse(StatusCode statusCode, String message, NioHttpConnection.Request request) {
+        return encodeResponse(statusCode, message, request.http10, request.keepAlive, request.acceptGzip);
+    }
+
+    private ByteBuffer encodeResponse(StatusCode statusCode, String message, boolean http10, boolean keepAlive,
+                                      boolean gzip) {
+        byte[] body = message == null ? new byte[0] : message.getBytes(charset);
+        return encodeResponse(statusCode, body, http10, keepAlive, gzip);
+    }
+
+    private ByteBuffer encodeResponse(StatusCode statusCode, byte[] body, boolean http10, boolean keepAlive,
+                                      boolean gzip) {
+        gzip = gzip && body.length >= GZIP_MIN_LENGTH;
+        if (gzip) {
+            body = gzip(body);
+        }
+        StringBuilder head = new StringBuilder(128)
+            .append(http10 ? "HTTP/1.0 " : "HTTP/1.1 ").append(statusCode.toString()).append("\r\n")
+            .append("Content-Type: text/plain; charset=").append(charset.name()).append("\r\n")
+            .append("Content-Length: ").append(body.length).append("\r\n");
+        if (gzip) {
+            head.append("Content-Encoding: gzip\r\n");
+        }
+        head.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n\r\n");
+        byte[] headBytes = head.toString().getBytes(charset);
+        ByteBuffer buffer = ByteBuffer.allocate(headBytes.length + body.length);
+        buffer.put(headBytes).put(body);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 4 + 64);
+        try {
+            GZIPOutputStream out = new GZIPOutputStream(bos);
+            out.write(data);
+            out.close();
+        } catch (IOException e) {
+            // Never happens as it's written to memory.
+            throw new IllegalStateException(e);
+        }
+        return bos.toByteArray();
+    }
+
+    private final class CommandTask implements Runnable {
+
+        private final NioHttpConnection connection;
+        private final NioHttpConnection.Request request;
+        private StreamingOutputStream stream;
+
+        CommandTask(NioHttpConnection connection, NioHttpConnection.Request request) {
+            this.connection = connection;
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            Completion completion;
+            try {
+                ByteBuffer response = handle();
+                // The streamed body of an HTTP/1.0 response is delimited by closing the connection.
+                boolean close = stream != null && stream.isStreaming() ? !stream.isKeepAlive() : !request.keepAlive;
+                completion = new Completion(connection, response, true, close, null);
+            } catch (Throwable e) {
+                if (stream != null && stream.isStreaming()) {
+                    CommandCenterLog.info("[NioHttpServer] Streaming response aborted: " + request.requestLine, e);
+                    completion = new Completion(connection, null, true, true, null);
+                } else {
+                    CommandCenterLog.warn("[NioHttpServer] CommandCenter error", e);
+                    completion = new Completion(connection, encodeResponse(StatusCode.INTERNAL_SERVER_ERROR,
+                        HttpEventTask.SERVER_ERROR_MESSAGE, request), true, !request.keepAlive, null);
+                }
+            } finally {
+                concurrency.decrementAndGet();
+            }
+            completions.offer(completion);
+            selector.wakeup();
+
+            long cost = System.currentTimeMillis() - start;
+            CommandCenterLog.info("[NioHttpServer] Deal a request: " + request.requestLine
+                + ", address: " + remoteAddress() + ", time cost: " + cost + " ms");
+        }
+
+        /**
+         * @return the response, or an empty buffer if the response has been streamed
+         */
+        private ByteBuffer handle() throws IOException {
+            String commandName = HttpCommandUtils.getTarget(request.commandRequest);
+            if (StringUtil.isBlank(commandName)) {
+                return encodeResponse(StatusCode.BAD_REQUEST, HttpEventTask.INVALID_COMMAND_MESSAGE, request);
+            }
+            CommandHandler<?> commandHandler = SimpleHttpCommandCenter.getHandler(commandName);
+            if (commandHandler == null) {
+                return encodeResponse(StatusCode.BAD_REQUEST, "Unknown command `" + commandName + '`', request);
+            }
+            CommandResponse<?> response = commandHandler.handle(request.commandRequest);
+            if (response.isSuccess()) {
+                Object result = response.getResult();
+                if (result instanceof StreamingResult) {
+                    return stream((StreamingResult)result);
+                }
+                return encodeResponse(StatusCode.OK, result == null ? null : result.toString(), request);
+            }
+            String msg = HttpEventTask.SERVER_ERROR_MESSAGE;
+            if (response.getException() != null) {
+                msg = response.getException().getMessage();
+            }
+            return encodeResponse(StatusCode.BAD_REQUEST, msg, request);
+        }
+
+        private ByteBuffer stream(StreamingResult result) throws IOException {
+            stream = new StreamingOutputStream(connection, request);
+            Writer writer = new OutputStreamWriter(stream, charset);
+            result.writeTo(writer);
+            writer.flush();
+            if (stream.finish()) {
+                return ByteBuffer.allocate(0);
+            }
+            return encodeResponse(StatusCode.OK, stream.toByteArray(), request.http10, request.keepAlive,
+                request.acceptGzip);
+        }
+
+        private Object remoteAddress() {
+            try {
+                InetSocketAddress address = (InetSocketAddress)connection.getChannel().getRemoteAddress();
+                return address == null ? null : address.getAddress();
+            } catch (Exception e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Sends every piece of a streaming response to the selector thread, the handler waits if the client is too
+     * slow to receive the pending pieces.
+     */
+    private final class StreamingOutputStream extends ChunkedResponseOutputStream {
+
+        private final NioHttpConnection connection;
+        private final Semaphore writePermits = new Semaphore(MAX_PENDING_PIECES);
+
+        StreamingOutputStream(NioHttpConnection connection, NioHttpConnection.Request request) {
+            super(charset, request.http10, request.keepAlive, request.acceptGzip);
+            this.connection = connection;
+        }
+
+        @Override
+        protected void send(byte[] bytes) throws IOException {
+            try {
+                if (!writePermits.tryAcquire(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    throw new IOException("Timeout when sending the response");
+                }
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+            if (!connection.getKey().isValid()) {
+                throw new IOException("Connection closed");
+            }
+            completions.offer(new Completion(connection, ByteBuffer.wrap(bytes), false, false, writePermits));
+            selector.wakeup();
+        }
+    }
+
+    private static final class Completion {
+        final NioHttpConnection connection;
+        /**
+         * The response or a piece of it, or null if the streaming response is aborted.
+         */
+        final ByteBuffer response;
+        /**
+         * Whether the response is complete, the connection can handle the next request then.
+         */
+        final boolean last;
+        final boolean close;
+        final Semaphore writePermits;
+
+        Completion(NioHttpConnection connection, ByteBuffer response, boolean last, boolean close,
+                   Semaphore writePermits) {
+            this.connection = connection;
+            this.response = response;
+            this.last = last;
+            this.close = close;
+            this.writePermits = writePermits;
+        }
+    }
+}
@@ -26,8 +26,10 @@ public enum StatusCode {
     BAD_REQUEST(400, "Bad Request"),
     REQUEST_TIMEOUT(408, "Request Timeout"),
     LENGTH_REQUIRED(411, "Length Required"),
+    REQUEST_ENTITY_TOO_LARGE(413, "Request Entity Too Large"),
     UNSUPPORTED_MEDIA_TYPE(415, "Unsupported Media Type"),
-    INTERNAL_SERVER_ERROR(500, "Internal Server Error");
+    INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
+    SERVICE_UNAVAILABLE(503, "Service Unavailable");
     
     private int code;
     private String desc;
@@ -0,0 +1,356 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.csp.sentinel.transport.command.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import com.alibaba.csp.sentinel.command.CommandHandler;
+import com.alibaba.csp.sentinel.command.CommandRequest;
+import com.alibaba.csp.sentinel.command.CommandResponse;
+import com.alibaba.csp.sentinel.command.StreamingResult;
+import com.alibaba.csp.sentinel.transport.command.SimpleHttpCommandCenter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eric Zhao
+ */
+public class NioHttpServerTest {
+
+    private static volatile CountDownLatch blockReleased;
+    private static volatile CountDownLatch blockEntered;
+
+    static {
+        SimpleHttpCommandCenter.registerCommand("nioEcho", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                return CommandResponse.ofSuccess("echo " + request.getParam("msg"));
+            }
+        });
+        SimpleHttpCommandCenter.registerCommand("nioLarge", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < 1000; i++) {
+                    sb.append("line ").append(i).append('\n');
+                }
+                return CommandResponse.ofSuccess(sb.toString());
+            }
+        });
+        SimpleHttpCommandCenter.registerCommand("nioStream", new CommandHandler<StreamingResult>() {
+            @Override
+            public CommandResponse<StreamingResult> handle(CommandRequest request) {
+                final int lines = Integer.parseInt(request.getParam("lines"));
+                return CommandResponse.ofSuccess(new StreamingResult() {
+                    @Override
+                    public void writeTo(Writer writer) throws IOException {
+                        for (int i = 0; i < lines; i++) {
+                            writer.write("line " + i + '\n');
+                        }
+                    }
+                });
+            }
+        });
+        SimpleHttpCommandCenter.registerCommand("nioBlock", new CommandHandler<String>() {
+            @Override
+            public CommandResponse<String> handle(CommandRequest request) {
+                blockEntered.countDown();
+                try {
+                    blockReleased.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignore) {
+                }
+                return CommandResponse.ofSuccess("released");
+            }
+        });
+    }
+
+    private ExecutorService executor;
+    private NioHttpServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        blockReleased = new CountDownLatch(1);
+        blockEntered = new CountDownLatch(1);
+        executor = Executors.newFixedThreadPool(4);
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        channel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        server = new NioHttpServer(channel, executor, 1, 3);
+        Thread thread = new Thread(server, "nio-http-server-test");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @After
+    public void tearDown() {
+        blockReleased.countDown();
+        server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testKeepAliveAndPipelining() throws Exception {
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+
+            out.write(bytes("GET /nioEcho?msg=a HTTP/1.1\r\nHost: localhost\r\n\r\n"));
+            Response response = readResponse(in);
+            assertEquals(200, response.status);
+            assertEquals("keep-alive", response.headers.get("connection"));
+            assertEquals("echo a", response.body);
+
+            // Pipelined requests in a single write.
+            out.write(bytes("GET /nioEcho?msg=b HTTP/1.1\r\n\r\n"
+                + "POST /nioEcho HTTP/1.1\r\nContent-Type: application/x-www-form-urlencoded\r\n"
+                + "Content-Length: 5\r\n\r\nmsg=c"
+                + "GET /nioEcho?msg=d HTTP/1.1\r\nConnection: close\r\n\r\n"));
+            assertEquals("echo b", readResponse(in).body);
+            assertEquals("echo c", readResponse(in).body);
+            response = readResponse(in);
+            assertEquals("echo d", response.body);
+            assertEquals("close", response.headers.get("connection"));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    public void testHttp10ClosesByDefault() throws Exception {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(bytes("GET /nioEcho?msg=x HTTP/1.0\r\n\r\n"));
+            Response response = readResponse(socket.getInputStream());
+            assertTrue(response.statusLine.startsWith("HTTP/1.0 200"));
+            assertEquals("echo x", response.body);
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void testGzip() throws Exception {
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            out.write(bytes("GET /nioLarge HTTP/1.1\r\nAccept-Encoding: gzip, deflate\r\n\r\n"));
+            Response response = readResponse(in);
+            assertEquals("gzip", response.headers.get("content-encoding"));
+            assertTrue(response.body.startsWith("line 0\nline 1\n"));
+            assertTrue(response.body.endsWith("line 999\n"));
+
+            // Short responses are not compressed.
+            out.write(bytes("GET /nioEcho?msg=a HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n"));
+            response = readResponse(in);
+            assertNull(response.headers.get("content-encoding"));
+            assertEquals("echo a", response.body);
+        }
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = socket.getInputStream();
+            out.write(bytes("GET /nioStream?lines=100000 HTTP/1.1\r\nAccept-Encoding: gzip\r\n\r\n"));
+            Response response = readResponse(in);
+            assertEquals(200, response.status);
+            assertEquals("chunked", response.headers.get("transfer-encoding"));
+            assertEquals("gzip", response.headers.get("content-encoding"));
+            assertEquals("keep-alive", response.headers.get("connection"));
+            assertTrue(response.body.startsWith("line 0\nline 1\n"));
+            assertTrue(response.body.endsWith("line 99998\nline 99999\n"));
+
+            out.write(bytes("GET /nioStream?lines=100000 HTTP/1.1\r\n\r\n"));
+            response = readResponse(in);
+            assertNull(response.headers.get("content-encoding"));
+            assertTrue(response.body.endsWith("line 99999\n"));
+
+            // Small results are still sent as a whole.
+            out.write(bytes("GET /nioStream?lines=2 HTTP/1.1\r\n\r\n"));
+            response = readResponse(in);
+            assertNull(response.headers.get("transfer-encoding"));
+            assertEquals("line 0\nline 1\n", response.body);
+        }
+        try (Socket socket = connect()) {
+            // HTTP/1.0 doesn't support chunks, the body ends with the connection.
+            socket.getOutputStream().write(bytes("GET /nioStream?lines=100000 HTTP/1.0\r\n\r\n"));
+            Response response = readResponse(socket.getInputStream());
+            assertNull(response.headers.get("transfer-encoding"));
+            assertEquals("close", response.headers.get("connection"));
+            assertTrue(response.body.endsWith("line 99999\n"));
+        }
+    }
+
+    @Test
+    public void testBadRequests() throws Exception {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(bytes("GET /nioUnknown HTTP/1.1\r\n\r\n"));
+            Response response = readResponse(socket.getInputStream());
+            assertEquals(400, response.status);
+            assertEquals("Unknown command `nioUnknown`", response.body);
+        }
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(bytes("POST /nioEcho HTTP/1.1\r\n\r\n"));
+            Response response = readResponse(socket.getInputStream());
+            assertEquals(411, response.status);
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    public void testRejectBeyondMaxConcurrency() throws Exception {
+        try (Socket blocked = connect(); Socket rejected = connect()) {
+            blocked.getOutputStream().write(bytes("GET /nioBlock HTTP/1.1\r\n\r\n"));
+            assertTrue(blockEntered.await(5, TimeUnit.SECONDS));
+
+            rejected.getOutputStream().write(bytes("GET /nioEcho?msg=a HTTP/1.1\r\n\r\n"));
+            assertEquals(503, readResponse(rejected.getInputStream()).status);
+
+            blockReleased.countDown();
+            assertEquals("released", readResponse(blocked.getInputStream()).body);
+            // The connection is still usable.
+            rejected.getOutputStream().write(bytes("GET /nioEcho?msg=b HTTP/1.1\r\n\r\n"));
+            assertEquals("echo b", readResponse(rejected.getInputStream()).body);
+        }
+    }
+
+    @Test
+    public void testRejectBeyondMaxConnections() throws Exception {
+        try (Socket first = connect(); Socket second = connect(); Socket third = connect()) {
+            // Make sure the open connections have been accepted.
+            for (Socket socket : new Socket[] {first, second, third}) {
+                socket.getOutputStream().write(bytes("GET /nioEcho?msg=a HTTP/1.1\r\n\r\n"));
+                assertEquals("echo a", readResponse(socket.getInputStream()).body);
+            }
+            try (Socket rejected = connect()) {
+                assertEquals(-1, rejected.getInputStream().read());
+            }
+            first.getOutputStream().write(bytes("GET /nioEcho?msg=b HTTP/1.1\r\n\r\n"));
+            assertEquals("echo b", readResponse(first.getInputStream()).body);
+        }
+    }
+
+    @Test
+    public void testRejectLargeBody() throws Exception {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(bytes("POST /nioEcho HTTP/1.1\r\nContent-Length: "
+                + (NioHttpConnection.MAX_BODY_SIZE + 1) + "\r\n\r\n"));
+            assertEquals(413, readResponse(socket.getInputStream()).status);
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", server.getLocalPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Response readResponse(InputStream in) throws IOException {
+        Response response = new Response();
+        response.statusLine = readLine(in);
+        response.status = Integer.parseInt(response.statusLine.split(" ")[1]);
+        String line;
+        while ((line = readLine(in)).length() > 0) {
+            int index = line.indexOf(':');
+            response.headers.put(line.substring(0, index).trim().toLowerCase(), line.substring(index + 1).trim());
+        }
+        byte[] body;
+        if ("chunked".equals(response.headers.get("transfer-encoding"))) {
+            ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+            int size;
+            while ((size = Integer.parseInt(readLine(in), 16)) > 0) {
+                chunks.write(readFully(in, size));
+                readLine(in);
+            }
+            readLine(in);
+            body = chunks.toByteArray();
+        } else if (response.headers.containsKey("content-length")) {
+            body = readFully(in, Integer.parseInt(response.headers.get("content-length")));
+        } else {
+            body = readToEnd(in);
+        }
+        InputStream bodyIn = new ByteArrayInputStream(body);
+        if ("gzip".equals(response.headers.get("content-encoding"))) {
+            bodyIn = new GZIPInputStream(bodyIn);
+        }
+        response.body = new String(readToEnd(bodyIn), StandardCharsets.UTF_8);
+        return response;
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        int pos = 0;
+        while (pos < length) {
+            int n = in.read(bytes, pos, length - pos);
+            if (n < 0) {
+                throw new IOException("Unexpected end of the response");
+            }
+            pos += n;
+        }
+        return bytes;
+    }
+
+    private static byte[] readToEnd(InputStream in) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            bos.write(buf, 0, n);
+        }
+        return bos.toByteArray();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (b != '\r') {
+                bos.write(b);
+            }
+        }
+        return new String(bos.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static class Response {
+        String statusLine;
+        int status;
+        Map<String, String> headers = new HashMap<String, String>();
+        String body;
+    }
+}